@@ -0,0 +1,89 @@
+package books.benchmark;
+
+import books.BookPage;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pages of books of the most prolific author of the catalogue, with title ordered author pages
+ * and with sorting of all books of the author on every query. Pages are picked uniformly over the whole bibliography.
+ * Mutation cost of the option is measured by adding and removing a book of the author.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorPageBenchmark extends CatalogueState {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"true", "false"})
+    public boolean authorPages;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    private String author;
+
+    private List<String> authors;
+
+    private int pages;
+
+    private String[] cursors;
+
+    private final Random random = new Random(7);
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = authorPages
+                ? new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES,
+                DefaultBookDatabaseImpl.Option.AUTHOR_PAGES)
+                : new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        int books = 0;
+        for (List<String> bookAuthors : catalogue.authors()) {
+            for (String bookAuthor : bookAuthors) {
+                int size = bookDatabase.queryBookByAuthor(bookAuthor).size();
+                if (size > books) {
+                    books = size;
+                    author = bookAuthor;
+                }
+            }
+        }
+        authors = Collections.singletonList(author);
+        pages = (books + PAGE_SIZE - 1) / PAGE_SIZE;
+        cursors = new String[pages];
+        for (int page = 1; page < pages; page++) {
+            cursors[page] = bookDatabase.queryBooksByAuthorPage(author, page - 1, PAGE_SIZE).getNextCursor();
+        }
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Benchmark
+    public BookPage page() {
+        return bookDatabase.queryBooksByAuthorPage(author, random.nextInt(pages), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public BookPage pageAfterCursor() {
+        return bookDatabase.queryBooksByAuthorAfter(author, cursors[random.nextInt(pages)], PAGE_SIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean addAndRemove() {
+        bookDatabase.addBook("Benchmark title", authors);
+        return bookDatabase.removeBookByTitle("Benchmark title");
+    }
+}
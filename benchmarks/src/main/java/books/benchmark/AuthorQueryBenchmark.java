@@ -0,0 +1,92 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boolean author queries: AND of two skewed authors and OR of many authors,
+ * compared with intersecting and merging sets returned by {@link BookDatabase#queryBookByAuthor(String)}.
+ * Run with "-prof gc" to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorQueryBenchmark extends CatalogueState {
+
+    private static final int QUERIES = 1 << 10;
+
+    @Param({"DEFAULT", "SNAPSHOT", "POSTING_LIST"})
+    public BookDatabaseEngine engine;
+
+    /**
+     * Number of authors of OR query.
+     */
+    @Param("50")
+    public int anyAuthors;
+
+    private BookDatabase bookDatabase;
+
+    private List<List<String>> allQueries;
+
+    private List<List<String>> anyQueries;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Random random = new Random(7);
+        allQueries = new ArrayList<>(QUERIES);
+        anyQueries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            allQueries.add(Arrays.asList(catalogue.randomAuthor(random), catalogue.randomAuthor(random)));
+            List<String> any = new ArrayList<>(anyAuthors);
+            for (int j = 0; j < anyAuthors; j++) {
+                any.add(catalogue.randomAuthor(random));
+            }
+            anyQueries.add(any);
+        }
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Benchmark
+    public void queryBooksByAllAuthors(Blackhole blackhole) {
+        bookDatabase.queryBooksByAllAuthors(allQueries.get(next++ & (QUERIES - 1))).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void retainAllBaseline(Blackhole blackhole) {
+        List<String> authors = allQueries.get(next++ & (QUERIES - 1));
+        Set<Book> books = new HashSet<>(bookDatabase.queryBookByAuthor(authors.get(0)));
+        books.retainAll(bookDatabase.queryBookByAuthor(authors.get(1)));
+        books.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void queryBooksByAnyAuthor(Blackhole blackhole) {
+        bookDatabase.queryBooksByAnyAuthor(anyQueries.get(next++ & (QUERIES - 1))).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void addAllBaseline(Blackhole blackhole) {
+        Set<Book> books = new HashSet<>();
+        for (String author : anyQueries.get(next++ & (QUERIES - 1))) {
+            books.addAll(bookDatabase.queryBookByAuthor(author));
+        }
+        books.forEach(blackhole::consume);
+    }
+}
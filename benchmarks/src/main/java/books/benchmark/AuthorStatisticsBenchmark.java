@@ -0,0 +1,92 @@
+package books.benchmark;
+
+import books.Book;
+import books.DefaultBookDatabaseImpl;
+import books.ProlificAuthor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard queries, top 100 authors, books per author histogram and number of distinct co-author pairs,
+ * answered from author statistics compared with a scan of all authors, and cost of maintaining statistics
+ * on adding and removing a book of two authors.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorStatisticsBenchmark extends CatalogueState {
+
+    private static final int TOP = 100;
+
+    @Param({"true", "false"})
+    public boolean authorStatistics;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    private List<String> distinctAuthors;
+
+    private List<String> authors;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = authorStatistics
+                ? new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES,
+                DefaultBookDatabaseImpl.Option.AUTHOR_STATISTICS)
+                : new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Set<String> names = new LinkedHashSet<>();
+        catalogue.authors().forEach(names::addAll);
+        distinctAuthors = new ArrayList<>(names);
+        authors = Arrays.asList(distinctAuthors.get(0), distinctAuthors.get(1));
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Benchmark
+    public Object dashboard() {
+        if (authorStatistics) {
+            List<ProlificAuthor> top = bookDatabase.queryTopAuthors(TOP);
+            int[] histogram = bookDatabase.queryBooksPerAuthorHistogram();
+            return top.size() + histogram.length + bookDatabase.estimateDistinctCoAuthorPairs();
+        }
+        // scan of every author, as dashboards computed it before
+        PriorityQueue<ProlificAuthor> top = new PriorityQueue<>(Comparator.comparingInt(ProlificAuthor::getBooks));
+        int[] histogram = new int[32];
+        Set<String> pairs = new HashSet<>();
+        for (String author : distinctAuthors) {
+            Set<Book> books = bookDatabase.queryBookByAuthor(author);
+            if (books.isEmpty()) {
+                continue;
+            }
+            top.add(new ProlificAuthor(author, books.size()));
+            if (top.size() > TOP) {
+                top.poll();
+            }
+            histogram[31 - Integer.numberOfLeadingZeros(books.size())]++;
+            for (Book book : books) {
+                for (String coAuthor : book.getAuthors()) {
+                    if (author.compareTo(coAuthor) < 0) {
+                        pairs.add(author + '\u0000' + coAuthor);
+                    }
+                }
+            }
+        }
+        return top.size() + histogram.length + pairs.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean addAndRemove() {
+        bookDatabase.addBook("Benchmark title", authors);
+        return bookDatabase.removeBookByTitle("Benchmark title");
+    }
+}
@@ -0,0 +1,175 @@
+package books.benchmark;
+
+import books.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * All benchmarked BookDatabase implementations.
+ * New engine is compared head-to-head with existing ones just by adding a constant here.
+ */
+public enum BookDatabaseEngine {
+
+    /**
+     * Not thread-safe, used only in single threaded benchmarks.
+     */
+    DEFAULT(false) {
+        @Override
+        public BookDatabase create() {
+            return new DefaultBookDatabaseImpl();
+        }
+    },
+    /**
+     * Default implementation behind one global lock, baseline for multi threaded benchmarks.
+     */
+    SYNCHRONIZED_DEFAULT(true) {
+        @Override
+        public BookDatabase create() {
+            return new SynchronizedBookDatabase(new DefaultBookDatabaseImpl());
+        }
+    },
+    CONCURRENT(true) {
+        @Override
+        public BookDatabase create() {
+            return new ConcurrentBookDatabaseImpl();
+        }
+    },
+    SNAPSHOT(true) {
+        @Override
+        public BookDatabase create() {
+            return new SnapshotBookDatabaseImpl();
+        }
+    },
+    DICTIONARY(false) {
+        @Override
+        public BookDatabase create() {
+            return new DictionaryBookDatabaseImpl();
+        }
+    },
+    POSTING_LIST(false) {
+        @Override
+        public BookDatabase create() {
+            return new PostingListBookDatabaseImpl();
+        }
+    },
+    /**
+     * Four in-process shards, author queries are scattered to all of them.
+     */
+    SHARDED(true) {
+        @Override
+        public BookDatabase create() {
+            return new ShardedBookDatabase(4);
+        }
+    },
+    /**
+     * Catalogue in a temporary memory-mapped file, deleted on exit.
+     */
+    MAPPED(false) {
+        @Override
+        public BookDatabase create() {
+            try {
+                Path file = Files.createTempFile("books", ".catalogue");
+                Files.delete(file);
+                file.toFile().deleteOnExit();
+                return new MappedBookDatabaseImpl(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    private final boolean threadSafe;
+
+    BookDatabaseEngine(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
+
+    /**
+     * @return new empty database
+     */
+    public abstract BookDatabase create();
+
+    /**
+     * @return true if database may be used by many threads at once
+     */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /**
+     * Wraps every call in one monitor.
+     */
+    static final class SynchronizedBookDatabase implements BookDatabase {
+
+        private final BookDatabase delegate;
+
+        SynchronizedBookDatabase(BookDatabase delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+            delegate.init(titlesInitList, authorsInitList);
+        }
+
+        @Override
+        public synchronized boolean addBook(String bookTitle, List<String> authors) {
+            return delegate.addBook(bookTitle, authors);
+        }
+
+        @Override
+        public synchronized boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+            return delegate.addBooks(titles, authors);
+        }
+
+        @Override
+        public synchronized void shutDown() {
+            delegate.shutDown();
+        }
+
+        @Override
+        public synchronized boolean removeBookByTitle(String bookTitle) {
+            return delegate.removeBookByTitle(bookTitle);
+        }
+
+        @Override
+        public synchronized boolean removeBooksByAuthor(String author) {
+            return delegate.removeBooksByAuthor(author);
+        }
+
+        @Override
+        public synchronized Set<Book> queryBookByAuthor(String author) {
+            return delegate.queryBookByAuthor(author);
+        }
+
+        @Override
+        public synchronized List<String> queryAuthorsByBookTitle(String bookTitle) {
+            return delegate.queryAuthorsByBookTitle(bookTitle);
+        }
+
+        @Override
+        public synchronized List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+            return delegate.queryBooksByAuthors(authors);
+        }
+
+        @Override
+        public synchronized List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+            return delegate.queryAuthorsByBookTitles(bookTitles);
+        }
+
+        @Override
+        public synchronized int booksSize() {
+            return delegate.booksSize();
+        }
+
+        @Override
+        public synchronized int authorsSize() {
+            return delegate.authorsSize();
+        }
+    }
+}
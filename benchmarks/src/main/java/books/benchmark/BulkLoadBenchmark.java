@@ -0,0 +1,31 @@
+package books.benchmark;
+
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel bulk load of whole catalogue into an empty {@link DefaultBookDatabaseImpl},
+ * to be compared with {@link InitBenchmark}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark extends CatalogueState {
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup(Level.Invocation)
+    public void createDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+    }
+
+    @Benchmark
+    public int bulkLoad() {
+        return bookDatabase.bulkLoad(catalogue.titles(), catalogue.authors());
+    }
+}
@@ -0,0 +1,115 @@
+package books.benchmark;
+
+import java.util.*;
+
+/**
+ * Synthetic catalogue of books used by benchmarks.
+ * Authors are picked from a fixed pool with Zipfian distribution, so with positive exponent
+ * few "prolific" authors own most of the books while there is a long tail of authors with one or two books.
+ * Exponent equal to zero gives uniform distribution.
+ * Generation is deterministic for a given seed.
+ */
+public final class Catalogue {
+
+    private final List<String> titles;
+
+    private final List<List<String>> authors;
+
+    private final String[] authorNames;
+
+    private final double[] authorsCumulativeDistribution;
+
+    private Catalogue(List<String> titles, List<List<String>> authors, String[] authorNames, double[] authorsCumulativeDistribution) {
+        this.titles = titles;
+        this.authors = authors;
+        this.authorNames = authorNames;
+        this.authorsCumulativeDistribution = authorsCumulativeDistribution;
+    }
+
+    /**
+     * Generates catalogue.
+     *
+     * @param titlesCount       number of unique titles
+     * @param authorsCount      size of the authors pool
+     * @param maxAuthorsPerBook every book gets uniformly from 1 to maxAuthorsPerBook distinct authors
+     * @param zipfExponent      skew of authors distribution, 0 for uniform
+     * @param seed              random seed
+     * @return generated catalogue
+     */
+    public static Catalogue generate(int titlesCount, int authorsCount, int maxAuthorsPerBook, double zipfExponent, long seed) {
+        if (titlesCount < 0 || authorsCount <= 0 || maxAuthorsPerBook <= 0 || maxAuthorsPerBook > authorsCount) {
+            throw new IllegalArgumentException("Wrong catalogue parameters.");
+        }
+        String[] authorNames = new String[authorsCount];
+        for (int i = 0; i < authorsCount; i++) {
+            authorNames[i] = "Author " + i;
+        }
+        double[] cdf = new double[authorsCount];
+        double sum = 0;
+        for (int i = 0; i < authorsCount; i++) {
+            sum += 1.0 / Math.pow(i + 1, zipfExponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < authorsCount; i++) {
+            cdf[i] /= sum;
+        }
+
+        Catalogue catalogue = new Catalogue(new ArrayList<>(titlesCount), new ArrayList<>(titlesCount), authorNames, cdf);
+        Random random = new Random(seed);
+        for (int i = 0; i < titlesCount; i++) {
+            int authorsPerBook = 1 + random.nextInt(maxAuthorsPerBook);
+            List<String> bookAuthors = new ArrayList<>(authorsPerBook);
+            while (bookAuthors.size() < authorsPerBook) {
+                String author = catalogue.randomAuthor(random);
+                if (!bookAuthors.contains(author)) {
+                    bookAuthors.add(author);
+                }
+            }
+            catalogue.titles.add("Title " + i);
+            catalogue.authors.add(bookAuthors);
+        }
+        return catalogue;
+    }
+
+    /**
+     * @return titles, in generation order
+     */
+    public List<String> titles() {
+        return titles;
+    }
+
+    /**
+     * @return authors of every title, in generation order
+     */
+    public List<List<String>> authors() {
+        return authors;
+    }
+
+    /**
+     * @return number of titles
+     */
+    public int size() {
+        return titles.size();
+    }
+
+    /**
+     * Picks author with the same skew as used for generation, so queries hit prolific authors more often.
+     *
+     * @param random source of randomness
+     * @return author name
+     */
+    public String randomAuthor(Random random) {
+        int index = Arrays.binarySearch(authorsCumulativeDistribution, random.nextDouble());
+        return authorNames[Math.min(index < 0 ? -index - 1 : index, authorNames.length - 1)];
+    }
+
+    /**
+     * Picks uniformly one of generated titles.
+     *
+     * @param random source of randomness
+     * @return title index
+     */
+    public int randomTitleIndex(Random random) {
+        return random.nextInt(titles.size());
+    }
+}
@@ -0,0 +1,68 @@
+package books.benchmark;
+
+import books.CatalogueLoader;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming load of whole catalogue from a CSV file into an empty {@link DefaultBookDatabaseImpl},
+ * to be compared with {@link InitBenchmark}, which starts from lists already in memory.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogueLoadBenchmark extends CatalogueState {
+
+    @Param("10000")
+    public int batchSize;
+
+    private Path file;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup
+    public void writeFile() throws IOException {
+        generateCatalogue();
+        file = Files.createTempFile("catalogue", ".csv");
+        file.toFile().deleteOnExit();
+        List<String> titles = catalogue.titles();
+        List<List<String>> authors = catalogue.authors();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < titles.size(); i++) {
+                writer.write(titles.get(i));
+                for (String author : authors.get(i)) {
+                    writer.write(',');
+                    writer.write(author);
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long load() throws IOException {
+        return new CatalogueLoader(bookDatabase, batchSize, CatalogueLoader.DEFAULT_QUEUE_CAPACITY)
+                .load(file, CatalogueLoader.Format.CSV);
+    }
+}
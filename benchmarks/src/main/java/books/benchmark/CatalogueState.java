@@ -0,0 +1,42 @@
+package books.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shape of the generated catalogue, shared by all benchmarks.
+ * Every parameter may be overridden from command line, for example: -p titles=1000000 -p zipfExponent=0.0
+ */
+@State(Scope.Benchmark)
+public class CatalogueState {
+
+    @Param("100000")
+    public int titles;
+
+    @Param("20000")
+    public int authors;
+
+    @Param("3")
+    public int maxAuthorsPerBook;
+
+    /**
+     * Zipfian skew of authors, 0 for uniform, around 1 for "prolific author" catalogues.
+     */
+    @Param("1.0")
+    public double zipfExponent;
+
+    public Catalogue catalogue;
+
+    /**
+     * Generates catalogue once per trial. JMH does not order setup methods of a class and its superclass,
+     * so setup of a subclass which needs the catalogue calls this method first.
+     */
+    @Setup
+    public void generateCatalogue() {
+        if (catalogue == null) {
+            catalogue = Catalogue.generate(titles, authors, maxAuthorsPerBook, zipfExponent, 42);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package books.benchmark;
+
+import books.BookChangeLog;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing changes, a book is added and removed again on a loaded database,
+ * with change log disabled, enabled without subscribers and enabled with a subscriber which never reads.
+ * Score is per mutation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChangeLogBenchmark extends CatalogueState {
+
+    @Param({"DISABLED", "ENABLED", "SUBSCRIBED"})
+    public String changeLog;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    private List<String> authors;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = changeLog.equals("DISABLED")
+                ? new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES)
+                : new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES,
+                DefaultBookDatabaseImpl.Option.CHANGE_LOG);
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        if (changeLog.equals("SUBSCRIBED")) {
+            bookDatabase.changeLog().subscribe(BookChangeLog.OverflowPolicy.SKIP);
+        }
+        authors = Collections.singletonList(catalogue.authors().get(0).get(0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean addAndRemove() {
+        bookDatabase.addBook("Benchmark title", authors);
+        return bookDatabase.removeBookByTitle("Benchmark title");
+    }
+}
@@ -0,0 +1,54 @@
+package books.benchmark;
+
+import books.CoAuthor;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Co-author graph queries on {@link DefaultBookDatabaseImpl}: top co-authors and bounded distance between
+ * two random authors, authors are drawn from the same Zipfian distribution as the catalogue.
+ * For a catalogue with millions of authors run with "-p titles=10000000 -p authors=2000000".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class CoAuthorBenchmark extends CatalogueState {
+
+    @Param("10")
+    public int limit;
+
+    @Param("6")
+    public int maxDistance;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.CO_AUTHOR_GRAPH);
+        bookDatabase.bulkLoad(catalogue.titles(), catalogue.authors());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public List<CoAuthor> topCoAuthors(ThreadRandom threadRandom) {
+        return bookDatabase.queryTopCoAuthors(catalogue.randomAuthor(threadRandom.random), limit);
+    }
+
+    @Benchmark
+    public int coAuthorDistance(ThreadRandom threadRandom) {
+        return bookDatabase.queryCoAuthorDistance(catalogue.randomAuthor(threadRandom.random),
+                catalogue.randomAuthor(threadRandom.random), maxDistance);
+    }
+}
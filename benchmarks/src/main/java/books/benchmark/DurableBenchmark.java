@@ -0,0 +1,68 @@
+package books.benchmark;
+
+import books.DurableBookDatabase;
+import books.WriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mutations per second of {@link DurableBookDatabase} for every fsync policy.
+ * Every invocation removes a random book and adds it back, so one invocation counts as two mutations.
+ * Effect of group commit is visible with more threads, for example "-t 1" compared with "-t 16".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class DurableBenchmark extends CatalogueState {
+
+    @Param({"ALWAYS", "INTERVAL", "NEVER"})
+    public WriteAheadLog.FsyncPolicy policy;
+
+    private Path directory;
+
+    private DurableBookDatabase bookDatabase;
+
+    @Setup
+    public void loadDatabase() throws IOException {
+        directory = Files.createTempDirectory("books-wal");
+        bookDatabase = new DurableBookDatabase(directory, policy);
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+    }
+
+    @TearDown
+    public void deleteDatabase() throws IOException {
+        bookDatabase.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public boolean removeAndAdd(ThreadRandom threadRandom) {
+        int index = catalogue.randomTitleIndex(threadRandom.random);
+        String title = catalogue.titles().get(index);
+        List<String> authors = catalogue.authors().get(index);
+        boolean removed = bookDatabase.removeBookByTitle(title);
+        bookDatabase.init(Collections.singletonList(title), Collections.singletonList(authors));
+        return removed;
+    }
+}
@@ -0,0 +1,75 @@
+package books.benchmark;
+
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap of a loaded database, reported as "retainedBytesPerMillionBooks" secondary result.
+ * Input is copied before every load, so every author occurrence is a separate String as if parsed from a file,
+ * and input copy is unreachable when heap is measured. Only what database retains is counted.
+ * Time score of this benchmark is meaningless, it includes forced garbage collections.
+ * Events counters are summed over iterations, so there is exactly one measurement iteration.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+@State(Scope.Benchmark)
+public class FootprintBenchmark extends CatalogueState {
+
+    @Param({"DEFAULT", "DICTIONARY", "POSTING_LIST"})
+    public BookDatabaseEngine engine;
+
+    private BookDatabase bookDatabase;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long retainedBytesPerMillionBooks;
+    }
+
+    @TearDown(Level.Invocation)
+    public void shutDown() {
+        bookDatabase.shutDown();
+        bookDatabase = null;
+    }
+
+    @Benchmark
+    public BookDatabase load(Footprint footprint) {
+        long before = usedHeapAfterGc();
+        bookDatabase = engine.create();
+        loadCopy(bookDatabase);
+        long retained = usedHeapAfterGc() - before;
+        footprint.retainedBytesPerMillionBooks = retained * 1_000_000L / Math.max(catalogue.size(), 1);
+        return bookDatabase;
+    }
+
+    private void loadCopy(BookDatabase database) {
+        List<String> titles = new ArrayList<>(catalogue.size());
+        List<List<String>> authors = new ArrayList<>(catalogue.size());
+        for (int i = 0; i < catalogue.size(); i++) {
+            titles.add(new String(catalogue.titles().get(i)));
+            List<String> bookAuthors = new ArrayList<>();
+            for (String author : catalogue.authors().get(i)) {
+                bookAuthors.add(new String(author));
+            }
+            authors.add(bookAuthors);
+        }
+        database.init(titles, authors);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,72 @@
+package books.benchmark;
+
+import books.Book;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit and miss paths of {@link DefaultBookDatabaseImpl} queries, with and without
+ * {@link DefaultBookDatabaseImpl.Option#QUIET_MISSES}. Misses are logged at warn level without the option,
+ * so the benchmark JVM enables a console logger at warn level.
+ * Run with "-prof gc", allocation of hit and quiet miss paths must be 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.level=WARN")
+@State(Scope.Benchmark)
+public class HotPathBenchmark extends CatalogueState {
+
+    private static final int KEYS = 1 << 16;
+
+    @Param({"false", "true"})
+    public boolean quietMisses;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    private String[] authorKeys;
+
+    private String[] titleKeys;
+
+    private String[] missingKeys;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = quietMisses ? new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES)
+                : new DefaultBookDatabaseImpl();
+        bookDatabase.bulkLoad(catalogue.titles(), catalogue.authors());
+        Random random = new Random(7);
+        authorKeys = new String[KEYS];
+        titleKeys = new String[KEYS];
+        missingKeys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            authorKeys[i] = catalogue.randomAuthor(random);
+            titleKeys[i] = catalogue.titles().get(catalogue.randomTitleIndex(random));
+            missingKeys[i] = "Missing " + i;
+        }
+    }
+
+    @Benchmark
+    public Set<Book> authorHit() {
+        return bookDatabase.queryBookByAuthor(authorKeys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public List<String> titleHit() {
+        return bookDatabase.queryAuthorsByBookTitle(titleKeys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public List<String> titleMiss() {
+        return bookDatabase.queryAuthorsByBookTitle(missingKeys[next++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,34 @@
+package books.benchmark;
+
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of whole catalogue into an empty database.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InitBenchmark extends CatalogueState {
+
+    @Param({"DEFAULT", "CONCURRENT", "SNAPSHOT", "DICTIONARY", "POSTING_LIST", "MAPPED"})
+    public BookDatabaseEngine engine;
+
+    private BookDatabase bookDatabase;
+
+    @Setup(Level.Invocation)
+    public void createDatabase() {
+        bookDatabase = engine.create();
+    }
+
+    @Benchmark
+    public BookDatabase init() {
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        return bookDatabase;
+    }
+}
@@ -0,0 +1,63 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import books.DefaultBookDatabaseImpl;
+import books.InstrumentedBookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link InstrumentedBookDatabase} on author queries: plain database, enabled and disabled metrics.
+ * Run with "-prof gc" to check that recording does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark extends CatalogueState {
+
+    private static final int KEYS = 1 << 16;
+
+    public enum Metrics {
+        NONE, ENABLED, DISABLED
+    }
+
+    @Param({"NONE", "ENABLED", "DISABLED"})
+    public Metrics metrics;
+
+    private BookDatabase bookDatabase;
+
+    private String[] authorKeys;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        DefaultBookDatabaseImpl database = new DefaultBookDatabaseImpl();
+        database.bulkLoad(catalogue.titles(), catalogue.authors());
+        if (metrics == Metrics.NONE) {
+            bookDatabase = database;
+        } else {
+            InstrumentedBookDatabase instrumented = new InstrumentedBookDatabase(database);
+            instrumented.setEnabled(metrics == Metrics.ENABLED);
+            bookDatabase = instrumented;
+        }
+        Random random = new Random(7);
+        authorKeys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            authorKeys[i] = catalogue.randomAuthor(random);
+        }
+    }
+
+    @Benchmark
+    public Set<Book> queryBookByAuthor() {
+        return bookDatabase.queryBookByAuthor(authorKeys[next++ & (KEYS - 1)]);
+    }
+}
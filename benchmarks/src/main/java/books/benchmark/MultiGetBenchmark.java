@@ -0,0 +1,104 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page rendering pattern: a batch of titles or authors queried one by one compared with one multi-get call.
+ * Scores are per key. Part of title queries misses, engines log misses unless stated otherwise.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiGetBenchmark extends CatalogueState {
+
+    private static final int BATCH = 200;
+
+    private static final int BATCHES = 64;
+
+    @Param({"DEFAULT", "SYNCHRONIZED_DEFAULT", "CONCURRENT", "SNAPSHOT", "SHARDED"})
+    public BookDatabaseEngine engine;
+
+    /**
+     * Percentage of title queries for titles not in database.
+     */
+    @Param("10")
+    public int missPercentage;
+
+    private BookDatabase bookDatabase;
+
+    private List<List<String>> authorBatches;
+
+    private List<List<String>> titleBatches;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Random random = new Random(7);
+        authorBatches = new ArrayList<>(BATCHES);
+        titleBatches = new ArrayList<>(BATCHES);
+        for (int b = 0; b < BATCHES; b++) {
+            List<String> authors = new ArrayList<>(BATCH);
+            List<String> titles = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                authors.add(catalogue.randomAuthor(random));
+                titles.add(random.nextInt(100) < missPercentage ? "Missing " + b + "-" + i
+                        : catalogue.titles().get(catalogue.randomTitleIndex(random)));
+            }
+            authorBatches.add(authors);
+            titleBatches.add(titles);
+        }
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+        if (bookDatabase instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) bookDatabase).close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void individualTitles(Blackhole blackhole) {
+        for (String title : titleBatches.get(next++ & (BATCHES - 1))) {
+            blackhole.consume(bookDatabase.queryAuthorsByBookTitle(title));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<List<String>> multiGetTitles() {
+        return bookDatabase.queryAuthorsByBookTitles(titleBatches.get(next++ & (BATCHES - 1)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void individualAuthors(Blackhole blackhole) {
+        for (String author : authorBatches.get(next++ & (BATCHES - 1))) {
+            blackhole.consume(bookDatabase.queryBookByAuthor(author));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Set<Book>> multiGetAuthors() {
+        return bookDatabase.queryBooksByAuthors(authorBatches.get(next++ & (BATCHES - 1)));
+    }
+}
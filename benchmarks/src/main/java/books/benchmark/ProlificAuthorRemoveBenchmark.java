@@ -0,0 +1,72 @@
+package books.benchmark;
+
+import books.Book;
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removal of one prolific author, added to the generated catalogue with a given number of books,
+ * every book shared with a random catalogue author. Compares bulk {@link DefaultBookDatabaseImpl#removeAuthor(String)}
+ * with the former implementation, a copy of author set and {@link DefaultBookDatabaseImpl#removeBookByTitle(String)}
+ * for every book. Every invocation runs on a freshly loaded database, run with -prof gc to compare allocations.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProlificAuthorRemoveBenchmark extends CatalogueState {
+
+    private static final String PROLIFIC_AUTHOR = "Prolific author";
+
+    @Param({"1000", "50000"})
+    public int authorBooks;
+
+    private List<String> prolificTitles;
+
+    private List<List<String>> prolificAuthors;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup
+    public void generateProlificAuthor() {
+        generateCatalogue();
+        Random random = new Random(42);
+        prolificTitles = new ArrayList<>(authorBooks);
+        prolificAuthors = new ArrayList<>(authorBooks);
+        for (int i = 0; i < authorBooks; i++) {
+            prolificTitles.add(PROLIFIC_AUTHOR + " book " + i);
+            prolificAuthors.add(Arrays.asList(PROLIFIC_AUTHOR, catalogue.randomAuthor(random)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void loadDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        bookDatabase.addBooks(prolificTitles, prolificAuthors);
+    }
+
+    @Benchmark
+    public int removeAuthor() {
+        return bookDatabase.removeAuthor(PROLIFIC_AUTHOR).size();
+    }
+
+    @Benchmark
+    public int removeEveryTitle() {
+        Set<Book> books = new HashSet<>(bookDatabase.queryBookByAuthor(PROLIFIC_AUTHOR));
+        for (Book book : books) {
+            bookDatabase.removeBookByTitle(book.getBookTitle());
+        }
+        return books.size();
+    }
+}
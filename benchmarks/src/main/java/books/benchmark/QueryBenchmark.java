@@ -0,0 +1,71 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded queries on a loaded database.
+ * Authors are picked with the catalogue skew, titles uniformly, part of title queries misses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark extends CatalogueState {
+
+    private static final int KEYS = 1 << 16;
+
+    @Param({"DEFAULT", "CONCURRENT", "SNAPSHOT", "DICTIONARY", "POSTING_LIST", "MAPPED"})
+    public BookDatabaseEngine engine;
+
+    /**
+     * Percentage of title queries for titles not in database.
+     */
+    @Param("10")
+    public int missPercentage;
+
+    private BookDatabase bookDatabase;
+
+    private String[] authorKeys;
+
+    private String[] titleKeys;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Random random = new Random(7);
+        authorKeys = new String[KEYS];
+        titleKeys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            authorKeys[i] = catalogue.randomAuthor(random);
+            titleKeys[i] = random.nextInt(100) < missPercentage ? "Missing " + i
+                    : catalogue.titles().get(catalogue.randomTitleIndex(random));
+        }
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Benchmark
+    public Set<Book> queryBookByAuthor() {
+        return bookDatabase.queryBookByAuthor(authorKeys[next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public List<String> queryAuthorsByBookTitle() {
+        return bookDatabase.queryAuthorsByBookTitle(titleKeys[next++ & (KEYS - 1)]);
+    }
+}
@@ -0,0 +1,137 @@
+package books.benchmark;
+
+import books.BookShardServer;
+import books.ConcurrentBookDatabaseImpl;
+import books.Histogram;
+import books.RemoteBookShard;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of {@link BookShardServer}, every connection sends author queries as fast as
+ * responses come back and records round trip latency. Run with:
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar books.benchmark.QueryServerLoadTest connections=4 depth=16 mode=pipelined
+ * </pre>
+ * Arguments, all optional:
+ * <ul>
+ * <li>port: port of a running server, by default a server of a generated catalogue is started in this process,
+ * serving a {@link ConcurrentBookDatabaseImpl} as {@link BookShardServer#main(String[])} does</li>
+ * <li>connections: number of client connections, each driven by its own thread, 4 by default</li>
+ * <li>seconds: measured duration, 10 by default, preceded by a warmup of the same duration</li>
+ * <li>depth: authors queried per round trip, 1 by default</li>
+ * <li>mode: single, pipelined or multiget, how depth authors are sent, single by default</li>
+ * <li>titles, authors, zipf: shape of generated catalogue, 100000, 20000 and 1.0 by default, see {@link CatalogueState}</li>
+ * </ul>
+ */
+public class QueryServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Argument is not key=value: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        int connections = Integer.parseInt(options.getOrDefault("connections", "4"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int depth = Integer.parseInt(options.getOrDefault("depth", "1"));
+        String mode = options.getOrDefault("mode", "single");
+        Catalogue catalogue = Catalogue.generate(Integer.parseInt(options.getOrDefault("titles", "100000")),
+                Integer.parseInt(options.getOrDefault("authors", "20000")), 3,
+                Double.parseDouble(options.getOrDefault("zipf", "1.0")), 42);
+
+        BookShardServer server = null;
+        int port;
+        if (options.containsKey("port")) {
+            port = Integer.parseInt(options.get("port"));
+        } else {
+            ConcurrentBookDatabaseImpl database = new ConcurrentBookDatabaseImpl();
+            database.init(catalogue.titles(), catalogue.authors());
+            server = new BookShardServer(database, 0);
+            port = server.getPort();
+            System.out.println("Started server with " + (server.usesVirtualThreads() ? "virtual" : "platform")
+                    + " connection threads");
+        }
+        try {
+            run(catalogue, port, connections, seconds, depth, mode, false);
+            run(catalogue, port, connections, seconds, depth, mode, true);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(Catalogue catalogue, int port, int connections, int seconds, int depth, String mode,
+                            boolean report) throws Exception {
+        Histogram roundTrips = new Histogram();
+        AtomicLong queries = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> clients = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int c = 0; c < connections; c++) {
+            RemoteBookShard client = new RemoteBookShard(port);
+            Random random = new Random(c);
+            Thread thread = new Thread(() -> {
+                List<String> authors = new ArrayList<>(depth);
+                try (RemoteBookShard connection = client) {
+                    while (System.nanoTime() < deadline) {
+                        authors.clear();
+                        for (int i = 0; i < depth; i++) {
+                            authors.add(catalogue.randomAuthor(random));
+                        }
+                        long start = System.nanoTime();
+                        query(connection, authors, mode);
+                        roundTrips.record(System.nanoTime() - start);
+                        queries.addAndGet(depth);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failures.add(e);
+                }
+            }, "load-client-" + c);
+            clients.add(thread);
+        }
+        long start = System.nanoTime();
+        for (Thread thread : clients) {
+            thread.start();
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Load client failed", failures.get(0));
+        }
+        if (report) {
+            System.out.printf(Locale.ROOT, "mode=%s connections=%d depth=%d: %.0f queries/s, round trip p50=%.1f us"
+                            + " p99=%.1f us p99.9=%.1f us max=%.1f us%n", mode, connections, depth,
+                    queries.get() / elapsedSeconds, roundTrips.getValueAtPercentile(50) / 1e3,
+                    roundTrips.getValueAtPercentile(99) / 1e3, roundTrips.getValueAtPercentile(99.9) / 1e3,
+                    roundTrips.getMax() / 1e3);
+        }
+    }
+
+    private static void query(RemoteBookShard client, List<String> authors, String mode) {
+        switch (mode) {
+            case "single":
+                for (String author : authors) {
+                    client.queryBookByAuthor(author);
+                }
+                break;
+            case "pipelined":
+                client.queryBookByAuthorPipelined(authors);
+                break;
+            case "multiget":
+                client.queryBooksByAuthors(authors);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+}
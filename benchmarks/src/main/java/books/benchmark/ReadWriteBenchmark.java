@@ -0,0 +1,74 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi threaded read/write mix on thread-safe engines.
+ * Readers query authors and titles, writer removes a random book and adds it back, so catalogue size stays stable.
+ * Mix is changed from command line with thread group sizes, for example "-tg 15,1" or "-tg 4,4".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ReadWriteBenchmark extends CatalogueState {
+
+    @Param({"SYNCHRONIZED_DEFAULT", "CONCURRENT", "SNAPSHOT"})
+    public BookDatabaseEngine engine;
+
+    private BookDatabase bookDatabase;
+
+    @Setup
+    public void loadDatabase() {
+        if (!engine.isThreadSafe()) {
+            throw new IllegalStateException(engine + " is not thread-safe.");
+        }
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public Set<Book> queryBookByAuthor(ThreadRandom threadRandom) {
+        return bookDatabase.queryBookByAuthor(catalogue.randomAuthor(threadRandom.random));
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public List<String> queryAuthorsByBookTitle(ThreadRandom threadRandom) {
+        return bookDatabase.queryAuthorsByBookTitle(catalogue.titles().get(catalogue.randomTitleIndex(threadRandom.random)));
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public boolean removeAndAddBook(ThreadRandom threadRandom) {
+        int index = catalogue.randomTitleIndex(threadRandom.random);
+        String title = catalogue.titles().get(index);
+        boolean removed = bookDatabase.removeBookByTitle(title);
+        bookDatabase.init(Collections.singletonList(title), Collections.singletonList(catalogue.authors().get(index)));
+        return removed;
+    }
+}
@@ -0,0 +1,71 @@
+package books.benchmark;
+
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded removals, every invocation runs on a freshly loaded database.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemoveBenchmark extends CatalogueState {
+
+    private static final int TITLES_PER_INVOCATION = 1000;
+
+    private static final int AUTHORS_PER_INVOCATION = 100;
+
+    @Param({"DEFAULT", "CONCURRENT", "SNAPSHOT", "DICTIONARY", "POSTING_LIST"})
+    public BookDatabaseEngine engine;
+
+    private BookDatabase bookDatabase;
+
+    private String[] titlesToRemove;
+
+    private String[] authorsToRemove;
+
+    @Setup(Level.Invocation)
+    public void loadDatabase() {
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Random random = new Random();
+        titlesToRemove = new String[TITLES_PER_INVOCATION];
+        for (int i = 0; i < TITLES_PER_INVOCATION; i++) {
+            titlesToRemove[i] = catalogue.titles().get(catalogue.randomTitleIndex(random));
+        }
+        authorsToRemove = new String[AUTHORS_PER_INVOCATION];
+        for (int i = 0; i < AUTHORS_PER_INVOCATION; i++) {
+            authorsToRemove[i] = catalogue.randomAuthor(random);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TITLES_PER_INVOCATION)
+    public int removeBookByTitle() {
+        int removed = 0;
+        for (String title : titlesToRemove) {
+            if (bookDatabase.removeBookByTitle(title)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AUTHORS_PER_INVOCATION)
+    public int removeBooksByAuthor() {
+        int removed = 0;
+        for (String author : authorsToRemove) {
+            if (bookDatabase.removeBooksByAuthor(author)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+}
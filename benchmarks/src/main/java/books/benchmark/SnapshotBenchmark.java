@@ -0,0 +1,55 @@
+package books.benchmark;
+
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading {@link DefaultBookDatabaseImpl} from a binary snapshot compared with replaying init from lists.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark extends CatalogueState {
+
+    private Path snapshot;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup(Level.Trial)
+    public void saveSnapshot() throws IOException {
+        snapshot = Files.createTempFile("books", ".snapshot");
+        DefaultBookDatabaseImpl source = new DefaultBookDatabaseImpl();
+        source.init(catalogue.titles(), catalogue.authors());
+        source.saveSnapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Setup(Level.Invocation)
+    public void createDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+    }
+
+    @Benchmark
+    public DefaultBookDatabaseImpl loadSnapshot() throws IOException {
+        bookDatabase.loadSnapshot(snapshot);
+        return bookDatabase;
+    }
+
+    @Benchmark
+    public DefaultBookDatabaseImpl init() {
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        return bookDatabase;
+    }
+}
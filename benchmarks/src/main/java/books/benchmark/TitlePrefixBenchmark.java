@@ -0,0 +1,48 @@
+package books.benchmark;
+
+import books.DefaultBookDatabaseImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of type-ahead completion on {@link DefaultBookDatabaseImpl} with title prefix index.
+ * Prefix is a random title cut to a random length, so short prefixes matching many titles are included.
+ * Percentiles are reported by sample time mode, for a large catalogue run with "-p titles=10000000".
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TitlePrefixBenchmark extends CatalogueState {
+
+    @Param({"TITLE_PREFIX_INDEX", "CASE_FOLDED_TITLE_PREFIX_INDEX"})
+    public DefaultBookDatabaseImpl.Option option;
+
+    @Param("10")
+    public int limit;
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    @Setup
+    public void loadDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl(option);
+        bookDatabase.bulkLoad(catalogue.titles(), catalogue.authors());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public List<String> completeTitle(ThreadRandom threadRandom) {
+        String title = catalogue.titles().get(catalogue.randomTitleIndex(threadRandom.random));
+        String prefix = title.substring(0, 1 + threadRandom.random.nextInt(title.length()));
+        return bookDatabase.completeTitle(prefix, limit);
+    }
+}
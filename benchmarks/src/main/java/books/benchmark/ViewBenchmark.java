@@ -0,0 +1,91 @@
+package books.benchmark;
+
+import books.Book;
+import books.BookDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading query results through read-only views compared with defensive copies callers made before,
+ * every result is iterated in both cases. Run with -prof gc, gc.alloc.rate.norm is the allocation saved per query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ViewBenchmark extends CatalogueState {
+
+    private static final int KEYS = 1 << 16;
+
+    @Param({"DEFAULT", "CONCURRENT", "SNAPSHOT"})
+    public BookDatabaseEngine engine;
+
+    private BookDatabase bookDatabase;
+
+    private String[] authorKeys;
+
+    private String[] titleKeys;
+
+    private int next;
+
+    @Setup
+    public void loadDatabase() {
+        generateCatalogue();
+        bookDatabase = engine.create();
+        bookDatabase.init(catalogue.titles(), catalogue.authors());
+        Random random = new Random(7);
+        authorKeys = new String[KEYS];
+        titleKeys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            authorKeys[i] = catalogue.randomAuthor(random);
+            titleKeys[i] = catalogue.titles().get(catalogue.randomTitleIndex(random));
+        }
+    }
+
+    @TearDown
+    public void shutDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Benchmark
+    public int copyBooksByAuthor() {
+        int hash = 0;
+        for (Book book : new HashSet<>(bookDatabase.queryBookByAuthor(authorKeys[next++ & (KEYS - 1)]))) {
+            hash += book.hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int viewBooksByAuthor() {
+        int hash = 0;
+        for (Book book : bookDatabase.viewBooksByAuthor(authorKeys[next++ & (KEYS - 1)])) {
+            hash += book.hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int copyAuthorsByBookTitle() {
+        int hash = 0;
+        for (String author : new ArrayList<>(bookDatabase.queryAuthorsByBookTitle(titleKeys[next++ & (KEYS - 1)]))) {
+            hash += author.hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int viewAuthorsByBookTitle() {
+        int hash = 0;
+        for (String author : bookDatabase.viewAuthorsByBookTitle(titleKeys[next++ & (KEYS - 1)])) {
+            hash += author.hashCode();
+        }
+        return hash;
+    }
+}
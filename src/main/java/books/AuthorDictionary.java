@@ -0,0 +1,143 @@
+package books;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Dictionary of author names, every distinct name gets a dense int id once.
+ * Only one instance of every name is kept, books and indexes refer to authors by id.
+ * <p>
+ * Lookup uses open addressing with linear probing over an int[] table, so no boxed keys nor entry objects are created.
+ * Dictionary is append only, ids are never reused, so an id stays valid for the whole dictionary lifetime.
+ * Names are not reclaimed either: memory grows with every distinct name ever encoded, not with names still in use,
+ * owners bound it by replacing the dictionary, see {@link DictionaryBookDatabaseImpl#shutDown()}.
+ * A null name is a regular name with its own id, as null authors are valid in every {@link BookDatabase}.
+ * Not thread-safe.
+ */
+public class AuthorDictionary {
+
+    private static final int EMPTY = 0;
+
+    private String[] names;
+
+    private int[] hashes;
+
+    private int size;
+
+    /**
+     * slots keep id + 1, EMPTY marks free slot
+     */
+    private int[] table;
+
+    /**
+     * Default constructor.
+     */
+    public AuthorDictionary() {
+        this(16);
+    }
+
+    /**
+     * Constructor with expected number of authors.
+     *
+     * @param expectedSize expected number of distinct authors
+     */
+    public AuthorDictionary(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        table = new int[capacity];
+        names = new String[Math.max(expectedSize, 16)];
+        hashes = new int[names.length];
+    }
+
+    /**
+     * Returns id of a given author, author is added to dictionary if not present.
+     *
+     * @param author author name, may be null
+     * @return author id
+     */
+    public int encode(String author) {
+        int hash = spread(Objects.hashCode(author));
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != EMPTY) {
+            int id = entry - 1;
+            if (hashes[id] == hash && Objects.equals(names[id], author)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        names[id] = author;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Returns id of a given author without adding it.
+     *
+     * @param author author name
+     * @return author id or -1 when author is unknown
+     */
+    public int idOf(String author) {
+        int hash = spread(Objects.hashCode(author));
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != EMPTY) {
+            int id = entry - 1;
+            if (hashes[id] == hash && Objects.equals(names[id], author)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns name for a given id.
+     *
+     * @param id author id
+     * @return author name
+     */
+    public String nameOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown author id: " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return number of authors in dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id + 1;
+        }
+        table = newTable;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,264 @@
+package books;
+
+import java.util.*;
+
+/**
+ * Books of every author ordered by title, kept in sync with author to books map, for paginated queries.
+ * <p>
+ * Books of an author are kept in a treap, a binary search tree by title which stays balanced in expectation
+ * by random priorities of nodes. Every node counts books of its subtree, so the book at a given rank is found
+ * in O(log n) and a page is read by an in-order walk from there in O(log n + page size), without
+ * materializing all books of the author. Insert and removal of a book cost O(log n) for each of its authors.
+ * <p>
+ * Not thread-safe for writers, queries only read the trees and may run concurrently with each other.
+ */
+final class AuthorPages {
+
+    private static final class Node {
+
+        private final Book book;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Book book, int priority) {
+            this.book = book;
+            this.priority = priority;
+        }
+
+        private String title() {
+            return book.getBookTitle();
+        }
+    }
+
+    private final Map<String, Node> roots = new HashMap<>();
+
+    private int seed = 0x9E3779B9;
+
+    /**
+     * Adds a book to trees of all its authors, book must not be already in index.
+     *
+     * @param book book to add
+     */
+    void addBook(Book book) {
+        List<String> authors = book.getAuthors();
+        for (int i = 0; i < authors.size(); i++) {
+            String author = authors.get(i);
+            if (authors.indexOf(author) == i) {
+                roots.put(author, insert(roots.get(author), new Node(book, nextPriority())));
+            }
+        }
+    }
+
+    /**
+     * Removes a book from trees of all its authors, authors left without books are removed.
+     *
+     * @param book book to remove
+     */
+    void removeBook(Book book) {
+        List<String> authors = book.getAuthors();
+        for (int i = 0; i < authors.size(); i++) {
+            String author = authors.get(i);
+            Node root = roots.get(author);
+            if (root != null && authors.indexOf(author) == i) {
+                root = remove(root, book.getBookTitle());
+                if (root == null) {
+                    roots.remove(author);
+                } else {
+                    roots.put(author, root);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes tree of an author as a whole, books stay in trees of their co-authors.
+     *
+     * @param author removed author
+     */
+    void removeAuthor(String author) {
+        roots.remove(author);
+    }
+
+    void clear() {
+        roots.clear();
+    }
+
+    /**
+     * @param author input author
+     * @return number of books of author
+     */
+    int size(String author) {
+        return size(roots.get(author));
+    }
+
+    /**
+     * Page of books of an author starting at a given rank.
+     *
+     * @param author input author
+     * @param offset rank of first book of page
+     * @param limit  maximal number of books in page
+     * @return page of books
+     */
+    BookPage page(String author, long offset, int limit) {
+        Node root = roots.get(author);
+        int total = size(root);
+        if (offset >= total) {
+            return new BookPage(Collections.emptyList(), total, null);
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int rank = (int) offset;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (rank < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (rank == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                rank -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return walk(path, total, limit);
+    }
+
+    /**
+     * Page of books of an author with titles greater than a cursor.
+     *
+     * @param author input author
+     * @param cursor title of the last book read, null for the first page
+     * @param limit  maximal number of books in page
+     * @return page of books
+     */
+    BookPage after(String author, String cursor, int limit) {
+        Node root = roots.get(author);
+        if (cursor == null) {
+            return page(author, 0, limit);
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        while (node != null) {
+            if (node.title().compareTo(cursor) > 0) {
+                path.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return walk(path, size(root), limit);
+    }
+
+    /**
+     * In-order walk, path holds ancestors whose book and right subtree were not visited yet, next book on top.
+     */
+    private static BookPage walk(Deque<Node> path, int total, int limit) {
+        List<Book> books = new ArrayList<>(Math.min(limit, total));
+        while (!path.isEmpty() && books.size() < limit) {
+            Node node = path.pop();
+            books.add(node.book);
+            for (Node next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+        }
+        String nextCursor = path.isEmpty() || books.isEmpty() ? null : books.get(books.size() - 1).getBookTitle();
+        return new BookPage(Collections.unmodifiableList(books), total, nextCursor);
+    }
+
+    private int nextPriority() {
+        // xorshift, priorities only need to be independent of titles
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        int compare = node.title().compareTo(root.title());
+        if (compare == 0) {
+            return root;
+        }
+        if (compare < 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                return rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                return rotateLeft(root);
+            }
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node remove(Node root, String title) {
+        if (root == null) {
+            return null;
+        }
+        int compare = title.compareTo(root.title());
+        if (compare == 0) {
+            return merge(root.left, root.right);
+        }
+        if (compare < 0) {
+            root.left = remove(root.left, title);
+        } else {
+            root.right = remove(root.right, title);
+        }
+        update(root);
+        return root;
+    }
+
+    /**
+     * Merges two treaps, all titles of the left one are smaller than titles of the right one.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+}
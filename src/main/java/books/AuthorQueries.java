@@ -0,0 +1,156 @@
+package books;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Boolean queries over sets of books of several authors, results are streamed without intermediate sets.
+ * Used by default methods of {@link BookDatabase} and by implementations with set based author index.
+ */
+final class AuthorQueries {
+
+    private AuthorQueries() {
+    }
+
+    /**
+     * @return distinct non null authors in query order, empty list for null query
+     */
+    static List<String> distinct(Collection<String> authors) {
+        if (authors == null) {
+            return Collections.emptyList();
+        }
+        Set<String> distinct = new LinkedHashSet<>(authors);
+        distinct.remove(null);
+        return new ArrayList<>(distinct);
+    }
+
+    /**
+     * Books which are in all sets. Smallest set is iterated, every book is probed in remaining sets
+     * from the smallest to the largest, so most books are rejected by the first probe.
+     * Lookup of sets stops at the first author without books.
+     *
+     * @param authors   distinct authors
+     * @param booksOf   author to books lookup
+     * @return stream of books, empty stream for empty query
+     */
+    static Stream<Book> allOf(List<String> authors, Function<String, Set<Book>> booksOf) {
+        List<Set<Book>> sets = new ArrayList<>(authors.size());
+        for (String author : authors) {
+            Set<Book> books = booksOf.apply(author);
+            if (books.isEmpty()) {
+                return Stream.empty();
+            }
+            sets.add(books);
+        }
+        if (sets.isEmpty()) {
+            return Stream.empty();
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<Set<Book>> others = sets.subList(1, sets.size());
+        return sets.get(0).stream().filter(book -> {
+            for (Set<Book> books : others) {
+                if (!books.contains(book)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Books which are in any of the sets. Sets are streamed one after another, a book is emitted only from the set
+     * of its first author in query order, which is checked on its own list of authors, so no set of already
+     * emitted books is built.
+     *
+     * @param authors distinct authors
+     * @param booksOf author to books lookup
+     * @return stream of books, empty stream for empty query
+     */
+    static Stream<Book> anyOf(List<String> authors, Function<String, Set<Book>> booksOf) {
+        if (authors.isEmpty()) {
+            return Stream.empty();
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (String author : authors) {
+            positions.put(author, positions.size());
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new UnionIterator(authors, booksOf, positions),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterates books of authors one author after another, skipping books of an earlier author in query.
+     */
+    private static final class UnionIterator implements Iterator<Book> {
+
+        private final List<String> authors;
+
+        private final Function<String, Set<Book>> booksOf;
+
+        private final Map<String, Integer> positions;
+
+        private int position = -1;
+
+        private Iterator<Book> books = Collections.emptyIterator();
+
+        private Book next;
+
+        UnionIterator(List<String> authors, Function<String, Set<Book>> booksOf, Map<String, Integer> positions) {
+            this.authors = authors;
+            this.booksOf = booksOf;
+            this.positions = positions;
+            findNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Book next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Book current = next;
+            findNext();
+            return current;
+        }
+
+        private void findNext() {
+            while (true) {
+                while (books.hasNext()) {
+                    Book book = books.next();
+                    if (isFirstAuthor(book)) {
+                        next = book;
+                        return;
+                    }
+                }
+                if (++position == authors.size()) {
+                    next = null;
+                    return;
+                }
+                books = booksOf.apply(authors.get(position)).iterator();
+            }
+        }
+
+        private boolean isFirstAuthor(Book book) {
+            if (position == 0) {
+                return true;
+            }
+            String current = authors.get(position);
+            for (String author : book.getAuthors()) {
+                if (current.equals(author)) {
+                    continue;
+                }
+                Integer authorPosition = positions.get(author);
+                if (authorPosition != null && authorPosition < position) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package books;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Author statistics for dashboards, updated on every added and removed book so queries never scan the database.
+ * <p>
+ * Authors are kept in an array ranked by number of books, descending, with run boundaries of every book count.
+ * A count changes by one per added or removed book, the author is swapped with the first or last author of its run
+ * and the boundaries move, so update is O(1), top-k is O(k) and exact.
+ * Histogram of books per author has power of two buckets and is updated on the same transitions.
+ * <p>
+ * Distinct co-author pairs are estimated by a HyperLogLog sketch of 2^{@value #PRECISION} registers,
+ * standard error about 1.6%. Sum of register weights and number of empty registers are kept up to date,
+ * so estimate is O(1). A sketch cannot forget removed pairs, so it is rebuilt from all books once removed pairs
+ * exceed an eighth of added pairs and at least an eighth of all books were removed since the last rebuild.
+ * A rebuild scanning n books is paid by n/8 removals, so updates stay O(1) in amortized time. Estimate counts
+ * at most an eighth of added pairs as stale, or pairs of the last n/8 removed books when they are more,
+ * as when co-authored books are a small share of the catalogue.
+ * <p>
+ * Not thread-safe, like the database it belongs to.
+ */
+final class AuthorStatistics {
+
+    static final int PRECISION = 12;
+
+    static final int HISTOGRAM_BUCKETS = 32;
+
+    private static final int REGISTERS = 1 << PRECISION;
+
+    private static final int MIN_STALE_PAIRS = 64;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private static final int[] NO_COUNTS = new int[0];
+
+    private static final class Entry {
+
+        private final String author;
+        private int books;
+        private int sharedBooks;
+        private int rank;
+
+        private Entry(String author, int rank) {
+            this.author = author;
+            this.rank = rank;
+        }
+    }
+
+    private final Supplier<Collection<Book>> allBooks;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private Entry[] ranked = NO_ENTRIES;
+
+    /**
+     * first and last rank of authors with given number of books, valid while such authors exist
+     */
+    private int[] runStart = NO_COUNTS;
+
+    private int[] runEnd = NO_COUNTS;
+
+    private final int[] histogram = new int[HISTOGRAM_BUCKETS];
+
+    private int coAuthors;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    private double registerSum = REGISTERS;
+
+    private int emptyRegisters = REGISTERS;
+
+    private long addedPairs;
+
+    private long removedPairs;
+
+    private long removedBooks;
+
+    private int booksCount;
+
+    /**
+     * @param allBooks all books of the database, read when sketch is rebuilt
+     */
+    AuthorStatistics(Supplier<Collection<Book>> allBooks) {
+        this.allBooks = allBooks;
+    }
+
+    void addBook(Book book) {
+        List<String> authors = book.getAuthors();
+        boolean shared = distinctAuthors(authors) > 1;
+        booksCount++;
+        for (int i = 0; i < authors.size(); i++) {
+            String author = authors.get(i);
+            if (authors.indexOf(author) != i) {
+                continue;
+            }
+            Entry entry = entries.get(author);
+            if (entry == null) {
+                entry = new Entry(author, entries.size());
+                entries.put(author, entry);
+                append(entry);
+            }
+            increment(entry);
+            if (shared && entry.sharedBooks++ == 0) {
+                coAuthors++;
+            }
+        }
+        if (shared) {
+            addPairs(authors);
+        }
+    }
+
+    void removeBook(Book book) {
+        List<String> authors = book.getAuthors();
+        int distinct = distinctAuthors(authors);
+        boolean shared = distinct > 1;
+        for (int i = 0; i < authors.size(); i++) {
+            String author = authors.get(i);
+            Entry entry = entries.get(author);
+            if (entry == null || authors.indexOf(author) != i) {
+                continue;
+            }
+            if (shared && --entry.sharedBooks == 0) {
+                coAuthors--;
+            }
+            decrement(entry);
+        }
+        if (shared) {
+            removedPairs += distinct * (distinct - 1) / 2;
+        }
+        booksCount--;
+        removedBooks++;
+        // rebuild scans all books, so it waits for removals proportional to their number
+        if (removedPairs > MIN_STALE_PAIRS + addedPairs / 8 && removedBooks >= booksCount / 8) {
+            rebuildSketch();
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        ranked = NO_ENTRIES;
+        runStart = NO_COUNTS;
+        runEnd = NO_COUNTS;
+        Arrays.fill(histogram, 0);
+        coAuthors = 0;
+        booksCount = 0;
+        clearSketch();
+    }
+
+    /**
+     * @param limit maximal number of authors
+     * @return authors with most books, ordered by books descending
+     */
+    List<ProlificAuthor> topAuthors(int limit) {
+        int size = Math.min(limit, entries.size());
+        List<ProlificAuthor> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            top.add(new ProlificAuthor(ranked[i].author, ranked[i].books));
+        }
+        return top;
+    }
+
+    /**
+     * @return number of authors, bucket i counts authors with 2^i to 2^(i+1)-1 books
+     */
+    int[] histogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * @return number of authors with at least one book written together with another author
+     */
+    int coAuthors() {
+        return coAuthors;
+    }
+
+    /**
+     * @return estimated number of distinct pairs of authors who wrote a book together
+     */
+    long distinctCoAuthorPairs() {
+        double estimate = 0.7213 / (1 + 1.079 / REGISTERS) * REGISTERS * REGISTERS / registerSum;
+        if (estimate <= 2.5 * REGISTERS && emptyRegisters > 0) {
+            // linear counting is more precise for small cardinalities
+            estimate = REGISTERS * Math.log((double) REGISTERS / emptyRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    private void append(Entry entry) {
+        if (entries.size() > ranked.length) {
+            ranked = Arrays.copyOf(ranked, Math.max(16, ranked.length * 2));
+        }
+        ranked[entry.rank] = entry;
+        if (entry.rank == 0 || ranked[entry.rank - 1].books != 0) {
+            ensureRuns(0);
+            runStart[0] = entry.rank;
+        }
+        runEnd[0] = entry.rank;
+    }
+
+    private void increment(Entry entry) {
+        int books = entry.books;
+        int first = runStart[books];
+        swap(entry.rank, first);
+        ensureRuns(books + 1);
+        if (first == 0 || ranked[first - 1].books != books + 1) {
+            runStart[books + 1] = first;
+        }
+        runEnd[books + 1] = first;
+        runStart[books] = first + 1;
+        entry.books = books + 1;
+        moveInHistogram(books, books + 1);
+    }
+
+    private void decrement(Entry entry) {
+        int books = entry.books;
+        int last = runEnd[books];
+        swap(entry.rank, last);
+        if (books > 1) {
+            if (last == entries.size() - 1 || ranked[last + 1].books != books - 1) {
+                runEnd[books - 1] = last;
+            }
+            runStart[books - 1] = last;
+        }
+        runEnd[books] = last - 1;
+        entry.books = books - 1;
+        moveInHistogram(books, books - 1);
+        if (entry.books == 0) {
+            // authors without books are never kept, so the author is the last one
+            ranked[last] = null;
+            entries.remove(entry.author);
+        }
+    }
+
+    private void swap(int i, int j) {
+        Entry first = ranked[i];
+        Entry second = ranked[j];
+        ranked[i] = second;
+        ranked[j] = first;
+        first.rank = j;
+        second.rank = i;
+    }
+
+    private void ensureRuns(int books) {
+        if (books >= runStart.length) {
+            int length = Math.max(16, Math.max(books + 1, runStart.length * 2));
+            runStart = Arrays.copyOf(runStart, length);
+            runEnd = Arrays.copyOf(runEnd, length);
+        }
+    }
+
+    private void moveInHistogram(int from, int to) {
+        if (from > 0) {
+            histogram[31 - Integer.numberOfLeadingZeros(from)]--;
+        }
+        if (to > 0) {
+            histogram[31 - Integer.numberOfLeadingZeros(to)]++;
+        }
+    }
+
+    private static int distinctAuthors(List<String> authors) {
+        int distinct = 0;
+        for (int i = 0; i < authors.size(); i++) {
+            if (authors.indexOf(authors.get(i)) == i) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    private void addPairs(List<String> authors) {
+        if (authors.size() == 2) {
+            if (!Objects.equals(authors.get(0), authors.get(1))) {
+                addPair(Objects.hashCode(authors.get(0)), Objects.hashCode(authors.get(1)));
+            }
+            return;
+        }
+        for (int i = 0; i < authors.size(); i++) {
+            if (authors.indexOf(authors.get(i)) != i) {
+                continue;
+            }
+            int first = Objects.hashCode(authors.get(i));
+            for (int j = i + 1; j < authors.size(); j++) {
+                if (authors.indexOf(authors.get(j)) == j) {
+                    addPair(first, Objects.hashCode(authors.get(j)));
+                }
+            }
+        }
+    }
+
+    private void addPair(int first, int second) {
+        // pair hash does not depend on the order of authors in a book
+        addHash(mix((long) Math.min(first, second) << 32 | (Math.max(first, second) & 0xFFFFFFFFL)));
+        addedPairs++;
+    }
+
+    private void addHash(long hash) {
+        int register = (int) (hash >>> (64 - PRECISION));
+        int rank = Long.numberOfLeadingZeros(hash << PRECISION | 1L << (PRECISION - 1)) + 1;
+        int current = registers[register];
+        if (rank > current) {
+            if (current == 0) {
+                emptyRegisters--;
+            }
+            registerSum += Math.scalb(1.0, -rank) - Math.scalb(1.0, -current);
+            registers[register] = (byte) rank;
+        }
+    }
+
+    private void clearSketch() {
+        Arrays.fill(registers, (byte) 0);
+        registerSum = REGISTERS;
+        emptyRegisters = REGISTERS;
+        addedPairs = 0;
+        removedPairs = 0;
+        removedBooks = 0;
+    }
+
+    private void rebuildSketch() {
+        clearSketch();
+        for (Book book : allBooks.get()) {
+            addPairs(book.getAuthors());
+        }
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads bits of pair hash over the whole long.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,10 +1,15 @@
+package books;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * Class that represents a book.
  * Titles are unique so only title is used for hashing and equals.
- * Authors are represent as a list of Strings.
+ * Authors are represent as a list of Strings, book keeps its own unmodifiable copy of the list given to constructor,
+ * so later changes of that list do not affect the book nor indexes built from it.
  * POJO is threadsafe because is immutable.
  */
 public class Book {
@@ -20,7 +25,16 @@ public class Book {
      */
     public Book(String bookTitle, List<String> authors) {
         this.bookTitle = bookTitle;
-        this.authors = authors;
+        this.authors = Collections.unmodifiableList(new ArrayList<>(authors));
+    }
+
+    /**
+     * Constructor of subclasses which keep authors in their own form and override {@link #getAuthors()}.
+     * @param bookTitle book title
+     */
+    Book(String bookTitle) {
+        this.bookTitle = bookTitle;
+        this.authors = null;
     }
 
     @Override
@@ -45,8 +59,8 @@ public class Book {
     }
 
     /**
-     * List of authors setter.
-     * @return List of authors.
+     * List of authors getter.
+     * @return unmodifiable list of authors.
      */
     public List<String> getAuthors() {
         return authors;
@@ -56,7 +70,7 @@ public class Book {
     public String toString() {
         return "Book{" +
                 "bookTitle='" + bookTitle + '\'' +
-                ", authors=" + authors +
+                ", authors=" + getAuthors() +
                 '}';
     }
 }
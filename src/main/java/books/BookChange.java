@@ -0,0 +1,65 @@
+package books;
+
+/**
+ * Mutation of a {@link DefaultBookDatabaseImpl} published in its {@link BookChangeLog}.
+ * Changes of one database have consecutive sequence numbers in the order they were applied.
+ */
+public final class BookChange {
+
+    /**
+     * Kinds of mutations.
+     */
+    public enum Type {
+        /**
+         * Book was added, by init, addBook, addBooks, bulkLoad or loadSnapshot.
+         */
+        ADDED,
+        /**
+         * Book was removed, by removeBookByTitle or as a book of an author removed by removeBooksByAuthor.
+         */
+        REMOVED,
+        /**
+         * All books were removed, by shutDown or before a snapshot is loaded, book is null.
+         */
+        CLEARED
+    }
+
+    private final long sequence;
+
+    private final Type type;
+
+    private final Book book;
+
+    BookChange(long sequence, Type type, Book book) {
+        this.sequence = sequence;
+        this.type = type;
+        this.book = book;
+    }
+
+    /**
+     * @return sequence number, first change of a database has 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return added or removed book, null for {@link Type#CLEARED}
+     */
+    public Book getBook() {
+        return book;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChange{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", book=" + book +
+                '}';
+    }
+}
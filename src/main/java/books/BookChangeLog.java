@@ -0,0 +1,259 @@
+package books;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Ordered stream of mutations of one database, kept in a fixed size ring of the most recent changes.
+ * <p>
+ * Ring has a single producer, the thread mutating the database, which never blocks nor waits for subscribers:
+ * a change is stored in its slot and published by advancing the cursor with a release store, in the style of
+ * a disruptor. Changes are immutable, so subscribers read slots without any lock. Every subscription has its own
+ * position and is read by one thread. A subscription which falls more than capacity changes behind loses
+ * overwritten changes, what happens then is chosen by its {@link OverflowPolicy}.
+ * Producers which want backpressure check {@link #remainingCapacity()} before mutating.
+ * <p>
+ * Ring keeps references to the last capacity changes, also to removed books.
+ */
+public final class BookChangeLog {
+
+    /**
+     * Capacity of change log of {@link DefaultBookDatabaseImpl}.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * What a subscription does when changes it has not read yet were overwritten.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Subscription fails, every following poll throws {@link IllegalStateException},
+         * subscriber has to resynchronize from database and subscribe again.
+         */
+        FAIL,
+        /**
+         * Subscription skips to the oldest change still in the ring, skipped changes are counted
+         * in {@link Subscription#lostChanges()}.
+         */
+        SKIP
+    }
+
+    private final AtomicReferenceArray<BookChange> ring;
+
+    private final int mask;
+
+    /**
+     * sequence of last published change
+     */
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * sequence of next change, only accessed by producer
+     */
+    private long next;
+
+    /**
+     * Creates empty change log.
+     *
+     * @param capacity number of most recent changes kept, power of two
+     */
+    public BookChangeLog(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        ring = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Publishes a change, called by the single producer, never blocks.
+     *
+     * @param type kind of change
+     * @param book changed book, null for {@link BookChange.Type#CLEARED}
+     * @return sequence of published change
+     */
+    long publish(BookChange.Type type, Book book) {
+        long sequence = next++;
+        ring.lazySet((int) sequence & mask, new BookChange(sequence, type, book));
+        cursor.lazySet(sequence);
+        return sequence;
+    }
+
+    /**
+     * Subscribes to changes published after this call.
+     *
+     * @param policy what to do when subscription falls behind by more than capacity
+     * @return new subscription, to be closed when not needed
+     */
+    public Subscription subscribe(OverflowPolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException("Policy must not be null.");
+        }
+        Subscription subscription = new Subscription(policy, cursor.get() + 1);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * @return sequence of last published change, -1 when nothing was published
+     */
+    public long lastSequence() {
+        return cursor.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Number of changes which may be published before the slowest open subscription loses any.
+     *
+     * @return remaining capacity, capacity when there is no subscription, 0 or less when some changes were lost
+     */
+    public long remainingCapacity() {
+        long published = cursor.get();
+        long slowest = published + 1;
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.failed) {
+                slowest = Math.min(slowest, subscription.position);
+            }
+        }
+        return capacity() - (published + 1 - slowest);
+    }
+
+    /**
+     * Position of one subscriber in the change log, to be read by a single thread.
+     */
+    public final class Subscription implements Closeable {
+
+        private final OverflowPolicy policy;
+
+        /**
+         * sequence of next change to read, written only by subscriber
+         */
+        private volatile long position;
+
+        private volatile boolean failed;
+
+        private long lostChanges;
+
+        private Subscription(OverflowPolicy policy, long position) {
+            this.policy = policy;
+            this.position = position;
+        }
+
+        /**
+         * Returns next change without waiting.
+         *
+         * @return next change, null if no change was published since last one returned
+         * @throws IllegalStateException when changes were lost with {@link OverflowPolicy#FAIL}
+         */
+        public BookChange poll() {
+            if (failed) {
+                throw new IllegalStateException("Subscription lost changes after sequence: " + (position - 1));
+            }
+            while (true) {
+                long sequence = position;
+                long published = cursor.get();
+                if (sequence > published) {
+                    return null;
+                }
+                BookChange change = ring.get((int) sequence & mask);
+                if (change.getSequence() == sequence) {
+                    position = sequence + 1;
+                    return change;
+                }
+                // slot was already reused, producer lapped this subscription
+                if (policy == OverflowPolicy.FAIL) {
+                    failed = true;
+                    throw new IllegalStateException("Subscription lost changes after sequence: " + (sequence - 1));
+                }
+                long oldest = cursor.get() - mask;
+                lostChanges += oldest - sequence;
+                position = oldest;
+            }
+        }
+
+        /**
+         * Returns next change, waits for it at most a given time. Producer never signals subscribers,
+         * waiting subscriber checks for new changes with growing pauses up to 1 ms.
+         *
+         * @param timeout maximal time to wait
+         * @param unit    unit of timeout
+         * @return next change, null if none was published in time
+         * @throws InterruptedException when waiting thread is interrupted
+         */
+        public BookChange poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            long parkNanos = 1_000;
+            while (true) {
+                BookChange change = poll();
+                if (change != null) {
+                    return change;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+        }
+
+        /**
+         * Passes available changes to a consumer without waiting.
+         *
+         * @param consumer   receiver of changes
+         * @param maxChanges maximal number of changes passed
+         * @return number of changes passed
+         * @throws IllegalStateException when changes were lost with {@link OverflowPolicy#FAIL}
+         */
+        public int drainTo(Consumer<? super BookChange> consumer, int maxChanges) {
+            int drained = 0;
+            while (drained < maxChanges) {
+                BookChange change = poll();
+                if (change == null) {
+                    break;
+                }
+                consumer.accept(change);
+                drained++;
+            }
+            return drained;
+        }
+
+        /**
+         * @return number of published changes not read yet
+         */
+        public long lag() {
+            return cursor.get() + 1 - position;
+        }
+
+        /**
+         * @return number of changes skipped with {@link OverflowPolicy#SKIP}
+         */
+        public long lostChanges() {
+            return lostChanges;
+        }
+
+        /**
+         * Stops counting this subscription in {@link #remainingCapacity()}.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
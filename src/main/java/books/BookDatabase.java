@@ -0,0 +1,220 @@
+package books;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface BookDatabase {
+
+    /**
+     * Init data base with two equals list of book titles and list of set of authors.
+     * A null author is valid and is stored, queried and removed as any other author.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors to init
+     */
+    void init(List<String> titlesInitList, List<List<String>> authorsInitList);
+
+    /**
+     * Adds a single book to the database.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    boolean addBook(String bookTitle, List<String> authors);
+
+    /**
+     * Adds a batch of books, lists have same meaning as in {@link #init(List, List)}.
+     * Whole batch is validated before database is modified.
+     * Default implementation adds books one by one, implementations may update author index once per author.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    default boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        boolean[] added = new boolean[titles.size()];
+        for (int i = 0; i < titles.size(); i++) {
+            added[i] = addBook(titles.get(i), authors.get(i));
+        }
+        return added;
+    }
+
+    /**
+     * In shutdown method all data should be cleaned.
+     */
+    void shutDown();
+
+    /**
+     * Removes book from the database for a given title.
+     *
+     * @param bookTitle input book will be removed
+     * @return true if book was removes, if not false
+     */
+    boolean removeBookByTitle(String bookTitle);
+
+    /**
+     * Removes all books for a given author.
+     *
+     * @param author input author
+     * @return returns true if books were removed , false otherwise
+     */
+    boolean removeBooksByAuthor(String author);
+
+    /**
+     * Returns all books form database for a given author.
+     *
+     * @param author input author
+     * @return returns set of Books for a given author, empty set if author does not exist
+     */
+    Set<Book> queryBookByAuthor(String author);
+
+    /**
+     * Return all authors assigned to a given title.
+     *
+     * @param bookTitle input title
+     * @return return list of authors for a given book or empty set if not exists
+     */
+    List<String> queryAuthorsByBookTitle(String bookTitle);
+
+    /**
+     * Read-only view of books of an author, same content as {@link #queryBookByAuthor(String)} without any copy.
+     * Callers use views instead of defensive copies. View is safe to iterate while other threads write
+     * when implementation is thread-safe, implementations document whether view follows later writes.
+     * Default implementation wraps result of {@link #queryBookByAuthor(String)}.
+     *
+     * @param author input author
+     * @return unmodifiable set of books, empty set if author does not exist
+     */
+    default Set<Book> viewBooksByAuthor(String author) {
+        return Collections.unmodifiableSet(queryBookByAuthor(author));
+    }
+
+    /**
+     * Read-only view of authors of a title, same content as {@link #queryAuthorsByBookTitle(String)}
+     * without any copy. Book keeps an unmodifiable copy of the authors it was added with, so implementations
+     * returning that list return it as the view without wrapping. Default implementation wraps result of
+     * {@link #queryAuthorsByBookTitle(String)}.
+     *
+     * @param bookTitle input title
+     * @return unmodifiable list of authors, empty list if title does not exist
+     */
+    default List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return Collections.unmodifiableList(queryAuthorsByBookTitle(bookTitle));
+    }
+
+    /**
+     * Returns one page of books of an author in ascending title order, for authors too large to be returned at once.
+     * Default implementation sorts all books of the author, implementations may keep books ordered.
+     *
+     * @param author   input author
+     * @param page     page number, first page is 0
+     * @param pageSize number of books in page
+     * @return page of books, empty page for unknown author or page after the last one
+     * @throws IllegalArgumentException for negative page or not positive page size
+     */
+    default BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        long offset = BookPage.offset(page, pageSize);
+        List<Book> books = new ArrayList<>(queryBookByAuthor(author));
+        books.sort(BookPage.TITLE_ORDER);
+        return BookPage.of(books, offset, pageSize);
+    }
+
+    /**
+     * Returns books of an author with titles greater than a cursor in ascending title order.
+     * Cursor is the title of the last book already read, see {@link BookPage#getNextCursor()},
+     * it stays valid across inserts and removals of books.
+     * Default implementation sorts all books of the author, implementations may keep books ordered.
+     *
+     * @param author input author
+     * @param cursor title of the last book read, null for the first page
+     * @param limit  maximal number of books in page
+     * @return page of books, empty page for unknown author or cursor after the last book
+     * @throws IllegalArgumentException for not positive limit
+     */
+    default BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        BookPage.checkLimit(limit);
+        List<Book> books = new ArrayList<>(queryBookByAuthor(author));
+        books.sort(BookPage.TITLE_ORDER);
+        int from = 0;
+        if (cursor != null) {
+            int index = Collections.binarySearch(books, new Book(cursor, Collections.emptyList()), BookPage.TITLE_ORDER);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return BookPage.of(books, from, limit);
+    }
+
+    /**
+     * Returns books of many authors in one call, same as {@link #queryBookByAuthor(String)} for every author.
+     * Default implementation queries authors one by one, implementations may amortize locking or round trips
+     * over all of them.
+     *
+     * @param authors input authors
+     * @return books of author at the same position, empty set for unknown author
+     */
+    default List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        List<Set<Book>> books = new ArrayList<>(authors.size());
+        for (String author : authors) {
+            books.add(queryBookByAuthor(author));
+        }
+        return books;
+    }
+
+    /**
+     * Returns authors of many titles in one call, same as {@link #queryAuthorsByBookTitle(String)} for every title.
+     * Default implementation queries titles one by one, implementations may amortize locking or round trips
+     * over all of them.
+     *
+     * @param bookTitles input titles
+     * @return authors of title at the same position, empty list for unknown title
+     */
+    default List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        List<List<String>> authors = new ArrayList<>(bookTitles.size());
+        for (String bookTitle : bookTitles) {
+            authors.add(queryAuthorsByBookTitle(bookTitle));
+        }
+        return authors;
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    int booksSize();
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    int authorsSize();
+
+    /**
+     * Returns books written by all given authors, for example books co-authored by Audrey AND Bob.
+     * Books of the author with fewest books are probed in books of the other authors, smallest first.
+     * Stream may be evaluated lazily over live author indexes, it must be consumed before database is modified.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books, empty stream for null or empty query
+     */
+    default Stream<Book> queryBooksByAllAuthors(Collection<String> authors) {
+        return AuthorQueries.allOf(AuthorQueries.distinct(authors), this::queryBookByAuthor);
+    }
+
+    /**
+     * Returns books written by any of given authors, every book is returned once.
+     * Stream may be evaluated lazily over live author indexes, it must be consumed before database is modified.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books, empty stream for null or empty query
+     */
+    default Stream<Book> queryBooksByAnyAuthor(Collection<String> authors) {
+        return AuthorQueries.anyOf(AuthorQueries.distinct(authors), this::queryBookByAuthor);
+    }
+}
@@ -0,0 +1,50 @@
+package books;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link InstrumentedBookDatabase}, maps are keyed by {@link InstrumentedBookDatabase.Operation} names.
+ */
+public interface BookDatabaseMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getBooksSize();
+
+    int getAuthorsSize();
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Long> getErrorCounts();
+
+    Map<String, Double> getMeanLatencyMicros();
+
+    Map<String, Long> getP50LatencyMicros();
+
+    Map<String, Long> getP99LatencyMicros();
+
+    Map<String, Long> getMaxLatencyMicros();
+
+    /**
+     * @return median number of books returned by author queries
+     */
+    long getAuthorBooksP50();
+
+    /**
+     * @return 99th percentile of number of books returned by author queries
+     */
+    long getAuthorBooksP99();
+
+    long getAuthorBooksMax();
+
+    long getSlowOperationCount();
+
+    long getSlowOperationThresholdMicros();
+
+    /**
+     * Clears all histograms and counters.
+     */
+    void reset();
+}
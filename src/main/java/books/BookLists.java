@@ -0,0 +1,55 @@
+package books;
+
+import java.util.List;
+
+/**
+ * Validation of input lists of {@link BookDatabase#init(List, List)} and {@link BookDatabase#addBooks(List, List)},
+ * shared by all implementations so every engine rejects the same input with the same message.
+ * A null author inside a list of authors is valid, every engine stores it as any other author,
+ * so input which passes validation is always added as a whole.
+ */
+final class BookLists {
+
+    static final String INIT_MESSAGE = "Wrong argument for init book at position: ";
+
+    static final String BATCH_MESSAGE = "Wrong argument for book at position: ";
+
+    private BookLists() {
+    }
+
+    /**
+     * Checks that both lists are given and have same size.
+     *
+     * @param titles  titles
+     * @param authors authors for every title
+     * @throws NullPointerException     for null list
+     * @throws IllegalArgumentException for lists of different size
+     */
+    static void checkSizes(List<String> titles, List<List<String>> authors) {
+        if (titles == null || authors == null) {
+            throw new NullPointerException("Lists must not be null.");
+        }
+        if (titles.size() != authors.size()) {
+            throw new IllegalArgumentException("Both lists must have same size.");
+        }
+    }
+
+    /**
+     * Checks lists as {@link #checkSizes(List, List)} and every book, title must not be null
+     * and list of authors must not be null nor empty, authors in the list may be null.
+     *
+     * @param titles  titles
+     * @param authors authors for every title
+     * @param message message of exception for a wrong book, followed by its position
+     * @throws NullPointerException     for null list
+     * @throws IllegalArgumentException for lists of different size or a wrong book
+     */
+    static void validate(List<String> titles, List<List<String>> authors, String message) {
+        checkSizes(titles, authors);
+        for (int i = 0; i < titles.size(); i++) {
+            if (titles.get(i) == null || authors.get(i) == null || authors.get(i).isEmpty()) {
+                throw new IllegalArgumentException(message + i);
+            }
+        }
+    }
+}
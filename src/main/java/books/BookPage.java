@@ -0,0 +1,111 @@
+package books;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One page of books of an author in ascending title order, returned by
+ * {@link BookDatabase#queryBooksByAuthorPage(String, int, int)} and
+ * {@link BookDatabase#queryBooksByAuthorAfter(String, String, int)}.
+ * <p>
+ * Cursor of the next page is the title of the last book of this page, next page starts at the first title
+ * greater than the cursor. Cursor does not point into any structure, so it stays valid across inserts and removals,
+ * also when the book it was taken from is removed.
+ */
+public final class BookPage {
+
+    /**
+     * Order of books in pages.
+     */
+    public static final Comparator<Book> TITLE_ORDER = Comparator.comparing(Book::getBookTitle);
+
+    private final List<Book> books;
+
+    private final int total;
+
+    private final String nextCursor;
+
+    BookPage(List<Book> books, int total, String nextCursor) {
+        this.books = books;
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return unmodifiable list of books in ascending title order
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * @return number of all books of the author when page was read
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return cursor for {@link BookDatabase#queryBooksByAuthorAfter(String, String, int)}, null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Page of a list of books already sorted in title order.
+     *
+     * @param sorted all books of an author in title order
+     * @param from   index of first book of page
+     * @param limit  maximal number of books in page
+     * @return page
+     */
+    static BookPage of(List<Book> sorted, long from, int limit) {
+        int start = (int) Math.min(from, sorted.size());
+        int end = (int) Math.min(from + limit, sorted.size());
+        List<Book> books = Collections.unmodifiableList(new ArrayList<>(sorted.subList(start, end)));
+        String nextCursor = end < sorted.size() && end > start ? sorted.get(end - 1).getBookTitle() : null;
+        return new BookPage(books, sorted.size(), nextCursor);
+    }
+
+    /**
+     * Index of the first book of a page.
+     *
+     * @param page     page number, first page is 0
+     * @param pageSize number of books in page
+     * @return offset of page
+     * @throws IllegalArgumentException for negative page or not positive page size
+     */
+    static long offset(int page, int pageSize) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative.");
+        }
+        checkLimit(pageSize);
+        return (long) page * pageSize;
+    }
+
+    /**
+     * @param limit maximal number of books in page
+     * @throws IllegalArgumentException for not positive limit
+     */
+    static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BookPage{" +
+                "books=" + books +
+                ", total=" + total +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package books;
+
+import java.util.List;
+
+/**
+ * Partition of {@link ShardedBookDatabase}, a database which can also export all its books,
+ * so books may be moved between shards when number of shards changes.
+ * Shards are called from several threads, implementations must be thread-safe.
+ */
+public interface BookShard extends BookDatabase {
+
+    /**
+     * Returns all books of the shard.
+     *
+     * @return copy of all books
+     */
+    List<Book> books();
+}
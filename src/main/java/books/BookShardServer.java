@@ -0,0 +1,320 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a {@link BookDatabase} over {@link ShardProtocol}, so a shard or a whole catalogue may run
+ * as a separate local process shared by many clients:
+ * <pre>
+ *     java -cp books.jar books.BookShardServer 7001 catalogue.csv
+ * </pre>
+ * Server listens on loopback interface, every connection is served by its own thread, a virtual thread when
+ * running on Java 21 or later, a daemon platform thread otherwise. Responses of pipelined requests are
+ * flushed together, once no further request is buffered.
+ * Exceptions of the database are sent back to the client, connection stays open.
+ * Database must be thread-safe when more than one client connects, standalone server serves
+ * {@link ConcurrentBookDatabaseImpl}, so connections read in parallel.
+ * Closing the server closes the listening socket and all open connections.
+ */
+public class BookShardServer implements Closeable {
+
+    private static final ThreadFactory VIRTUAL_THREADS = virtualThreadFactory();
+
+    private final Logger logger = LogManager.getLogger(BookShardServer.class.getName());
+
+    private final BookDatabase database;
+
+    private final ServerSocket serverSocket;
+
+    private final ThreadFactory connectionThreads;
+
+    private final Thread acceptor;
+
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts server of a given database, connections are served by virtual threads when available.
+     *
+     * @param database database to serve, books requests need a {@link BookShard}
+     * @param port     port on loopback interface, 0 for any free port
+     * @throws IOException when port cannot be bound
+     */
+    public BookShardServer(BookDatabase database, int port) throws IOException {
+        this(database, port, true);
+    }
+
+    /**
+     * Starts server of a given database.
+     *
+     * @param database       database to serve, books requests need a {@link BookShard}
+     * @param port           port on loopback interface, 0 for any free port
+     * @param virtualThreads false to serve connections by platform threads even if virtual threads are available
+     * @throws IOException when port cannot be bound
+     */
+    public BookShardServer(BookDatabase database, int port, boolean virtualThreads) throws IOException {
+        this.database = database;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.connectionThreads = virtualThreads && VIRTUAL_THREADS != null ? VIRTUAL_THREADS : platformThreadFactory();
+        this.acceptor = new Thread(this::accept, "book-shard-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Book shard server listening on port {} with {} connection threads", getPort(),
+                usesVirtualThreads() ? "virtual" : "platform");
+    }
+
+    /**
+     * Runs server of a new {@link ConcurrentBookDatabaseImpl} until process is killed.
+     *
+     * @param args port, 0 or missing for any free port, which is printed to standard output,
+     *             optionally followed by a CSV catalogue file loaded before the port is printed
+     * @throws IOException when port cannot be bound or catalogue cannot be read
+     * @throws InterruptedException when main thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ConcurrentBookDatabaseImpl database = new ConcurrentBookDatabaseImpl();
+        if (args.length > 1) {
+            new CatalogueLoader(database).load(Paths.get(args[1]), CatalogueLoader.Format.CSV);
+        }
+        BookShardServer server = new BookShardServer(database, args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        System.out.println(server.getPort());
+        server.acceptor.join();
+    }
+
+    /**
+     * Virtual thread factory of Java 21 looked up reflectively, so the server still runs on Java 8.
+     *
+     * @return factory of virtual threads, null when they are not available
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, "book-shard-connection-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "book-shard-connection-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return true if connections are served by virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return connectionThreads == VIRTUAL_THREADS;
+    }
+
+    /**
+     * @return port server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and closes all open connections, requests in flight fail on the client side.
+     *
+     * @throws IOException when listening socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                logger.debug("Closing connection failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                if (serverSocket.isClosed()) {
+                    // close() may have missed a connection accepted concurrently
+                    connections.remove(socket);
+                    socket.close();
+                    return;
+                }
+                connectionThreads.newThread(() -> serve(socket)).start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.error("Accepting connection failed", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            while (true) {
+                int operation = in.read();
+                if (operation < 0) {
+                    return;
+                }
+                handle((byte) operation, in, out);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (SocketException | EOFException e) {
+            logger.debug("Connection closed: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.error("Connection failed", e);
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Arguments are read fully before database is called and result is written only after database returns,
+     * so an exception of database is sent as error response and connection stays in sync.
+     */
+    private void handle(byte operation, DataInputStream in, DataOutputStream out) throws IOException {
+        try {
+            switch (operation) {
+                case ShardProtocol.INIT: {
+                    List<String> titles = ShardProtocol.readStrings(in);
+                    List<List<String>> authors = ShardProtocol.readAuthorLists(in);
+                    database.init(titles, authors);
+                    out.writeByte(ShardProtocol.OK);
+                    break;
+                }
+                case ShardProtocol.ADD_BOOKS: {
+                    List<String> titles = ShardProtocol.readStrings(in);
+                    List<List<String>> authors = ShardProtocol.readAuthorLists(in);
+                    boolean[] added = database.addBooks(titles, authors);
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(added.length);
+                    for (boolean value : added) {
+                        out.writeBoolean(value);
+                    }
+                    break;
+                }
+                case ShardProtocol.ADD_BOOK: {
+                    String title = ShardProtocol.readString(in);
+                    List<String> authors = ShardProtocol.readStrings(in);
+                    boolean added = database.addBook(title, authors);
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeBoolean(added);
+                    break;
+                }
+                case ShardProtocol.SHUT_DOWN:
+                    database.shutDown();
+                    out.writeByte(ShardProtocol.OK);
+                    break;
+                case ShardProtocol.REMOVE_BOOK_BY_TITLE: {
+                    boolean removed = database.removeBookByTitle(ShardProtocol.readString(in));
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeBoolean(removed);
+                    break;
+                }
+                case ShardProtocol.REMOVE_BOOKS_BY_AUTHOR: {
+                    boolean removed = database.removeBooksByAuthor(ShardProtocol.readString(in));
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeBoolean(removed);
+                    break;
+                }
+                case ShardProtocol.QUERY_BOOK_BY_AUTHOR: {
+                    Set<Book> books = database.queryBookByAuthor(ShardProtocol.readString(in));
+                    out.writeByte(ShardProtocol.OK);
+                    ShardProtocol.writeBooks(out, books);
+                    break;
+                }
+                case ShardProtocol.QUERY_AUTHORS_BY_BOOK_TITLE: {
+                    List<String> authors = database.queryAuthorsByBookTitle(ShardProtocol.readString(in));
+                    out.writeByte(ShardProtocol.OK);
+                    ShardProtocol.writeStrings(out, authors);
+                    break;
+                }
+                case ShardProtocol.BOOKS_SIZE:
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(database.booksSize());
+                    break;
+                case ShardProtocol.AUTHORS_SIZE:
+                    out.writeByte(ShardProtocol.OK);
+                    out.writeInt(database.authorsSize());
+                    break;
+                case ShardProtocol.BOOKS: {
+                    if (!(database instanceof BookShard)) {
+                        throw new IllegalStateException("Served database is not a shard.");
+                    }
+                    List<Book> books = ((BookShard) database).books();
+                    out.writeByte(ShardProtocol.OK);
+                    ShardProtocol.writeBooks(out, books);
+                    break;
+                }
+                case ShardProtocol.QUERY_BOOKS_BY_AUTHORS: {
+                    List<String> authors = ShardProtocol.readStrings(in);
+                    List<Set<Book>> books = database.queryBooksByAuthors(authors);
+                    out.writeByte(ShardProtocol.OK);
+                    for (Set<Book> authorBooks : books) {
+                        ShardProtocol.writeBooks(out, authorBooks);
+                    }
+                    break;
+                }
+                case ShardProtocol.QUERY_AUTHORS_BY_BOOK_TITLES: {
+                    List<String> titles = ShardProtocol.readStrings(in);
+                    List<List<String>> authors = database.queryAuthorsByBookTitles(titles);
+                    out.writeByte(ShardProtocol.OK);
+                    for (List<String> bookAuthors : authors) {
+                        ShardProtocol.writeStrings(out, bookAuthors);
+                    }
+                    break;
+                }
+                case ShardProtocol.QUERY_BOOKS_BY_AUTHOR_PAGE: {
+                    String author = ShardProtocol.readString(in);
+                    int page = in.readInt();
+                    int pageSize = in.readInt();
+                    BookPage books = database.queryBooksByAuthorPage(author, page, pageSize);
+                    out.writeByte(ShardProtocol.OK);
+                    ShardProtocol.writePage(out, books);
+                    break;
+                }
+                case ShardProtocol.QUERY_BOOKS_BY_AUTHOR_AFTER: {
+                    String author = ShardProtocol.readString(in);
+                    String cursor = ShardProtocol.readString(in);
+                    int limit = in.readInt();
+                    BookPage books = database.queryBooksByAuthorAfter(author, cursor, limit);
+                    out.writeByte(ShardProtocol.OK);
+                    ShardProtocol.writePage(out, books);
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown shard operation: " + operation);
+            }
+        } catch (RuntimeException e) {
+            out.writeByte(ShardProtocol.ERROR);
+            ShardProtocol.writeString(out, e.getClass().getName());
+            ShardProtocol.writeString(out, e.getMessage());
+        }
+    }
+}
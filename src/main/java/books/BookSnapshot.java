@@ -0,0 +1,284 @@
+package books;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned, checksummed binary snapshot of a whole catalogue.
+ * <p>
+ * Format, all numbers are big endian ints unless stated otherwise, strings are int length followed by UTF-8 bytes,
+ * null string has length -1:
+ * <pre>
+ * header  : magic, version, authors count, books count
+ * authors : author name for every author id
+ * books   : title, authors count, author ids... for every book index
+ * index   : postings count, book indexes... for every author id
+ * trailer : CRC32 of all preceding bytes as long
+ * </pre>
+ * Author to books index is stored prebuilt, so loading creates every author set once with its final size
+ * and no hashing of authors is needed. Every author name is decoded once and shared by all its books.
+ * Snapshot is written through a direct buffer to a temporary file which replaces target file atomically,
+ * loading maps the file and verifies checksum before anything is decoded.
+ */
+final class BookSnapshot {
+
+    static final int MAGIC = 0x424B534E;
+
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private BookSnapshot() {
+    }
+
+    /**
+     * Decoded snapshot content.
+     */
+    static final class Content {
+
+        final Map<String, Book> titleToBookMap;
+
+        final Map<String, Set<Book>> authorToBooksMap;
+
+        Content(Map<String, Book> titleToBookMap, Map<String, Set<Book>> authorToBooksMap) {
+            this.titleToBookMap = titleToBookMap;
+            this.authorToBooksMap = authorToBooksMap;
+        }
+    }
+
+    /**
+     * Writes snapshot of given indexes.
+     *
+     * @param titleToBookMap   title index
+     * @param authorToBooksMap author index
+     * @param file             target file
+     * @throws IOException when file cannot be written
+     */
+    static void write(Map<String, Book> titleToBookMap, Map<String, Set<Book>> authorToBooksMap, Path file) throws IOException {
+        writeBooks(titleToBookMap.values(), authorToBooksMap, file);
+    }
+
+    /**
+     * Writes snapshot of given books, author index is built from books, so a copy taken under a lock can be written
+     * after the lock is released.
+     *
+     * @param books unique books
+     * @param file  target file
+     * @throws IOException when file cannot be written
+     */
+    static void write(Collection<Book> books, Path file) throws IOException {
+        Map<String, List<Book>> authorToBooksMap = new HashMap<>();
+        for (Book book : books) {
+            for (String author : book.getAuthors()) {
+                List<Book> authorBooks = authorToBooksMap.computeIfAbsent(author, key -> new ArrayList<>(2));
+                if (authorBooks.isEmpty() || authorBooks.get(authorBooks.size() - 1) != book) {
+                    authorBooks.add(book);
+                }
+            }
+        }
+        writeBooks(books, authorToBooksMap, file);
+    }
+
+    private static void writeBooks(Collection<Book> books, Map<String, ? extends Collection<Book>> authorToBooksMap,
+                                   Path file) throws IOException {
+        Map<Book, Integer> bookIndexes = new HashMap<>(BulkBookLoader.capacityFor(books.size()));
+        Map<String, Integer> authorIds = new HashMap<>(BulkBookLoader.capacityFor(authorToBooksMap.size()));
+        for (String author : authorToBooksMap.keySet()) {
+            authorIds.put(author, authorIds.size());
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(authorIds.size());
+            out.putInt(books.size());
+            for (String author : authorToBooksMap.keySet()) {
+                out.putString(author);
+            }
+            for (Book book : books) {
+                bookIndexes.put(book, bookIndexes.size());
+                out.putString(book.getBookTitle());
+                List<String> authors = book.getAuthors();
+                out.putInt(authors.size());
+                for (String author : authors) {
+                    out.putInt(authorIds.get(author));
+                }
+            }
+            for (Collection<Book> authorBooks : authorToBooksMap.values()) {
+                out.putInt(authorBooks.size());
+                for (Book book : authorBooks) {
+                    out.putInt(bookIndexes.get(book));
+                }
+            }
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads snapshot into new pre-sized indexes.
+     *
+     * @param file snapshot file
+     * @return decoded indexes
+     * @throws IOException when file cannot be read, is not a snapshot or checksum does not match
+     */
+    static Content read(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 24 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a books snapshot: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int bodySize = buffer.capacity() - 8;
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodySize);
+        crc.update(body);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a books snapshot: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + " of " + file);
+        }
+        if (buffer.getLong(bodySize) != crc.getValue()) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+
+        buffer.position(8);
+        Input in = new Input(buffer);
+        String[] authors = new String[in.getInt()];
+        Book[] books = new Book[in.getInt()];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = in.getString();
+        }
+        Map<String, Book> titleToBookMap = new HashMap<>(BulkBookLoader.capacityFor(books.length));
+        for (int i = 0; i < books.length; i++) {
+            String title = in.getString();
+            String[] bookAuthors = new String[in.getInt()];
+            for (int j = 0; j < bookAuthors.length; j++) {
+                bookAuthors[j] = authors[in.getInt()];
+            }
+            books[i] = new Book(title, Arrays.asList(bookAuthors));
+            titleToBookMap.put(title, books[i]);
+        }
+        Map<String, Set<Book>> authorToBooksMap = new HashMap<>(BulkBookLoader.capacityFor(authors.length));
+        for (String author : authors) {
+            int postingsCount = in.getInt();
+            Set<Book> authorBooks = new HashSet<>(BulkBookLoader.capacityFor(postingsCount));
+            for (int j = 0; j < postingsCount; j++) {
+                authorBooks.add(books[in.getInt()]);
+            }
+            authorToBooksMap.put(author, authorBooks);
+        }
+        if (buffer.position() != bodySize) {
+            throw new IOException("Malformed snapshot: " + file);
+        }
+        return new Content(titleToBookMap, authorToBooksMap);
+    }
+
+    /**
+     * Reader of numbers and strings, reuses one scratch array for decoding strings.
+     */
+    private static final class Input {
+
+        private final ByteBuffer buffer;
+
+        private byte[] scratch = new byte[256];
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        String getString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Buffered channel output which keeps running checksum of all written bytes.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            ByteBuffer checksummed = buffer.duplicate();
+            crc.update(checksummed);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
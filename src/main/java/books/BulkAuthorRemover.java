@@ -0,0 +1,137 @@
+package books;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Helper for removal of all books of one author from author to books index.
+ * Every removed book is removed once from set of every co-author, without copying set of the removed author,
+ * co-authors left without books are collected and removed from index together by the caller.
+ * <p>
+ * Sets of different co-authors are independent, so for authors with more than {@link #PARALLEL_THRESHOLD} books
+ * on a pool with more than one worker books are grouped by their co-authors in partitions on a fork-join pool, partial groups are merged pairwise
+ * while joining, and sets are shrunk by whole groups in parallel, every set by a single partition.
+ * The index map itself is only read by partitions.
+ */
+class BulkAuthorRemover {
+
+    static final int PARALLEL_THRESHOLD = 2 * BulkBookLoader.PARTITION_SIZE;
+
+    private final ForkJoinPool pool;
+
+    BulkAuthorRemover(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Removes books of an author from sets of all their co-authors.
+     *
+     * @param author           removed author, its own entry must be already removed from index
+     * @param books            books of removed author
+     * @param authorToBooksMap author to books index
+     * @return co-authors whose sets became empty
+     */
+    List<String> removeFromCoAuthors(String author, Book[] books, Map<String, Set<Book>> authorToBooksMap) {
+        if (books.length <= PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            List<String> emptied = new ArrayList<>();
+            for (Book book : books) {
+                for (String coAuthor : book.getAuthors()) {
+                    if (!Objects.equals(coAuthor, author)) {
+                        Set<Book> coAuthorBooks = authorToBooksMap.get(coAuthor);
+                        if (coAuthorBooks != null && coAuthorBooks.remove(book) && coAuthorBooks.isEmpty()) {
+                            emptied.add(coAuthor);
+                        }
+                    }
+                }
+            }
+            return emptied;
+        }
+        Map<String, List<Book>> groups = pool.invoke(new GroupTask(author, books, 0, books.length));
+        List<Map.Entry<String, List<Book>>> entries = new ArrayList<>(groups.entrySet());
+        return pool.invoke(new ShrinkTask(entries, authorToBooksMap, 0, entries.size()));
+    }
+
+    private static class GroupTask extends RecursiveTask<Map<String, List<Book>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String author;
+        private final Book[] books;
+        private final int from;
+        private final int to;
+
+        GroupTask(String author, Book[] books, int from, int to) {
+            this.author = author;
+            this.books = books;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, List<Book>> compute() {
+            if (to - from > BulkBookLoader.PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                GroupTask left = new GroupTask(author, books, from, middle);
+                left.fork();
+                Map<String, List<Book>> right = new GroupTask(author, books, middle, to).compute();
+                return BulkBookLoader.merge(left.join(), right);
+            }
+            Map<String, List<Book>> groups = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                for (String coAuthor : books[i].getAuthors()) {
+                    if (!Objects.equals(coAuthor, author)) {
+                        groups.computeIfAbsent(coAuthor, key -> new ArrayList<>(2)).add(books[i]);
+                    }
+                }
+            }
+            return groups;
+        }
+    }
+
+    private static class ShrinkTask extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Map.Entry<String, List<Book>>> groups;
+        private final Map<String, Set<Book>> authorToBooksMap;
+        private final int from;
+        private final int to;
+
+        ShrinkTask(List<Map.Entry<String, List<Book>>> groups, Map<String, Set<Book>> authorToBooksMap,
+                   int from, int to) {
+            this.groups = groups;
+            this.authorToBooksMap = authorToBooksMap;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from > BulkBookLoader.PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                ShrinkTask left = new ShrinkTask(groups, authorToBooksMap, from, middle);
+                left.fork();
+                List<String> right = new ShrinkTask(groups, authorToBooksMap, middle, to).compute();
+                List<String> emptied = left.join();
+                emptied.addAll(right);
+                return emptied;
+            }
+            List<String> emptied = new ArrayList<>();
+            for (Map.Entry<String, List<Book>> group : groups.subList(from, to)) {
+                Set<Book> coAuthorBooks = authorToBooksMap.get(group.getKey());
+                if (coAuthorBooks == null) {
+                    continue;
+                }
+                // removeAll would iterate the set and scan the list when set is not larger than the list
+                for (Book book : group.getValue()) {
+                    coAuthorBooks.remove(book);
+                }
+                if (coAuthorBooks.isEmpty()) {
+                    emptied.add(group.getKey());
+                }
+            }
+            return emptied;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package books;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Helper for parallel bulk loading of books.
+ * Input is split into partitions processed on a fork-join pool:
+ * books are created and validated in parallel, after that every partition builds its own author index
+ * and partial indexes are merged pairwise while joining.
+ * <p>
+ * Duplicated titles are resolved by the caller in input order, so this class is free of any shared state.
+ */
+class BulkBookLoader {
+
+    static final int PARTITION_SIZE = 8192;
+
+    private final ForkJoinPool pool;
+
+    BulkBookLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns initial capacity of a hash map which holds given number of entries without resizing.
+     *
+     * @param expectedSize expected number of entries
+     * @return initial capacity
+     */
+    static int capacityFor(int expectedSize) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (expectedSize / 0.75f) + 1);
+    }
+
+    /**
+     * Creates books in input order, validates every entry.
+     *
+     * @param titles  titles
+     * @param authors authors for every title
+     * @return books in input order
+     */
+    Book[] createBooks(List<String> titles, List<List<String>> authors) {
+        String[] titlesArray = titles.toArray(new String[0]);
+        Object[] authorsArray = authors.toArray();
+        Book[] books = new Book[titlesArray.length];
+        pool.invoke(new CreateBooksTask(titlesArray, authorsArray, books, 0, books.length));
+        return books;
+    }
+
+    /**
+     * Builds author to books index of first "size" books.
+     *
+     * @param books books to index
+     * @param size  number of books to index
+     * @return author to books index
+     */
+    Map<String, List<Book>> indexAuthors(Book[] books, int size) {
+        return pool.invoke(new IndexAuthorsTask(books, 0, size));
+    }
+
+    /**
+     * Merges two partial author indexes, lists of the smaller index are appended to the larger one.
+     *
+     * @param left  partial index
+     * @param right partial index
+     * @return merged index, one of the arguments
+     */
+    static Map<String, List<Book>> merge(Map<String, List<Book>> left, Map<String, List<Book>> right) {
+        Map<String, List<Book>> target = left.size() >= right.size() ? left : right;
+        Map<String, List<Book>> source = target == left ? right : left;
+        for (Map.Entry<String, List<Book>> entry : source.entrySet()) {
+            List<Book> books = target.putIfAbsent(entry.getKey(), entry.getValue());
+            if (books != null) {
+                books.addAll(entry.getValue());
+            }
+        }
+        return target;
+    }
+
+    private static class CreateBooksTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] titles;
+        private final Object[] authors;
+        private final Book[] books;
+        private final int from;
+        private final int to;
+
+        CreateBooksTask(String[] titles, Object[] authors, Book[] books, int from, int to) {
+            this.titles = titles;
+            this.authors = authors;
+            this.books = books;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (to - from > PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CreateBooksTask(titles, authors, books, from, middle),
+                        new CreateBooksTask(titles, authors, books, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                List<String> bookAuthors = (List<String>) authors[i];
+                if (titles[i] == null || bookAuthors == null || bookAuthors.isEmpty()) {
+                    throw new IllegalArgumentException(BookLists.INIT_MESSAGE + i);
+                }
+                books[i] = new Book(titles[i], bookAuthors);
+            }
+        }
+    }
+
+    private static class IndexAuthorsTask extends RecursiveTask<Map<String, List<Book>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Book[] books;
+        private final int from;
+        private final int to;
+
+        IndexAuthorsTask(Book[] books, int from, int to) {
+            this.books = books;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, List<Book>> compute() {
+            if (to - from > PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                IndexAuthorsTask left = new IndexAuthorsTask(books, from, middle);
+                left.fork();
+                Map<String, List<Book>> right = new IndexAuthorsTask(books, middle, to).compute();
+                return merge(left.join(), right);
+            }
+            Map<String, List<Book>> index = new HashMap<>(capacityFor(to - from));
+            for (int i = from; i < to; i++) {
+                for (String author : books[i].getAuthors()) {
+                    index.computeIfAbsent(author, key -> new ArrayList<>(2)).add(books[i]);
+                }
+            }
+            return index;
+        }
+    }
+}
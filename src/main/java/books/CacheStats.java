@@ -0,0 +1,76 @@
+package books;
+
+/**
+ * Snapshot of cache counters.
+ * POJO is threadsafe because is immutable.
+ */
+public class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long loadCount;
+
+    private final long evictionCount;
+
+    /**
+     * Default constructor.
+     * @param hitCount      number of lookups answered from cache
+     * @param missCount     number of lookups not found in cache
+     * @param loadCount     number of values loaded from backing database, lower than misses when misses were coalesced
+     * @param evictionCount number of entries evicted because of size bound
+     */
+    public CacheStats(long hitCount, long missCount, long loadCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * @return number of lookups answered from cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of lookups not found in cache
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of values loaded from backing database
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return number of entries evicted because of size bound
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return ratio of hits to all lookups, 1.0 when there were no lookups
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadCount=" + loadCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
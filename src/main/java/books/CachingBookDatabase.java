@@ -0,0 +1,235 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Read-through caching decorator of any {@link BookDatabase}, meant for databases backed by a slow store.
+ * Results of {@link #queryBookByAuthor(String)} and {@link #queryAuthorsByBookTitle(String)} are kept in two
+ * bounded {@link SegmentedLruCache}s, empty results are cached too, so repeated queries of unknown keys are cheap.
+ * Cached values are unmodifiable copies, so they do not change with the backing database.
+ * <p>
+ * Invalidation is precise: a mutation invalidates titles and authors whose results it changes,
+ * removal of a book invalidates its title and all its authors, removal of an author invalidates
+ * all books of the author and all their co-authors. Only init and shutdown invalidate whole caches.
+ * The null author is never cached, its books are always queried from the backing database.
+ * <p>
+ * Concurrent misses on the same hot author or title are coalesced into a single query of the backing database.
+ * Decorator is thread-safe when the backing database is.
+ */
+public class CachingBookDatabase implements BookDatabase {
+
+    /**
+     * Default number of cached authors and, separately, of cached titles.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private final Logger logger = LogManager.getLogger(CachingBookDatabase.class.getName());
+
+    private final BookDatabase database;
+
+    private final SegmentedLruCache<String, Set<Book>> authorCache;
+
+    private final SegmentedLruCache<String, List<String>> titleCache;
+
+    /**
+     * Creates decorator with default cache size.
+     *
+     * @param database backing database
+     */
+    public CachingBookDatabase(BookDatabase database) {
+        this(database, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates decorator with a given cache size.
+     *
+     * @param database    backing database
+     * @param maximumSize maximal number of cached authors and, separately, of cached titles, must be positive
+     */
+    public CachingBookDatabase(BookDatabase database, int maximumSize) {
+        if (database == null) {
+            throw new NullPointerException("Database must not be null.");
+        }
+        this.database = database;
+        this.authorCache = new SegmentedLruCache<>(maximumSize);
+        this.titleCache = new SegmentedLruCache<>(maximumSize);
+    }
+
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        try {
+            database.init(titlesInitList, authorsInitList);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        boolean added = database.addBook(bookTitle, authors);
+        if (added) {
+            invalidateBook(bookTitle, authors);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        boolean[] added = database.addBooks(titles, authors);
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                invalidateBook(titles.get(i), authors.get(i));
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public void shutDown() {
+        database.shutDown();
+        invalidateAll();
+    }
+
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        List<String> authors = database.viewAuthorsByBookTitle(bookTitle);
+        boolean removed = database.removeBookByTitle(bookTitle);
+        if (removed) {
+            invalidateBook(bookTitle, authors);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        List<Book> books = new ArrayList<>(database.queryBookByAuthor(author));
+        boolean removed = database.removeBooksByAuthor(author);
+        if (removed) {
+            invalidateAuthor(author);
+            for (Book book : books) {
+                invalidateBook(book.getBookTitle(), book.getAuthors());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Book query by Author, answered from cache or loaded from backing database.
+     *
+     * @param author input author
+     * @return unmodifiable set of books, empty set for non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        if (author == null) {
+            return loadBooks(null);
+        }
+        return authorCache.get(author, this::loadBooks);
+    }
+
+    private Set<Book> loadBooks(String author) {
+        Set<Book> books = database.queryBookByAuthor(author);
+        return books.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(books));
+    }
+
+    /**
+     * Authors query by Book, answered from cache or loaded from backing database.
+     *
+     * @param bookTitle input title
+     * @return unmodifiable list of authors, empty list for null queries or non existing entries
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        if (bookTitle == null) {
+            return Collections.emptyList();
+        }
+        return titleCache.get(bookTitle, key -> {
+            List<String> authors = database.queryAuthorsByBookTitle(key);
+            return authors.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(authors));
+        });
+    }
+
+    /**
+     * Cached values are unmodifiable already, so view is the cached value itself.
+     *
+     * @param author input author
+     * @return unmodifiable set of books, empty set for non existing entries
+     */
+    @Override
+    public Set<Book> viewBooksByAuthor(String author) {
+        return queryBookByAuthor(author);
+    }
+
+    /**
+     * Cached values are unmodifiable already, so view is the cached value itself.
+     *
+     * @param bookTitle input title
+     * @return unmodifiable list of authors, empty list for null queries or non existing entries
+     */
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * Not cached, delegated as is, so an optimized implementation of backing database is kept.
+     */
+    @Override
+    public BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        return database.queryBooksByAuthorPage(author, page, pageSize);
+    }
+
+    /**
+     * Not cached, delegated as is, so an optimized implementation of backing database is kept.
+     */
+    @Override
+    public BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        return database.queryBooksByAuthorAfter(author, cursor, limit);
+    }
+
+    @Override
+    public int booksSize() {
+        return database.booksSize();
+    }
+
+    @Override
+    public int authorsSize() {
+        return database.authorsSize();
+    }
+
+    /**
+     * @return counters of author to books cache
+     */
+    public CacheStats authorCacheStats() {
+        return authorCache.stats();
+    }
+
+    /**
+     * @return counters of title to authors cache
+     */
+    public CacheStats titleCacheStats() {
+        return titleCache.stats();
+    }
+
+    private void invalidateBook(String bookTitle, List<String> authors) {
+        titleCache.invalidate(bookTitle);
+        for (String author : authors) {
+            invalidateAuthor(author);
+        }
+    }
+
+    private void invalidateAuthor(String author) {
+        if (author != null) {
+            authorCache.invalidate(author);
+        }
+    }
+
+    private void invalidateAll() {
+        logger.debug("Invalidating all cached queries.");
+        authorCache.invalidateAll();
+        titleCache.invalidateAll();
+    }
+}
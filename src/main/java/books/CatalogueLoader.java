@@ -0,0 +1,601 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming loader of catalogue files, books are added to database in bounded batches, so peak heap is
+ * proportional to batch size and number of distinct authors, not to file size.
+ * <p>
+ * Loading is a pipeline of two stages on separate threads: a parser thread reads the file through a
+ * {@link FileChannel} into a reused direct buffer and decodes fields straight from bytes, no line strings are
+ * created. Parsed batches are passed through a bounded queue to the calling thread, which adds them to database
+ * with {@link BookDatabase#addBooks(List, List)}. When indexing is slower than parsing, the queue is full and
+ * the parser waits. Database is only called from the calling thread, so it does not have to be thread-safe.
+ * <p>
+ * Supported formats, both UTF-8:
+ * <ul>
+ * <li>{@link Format#CSV}: one book per record, title in the first field and one author per following field,
+ * fields may be quoted with '"' and quotes inside quoted fields are doubled, no header line.</li>
+ * <li>{@link Format#JSONL}: one JSON object per line with "title" string and "authors" array of strings,
+ * other members are skipped whatever their value is, nested objects and arrays included.</li>
+ * </ul>
+ * Empty lines are skipped. Malformed record stops loading with {@link IllegalArgumentException},
+ * batches added before it stay in database.
+ */
+public class CatalogueLoader {
+
+    /**
+     * Catalogue file formats.
+     */
+    public enum Format {
+        CSV, JSONL
+    }
+
+    /**
+     * Default number of books added to database at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    /**
+     * Default number of parsed batches waiting for indexing.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final Batch END = new Batch(0);
+
+    private final Logger logger = LogManager.getLogger(CatalogueLoader.class.getName());
+
+    private final BookDatabase database;
+
+    private final int batchSize;
+
+    private final int queueCapacity;
+
+    private final int bufferSize;
+
+    /**
+     * Creates loader with default batch size and queue capacity.
+     *
+     * @param database database books are added to
+     */
+    public CatalogueLoader(BookDatabase database) {
+        this(database, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates loader, at most (queueCapacity + 2) * batchSize parsed books are in memory at once.
+     *
+     * @param database      database books are added to
+     * @param batchSize     number of books added to database at once, must be positive
+     * @param queueCapacity number of parsed batches waiting for indexing, must be positive
+     */
+    public CatalogueLoader(BookDatabase database, int batchSize, int queueCapacity) {
+        this(database, batchSize, queueCapacity, DEFAULT_BUFFER_SIZE);
+    }
+
+    CatalogueLoader(BookDatabase database, int batchSize, int queueCapacity, int bufferSize) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be positive.");
+        }
+        this.database = database;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Loads catalogue file, blocks until all books are added. Duplicated titles are skipped, as in addBooks.
+     *
+     * @param file   catalogue file
+     * @param format format of file
+     * @return number of books added to database
+     * @throws IOException when file cannot be read
+     */
+    public long load(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Parser parser = new Parser(FileChannel.open(file, StandardOpenOption.READ), format, queue);
+        Thread parserThread = new Thread(parser, "catalogue-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+        long records = 0;
+        long added = 0;
+        try {
+            while (true) {
+                Batch batch = queue.take();
+                if (batch == END) {
+                    break;
+                }
+                boolean[] result = database.addBooks(batch.titles, batch.authors);
+                records += result.length;
+                for (boolean value : result) {
+                    if (value) {
+                        added++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Loading of " + file + " was interrupted.", e);
+        } finally {
+            parserThread.interrupt();
+            joinQuietly(parserThread);
+        }
+        parser.rethrowFailure();
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        logger.info("Loaded {} of {} books from {} in {} ms ({} books/s)", added, records, file,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), added * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        return added;
+    }
+
+    private static void joinQuietly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Books parsed together, handed from parser to indexing stage.
+     */
+    private static final class Batch {
+
+        private final List<String> titles;
+
+        private final List<List<String>> authors;
+
+        Batch(int capacity) {
+            titles = new ArrayList<>(capacity);
+            authors = new ArrayList<>(capacity);
+        }
+    }
+
+    /**
+     * Parser stage, END is always queued last, also after a failure.
+     */
+    private final class Parser implements Runnable {
+
+        private final FileChannel channel;
+
+        private final Format format;
+
+        private final BlockingQueue<Batch> queue;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+
+        /**
+         * one instance of every author name, books of the same author share it
+         */
+        private final Map<String, String> authorNames = new HashMap<>();
+
+        private final List<String> fields = new ArrayList<>();
+
+        private byte[] field = new byte[256];
+
+        private int fieldLength;
+
+        private int pending = -2;
+
+        private long record;
+
+        private volatile RuntimeException failure;
+
+        private volatile IOException ioFailure;
+
+        Parser(FileChannel channel, Format format, BlockingQueue<Batch> queue) {
+            this.channel = channel;
+            this.format = format;
+            this.queue = queue;
+            buffer.flip();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Batch batch = new Batch(batchSize);
+                while (format == Format.CSV ? parseCsvRecord() : parseJsonRecord()) {
+                    if (fields.isEmpty()) {
+                        continue;
+                    }
+                    String title = fields.get(0);
+                    String[] authors = new String[fields.size() - 1];
+                    for (int i = 0; i < authors.length; i++) {
+                        String author = fields.get(i + 1);
+                        String shared = authorNames.putIfAbsent(author, author);
+                        authors[i] = shared == null ? author : shared;
+                    }
+                    batch.titles.add(title);
+                    batch.authors.add(Arrays.asList(authors));
+                    if (batch.titles.size() == batchSize) {
+                        queue.put(batch);
+                        batch = new Batch(batchSize);
+                    }
+                }
+                if (!batch.titles.isEmpty()) {
+                    queue.put(batch);
+                }
+            } catch (InterruptedException e) {
+                // indexing stage stopped, it does not wait for more batches
+                return;
+            } catch (IOException e) {
+                ioFailure = e;
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                closeChannel();
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (ioFailure == null) {
+                    ioFailure = e;
+                }
+            }
+        }
+
+        void rethrowFailure() throws IOException {
+            if (ioFailure != null) {
+                throw ioFailure;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * Parses next CSV record into fields, fields are empty for an empty line.
+         *
+         * @return false at end of file
+         */
+        private boolean parseCsvRecord() throws IOException {
+            fields.clear();
+            int b = read();
+            if (b < 0) {
+                return false;
+            }
+            record++;
+            if (b == '\n' || b == '\r') {
+                skipLineFeed(b);
+                return true;
+            }
+            while (true) {
+                fieldLength = 0;
+                if (b == '"') {
+                    while (true) {
+                        b = read();
+                        if (b < 0) {
+                            throw malformed();
+                        }
+                        if (b == '"') {
+                            b = read();
+                            if (b != '"') {
+                                break;
+                            }
+                        }
+                        append(b);
+                    }
+                } else {
+                    while (b >= 0 && b != ',' && b != '\n' && b != '\r') {
+                        append(b);
+                        b = read();
+                    }
+                }
+                fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                if (b == ',') {
+                    b = read();
+                    continue;
+                }
+                if (b >= 0 && b != '\n' && b != '\r') {
+                    throw malformed();
+                }
+                skipLineFeed(b);
+                validateFields();
+                return true;
+            }
+        }
+
+        /**
+         * Parses next JSON line into fields, title first, fields are empty for an empty line.
+         *
+         * @return false at end of file
+         */
+        private boolean parseJsonRecord() throws IOException {
+            fields.clear();
+            int b = skipWhitespace(read());
+            if (b < 0) {
+                return false;
+            }
+            record++;
+            if (b == '\n') {
+                return true;
+            }
+            if (b != '{') {
+                throw malformed();
+            }
+            String title = null;
+            List<String> authors = null;
+            b = skipWhitespace(read());
+            while (b != '}') {
+                String key = readJsonString(b);
+                if (skipWhitespace(read()) != ':') {
+                    throw malformed();
+                }
+                b = skipWhitespace(read());
+                if (key.equals("title")) {
+                    title = readJsonString(b);
+                    b = read();
+                } else if (key.equals("authors")) {
+                    if (b != '[') {
+                        throw malformed();
+                    }
+                    authors = readJsonStringArray();
+                    b = read();
+                } else {
+                    b = skipJsonValue(b);
+                }
+                b = skipWhitespace(b);
+                if (b == ',') {
+                    b = skipWhitespace(read());
+                } else if (b != '}') {
+                    throw malformed();
+                }
+            }
+            b = skipWhitespace(read());
+            if (b >= 0 && b != '\n') {
+                throw malformed();
+            }
+            if (title == null || authors == null) {
+                throw malformed();
+            }
+            fields.add(title);
+            fields.addAll(authors);
+            validateFields();
+            return true;
+        }
+
+        private List<String> readJsonStringArray() throws IOException {
+            List<String> values = new ArrayList<>(4);
+            int b = skipWhitespace(read());
+            while (b != ']') {
+                values.add(readJsonString(b));
+                b = skipWhitespace(read());
+                if (b == ',') {
+                    b = skipWhitespace(read());
+                } else if (b != ']') {
+                    throw malformed();
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Skips JSON value starting with a given byte, objects and arrays are skipped with all nested values,
+         * only strings and brackets are recognized inside them.
+         *
+         * @return first byte after the value
+         */
+        private int skipJsonValue(int b) throws IOException {
+            if (b != '{' && b != '[') {
+                if (b == '"') {
+                    skipJsonString();
+                    return read();
+                }
+                while (b >= 0 && b != ',' && b != '}' && b != ']' && !isWhitespace(b)) {
+                    b = read();
+                }
+                return b;
+            }
+            int depth = 0;
+            while (true) {
+                if (b < 0 || b == '\n') {
+                    throw malformed();
+                }
+                if (b == '"') {
+                    skipJsonString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return read();
+                }
+                b = read();
+            }
+        }
+
+        /**
+         * Skips rest of JSON string after its opening quote without decoding it.
+         */
+        private void skipJsonString() throws IOException {
+            while (true) {
+                int b = read();
+                if (b == '\\') {
+                    b = read();
+                } else if (b == '"') {
+                    return;
+                }
+                if (b < 0 || b == '\n') {
+                    throw malformed();
+                }
+            }
+        }
+
+        /**
+         * Reads JSON string starting with a given quote byte, escapes are decoded to UTF-8 bytes.
+         */
+        private String readJsonString(int quote) throws IOException {
+            if (quote != '"') {
+                throw malformed();
+            }
+            fieldLength = 0;
+            int highSurrogate = -1;
+            while (true) {
+                int b = read();
+                if (b < 0 || b == '\n') {
+                    throw malformed();
+                }
+                if (b == '"') {
+                    break;
+                }
+                if (b != '\\') {
+                    append(b);
+                    continue;
+                }
+                b = read();
+                switch (b) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        append(b);
+                        break;
+                    case 'b':
+                        append('\b');
+                        break;
+                    case 'f':
+                        append('\f');
+                        break;
+                    case 'n':
+                        append('\n');
+                        break;
+                    case 'r':
+                        append('\r');
+                        break;
+                    case 't':
+                        append('\t');
+                        break;
+                    case 'u':
+                        char c = (char) (hex() << 12 | hex() << 8 | hex() << 4 | hex());
+                        if (Character.isHighSurrogate(c)) {
+                            highSurrogate = c;
+                            continue;
+                        }
+                        if (Character.isLowSurrogate(c) && highSurrogate >= 0) {
+                            appendCodePoint(Character.toCodePoint((char) highSurrogate, c));
+                        } else {
+                            appendCodePoint(c);
+                        }
+                        break;
+                    default:
+                        throw malformed();
+                }
+                highSurrogate = -1;
+            }
+            return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        }
+
+        private int hex() throws IOException {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw malformed();
+            }
+            return digit;
+        }
+
+        private void validateFields() {
+            if (fields.size() < 2 || fields.get(0).isEmpty()) {
+                throw malformed();
+            }
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed catalogue record: " + record);
+        }
+
+        private void skipLineFeed(int b) throws IOException {
+            if (b == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    pending = next;
+                }
+            }
+        }
+
+        private int skipWhitespace(int b) throws IOException {
+            while (b == ' ' || b == '\t' || b == '\r') {
+                b = read();
+            }
+            return b;
+        }
+
+        private boolean isWhitespace(int b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+
+        private void append(int b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = (byte) b;
+        }
+
+        private void appendCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                append(codePoint);
+            } else if (codePoint < 0x800) {
+                append(0xC0 | codePoint >> 6);
+                append(0x80 | codePoint & 0x3F);
+            } else if (codePoint < 0x10000) {
+                append(0xE0 | codePoint >> 12);
+                append(0x80 | codePoint >> 6 & 0x3F);
+                append(0x80 | codePoint & 0x3F);
+            } else {
+                append(0xF0 | codePoint >> 18);
+                append(0x80 | codePoint >> 12 & 0x3F);
+                append(0x80 | codePoint >> 6 & 0x3F);
+                append(0x80 | codePoint & 0x3F);
+            }
+        }
+
+        /**
+         * @return next byte, -1 at end of file
+         */
+        private int read() throws IOException {
+            if (pending != -2) {
+                int b = pending;
+                pending = -2;
+                return b;
+            }
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer);
+                } while (read == 0);
+                buffer.flip();
+                if (read < 0) {
+                    return -1;
+                }
+            }
+            return buffer.get() & 0xFF;
+        }
+    }
+}
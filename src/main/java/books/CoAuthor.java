@@ -0,0 +1,61 @@
+package books;
+
+import java.util.Objects;
+
+/**
+ * Class that represents a co-author of some author together with number of books they wrote together.
+ * POJO is threadsafe because is immutable.
+ */
+public class CoAuthor {
+
+    private final String author;
+
+    private final int sharedBooks;
+
+    /**
+     * Default constructor.
+     * @param author      co-author name
+     * @param sharedBooks number of shared books
+     */
+    public CoAuthor(String author, int sharedBooks) {
+        this.author = author;
+        this.sharedBooks = sharedBooks;
+    }
+
+    /**
+     * Co-author name getter.
+     * @return co-author name
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Shared books getter.
+     * @return number of books written together
+     */
+    public int getSharedBooks() {
+        return sharedBooks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CoAuthor)) return false;
+        CoAuthor coAuthor = (CoAuthor) o;
+        return sharedBooks == coAuthor.sharedBooks && Objects.equals(author, coAuthor.author);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(author, sharedBooks);
+    }
+
+    @Override
+    public String toString() {
+        return "CoAuthor{" +
+                "author='" + author + '\'' +
+                ", sharedBooks=" + sharedBooks +
+                '}';
+    }
+}
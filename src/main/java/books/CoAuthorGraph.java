@@ -0,0 +1,285 @@
+package books;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Weighted co-authorship graph, authors are vertices and weight of an edge is the number of books
+ * two authors wrote together.
+ * <p>
+ * Authors get dense ids from {@link AuthorDictionary}, adjacency of every author is a pair of primitive arrays
+ * sorted by neighbour id: neighbour ids and weights. Adding or removing a book with "a" authors updates
+ * a * (a - 1) edges, each in O(log d + d) where "d" is degree of an author.
+ * <p>
+ * Null author names are accepted by the database but are not vertices of the graph.
+ * <p>
+ * Ids are never freed, ties in {@link #topCoAuthors(String, int)} are ordered by them. An author whose books are all
+ * removed keeps its dictionary entry and an empty adjacency slot, so memory grows with every author ever added
+ * until the database is shut down, which calls {@link #clear()}.
+ * <p>
+ * Distance queries run bidirectional BFS bounded by a maximal distance, the smaller frontier is expanded first.
+ * Frontiers larger than {@link #PARALLEL_FRONTIER} are expanded in parallel on common fork-join pool,
+ * visited vertices are marked between levels only, so workers just read shared state.
+ * Not thread-safe for updates.
+ */
+final class CoAuthorGraph {
+
+    static final int PARALLEL_FRONTIER = 4096;
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private AuthorDictionary dictionary = new AuthorDictionary();
+
+    private int[][] neighbours = new int[16][];
+
+    private int[][] weights = new int[16][];
+
+    private int[] degrees = new int[16];
+
+    /**
+     * Adds edges between all distinct authors of a book.
+     *
+     * @param book added book
+     */
+    void addBook(Book book) {
+        int[] ids = distinctIds(book, true);
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = 0; j < ids.length; j++) {
+                if (i != j) {
+                    addWeight(ids[i], ids[j], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decrements edges between all distinct authors of a book, edges without shared books are removed.
+     *
+     * @param book removed book
+     */
+    void removeBook(Book book) {
+        int[] ids = distinctIds(book, false);
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = 0; j < ids.length; j++) {
+                if (i != j && ids[i] >= 0 && ids[j] >= 0) {
+                    addWeight(ids[i], ids[j], -1);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        dictionary = new AuthorDictionary();
+        neighbours = new int[16][];
+        weights = new int[16][];
+        degrees = new int[16];
+    }
+
+    /**
+     * Co-authors with most shared books, ties ordered by the order co-authors were first added to graph.
+     * Selection uses a bounded min-heap of primitive keys, weight in high bits and inverted id in low bits.
+     *
+     * @param author author
+     * @param limit  maximal number of co-authors
+     * @return co-authors ordered by shared books descending
+     */
+    List<CoAuthor> topCoAuthors(String author, int limit) {
+        int id = dictionary.idOf(author);
+        if (id < 0 || limit <= 0 || degrees[id] == 0) {
+            return Collections.emptyList();
+        }
+        int degree = degrees[id];
+        long[] heap = new long[Math.min(limit, degree)];
+        int size = 0;
+        for (int i = 0; i < degree; i++) {
+            long key = ((long) weights[id][i] << 32) | (Integer.MAX_VALUE - neighbours[id][i]);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        CoAuthor[] result = new CoAuthor[size];
+        while (size > 0) {
+            long key = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+            result[size] = new CoAuthor(dictionary.nameOf(Integer.MAX_VALUE - (int) key), (int) (key >>> 32));
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Number of co-authorship hops between two authors.
+     *
+     * @param from        first author
+     * @param to          second author
+     * @param maxDistance maximal number of hops to search
+     * @return distance, 0 for the same author, -1 if authors are unknown or not connected within maxDistance
+     */
+    int distance(String from, String to, int maxDistance) {
+        int source = dictionary.idOf(from);
+        int target = dictionary.idOf(to);
+        if (source < 0 || target < 0 || maxDistance < 0) {
+            return -1;
+        }
+        if (source == target) {
+            return 0;
+        }
+        BitSet visitedFromSource = new BitSet(dictionary.size());
+        BitSet visitedFromTarget = new BitSet(dictionary.size());
+        visitedFromSource.set(source);
+        visitedFromTarget.set(target);
+        int[] sourceFrontier = {source};
+        int[] targetFrontier = {target};
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            boolean expandSource = frontierEdges(sourceFrontier) <= frontierEdges(targetFrontier);
+            int[] frontier = expandSource ? sourceFrontier : targetFrontier;
+            BitSet visited = expandSource ? visitedFromSource : visitedFromTarget;
+            BitSet other = expandSource ? visitedFromTarget : visitedFromSource;
+            int[] next = expand(frontier, visited);
+            for (int id : next) {
+                if (other.get(id)) {
+                    return distance;
+                }
+                visited.set(id);
+            }
+            if (next.length == 0) {
+                return -1;
+            }
+            if (expandSource) {
+                sourceFrontier = next;
+            } else {
+                targetFrontier = next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return distinct unvisited neighbours of a frontier
+     */
+    private int[] expand(int[] frontier, BitSet visited) {
+        IntStream ids = IntStream.of(frontier);
+        if (frontier.length > PARALLEL_FRONTIER) {
+            ids = ids.parallel();
+        }
+        return ids.flatMap(id -> {
+            int degree = degrees[id];
+            int[] adjacent = degree == 0 ? NO_EDGES : neighbours[id];
+            return IntStream.range(0, degree).map(i -> adjacent[i]).filter(neighbour -> !visited.get(neighbour));
+        }).distinct().toArray();
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long key = heap[0];
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    private long frontierEdges(int[] frontier) {
+        long edges = 0;
+        for (int id : frontier) {
+            edges += degrees[id];
+        }
+        return edges;
+    }
+
+    private int[] distinctIds(Book book, boolean encode) {
+        List<String> authors = book.getAuthors();
+        int[] ids = new int[authors.size()];
+        int count = 0;
+        for (String author : authors) {
+            if (author == null) {
+                continue;
+            }
+            int id = encode ? dictionary.encode(author) : dictionary.idOf(author);
+            boolean repeated = false;
+            for (int i = 0; i < count; i++) {
+                repeated |= ids[i] == id;
+            }
+            if (!repeated) {
+                ids[count++] = id;
+            }
+        }
+        if (encode) {
+            ensureCapacity(dictionary.size());
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    private void ensureCapacity(int authors) {
+        if (authors > degrees.length) {
+            int capacity = Math.max(authors, degrees.length * 2);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            degrees = Arrays.copyOf(degrees, capacity);
+        }
+    }
+
+    private void addWeight(int author, int neighbour, int delta) {
+        int degree = degrees[author];
+        int[] adjacent = neighbours[author];
+        int index = adjacent == null ? -1 : Arrays.binarySearch(adjacent, 0, degree, neighbour);
+        if (index >= 0) {
+            weights[author][index] += delta;
+            if (weights[author][index] == 0) {
+                System.arraycopy(adjacent, index + 1, adjacent, index, degree - index - 1);
+                System.arraycopy(weights[author], index + 1, weights[author], index, degree - index - 1);
+                degrees[author] = --degree;
+                if (degree == 0) {
+                    neighbours[author] = null;
+                    weights[author] = null;
+                }
+            }
+            return;
+        }
+        if (delta < 0) {
+            return;
+        }
+        index = adjacent == null ? 0 : -index - 1;
+        if (adjacent == null) {
+            adjacent = new int[2];
+            neighbours[author] = adjacent;
+            weights[author] = new int[2];
+        } else if (degree == adjacent.length) {
+            adjacent = Arrays.copyOf(adjacent, degree * 2);
+            neighbours[author] = adjacent;
+            weights[author] = Arrays.copyOf(weights[author], degree * 2);
+        }
+        System.arraycopy(adjacent, index, adjacent, index + 1, degree - index);
+        System.arraycopy(weights[author], index, weights[author], index + 1, degree - index);
+        adjacent[index] = neighbour;
+        weights[author][index] = delta;
+        degrees[author] = degree + 1;
+    }
+}
@@ -0,0 +1,321 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe Database implementation.
+ * Both indexes are kept in ConcurrentHashMaps, author sets are concurrent sets, so queries never take a lock
+ * and scale with the number of cores.
+ * <p>
+ * Mutations are guarded by striped locks instead of one global monitor.
+ * A book is mapped to the stripes of its title and of every one of its authors,
+ * writers always acquire stripes in ascending order so two writers can never deadlock.
+ * Writers touching disjoint authors run in parallel.
+ * <p>
+ * Title mapping is the commit point of a book: it is published after all author mappings are in place
+ * and it is removed before author mappings are cleaned, so a book visible by title is always fully indexed.
+ * <p>
+ * Views of {@link #viewBooksByAuthor(String)} wrap live concurrent sets, they are safe to iterate during writes
+ * and are weakly consistent, iteration may or may not see books added or removed after it started.
+ * <p>
+ * Database is thread-safe, so it is also a {@link BookShard} and may be served to many clients
+ * by {@link BookShardServer}.
+ * <p>
+ * Concurrent maps do not take null keys, a null author is kept under a private marker key,
+ * so null authors are stored and queried as in {@link DefaultBookDatabaseImpl}.
+ */
+public class ConcurrentBookDatabaseImpl implements BookShard {
+
+    private static final int DEFAULT_STRIPES_COUNT = 64;
+
+    private static final Object NULL_AUTHOR = new Object();
+
+    private final Logger logger = LogManager.getLogger(ConcurrentBookDatabaseImpl.class.getName());
+
+    private final Map<String, Book> titleToBookMap;
+
+    private final Map<Object, Set<Book>> authorToBooksMap;
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Default constructor.
+     */
+    public ConcurrentBookDatabaseImpl() {
+        this(DEFAULT_STRIPES_COUNT);
+    }
+
+    /**
+     * Constructor with a given number of lock stripes, rounded up to the power of two.
+     *
+     * @param stripesCount number of lock stripes, must be positive
+     */
+    public ConcurrentBookDatabaseImpl(int stripesCount) {
+        if (stripesCount <= 0) {
+            throw new IllegalArgumentException("Stripes count must be positive.");
+        }
+        titleToBookMap = new ConcurrentHashMap<>();
+        authorToBooksMap = new ConcurrentHashMap<>();
+        int size = 1;
+        while (size < stripesCount) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     * Can be called concurrently with queries and other mutations.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+
+        for (int i = 0; i < titlesInitList.size(); i++) {
+            String title = titlesInitList.get(i);
+            List<String> authors = authorsInitList.get(i);
+            Book book = new Book(title, authors);
+            if (!this.addBook(book)) {
+                logger.warn("Book: {}, was not added !", book);
+            }
+        }
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book under stripes of its title and authors, can be called concurrently.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        return addBook(new Book(bookTitle, authors));
+    }
+
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            titleToBookMap.clear();
+            authorToBooksMap.clear();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds book to database under stripes of its title and authors.
+     * Author mappings are created first, title mapping is published last.
+     *
+     * @param book input book
+     * @return false when book already on database, true otherwise
+     */
+    private boolean addBook(Book book) {
+        int[] lockedStripes = lockStripes(book);
+        try {
+            if (titleToBookMap.containsKey(book.getBookTitle())) {
+                return false;
+            }
+            for (String author : book.getAuthors()) {
+                authorToBooksMap.computeIfAbsent(authorKey(author), key -> ConcurrentHashMap.newKeySet()).add(book);
+            }
+            titleToBookMap.put(book.getBookTitle(), book);
+            return true;
+        } finally {
+            unlockStripes(lockedStripes);
+        }
+    }
+
+    /**
+     * Removes a given book under stripes of its title and authors.
+     * Title mapping is removed first, after that book is removed from all author sets,
+     * authors without books are removed from database.
+     *
+     * @param book book to remove
+     * @return false when book was removed concurrently by another thread, true otherwise
+     */
+    private boolean removeBook(Book book) {
+        int[] lockedStripes = lockStripes(book);
+        try {
+            if (!titleToBookMap.remove(book.getBookTitle(), book)) {
+                return false;
+            }
+            for (String author : book.getAuthors()) {
+                Set<Book> books = authorToBooksMap.get(authorKey(author));
+                if (books != null) {
+                    books.remove(book);
+                    if (books.isEmpty()) {
+                        logger.debug("Following author: {} has no referenced books, will be removed from database. ", author);
+                        authorToBooksMap.remove(authorKey(author), books);
+                    }
+                }
+            }
+            return true;
+        } finally {
+            unlockStripes(lockedStripes);
+        }
+    }
+
+    /**
+     * This implementation removes book for a given title and all the references from authors to this book.
+     * Only stripes of this book are locked, queries are never blocked.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        Book book = bookTitle == null ? null : titleToBookMap.get(bookTitle);
+        if (book == null || !removeBook(book)) {
+            logger.warn("No such book title: {} in database", bookTitle);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This implementation removes all the books for a given author, book by book.
+     * Books added concurrently for the same author may stay in database.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        Set<Book> books = authorToBooksMap.get(authorKey(author));
+        if (books == null) {
+            logger.warn("Unknown author: {}", author);
+            return false;
+        }
+        for (Book book : new ArrayList<>(books)) {
+            removeBook(book);
+        }
+        return true;
+    }
+
+    /**
+     * Lock free implementation of Book query by Author, runs in O(1) time.
+     * Returned set is a live concurrent view, safe to iterate while other threads write.
+     *
+     * @param author input author
+     * @return set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        Set<Book> books = authorToBooksMap.get(authorKey(author));
+        return books == null ? Collections.emptySet() : books;
+    }
+
+    /**
+     * Lock free implementation of Authors query by Book, runs in O(1) time.
+     *
+     * @param bookTitle input title
+     * @return list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        Book book = bookTitle == null ? null : titleToBookMap.get(bookTitle);
+        if (book == null) {
+            logger.warn("Book title: {} not found", bookTitle);
+            return Collections.emptyList();
+        }
+        return book.getAuthors();
+    }
+
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return titleToBookMap.size();
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return authorToBooksMap.size();
+    }
+
+    /**
+     * Copy of all books, weakly consistent when taken during writes.
+     *
+     * @return copy of all books
+     */
+    @Override
+    public List<Book> books() {
+        return new ArrayList<>(titleToBookMap.values());
+    }
+
+    /**
+     * Helper method for locking all stripes of a given book in ascending order.
+     *
+     * @param book input book
+     * @return sorted indexes of locked stripes
+     */
+    private int[] lockStripes(Book book) {
+        List<String> authors = book.getAuthors();
+        int[] indexes = new int[authors.size() + 1];
+        indexes[0] = stripeIndex(book.getBookTitle());
+        for (int i = 0; i < authors.size(); i++) {
+            indexes[i + 1] = stripeIndex(authors.get(i));
+        }
+        Arrays.sort(indexes);
+        int distinct = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                indexes[distinct++] = indexes[i];
+            }
+        }
+        int[] lockedStripes = Arrays.copyOf(indexes, distinct);
+        for (int index : lockedStripes) {
+            stripes[index].lock();
+        }
+        return lockedStripes;
+    }
+
+    private void unlockStripes(int[] lockedStripes) {
+        for (int i = lockedStripes.length - 1; i >= 0; i--) {
+            stripes[lockedStripes[i]].unlock();
+        }
+    }
+
+    private int stripeIndex(String key) {
+        int hash = Objects.hashCode(key);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private static Object authorKey(String author) {
+        return author == null ? NULL_AUTHOR : author;
+    }
+}
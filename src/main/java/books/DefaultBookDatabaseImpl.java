@@ -0,0 +1,789 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Default Database implementation.
+ * This class keeps map of all book titles mapped to Books pojos.
+ * Strings are immutable, Books pojos also so it is safe.
+ * <p>
+ * It contains also Multimap "authorToBooksMap" mapping author to multiple Books represented as a set.
+ * Set is required for removing book for a given author in constant time O(1)
+ * <p>
+ * {@link #viewBooksByAuthor(String)} wraps the live set of an author, view follows later writes
+ * and like the whole class it must not be used while another thread writes.
+ * <p>
+ * Additional indexes are enabled with {@link Option}s passed to constructor.
+ */
+public class DefaultBookDatabaseImpl implements BookDatabase {
+
+    private final Logger logger = LogManager.getLogger(DefaultBookDatabaseImpl.class.getName());
+
+    private Map<String, Book> titleToBookMap;
+
+    private Map<String, Set<Book>> authorToBooksMap;
+
+    private final TitleIndex titleIndex;
+
+    private final CoAuthorGraph coAuthorGraph;
+
+    private final AuthorPages authorPages;
+
+    private final AuthorStatistics authorStatistics;
+
+    private final BookChangeLog changeLog;
+
+    private final boolean quietMisses;
+
+    private final LongAdder titleQueryMisses = new LongAdder();
+
+    private final LongAdder removalMisses = new LongAdder();
+
+    /**
+     * Optional indexes maintained together with title and author maps.
+     */
+    public enum Option {
+        /**
+         * Sorted title index for {@link #queryTitlesByPrefix(String)}, titles are matched case sensitive.
+         */
+        TITLE_PREFIX_INDEX,
+        /**
+         * Sorted title index for {@link #queryTitlesByPrefix(String)}, titles are matched by their lower case form.
+         */
+        CASE_FOLDED_TITLE_PREFIX_INDEX,
+        /**
+         * Weighted co-author graph for {@link #queryTopCoAuthors(String, int)}
+         * and {@link #queryCoAuthorDistance(String, String, int)}.
+         */
+        CO_AUTHOR_GRAPH,
+        /**
+         * Books of every author ordered by title for {@link #queryBooksByAuthorPage(String, int, int)}
+         * and {@link #queryBooksByAuthorAfter(String, String, int)}.
+         */
+        AUTHOR_PAGES,
+        /**
+         * Author statistics for dashboards maintained on every mutation, see {@link #queryTopAuthors(int)},
+         * {@link #queryBooksPerAuthorHistogram()}, {@link #queryCoAuthorsCount()}
+         * and {@link #estimateDistinctCoAuthorPairs()}.
+         */
+        AUTHOR_STATISTICS,
+        /**
+         * Ordered stream of every mutation, see {@link #changeLog()}.
+         */
+        CHANGE_LOG,
+        /**
+         * Production mode, queries and removals of missing titles and authors are only counted, not logged,
+         * see {@link #titleQueryMisses()} and {@link #removalMisses()}.
+         */
+        QUIET_MISSES
+    }
+
+    /**
+     * Default constructor.
+     */
+    public DefaultBookDatabaseImpl() {
+        this(new Option[0]);
+    }
+
+    /**
+     * Creates database with given optional indexes.
+     *
+     * @param options indexes to maintain
+     */
+    public DefaultBookDatabaseImpl(Option... options) {
+        titleToBookMap = new HashMap<>();
+        authorToBooksMap = new HashMap<>();
+        EnumSet<Option> enabled = EnumSet.noneOf(Option.class);
+        enabled.addAll(Arrays.asList(options));
+        if (enabled.contains(Option.CASE_FOLDED_TITLE_PREFIX_INDEX)) {
+            titleIndex = new TitleIndex(true);
+        } else if (enabled.contains(Option.TITLE_PREFIX_INDEX)) {
+            titleIndex = new TitleIndex(false);
+        } else {
+            titleIndex = null;
+        }
+        coAuthorGraph = enabled.contains(Option.CO_AUTHOR_GRAPH) ? new CoAuthorGraph() : null;
+        authorPages = enabled.contains(Option.AUTHOR_PAGES) ? new AuthorPages() : null;
+        authorStatistics = enabled.contains(Option.AUTHOR_STATISTICS)
+                ? new AuthorStatistics(() -> titleToBookMap.values()) : null;
+        changeLog = enabled.contains(Option.CHANGE_LOG) ? new BookChangeLog(BookChangeLog.DEFAULT_CAPACITY) : null;
+        quietMisses = enabled.contains(Option.QUIET_MISSES);
+    }
+
+    /**
+     * Init method implementation.
+     * Input data in two lists, both lists must have same size.
+     * Input data in Strings for simplicity.
+     * Single title for a given book must be not null, non empty list of authors must be provided.
+     * Duplicates are not allowed, it is assumed that book has unique title.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+
+        for (int i = 0; i < titlesInitList.size(); i++) {
+            String title = titlesInitList.get(i);
+            List<String> authors = authorsInitList.get(i);
+            boolean added = this.addBook(new Book(title, authors));
+            if (!added) {
+                logger.warn("Book: {}, was not added !", title);
+            }
+        }
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book, cost is O(n) when "n" - number of authors.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        return addBook(new Book(bookTitle, authors));
+    }
+
+    /**
+     * Adds a batch of books. Books are grouped by author first, so set of books of every author
+     * is looked up and grown once per batch, not once per book.
+     * Duplicates are reported in result, not logged one by one.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        boolean[] added = new boolean[titles.size()];
+        List<Book> addedBooks = new ArrayList<>(titles.size());
+        Map<String, List<Book>> booksByAuthor = new HashMap<>();
+        for (int i = 0; i < titles.size(); i++) {
+            Book book = new Book(titles.get(i), authors.get(i));
+            if (titleToBookMap.putIfAbsent(book.getBookTitle(), book) == null) {
+                added[i] = true;
+                addedBooks.add(book);
+                for (String author : book.getAuthors()) {
+                    booksByAuthor.computeIfAbsent(author, key -> new ArrayList<>()).add(book);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Book>> entry : booksByAuthor.entrySet()) {
+            Set<Book> authorBooks = authorToBooksMap.get(entry.getKey());
+            if (authorBooks == null) {
+                authorBooks = new HashSet<>(BulkBookLoader.capacityFor(entry.getValue().size()));
+                authorToBooksMap.put(entry.getKey(), authorBooks);
+            }
+            authorBooks.addAll(entry.getValue());
+        }
+        indexAdded(addedBooks);
+        logger.debug("Added {} of {} books for {} authors", addedBooks.size(), titles.size(), booksByAuthor.size());
+        return added;
+    }
+
+    /**
+     * Bulk load of large inputs, same contract and duplicate titles semantics as {@link #init(List, List)}:
+     * first occurrence of a title wins, later duplicates and titles already in database are skipped.
+     * Runs on common fork-join pool.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     * @return number of books added to database
+     * @see BulkBookLoader
+     */
+    public int bulkLoad(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        return bulkLoad(titlesInitList, authorsInitList, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Bulk load of large inputs on a given fork-join pool, see {@link #bulkLoad(List, List)}.
+     * Input is validated before database is modified, so invalid input leaves database untouched.
+     * Maps of empty database are pre-sized from the input size.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     * @param pool            pool running partitions
+     * @return number of books added to database
+     */
+    public int bulkLoad(List<String> titlesInitList, List<List<String>> authorsInitList, ForkJoinPool pool) {
+        logger.info("bulk loading books database...");
+        BookLists.checkSizes(titlesInitList, authorsInitList);
+        long start = System.nanoTime();
+        BulkBookLoader loader = new BulkBookLoader(pool);
+        Book[] books = loader.createBooks(titlesInitList, authorsInitList);
+
+        if (titleToBookMap.isEmpty()) {
+            titleToBookMap = new HashMap<>(BulkBookLoader.capacityFor(books.length));
+        }
+        int added = 0;
+        for (int i = 0; i < books.length; i++) {
+            if (titleToBookMap.putIfAbsent(books[i].getBookTitle(), books[i]) == null) {
+                books[added++] = books[i];
+            } else {
+                logger.debug("This book: {} is database already", books[i]);
+            }
+        }
+
+        Map<String, List<Book>> authorIndex = loader.indexAuthors(books, added);
+        if (authorToBooksMap.isEmpty()) {
+            authorToBooksMap = new HashMap<>(BulkBookLoader.capacityFor(authorIndex.size()));
+        }
+        for (Map.Entry<String, List<Book>> entry : authorIndex.entrySet()) {
+            Set<Book> authorBooks = authorToBooksMap.get(entry.getKey());
+            if (authorBooks == null) {
+                authorBooks = new HashSet<>(BulkBookLoader.capacityFor(entry.getValue().size()));
+                authorToBooksMap.put(entry.getKey(), authorBooks);
+            }
+            authorBooks.addAll(entry.getValue());
+        }
+        indexAdded(Arrays.asList(books).subList(0, added));
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        if (added < books.length) {
+            logger.warn("{} duplicated books were not added !", books.length - added);
+        }
+        logger.info("Bulk loaded {} books and {} authors in {} ms ({} books/s)", added, authorIndex.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), added * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        return added;
+    }
+
+    /**
+     * Saves snapshot of the whole database to a given file, see {@link BookSnapshot} for the format.
+     * File is replaced atomically, so a failed save never leaves a partially written snapshot behind.
+     *
+     * @param file snapshot file
+     * @throws IOException when snapshot cannot be written
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        BookSnapshot.write(titleToBookMap, authorToBooksMap, file);
+        logger.info("Saved snapshot of {} books to {} in {} ms", booksSize(), file,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Replaces all data with content of a snapshot saved by {@link #saveSnapshot(Path)}.
+     * Snapshot is fully read and verified first, database is left untouched if snapshot is corrupted.
+     *
+     * @param file snapshot file
+     * @throws IOException when snapshot cannot be read or is corrupted
+     */
+    public void loadSnapshot(Path file) throws IOException {
+        long start = System.nanoTime();
+        BookSnapshot.Content content = BookSnapshot.read(file);
+        titleToBookMap = content.titleToBookMap;
+        authorToBooksMap = content.authorToBooksMap;
+        indexCleared();
+        indexAdded(new ArrayList<>(titleToBookMap.values()));
+        logger.info("Loaded snapshot of {} books and {} authors from {} in {} ms", booksSize(), authorsSize(), file,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        titleToBookMap.clear();
+        authorToBooksMap.clear();
+        indexCleared();
+    }
+
+    /**
+     * Adds book to database : bookTitle -> book mapping
+     * after that adds mapping : author -> book for all authors from the list.
+     * Cost of adding one book is O(n) when "n" - number of authors
+     *
+     * @param book input book
+     * @return false when book already on database, return otherwise
+     */
+    private boolean addBook(Book book) {
+        if (titleToBookMap.putIfAbsent(book.getBookTitle(), book) != null) {
+            return false;
+        }
+        createAuthorToBookMapping(book);
+        indexAdded(Collections.singletonList(book));
+        return true;
+    }
+
+    /**
+     * Updates optional indexes and publishes additions to change log, called once title and author maps
+     * hold the books, so every index and change log subscriber sees a consistent database.
+     * Title prefix index is built at once when it is empty.
+     *
+     * @param books added books in order of addition
+     */
+    private void indexAdded(List<Book> books) {
+        if (titleIndex != null) {
+            if (books.size() == 1) {
+                titleIndex.add(books.get(0).getBookTitle());
+            } else {
+                List<String> titles = new ArrayList<>(books.size());
+                for (Book book : books) {
+                    titles.add(book.getBookTitle());
+                }
+                titleIndex.addAll(titles);
+            }
+        }
+        for (Book book : books) {
+            if (coAuthorGraph != null) {
+                coAuthorGraph.addBook(book);
+            }
+            if (authorPages != null) {
+                authorPages.addBook(book);
+            }
+            if (authorStatistics != null) {
+                authorStatistics.addBook(book);
+            }
+            if (changeLog != null) {
+                changeLog.publish(BookChange.Type.ADDED, book);
+            }
+        }
+    }
+
+    /**
+     * Updates optional indexes and publishes removal to change log, called once book is removed
+     * from title and author maps.
+     *
+     * @param book removed book
+     */
+    private void indexRemoved(Book book) {
+        if (titleIndex != null) {
+            titleIndex.remove(book.getBookTitle());
+        }
+        if (coAuthorGraph != null) {
+            coAuthorGraph.removeBook(book);
+        }
+        if (authorPages != null) {
+            authorPages.removeBook(book);
+        }
+        if (authorStatistics != null) {
+            authorStatistics.removeBook(book);
+        }
+        if (changeLog != null) {
+            changeLog.publish(BookChange.Type.REMOVED, book);
+        }
+    }
+
+    /**
+     * Clears optional indexes and publishes clearing to change log, called once title and author maps are replaced
+     * or cleared.
+     */
+    private void indexCleared() {
+        if (titleIndex != null) {
+            titleIndex.clear();
+        }
+        if (coAuthorGraph != null) {
+            coAuthorGraph.clear();
+        }
+        if (authorPages != null) {
+            authorPages.clear();
+        }
+        if (authorStatistics != null) {
+            authorStatistics.clear();
+        }
+        if (changeLog != null) {
+            changeLog.publish(BookChange.Type.CLEARED, null);
+        }
+    }
+
+    /**
+     * Helper method for populate mapping, author -> input book
+     *
+     * @param book input book
+     */
+    private void createAuthorToBookMapping(Book book) {
+        for (String author : book.getAuthors()) {
+            authorToBooksMap.computeIfAbsent(author, key -> new HashSet<>()).add(book);
+        }
+    }
+
+    /**
+     * Helper method for remove mapping: author -> book, for all authors of a book.
+     * If author has no further books assigned, we are removing mapping.
+     *
+     * @param book input book for removing author references
+     */
+    private void deleteAuthorToBookMapping(Book book) {
+        for (String author : book.getAuthors()) {
+            Set<Book> books = authorToBooksMap.get(author);
+            if (books != null) {
+                books.remove(book);
+                if (books.isEmpty()) {
+                    logger.debug("Following author: {} has no referenced books, will be removed from database. ", author);
+                    authorToBooksMap.remove(author);
+                }
+            }
+        }
+    }
+
+    /**
+     * This implementation removes all books from a given title and all the references from authors to this book.
+     * It is assumes that this is infrequent operation.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        Book bookToRemove = titleToBookMap.remove(bookTitle);
+        if (bookToRemove == null) {
+            removalMisses.increment();
+            if (!quietMisses) {
+                logger.warn("No such book title: {} in database", bookTitle);
+            }
+            return false;
+        }
+        deleteAuthorToBookMapping(bookToRemove);
+        indexRemoved(bookToRemove);
+        return true;
+    }
+
+    /**
+     * This implementation removes all the books for a given author, see {@link #removeAuthor(String)}.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        return !removeAuthor(author).isEmpty();
+    }
+
+    /**
+     * Removes all the books of a given author, large authors are processed on the common fork-join pool.
+     *
+     * @param author input author
+     * @return removed books, empty set for unknown author
+     * @see #removeAuthor(String, ForkJoinPool)
+     */
+    public Set<Book> removeAuthor(String author) {
+        return removeAuthor(author, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Removes all the books of a given author in one pass over their titles and co-authors.
+     * Set of the author is taken out of the index as a whole instead of being copied, every book is removed
+     * from title map and sets of its co-authors once, co-authors left without books are dropped together,
+     * see {@link BulkAuthorRemover}. Books of authors with more than {@link BulkAuthorRemover#PARALLEL_THRESHOLD}
+     * books are grouped by co-authors and removed from their sets in parallel, when a given pool has more than one worker.
+     * <p>
+     * Title prefix index, co-author graph, author pages, author statistics and change log are updated for every removed book
+     * as by {@link #removeBookByTitle(String)}.
+     *
+     * @param author input author
+     * @param pool   pool running partitions for large authors
+     * @return removed books, no longer referenced by database, empty set for unknown author
+     */
+    public Set<Book> removeAuthor(String author, ForkJoinPool pool) {
+        Set<Book> authorBooks = authorToBooksMap.remove(author);
+        if (authorBooks == null) {
+            removalMisses.increment();
+            if (!quietMisses) {
+                logger.warn("Unknown author: {}", author);
+            }
+            return Collections.emptySet();
+        }
+        Book[] books = authorBooks.toArray(new Book[0]);
+        if (authorPages != null) {
+            authorPages.removeAuthor(author);
+        }
+        for (Book book : books) {
+            titleToBookMap.remove(book.getBookTitle());
+        }
+        List<String> emptiedAuthors = new BulkAuthorRemover(pool).removeFromCoAuthors(author, books, authorToBooksMap);
+        for (String emptiedAuthor : emptiedAuthors) {
+            authorToBooksMap.remove(emptiedAuthor);
+        }
+        for (Book book : books) {
+            indexRemoved(book);
+        }
+        logger.debug("Removed {} books of author: {}, {} co-authors have no referenced books and were removed",
+                books.length, author, emptiedAuthors.size());
+        return authorBooks;
+    }
+
+    /**
+     * Implementation of Book query by Author, runs in O(1) time.
+     *
+     * @param author input author
+     * @return set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        return authorToBooksMap.getOrDefault(author, Collections.emptySet());
+    }
+
+    /**
+     * Implementation of Authors query by Book which runs in O(1) time, with a single lookup.
+     * A miss is counted and logged unless {@link Option#QUIET_MISSES} is set.
+     *
+     * @param bookTitle input title
+     * @return list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        Book book = titleToBookMap.get(bookTitle);
+        if (book == null) {
+            titleQueryMisses.increment();
+            if (!quietMisses) {
+                logger.warn("Book title: {} not found", bookTitle);
+            }
+            return Collections.emptyList();
+        }
+        return book.getAuthors();
+    }
+
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * Authors of many titles with one lookup per title, misses are counted one by one
+     * but logged in one line, unless {@link Option#QUIET_MISSES} is set.
+     *
+     * @param bookTitles input titles
+     * @return authors of title at the same position, empty list for unknown title
+     */
+    @Override
+    public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        List<List<String>> authors = new ArrayList<>(bookTitles.size());
+        int misses = 0;
+        for (String bookTitle : bookTitles) {
+            Book book = titleToBookMap.get(bookTitle);
+            if (book == null) {
+                misses++;
+                authors.add(Collections.emptyList());
+            } else {
+                authors.add(book.getAuthors());
+            }
+        }
+        if (misses > 0) {
+            titleQueryMisses.add(misses);
+            if (!quietMisses) {
+                logger.warn("{} of {} book titles not found", misses, bookTitles.size());
+            }
+        }
+        return authors;
+    }
+
+    /**
+     * @return number of titles queried by {@link #queryAuthorsByBookTitle(String)} or
+     * {@link #queryAuthorsByBookTitles(List)} which were not in database
+     */
+    public long titleQueryMisses() {
+        return titleQueryMisses.sum();
+    }
+
+    /**
+     * @return number of removals of titles or authors not in database
+     */
+    public long removalMisses() {
+        return removalMisses.sum();
+    }
+
+    /**
+     * Page of books of an author in ascending title order. With {@link Option#AUTHOR_PAGES} book at the page offset
+     * is found by rank in O(log n) and page is read in O(page size), otherwise all books of the author are sorted.
+     *
+     * @param author   input author
+     * @param page     page number, first page is 0
+     * @param pageSize number of books in page
+     * @return page of books, empty page for unknown author or page after the last one
+     * @throws IllegalArgumentException for negative page or not positive page size
+     */
+    @Override
+    public BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        if (authorPages == null) {
+            return BookDatabase.super.queryBooksByAuthorPage(author, page, pageSize);
+        }
+        return authorPages.page(author, BookPage.offset(page, pageSize), pageSize);
+    }
+
+    /**
+     * Books of an author with titles greater than a cursor in ascending title order. With {@link Option#AUTHOR_PAGES}
+     * first book is found in O(log n) and page is read in O(page size), otherwise all books of the author are sorted.
+     *
+     * @param author input author
+     * @param cursor title of the last book read, null for the first page
+     * @param limit  maximal number of books in page
+     * @return page of books, empty page for unknown author or cursor after the last book
+     * @throws IllegalArgumentException for not positive limit
+     */
+    @Override
+    public BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        if (authorPages == null) {
+            return BookDatabase.super.queryBooksByAuthorAfter(author, cursor, limit);
+        }
+        BookPage.checkLimit(limit);
+        return authorPages.after(author, cursor, limit);
+    }
+
+    /**
+     * Titles starting with a given prefix, in ascending order, iterated lazily from title prefix index.
+     * With {@link Option#CASE_FOLDED_TITLE_PREFIX_INDEX} prefix and titles are compared in lower case
+     * and titles are returned as they were added.
+     * Finding the first title costs O(log n), stream must be consumed before database is modified.
+     *
+     * @param prefix title prefix
+     * @return stream of matching titles, empty stream for null queries
+     * @throws IllegalStateException when database was created without title prefix index
+     */
+    public Stream<String> queryTitlesByPrefix(String prefix) {
+        if (titleIndex == null) {
+            throw new IllegalStateException("Title prefix index is not enabled.");
+        }
+        return prefix == null ? Stream.empty() : titleIndex.prefix(prefix);
+    }
+
+    /**
+     * Type-ahead completion, returns first titles in ascending order for a given prefix.
+     *
+     * @param prefix title prefix
+     * @param limit  maximal number of titles
+     * @return at most limit matching titles
+     * @throws IllegalStateException when database was created without title prefix index
+     */
+    public List<String> completeTitle(String prefix, int limit) {
+        return queryTitlesByPrefix(prefix).limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Co-authors of a given author with the most books written together, from co-author graph.
+     * Cost is O(d log k) when "d" - number of co-authors and "k" - limit.
+     *
+     * @param author input author
+     * @param limit  maximal number of co-authors
+     * @return co-authors ordered by shared books descending, ties by the order they were added, empty list for null queries or unknown authors
+     * @throws IllegalStateException when database was created without co-author graph
+     */
+    public List<CoAuthor> queryTopCoAuthors(String author, int limit) {
+        if (coAuthorGraph == null) {
+            throw new IllegalStateException("Co-author graph is not enabled.");
+        }
+        return coAuthorGraph.topCoAuthors(author, limit);
+    }
+
+    /**
+     * Co-authorship distance, number of hops between authors where every hop is a shared book.
+     * Bidirectional breadth first search is bounded by a given distance, large frontiers are expanded in parallel.
+     *
+     * @param from        first author
+     * @param to          second author
+     * @param maxDistance maximal number of hops to search
+     * @return distance, 0 for the same author, -1 for unknown authors or authors not connected within maxDistance
+     * @throws IllegalStateException when database was created without co-author graph
+     */
+    public int queryCoAuthorDistance(String from, String to, int maxDistance) {
+        if (coAuthorGraph == null) {
+            throw new IllegalStateException("Co-author graph is not enabled.");
+        }
+        return coAuthorGraph.distance(from, to, maxDistance);
+    }
+
+    /**
+     * Authors with most books, from author statistics, cost is O(limit).
+     *
+     * @param limit maximal number of authors
+     * @return authors ordered by number of books descending, ties in no particular order
+     * @throws IllegalStateException when database was created without author statistics
+     */
+    public List<ProlificAuthor> queryTopAuthors(int limit) {
+        return authorStatistics().topAuthors(limit);
+    }
+
+    /**
+     * Distribution of books per author in power of two buckets, from author statistics, cost is O(1).
+     *
+     * @return number of authors in every bucket, bucket i counts authors with 2^i to 2^(i+1)-1 books
+     * @throws IllegalStateException when database was created without author statistics
+     */
+    public int[] queryBooksPerAuthorHistogram() {
+        return authorStatistics().histogram();
+    }
+
+    /**
+     * Number of authors who wrote at least one book together with another author, exact, cost is O(1).
+     *
+     * @return number of co-authors
+     * @throws IllegalStateException when database was created without author statistics
+     */
+    public int queryCoAuthorsCount() {
+        return authorStatistics().coAuthors();
+    }
+
+    /**
+     * Estimated number of distinct pairs of authors who wrote a book together, from a HyperLogLog sketch,
+     * cost is O(1), see {@link AuthorStatistics} for accuracy.
+     *
+     * @return estimated number of co-author pairs
+     * @throws IllegalStateException when database was created without author statistics
+     */
+    public long estimateDistinctCoAuthorPairs() {
+        return authorStatistics().distinctCoAuthorPairs();
+    }
+
+    private AuthorStatistics authorStatistics() {
+        if (authorStatistics == null) {
+            throw new IllegalStateException("Author statistics are not enabled.");
+        }
+        return authorStatistics;
+    }
+
+    /**
+     * Stream of every mutation of this database, subscribers read it from other threads
+     * while this database is modified, mutations never wait for subscribers.
+     * On every path a change is published only after title map, author map and optional indexes hold it,
+     * so a subscriber never sees a change the database is not yet consistent with.
+     *
+     * @return change log of this database
+     * @throws IllegalStateException when database was created without change log
+     */
+    public BookChangeLog changeLog() {
+        if (changeLog == null) {
+            throw new IllegalStateException("Change log is not enabled.");
+        }
+        return changeLog;
+    }
+
+    /**
+     * @return unmodifiable view of all books, valid until database is modified
+     */
+    Collection<Book> books() {
+        return Collections.unmodifiableCollection(titleToBookMap.values());
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return titleToBookMap.keySet().size();
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return authorToBooksMap.keySet().size();
+    }
+}
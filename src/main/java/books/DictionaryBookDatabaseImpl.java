@@ -0,0 +1,229 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Dictionary encoded Database implementation, keeps heap usage low for catalogues with millions of books.
+ * Every author name is stored once in {@link AuthorDictionary} and gets int id,
+ * books are stored as {@link EncodedBook} with compact int[] of author ids instead of a list of strings.
+ * Author to books index is an array indexed by author id, so author names are not repeated as map keys.
+ * <p>
+ * Ids of removed authors are not reclaimed, books handed out earlier keep decoding them through the dictionary.
+ * The dictionary and the author index therefore grow with every author ever added, not with live authors,
+ * under long add/remove churn call {@link #shutDown()} and init again to drop them.
+ * <p>
+ * Caller lists passed to init are not retained. List of authors returned from queries is decoded lazily.
+ * Public API and complexity of all operations are the same as in {@link DefaultBookDatabaseImpl}.
+ */
+public class DictionaryBookDatabaseImpl implements BookDatabase {
+
+    private final Logger logger = LogManager.getLogger(DictionaryBookDatabaseImpl.class.getName());
+
+    private final Map<String, EncodedBook> titleToBookMap;
+
+    private final List<Set<Book>> authorIdToBooks;
+
+    private AuthorDictionary dictionary;
+
+    private int authorsSize;
+
+    /**
+     * Default constructor.
+     */
+    public DictionaryBookDatabaseImpl() {
+        titleToBookMap = new HashMap<>();
+        authorIdToBooks = new ArrayList<>();
+        dictionary = new AuthorDictionary();
+    }
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+
+        for (int i = 0; i < titlesInitList.size(); i++) {
+            String title = titlesInitList.get(i);
+            List<String> authors = authorsInitList.get(i);
+            if (titleToBookMap.containsKey(title)) {
+                logger.warn("Book: {}, was not added !", title);
+                continue;
+            }
+            addBook(encode(title, authors));
+        }
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book, its authors are encoded to dictionary ids.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        if (titleToBookMap.containsKey(bookTitle)) {
+            return false;
+        }
+        addBook(encode(bookTitle, authors));
+        return true;
+    }
+
+    /**
+     * Clears all data. Dictionary is replaced, not cleared, so books returned before shutdown still decode their authors.
+     */
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        titleToBookMap.clear();
+        authorIdToBooks.clear();
+        authorsSize = 0;
+        dictionary = new AuthorDictionary();
+    }
+
+    private void addBook(EncodedBook book) {
+        titleToBookMap.put(book.getBookTitle(), book);
+        for (int authorId : book.getAuthorIds()) {
+            while (authorIdToBooks.size() <= authorId) {
+                authorIdToBooks.add(null);
+            }
+            Set<Book> books = authorIdToBooks.get(authorId);
+            if (books == null) {
+                books = new HashSet<>(2);
+                authorIdToBooks.set(authorId, books);
+                authorsSize++;
+            }
+            books.add(book);
+        }
+    }
+
+    private EncodedBook encode(String title, List<String> authors) {
+        int[] authorIds = new int[authors.size()];
+        for (int i = 0; i < authorIds.length; i++) {
+            authorIds[i] = dictionary.encode(authors.get(i));
+        }
+        return new EncodedBook(title, authorIds, dictionary);
+    }
+
+    private void deleteAuthorToBookMapping(EncodedBook book) {
+        for (int authorId : book.getAuthorIds()) {
+            Set<Book> books = authorIdToBooks.get(authorId);
+            if (books != null) {
+                books.remove(book);
+                if (books.isEmpty()) {
+                    authorIdToBooks.set(authorId, null);
+                    authorsSize--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes book for a given title and all the references from authors to this book.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        EncodedBook book = titleToBookMap.remove(bookTitle);
+        if (book == null) {
+            logger.warn("No such book title: {} in database", bookTitle);
+            return false;
+        }
+        deleteAuthorToBookMapping(book);
+        return true;
+    }
+
+    /**
+     * Removes all the books for a given author.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        Set<Book> books = booksOf(dictionary.idOf(author));
+        if (books == null) {
+            logger.warn("Unknown author: {}", author);
+            return false;
+        }
+        for (Book book : books.toArray(new Book[0])) {
+            removeBookByTitle(book.getBookTitle());
+        }
+        return true;
+    }
+
+    /**
+     * Book query by Author, runs in O(1) time.
+     *
+     * @param author input author
+     * @return set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        Set<Book> books = booksOf(dictionary.idOf(author));
+        return books == null ? Collections.emptySet() : books;
+    }
+
+    /**
+     * Authors query by Book, runs in O(1) time.
+     *
+     * @param bookTitle input title
+     * @return lazily decoded list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        EncodedBook book = titleToBookMap.get(bookTitle);
+        if (book == null) {
+            logger.warn("Book title: {} not found", bookTitle);
+            return Collections.emptyList();
+        }
+        return book.getAuthors();
+    }
+
+    /**
+     * Decoded list of authors is already an unmodifiable view, it is returned without wrapping.
+     *
+     * @param bookTitle input title
+     * @return unmodifiable list of authors, empty list if title does not exist
+     */
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    private Set<Book> booksOf(int authorId) {
+        return authorId < 0 || authorId >= authorIdToBooks.size() ? null : authorIdToBooks.get(authorId);
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return titleToBookMap.size();
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return authorsSize;
+    }
+}
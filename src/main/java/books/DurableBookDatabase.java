@@ -0,0 +1,584 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Durable, thread-safe database backed by {@link DefaultBookDatabaseImpl}.
+ * Every mutation is appended to a {@link WriteAheadLog} before it is applied in memory, mutations of concurrent
+ * threads are written together in group commits, so one fsync acknowledges a whole group.
+ * <p>
+ * Directory contains log segments "wal-N.log" and snapshots "snapshot-N.bin", where snapshot N holds all mutations
+ * of segments lower than N. Recovery loads the newest snapshot, replays remaining segments in order
+ * and keeps appending to the last one. Only a torn tail of the last segment is truncated, an unreadable snapshot
+ * or a corrupted frame of an earlier segment fails recovery, as mutations after it cannot be applied safely.
+ * Once a segment has {@code compactAfterRecords} records, including records replayed into it on recovery,
+ * compaction starts in background: log is rolled to a new segment and books are copied, snapshot of the copy
+ * is saved and older segments and snapshots are deleted. Writers wait only for the roll and the copy,
+ * which takes no I/O, queries do not wait at all.
+ * <p>
+ * Queries run under a read lock, mutations under a write lock and only waiting for fsync is done outside of it.
+ * {@link #queryBookByAuthor(String)} returns a copy, as database may be modified concurrently.
+ */
+public class DurableBookDatabase implements BookDatabase, Closeable {
+
+    /**
+     * Default interval of {@link WriteAheadLog.FsyncPolicy#INTERVAL} policy.
+     */
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 100;
+
+    /**
+     * Default number of records in a segment which starts compaction.
+     */
+    public static final long DEFAULT_COMPACT_AFTER_RECORDS = 1_000_000;
+
+    private static final byte INIT = 1;
+
+    private static final byte REMOVE_BOOK_BY_TITLE = 2;
+
+    private static final byte REMOVE_BOOKS_BY_AUTHOR = 3;
+
+    private static final byte SHUT_DOWN = 4;
+
+    private static final byte ADD_BOOKS = 5;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Logger logger = LogManager.getLogger(DurableBookDatabase.class.getName());
+
+    private final DefaultBookDatabaseImpl database = new DefaultBookDatabaseImpl();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object compactionLock = new Object();
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private final ExecutorService compactor;
+
+    private final Path directory;
+
+    private final WriteAheadLog.FsyncPolicy policy;
+
+    private final long fsyncIntervalMillis;
+
+    private final long compactAfterRecords;
+
+    private volatile WriteAheadLog log;
+
+    private volatile long segment;
+
+    /**
+     * records of the current segment replayed on recovery, its log counts only records appended after reopening
+     */
+    private long recoveredSegmentRecords;
+
+    /**
+     * Opens database with default fsync interval and compaction threshold.
+     *
+     * @param directory directory of log segments and snapshots, created if missing
+     * @param policy    fsync policy
+     * @throws IOException when recovery fails
+     */
+    public DurableBookDatabase(Path directory, WriteAheadLog.FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_FSYNC_INTERVAL_MILLIS, DEFAULT_COMPACT_AFTER_RECORDS);
+    }
+
+    /**
+     * Opens database and recovers its content from a given directory.
+     *
+     * @param directory           directory of log segments and snapshots, created if missing
+     * @param policy              fsync policy
+     * @param fsyncIntervalMillis fsync interval for {@link WriteAheadLog.FsyncPolicy#INTERVAL}
+     * @param compactAfterRecords number of records in a segment which starts compaction
+     * @throws IOException when recovery fails
+     */
+    public DurableBookDatabase(Path directory, WriteAheadLog.FsyncPolicy policy, long fsyncIntervalMillis,
+                               long compactAfterRecords) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.compactAfterRecords = compactAfterRecords;
+        Files.createDirectories(directory);
+        recover();
+        this.log = new WriteAheadLog(segmentFile(segment), policy, fsyncIntervalMillis);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-compactor-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Init method, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     * Input is validated before it is logged, so invalid input leaves database untouched.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+        mutate(new RecordWriter(INIT).putBooks(titlesInitList, authorsInitList), () -> {
+            database.init(titlesInitList, authorsInitList);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        List<String> titles = Collections.singletonList(bookTitle);
+        List<List<String>> bookAuthors = Collections.singletonList(authors);
+        return mutate(new RecordWriter(ADD_BOOKS).putBooks(titles, bookAuthors),
+                () -> database.addBook(bookTitle, authors));
+    }
+
+    /**
+     * Adds a batch of books, whole batch is logged as a single record.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        return mutate(new RecordWriter(ADD_BOOKS).putBooks(titles, authors), () -> database.addBooks(titles, authors));
+    }
+
+    @Override
+    public void shutDown() {
+        mutate(new RecordWriter(SHUT_DOWN), () -> {
+            database.shutDown();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        return mutate(new RecordWriter(REMOVE_BOOK_BY_TITLE).putString(bookTitle),
+                () -> database.removeBookByTitle(bookTitle));
+    }
+
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        return mutate(new RecordWriter(REMOVE_BOOKS_BY_AUTHOR).putString(author),
+                () -> database.removeBooksByAuthor(author));
+    }
+
+    /**
+     * Book query by Author.
+     *
+     * @param author input author
+     * @return copy of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            Set<Book> books = database.queryBookByAuthor(author);
+            return books.isEmpty() ? Collections.emptySet() : new HashSet<>(books);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        lock.readLock().lock();
+        try {
+            return database.queryAuthorsByBookTitle(bookTitle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books of many authors under one read lock.
+     *
+     * @param authors input authors
+     * @return copy of books of author at the same position, empty set for unknown author
+     */
+    @Override
+    public List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        lock.readLock().lock();
+        try {
+            List<Set<Book>> books = database.queryBooksByAuthors(authors);
+            for (int i = 0; i < books.size(); i++) {
+                if (!books.get(i).isEmpty()) {
+                    books.set(i, new HashSet<>(books.get(i)));
+                }
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        lock.readLock().lock();
+        try {
+            return database.queryAuthorsByBookTitles(bookTitles);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        lock.readLock().lock();
+        try {
+            return database.queryBooksByAuthorPage(author, page, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        lock.readLock().lock();
+        try {
+            return database.queryBooksByAuthorAfter(author, cursor, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        lock.readLock().lock();
+        try {
+            return database.booksSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        lock.readLock().lock();
+        try {
+            return database.authorsSize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of group commits of the current log segment
+     */
+    public long groupCommits() {
+        return log.groupCommits();
+    }
+
+    /**
+     * Writes snapshot of the current content and deletes log segments it covers.
+     * Writers wait only while log is rolled and books are copied, snapshot is saved from the copy outside of the lock.
+     *
+     * @throws IOException when snapshot cannot be written, log segments are kept then
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            long start = System.nanoTime();
+            long snapshotSegment;
+            WriteAheadLog previous;
+            List<Book> books;
+            lock.readLock().lock();
+            try {
+                previous = log;
+                snapshotSegment = segment + 1;
+                log = new WriteAheadLog(segmentFile(snapshotSegment), policy, fsyncIntervalMillis);
+                segment = snapshotSegment;
+                recoveredSegmentRecords = 0;
+                books = new ArrayList<>(database.books());
+            } finally {
+                lock.readLock().unlock();
+            }
+            previous.close();
+            BookSnapshot.write(books, snapshotFile(snapshotSegment));
+            deleteBefore(snapshotSegment);
+            logger.info("Compacted {} books of {} into snapshot {} in {} ms", books.size(), directory, snapshotSegment,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Stops background compaction, syncs and closes the log.
+     *
+     * @throws IOException when log cannot be synced
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            log.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> T mutate(RecordWriter record, Mutation<T> mutation) {
+        WriteAheadLog target;
+        long sequence;
+        long segmentRecords;
+        T result;
+        lock.writeLock().lock();
+        try {
+            target = log;
+            sequence = target.append(record.toBuffer());
+            segmentRecords = recoveredSegmentRecords + sequence;
+            result = mutation.apply();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            target.awaitDurable(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (segmentRecords >= compactAfterRecords && compactionScheduled.compareAndSet(false, true)) {
+            scheduleCompaction();
+        }
+        return result;
+    }
+
+    private void scheduleCompaction() {
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    logger.error("Compaction of " + directory + " failed", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            compactionScheduled.set(false);
+            logger.warn("Compaction of {} not scheduled: {}", directory, e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        List<Long> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long snapshotSegment = 0;
+        if (!snapshots.isEmpty()) {
+            // segments covered by the newest snapshot may be deleted already, so there is nothing to fall back to
+            snapshotSegment = snapshots.get(snapshots.size() - 1);
+            try {
+                database.loadSnapshot(snapshotFile(snapshotSegment));
+            } catch (IOException e) {
+                throw new IOException("Cannot recover " + directory + " from snapshot " + snapshotFile(snapshotSegment), e);
+            }
+        }
+        List<Long> segments = new ArrayList<>();
+        for (long number : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (number >= snapshotSegment) {
+                segments.add(number);
+            }
+        }
+        // only the tail of the log may be torn, segments rolled after it by compaction are still empty
+        int tail = segments.size() - 1;
+        while (tail > 0 && Files.size(segmentFile(segments.get(tail))) == 0) {
+            tail--;
+        }
+        long records = 0;
+        segment = snapshotSegment;
+        for (int i = 0; i < segments.size(); i++) {
+            recoveredSegmentRecords = WriteAheadLog.replay(segmentFile(segments.get(i)), this::apply, i >= tail);
+            records += recoveredSegmentRecords;
+            segment = segments.get(i);
+        }
+        deleteBefore(snapshotSegment);
+        logger.info("Recovered {} books from snapshot {} and {} log records in {} ms", database.booksSize(),
+                snapshotSegment, records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void apply(ByteBuffer record) {
+        switch (record.get()) {
+            case INIT:
+            case ADD_BOOKS:
+                int size = record.getInt();
+                List<String> titles = new ArrayList<>(size);
+                List<List<String>> authors = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    titles.add(getString(record));
+                    String[] bookAuthors = new String[record.getInt()];
+                    for (int j = 0; j < bookAuthors.length; j++) {
+                        bookAuthors[j] = getString(record);
+                    }
+                    authors.add(Arrays.asList(bookAuthors));
+                }
+                if (record.get(0) == INIT) {
+                    database.init(titles, authors);
+                } else {
+                    database.addBooks(titles, authors);
+                }
+                break;
+            case REMOVE_BOOK_BY_TITLE:
+                database.removeBookByTitle(getString(record));
+                break;
+            case REMOVE_BOOKS_BY_AUTHOR:
+                database.removeBooksByAuthor(getString(record));
+                break;
+            case SHUT_DOWN:
+                database.shutDown();
+                break;
+            default:
+                throw new IllegalStateException("Unknown log record type: " + record.get(0));
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void deleteBefore(long number) throws IOException {
+        for (long snapshot : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshot < number) {
+                Files.deleteIfExists(snapshotFile(snapshot));
+            }
+        }
+        for (long segmentNumber : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (segmentNumber < number) {
+                Files.deleteIfExists(segmentFile(segmentNumber));
+            }
+        }
+    }
+
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unknown file: {}", file);
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private Path segmentFile(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotFile(long number) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * In-memory part of a mutation, applied under write lock.
+     */
+    private interface Mutation<T> {
+        T apply();
+    }
+
+    /**
+     * Encoder of a log record: type byte followed by ints and strings, strings are int length and UTF-8 bytes,
+     * null string has length -1.
+     */
+    private static final class RecordWriter {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        RecordWriter(byte type) {
+            buffer.put(type);
+        }
+
+        RecordWriter putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+            return this;
+        }
+
+        RecordWriter putString(String value) {
+            if (value == null) {
+                return putInt(-1);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+            return this;
+        }
+
+        RecordWriter putBooks(List<String> titles, List<List<String>> authors) {
+            putInt(titles.size());
+            for (int i = 0; i < titles.size(); i++) {
+                putString(titles.get(i));
+                putInt(authors.get(i).size());
+                for (String author : authors.get(i)) {
+                    putString(author);
+                }
+            }
+            return this;
+        }
+
+        ByteBuffer toBuffer() {
+            buffer.flip();
+            return buffer;
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+    }
+}
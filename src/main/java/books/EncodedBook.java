@@ -0,0 +1,62 @@
+package books;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Book which keeps its authors as ids from {@link AuthorDictionary}.
+ * List of author names is not stored, {@link #getAuthors()} returns a lightweight view decoding ids on access.
+ * POJO is threadsafe as long as dictionary is not modified concurrently.
+ */
+public class EncodedBook extends Book {
+
+    private final AuthorDictionary dictionary;
+
+    private final int[] authorIds;
+
+    /**
+     * Default constructor.
+     *
+     * @param bookTitle  book title
+     * @param authorIds  ids of authors, array is not copied
+     * @param dictionary dictionary the ids come from
+     */
+    public EncodedBook(String bookTitle, int[] authorIds, AuthorDictionary dictionary) {
+        super(bookTitle);
+        this.authorIds = authorIds;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Returns ids of authors, array must not be modified.
+     *
+     * @return ids of authors
+     */
+    int[] getAuthorIds() {
+        return authorIds;
+    }
+
+    /**
+     * Lazily decoded list of authors.
+     *
+     * @return unmodifiable view of authors
+     */
+    @Override
+    public List<String> getAuthors() {
+        return new AuthorsView();
+    }
+
+    private final class AuthorsView extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public String get(int index) {
+            return dictionary.nameOf(authorIds[index]);
+        }
+
+        @Override
+        public int size() {
+            return authorIds.length;
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Metrics decorator of any {@link BookDatabase}.
+ * Latency of every call is recorded in a per operation {@link Histogram}, failed calls are counted separately,
+ * sizes of author query results are recorded as distribution of author index lengths.
+ * Calls slower than a threshold are counted and logged to "books.InstrumentedBookDatabase.slow" logger.
+ * <p>
+ * Recording does not allocate, disabled decorator costs one volatile read per call.
+ * Metrics are exposed through JMX, see {@link #registerMBean(String)}, and through periodic {@link Reporter}s.
+ * Decorator is thread-safe when the backing database is.
+ */
+public class InstrumentedBookDatabase implements BookDatabase, BookDatabaseMetricsMXBean {
+
+    /**
+     * Default threshold of slow operation log.
+     */
+    public static final long DEFAULT_SLOW_OPERATION_THRESHOLD_MICROS = 100_000;
+
+    /**
+     * Reporter which logs one line per operation which was called at least once.
+     */
+    public static final Reporter LOG_REPORTER = new Reporter() {
+
+        private final Logger reporterLogger = LogManager.getLogger(InstrumentedBookDatabase.class.getName() + ".report");
+
+        @Override
+        public void report(InstrumentedBookDatabase metrics) {
+            for (Operation operation : Operation.values()) {
+                Histogram latency = metrics.latency(operation);
+                if (latency.getCount() > 0) {
+                    reporterLogger.info("{} count={} errors={} p50={}us p99={}us max={}us", operation,
+                            latency.getCount(), metrics.errors(operation), micros(latency.getValueAtPercentile(50)),
+                            micros(latency.getValueAtPercentile(99)), micros(latency.getMax()));
+                }
+            }
+            reporterLogger.info("books={} authors={} slow={}", metrics.getBooksSize(), metrics.getAuthorsSize(),
+                    metrics.getSlowOperationCount());
+        }
+    };
+
+    /**
+     * Instrumented calls.
+     */
+    public enum Operation {
+        INIT,
+        ADD_BOOK,
+        ADD_BOOKS,
+        SHUT_DOWN,
+        REMOVE_BOOK_BY_TITLE,
+        REMOVE_BOOKS_BY_AUTHOR,
+        QUERY_BOOK_BY_AUTHOR,
+        QUERY_AUTHORS_BY_BOOK_TITLE,
+        QUERY_BOOKS_BY_AUTHORS,
+        QUERY_AUTHORS_BY_BOOK_TITLES
+    }
+
+    /**
+     * Receives metrics periodically, see {@link #startReporting(Reporter, long, TimeUnit)}.
+     */
+    public interface Reporter {
+
+        /**
+         * Reads metrics, called from a reporting thread.
+         *
+         * @param metrics instrumented database
+         */
+        void report(InstrumentedBookDatabase metrics);
+    }
+
+    private final Logger slowLogger = LogManager.getLogger(InstrumentedBookDatabase.class.getName() + ".slow");
+
+    private final BookDatabase database;
+
+    private final long slowOperationThresholdNanos;
+
+    private final Histogram[] latencies = new Histogram[Operation.values().length];
+
+    private final LongAdder[] errors = new LongAdder[Operation.values().length];
+
+    private final Histogram authorBooks = new Histogram();
+
+    private final LongAdder slowOperations = new LongAdder();
+
+    private volatile boolean enabled = true;
+
+    /**
+     * Creates decorator with default slow operation threshold.
+     *
+     * @param database backing database
+     */
+    public InstrumentedBookDatabase(BookDatabase database) {
+        this(database, DEFAULT_SLOW_OPERATION_THRESHOLD_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Creates decorator with a given slow operation threshold.
+     *
+     * @param database               backing database
+     * @param slowOperationThreshold calls taking at least this long are logged
+     * @param unit                   unit of threshold
+     */
+    public InstrumentedBookDatabase(BookDatabase database, long slowOperationThreshold, TimeUnit unit) {
+        if (database == null) {
+            throw new NullPointerException("Database must not be null.");
+        }
+        this.database = database;
+        this.slowOperationThresholdNanos = unit.toNanos(slowOperationThreshold);
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        if (!enabled) {
+            database.init(titlesInitList, authorsInitList);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            database.init(titlesInitList, authorsInitList);
+            failed = false;
+        } finally {
+            record(Operation.INIT, start, failed, titlesInitList == null ? -1 : titlesInitList.size());
+        }
+    }
+
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (!enabled) {
+            return database.addBook(bookTitle, authors);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean added = database.addBook(bookTitle, authors);
+            failed = false;
+            return added;
+        } finally {
+            record(Operation.ADD_BOOK, start, failed, bookTitle);
+        }
+    }
+
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        if (!enabled) {
+            return database.addBooks(titles, authors);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean[] added = database.addBooks(titles, authors);
+            failed = false;
+            return added;
+        } finally {
+            record(Operation.ADD_BOOKS, start, failed, titles == null ? -1 : titles.size());
+        }
+    }
+
+    @Override
+    public void shutDown() {
+        if (!enabled) {
+            database.shutDown();
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            database.shutDown();
+            failed = false;
+        } finally {
+            record(Operation.SHUT_DOWN, start, failed, null);
+        }
+    }
+
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        if (!enabled) {
+            return database.removeBookByTitle(bookTitle);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean removed = database.removeBookByTitle(bookTitle);
+            failed = false;
+            return removed;
+        } finally {
+            record(Operation.REMOVE_BOOK_BY_TITLE, start, failed, bookTitle);
+        }
+    }
+
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        if (!enabled) {
+            return database.removeBooksByAuthor(author);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean removed = database.removeBooksByAuthor(author);
+            failed = false;
+            return removed;
+        } finally {
+            record(Operation.REMOVE_BOOKS_BY_AUTHOR, start, failed, author);
+        }
+    }
+
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        if (!enabled) {
+            return database.queryBookByAuthor(author);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Set<Book> books = database.queryBookByAuthor(author);
+            authorBooks.record(books.size());
+            failed = false;
+            return books;
+        } finally {
+            record(Operation.QUERY_BOOK_BY_AUTHOR, start, failed, author);
+        }
+    }
+
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        if (!enabled) {
+            return database.queryAuthorsByBookTitle(bookTitle);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<String> authors = database.queryAuthorsByBookTitle(bookTitle);
+            failed = false;
+            return authors;
+        } finally {
+            record(Operation.QUERY_AUTHORS_BY_BOOK_TITLE, start, failed, bookTitle);
+        }
+    }
+
+    /**
+     * Delegated to multi-get of backing database, latency of whole call is recorded once,
+     * books of every author are recorded in author books histogram.
+     */
+    @Override
+    public List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        if (!enabled) {
+            return database.queryBooksByAuthors(authors);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Set<Book>> books = database.queryBooksByAuthors(authors);
+            for (Set<Book> booksOfAuthor : books) {
+                authorBooks.record(booksOfAuthor.size());
+            }
+            failed = false;
+            return books;
+        } finally {
+            record(Operation.QUERY_BOOKS_BY_AUTHORS, start, failed, authors == null ? -1 : authors.size());
+        }
+    }
+
+    /**
+     * Delegated to multi-get of backing database, latency of whole call is recorded once.
+     */
+    @Override
+    public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        if (!enabled) {
+            return database.queryAuthorsByBookTitles(bookTitles);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<List<String>> authors = database.queryAuthorsByBookTitles(bookTitles);
+            failed = false;
+            return authors;
+        } finally {
+            record(Operation.QUERY_AUTHORS_BY_BOOK_TITLES, start, failed, bookTitles == null ? -1 : bookTitles.size());
+        }
+    }
+
+    /**
+     * Delegated as is, so an optimized implementation of backing database is kept. Not instrumented.
+     */
+    @Override
+    public Stream<Book> queryBooksByAllAuthors(Collection<String> authors) {
+        return database.queryBooksByAllAuthors(authors);
+    }
+
+    /**
+     * Delegated as is, so an optimized implementation of backing database is kept. Not instrumented.
+     */
+    @Override
+    public Stream<Book> queryBooksByAnyAuthor(Collection<String> authors) {
+        return database.queryBooksByAnyAuthor(authors);
+    }
+
+    /**
+     * Delegated as is, so an optimized implementation of backing database is kept. Not instrumented.
+     */
+    @Override
+    public BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        return database.queryBooksByAuthorPage(author, page, pageSize);
+    }
+
+    /**
+     * Delegated as is, so an optimized implementation of backing database is kept. Not instrumented.
+     */
+    @Override
+    public BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        return database.queryBooksByAuthorAfter(author, cursor, limit);
+    }
+
+    private void record(Operation operation, long start, boolean failed, String argument) {
+        long slowNanos = record(operation, start, failed);
+        if (slowNanos >= 0) {
+            slowLogger.warn("Slow {}({}) took {} us", operation, argument, micros(slowNanos));
+        }
+    }
+
+    /**
+     * Size of a list argument is boxed only when the call is logged as slow.
+     *
+     * @param size size of list argument, -1 for a null list
+     */
+    private void record(Operation operation, long start, boolean failed, int size) {
+        long slowNanos = record(operation, start, failed);
+        if (slowNanos >= 0) {
+            slowLogger.warn("Slow {}({}) took {} us", operation, size < 0 ? "null" : size, micros(slowNanos));
+        }
+    }
+
+    /**
+     * @return elapsed nanoseconds when the call is slow, -1 otherwise
+     */
+    private long record(Operation operation, long start, boolean failed) {
+        long elapsedNanos = System.nanoTime() - start;
+        latencies[operation.ordinal()].record(elapsedNanos);
+        if (failed) {
+            errors[operation.ordinal()].increment();
+        }
+        if (elapsedNanos < slowOperationThresholdNanos) {
+            return -1;
+        }
+        slowOperations.increment();
+        return elapsedNanos;
+    }
+
+    /**
+     * @param operation instrumented call
+     * @return latency histogram in nanoseconds
+     */
+    public Histogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * @param operation instrumented call
+     * @return number of calls which threw an exception
+     */
+    public long errors(Operation operation) {
+        return errors[operation.ordinal()].sum();
+    }
+
+    /**
+     * @return histogram of number of books returned by author queries
+     */
+    public Histogram authorBooks() {
+        return authorBooks;
+    }
+
+    /**
+     * Registers decorator in platform MBean server as "books:type=BookDatabase,name=[name]".
+     *
+     * @param name name of database
+     * @return object name, used to unregister MBean
+     * @throws JMException when MBean cannot be registered
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("books:type=BookDatabase,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Calls reporter periodically on a daemon thread, an exception of reporter is logged and reporting continues.
+     *
+     * @param reporter reporter
+     * @param period   period between reports
+     * @param unit     unit of period
+     * @return handle which stops reporting when closed
+     */
+    public Closeable startReporting(Reporter reporter, long period, TimeUnit unit) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-database-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                reporter.report(this);
+            } catch (RuntimeException e) {
+                slowLogger.error("Metrics reporter failed", e);
+            }
+        }, period, period, unit);
+        return scheduler::shutdownNow;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int booksSize() {
+        return database.booksSize();
+    }
+
+    @Override
+    public int authorsSize() {
+        return database.authorsSize();
+    }
+
+    @Override
+    public int getBooksSize() {
+        return booksSize();
+    }
+
+    @Override
+    public int getAuthorsSize() {
+        return authorsSize();
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return perOperation(Histogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.name(), errors(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencyMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.name(), latency(operation).getMean() / 1000);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getP50LatencyMicros() {
+        return perOperation(histogram -> micros(histogram.getValueAtPercentile(50)));
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyMicros() {
+        return perOperation(histogram -> micros(histogram.getValueAtPercentile(99)));
+    }
+
+    @Override
+    public Map<String, Long> getMaxLatencyMicros() {
+        return perOperation(histogram -> micros(histogram.getMax()));
+    }
+
+    @Override
+    public long getAuthorBooksP50() {
+        return authorBooks.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getAuthorBooksP99() {
+        return authorBooks.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getAuthorBooksMax() {
+        return authorBooks.getMax();
+    }
+
+    @Override
+    public long getSlowOperationCount() {
+        return slowOperations.sum();
+    }
+
+    @Override
+    public long getSlowOperationThresholdMicros() {
+        return micros(slowOperationThresholdNanos);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].reset();
+            errors[i].reset();
+        }
+        authorBooks.reset();
+        slowOperations.reset();
+    }
+
+    private Map<String, Long> perOperation(Function<Histogram, Long> value) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.name(), value.apply(latency(operation)));
+        }
+        return result;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,113 @@
+package books;
+
+import java.util.*;
+
+/**
+ * In-process shard backed by {@link DefaultBookDatabaseImpl}, every call is guarded by the shard monitor.
+ * {@link #queryBookByAuthor(String)} returns a copy, as shard may be modified concurrently.
+ */
+public class LocalBookShard implements BookShard {
+
+    private final DefaultBookDatabaseImpl database;
+
+    /**
+     * Creates shard with quiet misses, a miss in one shard is a normal result of scatter-gather queries.
+     */
+    public LocalBookShard() {
+        this(new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES));
+    }
+
+    /**
+     * Creates shard backed by a given database.
+     *
+     * @param database backing database, must not be used directly afterwards
+     */
+    public LocalBookShard(DefaultBookDatabaseImpl database) {
+        this.database = database;
+    }
+
+    @Override
+    public synchronized void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        database.init(titlesInitList, authorsInitList);
+    }
+
+    @Override
+    public synchronized boolean addBook(String bookTitle, List<String> authors) {
+        return database.addBook(bookTitle, authors);
+    }
+
+    @Override
+    public synchronized boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        return database.addBooks(titles, authors);
+    }
+
+    @Override
+    public synchronized void shutDown() {
+        database.shutDown();
+    }
+
+    @Override
+    public synchronized boolean removeBookByTitle(String bookTitle) {
+        return database.removeBookByTitle(bookTitle);
+    }
+
+    @Override
+    public synchronized boolean removeBooksByAuthor(String author) {
+        return database.removeBooksByAuthor(author);
+    }
+
+    @Override
+    public synchronized Set<Book> queryBookByAuthor(String author) {
+        Set<Book> books = database.queryBookByAuthor(author);
+        return books.isEmpty() ? Collections.emptySet() : new HashSet<>(books);
+    }
+
+    @Override
+    public synchronized List<String> queryAuthorsByBookTitle(String bookTitle) {
+        return database.queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * All authors are queried under one lock, every set is copied.
+     */
+    @Override
+    public synchronized List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        List<Set<Book>> books = database.queryBooksByAuthors(authors);
+        for (int i = 0; i < books.size(); i++) {
+            if (!books.get(i).isEmpty()) {
+                books.set(i, new HashSet<>(books.get(i)));
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public synchronized List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        return database.queryAuthorsByBookTitles(bookTitles);
+    }
+
+    @Override
+    public synchronized BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        return database.queryBooksByAuthorPage(author, page, pageSize);
+    }
+
+    @Override
+    public synchronized BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        return database.queryBooksByAuthorAfter(author, cursor, limit);
+    }
+
+    @Override
+    public synchronized int booksSize() {
+        return database.booksSize();
+    }
+
+    @Override
+    public synchronized int authorsSize() {
+        return database.authorsSize();
+    }
+
+    @Override
+    public synchronized List<Book> books() {
+        return new ArrayList<>(database.books());
+    }
+}
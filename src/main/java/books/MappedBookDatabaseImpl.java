@@ -0,0 +1,562 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Off-heap Database implementation, whole catalogue lives in a memory-mapped file.
+ * Titles, author dictionary and both indexes are stored in the file, only the mapping itself is kept on heap,
+ * so restarted process opens an existing catalogue and serves queries immediately without rebuilding anything.
+ * <p>
+ * File layout, all numbers are big endian ints, all offsets are absolute:
+ * <pre>
+ * header        : magic, version, books count, live books, authors count, live authors,
+ *                 title table offset, title table slots, author table offset, author table slots
+ * author offsets: offset of author record for every author id
+ * book records  : deleted flag, authors count, author ids..., title length, UTF-8 title bytes
+ * author records: live books, postings count, book record offsets..., name length, UTF-8 name bytes,
+ *                 a null name has length -1 and no bytes
+ * title table   : open addressing hash table, slot is (title hash, book record offset), offset 0 marks free slot
+ * author table  : open addressing hash table, slot is (name hash, author record offset)
+ * </pre>
+ * Hashes are {@link String#hashCode()} of titles and names, 0 for a null name,
+ * keys are compared as UTF-8 bytes inside the file.
+ * <p>
+ * Removals only flag book records as deleted and update counters in place, so they are persisted in the file as well.
+ * Init rewrites the file with all live books and new ones, which also compacts deleted records.
+ * Catalogue file is limited to 2GB, because offsets are ints.
+ * Not thread-safe.
+ */
+public class MappedBookDatabaseImpl implements BookDatabase {
+
+    private static final int MAGIC = 0x424B4442;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int BOOKS_COUNT = 8;
+    private static final int LIVE_BOOKS = 12;
+    private static final int AUTHORS_COUNT = 16;
+    private static final int LIVE_AUTHORS = 20;
+    private static final int TITLE_TABLE_OFFSET = 24;
+    private static final int TITLE_TABLE_SLOTS = 28;
+    private static final int AUTHOR_TABLE_OFFSET = 32;
+    private static final int AUTHOR_TABLE_SLOTS = 36;
+
+    private final Logger logger = LogManager.getLogger(MappedBookDatabaseImpl.class.getName());
+
+    private final Path file;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * Opens catalogue from a given file, empty catalogue is created if file does not exist.
+     *
+     * @param file catalogue file
+     */
+    public MappedBookDatabaseImpl(Path file) {
+        this.file = file;
+        if (!Files.exists(file)) {
+            write(Collections.emptyList());
+        }
+        map();
+        logger.info("Opened catalogue {} with {} books and {} authors", file, booksSize(), authorsSize());
+    }
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     * Catalogue file is rewritten with all live books followed by new ones.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+        Map<String, Book> books = liveBooks();
+        for (int i = 0; i < titlesInitList.size(); i++) {
+            String title = titlesInitList.get(i);
+            List<String> authors = authorsInitList.get(i);
+            if (books.putIfAbsent(title, new Book(title, authors)) != null) {
+                logger.warn("Book: {}, was not added !", title);
+            }
+        }
+        write(books.values());
+        map();
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book, catalogue file is rewritten, so {@link #addBooks(List, List)} should be preferred.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        return addBooks(Collections.singletonList(bookTitle), Collections.singletonList(authors))[0];
+    }
+
+    /**
+     * Adds a batch of books with a single rewrite of catalogue file, file is not touched when nothing is added.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        boolean[] added = new boolean[titles.size()];
+        boolean modified = false;
+        Map<String, Book> books = null;
+        for (int i = 0; i < titles.size(); i++) {
+            if (findBook(titles.get(i)) != 0) {
+                continue;
+            }
+            if (books == null) {
+                books = liveBooks();
+            }
+            added[i] = books.putIfAbsent(titles.get(i), new Book(titles.get(i), authors.get(i))) == null;
+            modified |= added[i];
+        }
+        if (modified) {
+            write(books.values());
+            map();
+        }
+        return added;
+    }
+
+    /**
+     * Rewrites catalogue file as empty catalogue.
+     */
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        write(Collections.emptyList());
+        map();
+    }
+
+    /**
+     * Flushes in place modifications of the mapped file to the storage device.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Flags book record as deleted and decrements counters of all its authors.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        int offset = findBook(bookTitle);
+        if (offset == 0) {
+            logger.warn("No such book title: {} in database", bookTitle);
+            return false;
+        }
+        removeBook(offset);
+        return true;
+    }
+
+    /**
+     * Removes all the books for a given author.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        int authorOffset = findAuthor(author);
+        if (authorOffset == 0 || buffer.getInt(authorOffset) == 0) {
+            logger.warn("Unknown author: {}", author);
+            return false;
+        }
+        int postingsCount = buffer.getInt(authorOffset + 4);
+        for (int i = 0; i < postingsCount; i++) {
+            int bookOffset = buffer.getInt(authorOffset + 8 + 4 * i);
+            if (buffer.getInt(bookOffset) == 0) {
+                removeBook(bookOffset);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Book query by Author, books are decoded from the file on every call.
+     *
+     * @param author input author
+     * @return set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        int authorOffset = findAuthor(author);
+        if (authorOffset == 0 || buffer.getInt(authorOffset) == 0) {
+            return Collections.emptySet();
+        }
+        int postingsCount = buffer.getInt(authorOffset + 4);
+        Set<Book> books = new HashSet<>();
+        for (int i = 0; i < postingsCount; i++) {
+            int bookOffset = buffer.getInt(authorOffset + 8 + 4 * i);
+            if (buffer.getInt(bookOffset) == 0) {
+                books.add(readBook(bookOffset));
+            }
+        }
+        return Collections.unmodifiableSet(books);
+    }
+
+    /**
+     * Authors query by Book, title is looked up in the off-heap hash table.
+     *
+     * @param bookTitle input title
+     * @return list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        int offset = findBook(bookTitle);
+        if (offset == 0) {
+            logger.warn("Book title: {} not found", bookTitle);
+            return Collections.emptyList();
+        }
+        return readAuthors(offset);
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return buffer.getInt(LIVE_BOOKS);
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return buffer.getInt(LIVE_AUTHORS);
+    }
+
+    private void removeBook(int offset) {
+        buffer.putInt(offset, 1);
+        buffer.putInt(LIVE_BOOKS, buffer.getInt(LIVE_BOOKS) - 1);
+        int authorsCount = buffer.getInt(offset + 4);
+        for (int i = 0; i < authorsCount; i++) {
+            int authorId = buffer.getInt(offset + 8 + 4 * i);
+            if (repeatedAuthor(offset, i, authorId)) {
+                continue;
+            }
+            int authorOffset = authorOffset(authorId);
+            int liveBooks = buffer.getInt(authorOffset) - 1;
+            buffer.putInt(authorOffset, liveBooks);
+            if (liveBooks == 0) {
+                buffer.putInt(LIVE_AUTHORS, buffer.getInt(LIVE_AUTHORS) - 1);
+            }
+        }
+    }
+
+    /**
+     * @return true if author at a given position of book record is listed at a lower position as well
+     */
+    private boolean repeatedAuthor(int bookOffset, int position, int authorId) {
+        for (int i = 0; i < position; i++) {
+            if (buffer.getInt(bookOffset + 8 + 4 * i) == authorId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return books of all live records by title, in order of records in the file
+     */
+    private Map<String, Book> liveBooks() {
+        Map<String, Book> books = new LinkedHashMap<>();
+        int booksCount = buffer.getInt(BOOKS_COUNT);
+        for (int i = 0, offset = firstBookOffset(); i < booksCount; i++, offset = nextBookOffset(offset)) {
+            if (buffer.getInt(offset) == 0) {
+                Book book = readBook(offset);
+                books.put(book.getBookTitle(), book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * @return offset of live book record or 0 if not found
+     */
+    private int findBook(String title) {
+        if (title == null) {
+            return 0;
+        }
+        int offset = find(title, buffer.getInt(TITLE_TABLE_OFFSET), buffer.getInt(TITLE_TABLE_SLOTS), true);
+        return offset != 0 && buffer.getInt(offset) == 0 ? offset : 0;
+    }
+
+    /**
+     * @return offset of author record or 0 if not found
+     */
+    private int findAuthor(String author) {
+        return find(author, buffer.getInt(AUTHOR_TABLE_OFFSET), buffer.getInt(AUTHOR_TABLE_SLOTS), false);
+    }
+
+    private int find(String key, int tableOffset, int slots, boolean books) {
+        int hash = Objects.hashCode(key);
+        byte[] bytes = null;
+        int mask = slots - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int slotOffset = tableOffset + 8 * slot;
+            int recordOffset = buffer.getInt(slotOffset + 4);
+            if (recordOffset == 0) {
+                return 0;
+            }
+            if (buffer.getInt(slotOffset) == hash) {
+                int keyOffset = books ? titleOffset(recordOffset) : nameOffset(recordOffset);
+                if (key == null) {
+                    if (buffer.getInt(keyOffset) < 0) {
+                        return recordOffset;
+                    }
+                    continue;
+                }
+                if (bytes == null) {
+                    bytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+                if (equalBytes(keyOffset, bytes)) {
+                    return recordOffset;
+                }
+            }
+        }
+    }
+
+    private boolean equalBytes(int offset, byte[] bytes) {
+        if (buffer.getInt(offset) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 4 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Book readBook(int offset) {
+        return new Book(readString(titleOffset(offset)), readAuthors(offset));
+    }
+
+    private List<String> readAuthors(int offset) {
+        int authorsCount = buffer.getInt(offset + 4);
+        List<String> authors = new ArrayList<>(authorsCount);
+        for (int i = 0; i < authorsCount; i++) {
+            authors.add(readString(nameOffset(authorOffset(buffer.getInt(offset + 8 + 4 * i)))));
+        }
+        return authors;
+    }
+
+    private int firstBookOffset() {
+        return HEADER_SIZE + 4 * buffer.getInt(AUTHORS_COUNT);
+    }
+
+    private int nextBookOffset(int offset) {
+        int titleOffset = titleOffset(offset);
+        return titleOffset + 4 + buffer.getInt(titleOffset);
+    }
+
+    private int titleOffset(int bookOffset) {
+        return bookOffset + 8 + 4 * buffer.getInt(bookOffset + 4);
+    }
+
+    private int nameOffset(int authorOffset) {
+        return authorOffset + 8 + 4 * buffer.getInt(authorOffset + 4);
+    }
+
+    private int authorOffset(int authorId) {
+        return buffer.getInt(HEADER_SIZE + 4 * authorId);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSlots(int entries) {
+        int slots = 2;
+        while (slots < entries * 2) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private void map() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map catalogue " + file, e);
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a catalogue file: " + file);
+        }
+    }
+
+    /**
+     * Writes a new catalogue file with a given books, file is replaced atomically.
+     *
+     * @param books unique books to write
+     */
+    private void write(Collection<Book> books) {
+        AuthorDictionary dictionary = new AuthorDictionary();
+        byte[][] titles = new byte[books.size()][];
+        int[][] bookAuthors = new int[books.size()][];
+        int[] bookOffsets = new int[books.size()];
+        int[] titleHashes = new int[books.size()];
+        List<int[]> postings = new ArrayList<>();
+        int[] postingsSizes = new int[16];
+
+        long offset = HEADER_SIZE;
+        int index = 0;
+        for (Book book : books) {
+            titles[index] = book.getBookTitle().getBytes(StandardCharsets.UTF_8);
+            titleHashes[index] = book.getBookTitle().hashCode();
+            List<String> authors = book.getAuthors();
+            int[] ids = new int[authors.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionary.encode(authors.get(i));
+                if (ids[i] == postings.size()) {
+                    postings.add(new int[2]);
+                    if (postingsSizes.length == ids[i]) {
+                        postingsSizes = Arrays.copyOf(postingsSizes, ids[i] * 2);
+                    }
+                }
+            }
+            bookAuthors[index++] = ids;
+        }
+        int authorsCount = dictionary.size();
+        offset += 4L * authorsCount;
+        for (int i = 0; i < titles.length; i++) {
+            bookOffsets[i] = (int) offset;
+            offset += 12L + 4L * bookAuthors[i].length + titles[i].length;
+            checkSize(offset);
+            for (int authorId : bookAuthors[i]) {
+                int[] authorPostings = postings.get(authorId);
+                int size = postingsSizes[authorId];
+                if (size > 0 && authorPostings[size - 1] == bookOffsets[i]) {
+                    continue;
+                }
+                if (size == authorPostings.length) {
+                    authorPostings = Arrays.copyOf(authorPostings, size * 2);
+                    postings.set(authorId, authorPostings);
+                }
+                authorPostings[size] = bookOffsets[i];
+                postingsSizes[authorId] = size + 1;
+            }
+        }
+        byte[][] names = new byte[authorsCount][];
+        int[] authorOffsets = new int[authorsCount];
+        for (int id = 0; id < authorsCount; id++) {
+            String name = dictionary.nameOf(id);
+            names[id] = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            authorOffsets[id] = (int) offset;
+            offset += 12L + 4L * postingsSizes[id] + (names[id] == null ? 0 : names[id].length);
+            checkSize(offset);
+        }
+        int titleSlots = tableSlots(titles.length);
+        int titleTableOffset = (int) offset;
+        offset += 8L * titleSlots;
+        int authorSlots = tableSlots(authorsCount);
+        int authorTableOffset = (int) offset;
+        offset += 8L * authorSlots;
+        checkSize(offset);
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset);
+            out.putInt(0, MAGIC).putInt(4, VERSION)
+                    .putInt(BOOKS_COUNT, titles.length).putInt(LIVE_BOOKS, titles.length)
+                    .putInt(AUTHORS_COUNT, authorsCount).putInt(LIVE_AUTHORS, authorsCount)
+                    .putInt(TITLE_TABLE_OFFSET, titleTableOffset).putInt(TITLE_TABLE_SLOTS, titleSlots)
+                    .putInt(AUTHOR_TABLE_OFFSET, authorTableOffset).putInt(AUTHOR_TABLE_SLOTS, authorSlots);
+            for (int id = 0; id < authorsCount; id++) {
+                out.putInt(HEADER_SIZE + 4 * id, authorOffsets[id]);
+            }
+            for (int i = 0; i < titles.length; i++) {
+                out.position(bookOffsets[i]);
+                out.putInt(0).putInt(bookAuthors[i].length);
+                for (int authorId : bookAuthors[i]) {
+                    out.putInt(authorId);
+                }
+                out.putInt(titles[i].length).put(titles[i]);
+                putSlot(out, titleTableOffset, titleSlots, titleHashes[i], bookOffsets[i]);
+            }
+            for (int id = 0; id < authorsCount; id++) {
+                out.position(authorOffsets[id]);
+                out.putInt(postingsSizes[id]).putInt(postingsSizes[id]);
+                int[] authorPostings = postings.get(id);
+                for (int i = 0; i < postingsSizes[id]; i++) {
+                    out.putInt(authorPostings[i]);
+                }
+                if (names[id] == null) {
+                    out.putInt(-1);
+                } else {
+                    out.putInt(names[id].length).put(names[id]);
+                }
+                putSlot(out, authorTableOffset, authorSlots, Objects.hashCode(dictionary.nameOf(id)), authorOffsets[id]);
+            }
+            out.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write catalogue " + file, e);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replace catalogue " + file, e);
+        }
+    }
+
+    private static void putSlot(MappedByteBuffer out, int tableOffset, int slots, int hash, int recordOffset) {
+        int mask = slots - 1;
+        int slot = spread(hash) & mask;
+        while (out.getInt(tableOffset + 8 * slot + 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        out.putInt(tableOffset + 8 * slot, hash).putInt(tableOffset + 8 * slot + 4, recordOffset);
+    }
+
+    private static void checkSize(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Catalogue exceeds 2GB limit.");
+        }
+    }
+}
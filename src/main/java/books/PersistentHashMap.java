@@ -0,0 +1,328 @@
+package books;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable hash map with structural sharing, a hash array mapped trie.
+ * Every node maps 5 bits of key hash to at most 32 slots, a slot holds either an entry or a child node,
+ * keys with equal hashes end up in one collision node.
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} copy only the nodes on the path to the key
+ * and share the rest with the original map, so both run in O(log32 n) and the original map stays unchanged.
+ * Null keys and values are supported, a null value cannot be told apart from a missing key by {@link #get(Object)}.
+ * Thread-safe, instances are immutable.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+final class PersistentHashMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @return number of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key key to look up
+     * @return value of key, null if key is not in map
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        return (V) root.find(hash(key), 0, key);
+    }
+
+    /**
+     * @param key          key to look up
+     * @param defaultValue value returned when key is not in map
+     * @return value of key, default value if key is not in map
+     */
+    V getOrDefault(Object key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    boolean containsKey(Object key) {
+        return root.find(hash(key), 0, key) != null;
+    }
+
+    /**
+     * @param key   key to put
+     * @param value value of key
+     * @return map with key mapped to value, this map when key is already mapped to the same value
+     */
+    PersistentHashMap<K, V> plus(K key, V value) {
+        int[] sizeChange = new int[1];
+        Node newRoot = root.put(0, new Entry(hash(key), key, value), sizeChange);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + sizeChange[0]);
+    }
+
+    /**
+     * @param key key to remove
+     * @return map without key, this map when key is not in map
+     */
+    PersistentHashMap<K, V> minus(Object key) {
+        Node newRoot = root.remove(hash(key), 0, key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    private static int hash(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+
+        final int hash;
+
+        final Object key;
+
+        final Object value;
+
+        Entry(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private abstract static class Node {
+
+        abstract Object find(int hash, int shift, Object key);
+
+        /**
+         * @return node with entry put, this node if unchanged, sizeChange[0] is set to 1 when a key was added
+         */
+        abstract Node put(int shift, Entry entry, int[] sizeChange);
+
+        /**
+         * @return node without key, this node if key is missing, null if node became empty
+         */
+        abstract Node remove(int hash, int shift, Object key);
+    }
+
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        /**
+         * entries and child nodes in ascending order of their bits
+         */
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        Object find(int hash, int shift, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[index(bit)];
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.hash == hash && Objects.equals(entry.key, key) ? entry.value : null;
+            }
+            return ((Node) slot).find(hash, shift + BITS, key);
+        }
+
+        @Override
+        Node put(int shift, Entry entry, int[] sizeChange) {
+            int bit = bit(entry.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = entry;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                sizeChange[0] = 1;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry) {
+                Entry current = (Entry) slot;
+                if (current.hash == entry.hash && Objects.equals(current.key, entry.key)) {
+                    if (current.value == entry.value) {
+                        return this;
+                    }
+                    newSlot = entry;
+                } else {
+                    newSlot = branch(shift + BITS, current, entry);
+                    sizeChange[0] = 1;
+                }
+            } else {
+                Node child = (Node) slot;
+                newSlot = child.put(shift + BITS, entry, sizeChange);
+                if (newSlot == child) {
+                    return this;
+                }
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newSlot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        Node remove(int hash, int shift, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                if (entry.hash != hash || !Objects.equals(entry.key, key)) {
+                    return this;
+                }
+                newSlot = null;
+            } else {
+                Node child = (Node) slot;
+                newSlot = child.remove(hash, shift + BITS, key);
+                if (newSlot == child) {
+                    return this;
+                }
+            }
+            if (newSlot != null) {
+                Object[] newSlots = slots.clone();
+                newSlots[index] = newSlot;
+                return new BitmapNode(bitmap, newSlots);
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Entries of keys with the same hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        final int hash;
+
+        final Entry[] entries;
+
+        CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        @Override
+        Object find(int hash, int shift, Object key) {
+            if (hash == this.hash) {
+                for (Entry entry : entries) {
+                    if (Objects.equals(entry.key, key)) {
+                        return entry.value;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(int shift, Entry entry, int[] sizeChange) {
+            if (entry.hash != hash) {
+                return branch(shift, this, entry);
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (Objects.equals(entries[i].key, entry.key)) {
+                    if (entries[i].value == entry.value) {
+                        return this;
+                    }
+                    Entry[] newEntries = entries.clone();
+                    newEntries[i] = entry;
+                    return new CollisionNode(hash, newEntries);
+                }
+            }
+            List<Entry> newEntries = new ArrayList<>(entries.length + 1);
+            for (Entry current : entries) {
+                newEntries.add(current);
+            }
+            newEntries.add(entry);
+            sizeChange[0] = 1;
+            return new CollisionNode(hash, newEntries.toArray(new Entry[0]));
+        }
+
+        @Override
+        Node remove(int hash, int shift, Object key) {
+            if (hash != this.hash) {
+                return this;
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (Objects.equals(entries[i].key, key)) {
+                    if (entries.length == 1) {
+                        return null;
+                    }
+                    Entry[] newEntries = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, newEntries, 0, i);
+                    System.arraycopy(entries, i + 1, newEntries, i, newEntries.length - i);
+                    return new CollisionNode(hash, newEntries);
+                }
+            }
+            return this;
+        }
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Node holding an existing slot and a new entry with a different key, nested while their hash bits are equal.
+     */
+    private static Node branch(int shift, Object slot, Entry entry) {
+        int slotHash = slot instanceof Entry ? ((Entry) slot).hash : ((CollisionNode) slot).hash;
+        if (slotHash == entry.hash) {
+            return new CollisionNode(slotHash, new Entry[]{(Entry) slot, entry});
+        }
+        int slotBit = bit(slotHash, shift);
+        int entryBit = bit(entry.hash, shift);
+        if (slotBit == entryBit) {
+            return new BitmapNode(slotBit, new Object[]{branch(shift + BITS, slot, entry)});
+        }
+        Object[] slots = Integer.compareUnsigned(slotBit, entryBit) < 0
+                ? new Object[]{slot, entry} : new Object[]{entry, slot};
+        return new BitmapNode(slotBit | entryBit, slots);
+    }
+}
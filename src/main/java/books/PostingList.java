@@ -0,0 +1,504 @@
+package books;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Sorted set of non negative int ids, used as author to books posting list.
+ * Representation is switched adaptively:
+ * <ul>
+ * <li>small lists are kept inline as a sorted int[], the common case of authors with one or two books
+ * costs one small array</li>
+ * <li>lists above {@link #INLINE_MAX} are split roaring-style into chunks by high 16 bits of the id,
+ * every chunk is a sorted char[] of low bits while sparse, or a 8KB bitmap when it has more than
+ * {@link #CHUNK_ARRAY_MAX} ids</li>
+ * </ul>
+ * Add, remove and contains run in O(log n), iteration is in ascending order.
+ * Not thread-safe.
+ */
+final class PostingList {
+
+    static final int INLINE_MAX = 1024;
+
+    static final int CHUNK_ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /**
+     * inline representation, used while chunks are null
+     */
+    private int[] inline;
+
+    /**
+     * chunked representation, high 16 bits of ids sorted ascending
+     */
+    private char[] keys;
+
+    private Object[] chunks;
+
+    private int[] chunkSizes;
+
+    private int chunksCount;
+
+    private int size;
+
+    PostingList() {
+        inline = new int[1];
+    }
+
+    /**
+     * @return number of ids
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds id to the list.
+     *
+     * @param id non negative id
+     * @return true if id was not present
+     */
+    boolean add(int id) {
+        if (chunks == null) {
+            int index = Arrays.binarySearch(inline, 0, size, id);
+            if (index >= 0) {
+                return false;
+            }
+            if (size == INLINE_MAX) {
+                toChunks();
+                return add(id);
+            }
+            index = -index - 1;
+            if (size == inline.length) {
+                inline = Arrays.copyOf(inline, Math.min(INLINE_MAX, size * 2));
+            }
+            System.arraycopy(inline, index, inline, index + 1, size - index);
+            inline[index] = id;
+            size++;
+            return true;
+        }
+        char key = (char) (id >>> 16);
+        int chunk = Arrays.binarySearch(keys, 0, chunksCount, key);
+        if (chunk < 0) {
+            chunk = insertChunk(-chunk - 1, key);
+        }
+        if (addToChunk(chunk, (char) id)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes id from the list.
+     *
+     * @param id id to remove
+     * @return true if id was present
+     */
+    boolean remove(int id) {
+        if (chunks == null) {
+            int index = Arrays.binarySearch(inline, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(inline, index + 1, inline, index, size - index - 1);
+            size--;
+            return true;
+        }
+        int chunk = Arrays.binarySearch(keys, 0, chunksCount, (char) (id >>> 16));
+        if (chunk < 0 || !removeFromChunk(chunk, (char) id)) {
+            return false;
+        }
+        size--;
+        if (chunkSizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        if (size <= INLINE_MAX / 2) {
+            toInline();
+        }
+        return true;
+    }
+
+    /**
+     * @param id id to check
+     * @return true if list contains id
+     */
+    boolean contains(int id) {
+        if (chunks == null) {
+            return Arrays.binarySearch(inline, 0, size, id) >= 0;
+        }
+        int chunk = Arrays.binarySearch(keys, 0, chunksCount, (char) (id >>> 16));
+        if (chunk < 0) {
+            return false;
+        }
+        Object values = chunks[chunk];
+        if (values instanceof long[]) {
+            long[] bitmap = (long[]) values;
+            char low = (char) id;
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) values, 0, chunkSizes[chunk], (char) id) >= 0;
+    }
+
+    /**
+     * @return all ids in ascending order
+     */
+    int[] toArray() {
+        if (chunks == null) {
+            return Arrays.copyOf(inline, size);
+        }
+        int[] ids = new int[size];
+        int i = 0;
+        for (PostingIterator iterator = iterator(); iterator.hasNext(); ) {
+            ids[i++] = iterator.nextInt();
+        }
+        return ids;
+    }
+
+    /**
+     * @return iterator over ids in ascending order
+     */
+    PostingIterator iterator() {
+        return new PostingIterator();
+    }
+
+    /**
+     * Iterator over ids in ascending order, supports skipping forward to a given id.
+     * Must not be used after list is modified.
+     */
+    final class PostingIterator implements PrimitiveIterator.OfInt {
+
+        private int position;
+
+        private int chunk;
+
+        private int next = -1;
+
+        PostingIterator() {
+            findNext(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            int current = next;
+            findNext(current + 1);
+            return current;
+        }
+
+        /**
+         * Skips all ids lower than target, galloping from current position.
+         *
+         * @param target id to skip to
+         * @return first id greater or equal to target, or -1 when there is none
+         */
+        int advance(int target) {
+            if (next >= 0 && next < target) {
+                findNext(target);
+            }
+            return next;
+        }
+
+        /**
+         * Sets next to the first id greater or equal to "from" which is not before current position.
+         */
+        private void findNext(int from) {
+            if (from < 0) {
+                next = -1;
+                return;
+            }
+            if (chunks == null) {
+                position = gallop(inline, position, size, from);
+                next = position < size ? inline[position++] : -1;
+                return;
+            }
+            char key = (char) (from >>> 16);
+            while (chunk < chunksCount && keys[chunk] < key) {
+                chunk++;
+                position = 0;
+            }
+            while (chunk < chunksCount) {
+                int low = keys[chunk] == key ? (char) from : 0;
+                int found = findInChunk(low);
+                if (found >= 0) {
+                    next = (keys[chunk] << 16) | found;
+                    return;
+                }
+                chunk++;
+                position = 0;
+            }
+            next = -1;
+        }
+
+        private int findInChunk(int low) {
+            Object values = chunks[chunk];
+            if (values instanceof long[]) {
+                long[] bitmap = (long[]) values;
+                int word = low >>> 6;
+                if (word >= BITMAP_WORDS) {
+                    return -1;
+                }
+                long bits = bitmap[word] & (-1L << low);
+                while (bits == 0) {
+                    if (++word == BITMAP_WORDS) {
+                        return -1;
+                    }
+                    bits = bitmap[word];
+                }
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            char[] array = (char[]) values;
+            int chunkSize = chunkSizes[chunk];
+            if (position < chunkSize && array[position] < low) {
+                int index = Arrays.binarySearch(array, position, chunkSize, (char) low);
+                position = index >= 0 ? index : -index - 1;
+            }
+            return position < chunkSize ? array[position++] : -1;
+        }
+    }
+
+    /**
+     * Lazy intersection of posting lists. Lists are ordered by size, every candidate from the shortest list is
+     * searched in longer lists with galloping {@link PostingIterator#advance(int)}, a miss moves candidate forward
+     * to the id found in the longer list, so long lists are skipped rather than scanned.
+     *
+     * @param lists lists to intersect, must not be modified during iteration
+     * @return ids present in all lists in ascending order, nothing for no lists
+     */
+    static PrimitiveIterator.OfInt intersection(List<PostingList> lists) {
+        PostingList[] sorted = lists.toArray(new PostingList[0]);
+        Arrays.sort(sorted, (first, second) -> Integer.compare(first.size, second.size));
+        PostingIterator[] iterators = new PostingIterator[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            iterators[i] = sorted[i].iterator();
+        }
+        return new PrimitiveIterator.OfInt() {
+
+            private int next = iterators.length == 0 ? -1 : iterators[0].advance(0);
+
+            {
+                findNext();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int current = next;
+                next = current == Integer.MAX_VALUE ? -1 : iterators[0].advance(current + 1);
+                findNext();
+                return current;
+            }
+
+            private void findNext() {
+                int i = 1;
+                while (next >= 0 && i < iterators.length) {
+                    int found = iterators[i].advance(next);
+                    if (found == next) {
+                        i++;
+                    } else {
+                        next = found < 0 ? -1 : iterators[0].advance(found);
+                        i = 1;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Lazy union of posting lists, k-way merge of list iterators ordered in a heap by their next id.
+     *
+     * @param lists lists to merge, must not be modified during iteration
+     * @return ids present in any list in ascending order, every id once
+     */
+    static PrimitiveIterator.OfInt union(List<PostingList> lists) {
+        PriorityQueue<PostingIterator> heap = new PriorityQueue<>(Math.max(1, lists.size()),
+                (first, second) -> Integer.compare(first.next, second.next));
+        for (PostingList list : lists) {
+            PostingIterator iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heap.add(iterator);
+            }
+        }
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public int nextInt() {
+                if (heap.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                int current = heap.peek().next;
+                while (!heap.isEmpty() && heap.peek().next == current) {
+                    PostingIterator iterator = heap.poll();
+                    iterator.nextInt();
+                    if (iterator.hasNext()) {
+                        heap.add(iterator);
+                    }
+                }
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Exponential search followed by binary search.
+     *
+     * @return index of the first element greater or equal to target, in range [from, to]
+     */
+    static int gallop(int[] array, int from, int to, int target) {
+        if (from >= to || array[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < to && array[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, to);
+        int index = Arrays.binarySearch(array, low + 1, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private boolean addToChunk(int chunk, char low) {
+        Object values = chunks[chunk];
+        if (values instanceof long[]) {
+            long[] bitmap = (long[]) values;
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            bitmap[low >>> 6] |= bit;
+            chunkSizes[chunk]++;
+            return true;
+        }
+        char[] array = (char[]) values;
+        int chunkSize = chunkSizes[chunk];
+        int index = Arrays.binarySearch(array, 0, chunkSize, low);
+        if (index >= 0) {
+            return false;
+        }
+        if (chunkSize == CHUNK_ARRAY_MAX) {
+            long[] bitmap = new long[BITMAP_WORDS];
+            for (int i = 0; i < chunkSize; i++) {
+                bitmap[array[i] >>> 6] |= 1L << array[i];
+            }
+            chunks[chunk] = bitmap;
+            return addToChunk(chunk, low);
+        }
+        index = -index - 1;
+        if (chunkSize == array.length) {
+            array = Arrays.copyOf(array, Math.min(CHUNK_ARRAY_MAX, chunkSize * 2));
+            chunks[chunk] = array;
+        }
+        System.arraycopy(array, index, array, index + 1, chunkSize - index);
+        array[index] = low;
+        chunkSizes[chunk]++;
+        return true;
+    }
+
+    private boolean removeFromChunk(int chunk, char low) {
+        Object values = chunks[chunk];
+        if (values instanceof long[]) {
+            long[] bitmap = (long[]) values;
+            long bit = 1L << low;
+            if ((bitmap[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            bitmap[low >>> 6] &= ~bit;
+            if (--chunkSizes[chunk] == CHUNK_ARRAY_MAX / 2) {
+                char[] array = new char[CHUNK_ARRAY_MAX];
+                int i = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    for (long bits = bitmap[word]; bits != 0; bits &= bits - 1) {
+                        array[i++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+                chunks[chunk] = array;
+            }
+            return true;
+        }
+        char[] array = (char[]) values;
+        int chunkSize = chunkSizes[chunk];
+        int index = Arrays.binarySearch(array, 0, chunkSize, low);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(array, index + 1, array, index, chunkSize - index - 1);
+        chunkSizes[chunk]--;
+        return true;
+    }
+
+    private int insertChunk(int index, char key) {
+        if (chunksCount == keys.length) {
+            int capacity = chunksCount * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+            chunkSizes = Arrays.copyOf(chunkSizes, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, chunksCount - index);
+        System.arraycopy(chunks, index, chunks, index + 1, chunksCount - index);
+        System.arraycopy(chunkSizes, index, chunkSizes, index + 1, chunksCount - index);
+        keys[index] = key;
+        chunks[index] = new char[4];
+        chunkSizes[index] = 0;
+        chunksCount++;
+        return index;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, chunksCount - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, chunksCount - index - 1);
+        System.arraycopy(chunkSizes, index + 1, chunkSizes, index, chunksCount - index - 1);
+        chunks[--chunksCount] = null;
+    }
+
+    private void toChunks() {
+        int[] ids = Arrays.copyOf(inline, size);
+        inline = null;
+        keys = new char[4];
+        chunks = new Object[4];
+        chunkSizes = new int[4];
+        chunksCount = 0;
+        size = 0;
+        for (int id : ids) {
+            add(id);
+        }
+    }
+
+    private void toInline() {
+        int[] ids = toArray();
+        keys = null;
+        chunks = null;
+        chunkSizes = null;
+        chunksCount = 0;
+        inline = ids.length == 0 ? new int[1] : ids;
+    }
+}
@@ -0,0 +1,313 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Database implementation with primitive posting lists.
+ * Every book gets a dense int id, ids of removed books are reused.
+ * Author to books index keeps a {@link PostingList} of book ids per author instead of a HashSet of Books,
+ * so an author with one or two books costs one small int[] instead of a hash table with entry objects.
+ * <p>
+ * {@link #queryBookByAuthor(String)} returns a read-only {@link Set} view over the ids of a posting list,
+ * books are iterated in ascending id order.
+ * Complexity of removeBookByTitle is O(a * log n) where "a" is number of authors of a book and "n" length of posting list.
+ */
+public class PostingListBookDatabaseImpl implements BookDatabase {
+
+    private final Logger logger = LogManager.getLogger(PostingListBookDatabaseImpl.class.getName());
+
+    private final Map<String, IndexedBook> titleToBookMap;
+
+    private final Map<String, PostingList> authorToPostingsMap;
+
+    private IndexedBook[] books;
+
+    private int[] freeIds;
+
+    private int freeIdsCount;
+
+    private int nextId;
+
+    /**
+     * Default constructor.
+     */
+    public PostingListBookDatabaseImpl() {
+        titleToBookMap = new HashMap<>();
+        authorToPostingsMap = new HashMap<>();
+        books = new IndexedBook[16];
+        freeIds = new int[16];
+    }
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+
+        for (int i = 0; i < titlesInitList.size(); i++) {
+            String title = titlesInitList.get(i);
+            List<String> authors = authorsInitList.get(i);
+            if (titleToBookMap.containsKey(title)) {
+                logger.warn("Book: {}, was not added !", title);
+                continue;
+            }
+            addBook(new IndexedBook(title, authors, allocateId()));
+        }
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book, its id is added to posting lists of all its authors.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        if (titleToBookMap.containsKey(bookTitle)) {
+            return false;
+        }
+        addBook(new IndexedBook(bookTitle, authors, allocateId()));
+        return true;
+    }
+
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        titleToBookMap.clear();
+        authorToPostingsMap.clear();
+        books = new IndexedBook[16];
+        freeIdsCount = 0;
+        nextId = 0;
+    }
+
+    private void addBook(IndexedBook book) {
+        books[book.id] = book;
+        titleToBookMap.put(book.getBookTitle(), book);
+        for (String author : book.getAuthors()) {
+            authorToPostingsMap.computeIfAbsent(author, key -> new PostingList()).add(book.id);
+        }
+    }
+
+    /**
+     * Removes book for a given title, book id is removed from posting lists of all its authors.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        IndexedBook book = titleToBookMap.remove(bookTitle);
+        if (book == null) {
+            logger.warn("No such book title: {} in database", bookTitle);
+            return false;
+        }
+        for (String author : book.getAuthors()) {
+            PostingList postings = authorToPostingsMap.get(author);
+            if (postings != null && postings.remove(book.id) && postings.isEmpty()) {
+                authorToPostingsMap.remove(author);
+            }
+        }
+        releaseId(book.id);
+        return true;
+    }
+
+    /**
+     * Removes all the books for a given author.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        PostingList postings = authorToPostingsMap.get(author);
+        if (postings == null) {
+            logger.warn("Unknown author: {}", author);
+            return false;
+        }
+        for (int id : postings.toArray()) {
+            removeBookByTitle(books[id].getBookTitle());
+        }
+        return true;
+    }
+
+    /**
+     * Book query by Author, runs in O(1) time.
+     *
+     * @param author input author
+     * @return read-only live view of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        PostingList postings = authorToPostingsMap.get(author);
+        return postings == null ? Collections.emptySet() : new PostingSetView(postings);
+    }
+
+    /**
+     * Authors query by Book, runs in O(1) time.
+     *
+     * @param bookTitle input title
+     * @return list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        IndexedBook book = titleToBookMap.get(bookTitle);
+        if (book == null) {
+            logger.warn("Book title: {} not found", bookTitle);
+            return Collections.emptyList();
+        }
+        return book.getAuthors();
+    }
+
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * Books written by all given authors, posting lists are intersected shortest first with galloping search.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books in ascending id order, empty stream for null or empty query
+     */
+    @Override
+    public Stream<Book> queryBooksByAllAuthors(Collection<String> authors) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String author : AuthorQueries.distinct(authors)) {
+            PostingList postings = authorToPostingsMap.get(author);
+            if (postings == null) {
+                return Stream.empty();
+            }
+            lists.add(postings);
+        }
+        return lists.isEmpty() ? Stream.empty() : books(PostingList.intersection(lists));
+    }
+
+    /**
+     * Books written by any of given authors, posting lists are merged so every book id comes once.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books in ascending id order, empty stream for null or empty query
+     */
+    @Override
+    public Stream<Book> queryBooksByAnyAuthor(Collection<String> authors) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String author : AuthorQueries.distinct(authors)) {
+            PostingList postings = authorToPostingsMap.get(author);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+        return books(PostingList.union(lists));
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return titleToBookMap.size();
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return authorToPostingsMap.size();
+    }
+
+    private int allocateId() {
+        if (freeIdsCount > 0) {
+            return freeIds[--freeIdsCount];
+        }
+        if (nextId == books.length) {
+            books = Arrays.copyOf(books, books.length * 2);
+        }
+        return nextId++;
+    }
+
+    private void releaseId(int id) {
+        books[id] = null;
+        if (freeIdsCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeIdsCount++] = id;
+    }
+
+    private Stream<Book> books(PrimitiveIterator.OfInt ids) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(ids,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false).mapToObj(id -> books[id]);
+    }
+
+    /**
+     * Book with its id, equality stays title based.
+     */
+    private static final class IndexedBook extends Book {
+
+        private final int id;
+
+        IndexedBook(String bookTitle, List<String> authors, int id) {
+            super(bookTitle, authors);
+            this.id = id;
+        }
+    }
+
+    /**
+     * Read-only set of books backed by a posting list.
+     */
+    private final class PostingSetView extends AbstractSet<Book> {
+
+        private final PostingList postings;
+
+        PostingSetView(PostingList postings) {
+            this.postings = postings;
+        }
+
+        @Override
+        public Iterator<Book> iterator() {
+            PostingList.PostingIterator ids = postings.iterator();
+            return new Iterator<Book>() {
+                @Override
+                public boolean hasNext() {
+                    return ids.hasNext();
+                }
+
+                @Override
+                public Book next() {
+                    return books[ids.nextInt()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return postings.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Book)) {
+                return false;
+            }
+            IndexedBook book = titleToBookMap.get(((Book) o).getBookTitle());
+            return book != null && postings.contains(book.id);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package books;
+
+import java.util.Objects;
+
+/**
+ * Class that represents an author together with number of books of the author.
+ * POJO is threadsafe because is immutable.
+ */
+public class ProlificAuthor {
+
+    private final String author;
+
+    private final int books;
+
+    /**
+     * Default constructor.
+     * @param author author name
+     * @param books  number of books
+     */
+    public ProlificAuthor(String author, int books) {
+        this.author = author;
+        this.books = books;
+    }
+
+    /**
+     * Author name getter.
+     * @return author name
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Books getter.
+     * @return number of books of the author
+     */
+    public int getBooks() {
+        return books;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProlificAuthor)) return false;
+        ProlificAuthor prolificAuthor = (ProlificAuthor) o;
+        return books == prolificAuthor.books && Objects.equals(author, prolificAuthor.author);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(author, books);
+    }
+
+    @Override
+    public String toString() {
+        return "ProlificAuthor{" +
+                "author='" + author + '\'' +
+                ", books=" + books +
+                '}';
+    }
+}
@@ -0,0 +1,304 @@
+package books;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * Client of a shard served by {@link BookShardServer} in another local process.
+ * Calls of concurrent threads are serialized on the connection, many keys may be queried in one round trip
+ * by multi-get or pipelined queries.
+ * Exceptions of the remote shard are rethrown as the same standard exception when it is
+ * {@link NullPointerException} or {@link IllegalArgumentException}, otherwise as {@link IllegalStateException}.
+ * Network failures are thrown as {@link UncheckedIOException}.
+ */
+public class RemoteBookShard implements BookShard, Closeable {
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a shard server on loopback interface.
+     *
+     * @param port port of server
+     * @throws IOException when server cannot be reached
+     */
+    public RemoteBookShard(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    /**
+     * Connects to a shard server.
+     *
+     * @param host host of server
+     * @param port port of server
+     * @throws IOException when server cannot be reached
+     */
+    public RemoteBookShard(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    @Override
+    public synchronized void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        call(ShardProtocol.INIT, request -> {
+            ShardProtocol.writeStrings(request, titlesInitList);
+            ShardProtocol.writeAuthorLists(request, authorsInitList);
+        }, response -> null);
+    }
+
+    @Override
+    public synchronized boolean addBook(String bookTitle, List<String> authors) {
+        return call(ShardProtocol.ADD_BOOK, request -> {
+            ShardProtocol.writeString(request, bookTitle);
+            ShardProtocol.writeStrings(request, authors);
+        }, DataInputStream::readBoolean);
+    }
+
+    @Override
+    public synchronized boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        return call(ShardProtocol.ADD_BOOKS, request -> {
+            ShardProtocol.writeStrings(request, titles);
+            ShardProtocol.writeAuthorLists(request, authors);
+        }, response -> {
+            boolean[] added = new boolean[response.readInt()];
+            for (int i = 0; i < added.length; i++) {
+                added[i] = response.readBoolean();
+            }
+            return added;
+        });
+    }
+
+    @Override
+    public synchronized void shutDown() {
+        call(ShardProtocol.SHUT_DOWN, request -> {
+        }, response -> null);
+    }
+
+    @Override
+    public synchronized boolean removeBookByTitle(String bookTitle) {
+        return call(ShardProtocol.REMOVE_BOOK_BY_TITLE, request -> ShardProtocol.writeString(request, bookTitle),
+                DataInputStream::readBoolean);
+    }
+
+    @Override
+    public synchronized boolean removeBooksByAuthor(String author) {
+        return call(ShardProtocol.REMOVE_BOOKS_BY_AUTHOR, request -> ShardProtocol.writeString(request, author),
+                DataInputStream::readBoolean);
+    }
+
+    @Override
+    public synchronized Set<Book> queryBookByAuthor(String author) {
+        List<Book> books = call(ShardProtocol.QUERY_BOOK_BY_AUTHOR, request -> ShardProtocol.writeString(request, author),
+                ShardProtocol::readBooks);
+        return books.isEmpty() ? Collections.emptySet() : new HashSet<>(books);
+    }
+
+    @Override
+    public synchronized List<String> queryAuthorsByBookTitle(String bookTitle) {
+        return call(ShardProtocol.QUERY_AUTHORS_BY_BOOK_TITLE, request -> ShardProtocol.writeString(request, bookTitle),
+                ShardProtocol::readStrings);
+    }
+
+    @Override
+    public synchronized int booksSize() {
+        return call(ShardProtocol.BOOKS_SIZE, request -> {
+        }, DataInputStream::readInt);
+    }
+
+    @Override
+    public synchronized int authorsSize() {
+        return call(ShardProtocol.AUTHORS_SIZE, request -> {
+        }, DataInputStream::readInt);
+    }
+
+    @Override
+    public synchronized List<Book> books() {
+        return call(ShardProtocol.BOOKS, request -> {
+        }, ShardProtocol::readBooks);
+    }
+
+    /**
+     * Queries books of many authors in one request.
+     */
+    @Override
+    public synchronized List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        return call(ShardProtocol.QUERY_BOOKS_BY_AUTHORS, request -> ShardProtocol.writeStrings(request, authors),
+                response -> {
+                    List<Set<Book>> books = new ArrayList<>(authors.size());
+                    for (int i = 0; i < authors.size(); i++) {
+                        List<Book> authorBooks = ShardProtocol.readBooks(response);
+                        books.add(authorBooks.isEmpty() ? Collections.emptySet() : new HashSet<>(authorBooks));
+                    }
+                    return books;
+                });
+    }
+
+    /**
+     * Queries authors of many titles in one request.
+     */
+    @Override
+    public synchronized List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        return call(ShardProtocol.QUERY_AUTHORS_BY_BOOK_TITLES, request -> ShardProtocol.writeStrings(request, bookTitles),
+                response -> {
+                    List<List<String>> authors = new ArrayList<>(bookTitles.size());
+                    for (int i = 0; i < bookTitles.size(); i++) {
+                        authors.add(ShardProtocol.readStrings(response));
+                    }
+                    return authors;
+                });
+    }
+
+    /**
+     * Page is read by the served database, only books of the page are sent.
+     */
+    @Override
+    public synchronized BookPage queryBooksByAuthorPage(String author, int page, int pageSize) {
+        return call(ShardProtocol.QUERY_BOOKS_BY_AUTHOR_PAGE, request -> {
+            ShardProtocol.writeString(request, author);
+            request.writeInt(page);
+            request.writeInt(pageSize);
+        }, ShardProtocol::readPage);
+    }
+
+    /**
+     * Page is read by the served database, only books of the page are sent.
+     */
+    @Override
+    public synchronized BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        return call(ShardProtocol.QUERY_BOOKS_BY_AUTHOR_AFTER, request -> {
+            ShardProtocol.writeString(request, author);
+            ShardProtocol.writeString(request, cursor);
+            request.writeInt(limit);
+        }, ShardProtocol::readPage);
+    }
+
+    /**
+     * Sends one queryBookByAuthor request per author without waiting for responses, while responses are read,
+     * so the whole batch costs one round trip. When some request fails, the first failure is thrown after
+     * all responses are read.
+     * Requests are sent by a separate thread, so batches of any size go through even when requests and
+     * responses do not fit in socket buffers. When sending fails, connection is closed.
+     *
+     * @param authors authors to query
+     * @return books of every author, in order of authors
+     */
+    public synchronized List<Set<Book>> queryBookByAuthorPipelined(List<String> authors) {
+        IOException[] sendFailure = new IOException[1];
+        Thread sender = new Thread(() -> {
+            try {
+                for (String author : authors) {
+                    out.writeByte(ShardProtocol.QUERY_BOOK_BY_AUTHOR);
+                    ShardProtocol.writeString(out, author);
+                }
+                out.flush();
+            } catch (IOException e) {
+                sendFailure[0] = e;
+                closeQuietly();
+            }
+        }, "remote-book-shard-sender");
+        sender.setDaemon(true);
+        sender.start();
+        try {
+            List<Set<Book>> books = new ArrayList<>(authors.size());
+            RuntimeException failure = null;
+            for (int i = 0; i < authors.size(); i++) {
+                try {
+                    List<Book> authorBooks = receive(ShardProtocol::readBooks);
+                    books.add(authorBooks.isEmpty() ? Collections.emptySet() : new HashSet<>(authorBooks));
+                } catch (NullPointerException | IllegalArgumentException | IllegalStateException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            join(sender);
+            if (sendFailure[0] != null) {
+                throw new UncheckedIOException(sendFailure[0]);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return books;
+        } catch (IOException e) {
+            // sender blocked on a broken connection is released by closing it
+            closeQuietly();
+            join(sender);
+            throw new UncheckedIOException(sendFailure[0] != null ? sendFailure[0] : e);
+        }
+    }
+
+    private static void join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // connection is already unusable
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private interface RequestWriter {
+        void write(DataOutputStream request) throws IOException;
+    }
+
+    private interface ResponseReader<T> {
+        T read(DataInputStream response) throws IOException;
+    }
+
+    /**
+     * Sends request, reads response status and result, remote exception is rethrown.
+     */
+    private <T> T call(byte operation, RequestWriter writer, ResponseReader<T> reader) {
+        try {
+            out.writeByte(operation);
+            writer.write(out);
+            out.flush();
+            return receive(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads response status and result of the oldest request in flight, remote exception is rethrown.
+     */
+    private <T> T receive(ResponseReader<T> reader) throws IOException {
+        if (in.readByte() == ShardProtocol.ERROR) {
+            String type = ShardProtocol.readString(in);
+            String message = ShardProtocol.readString(in);
+            if (NullPointerException.class.getName().equals(type)) {
+                throw new NullPointerException(message);
+            }
+            if (IllegalArgumentException.class.getName().equals(type)) {
+                throw new IllegalArgumentException(message);
+            }
+            throw new IllegalStateException("Remote shard failed with " + type + ": " + message);
+        }
+        return reader.read(in);
+    }
+}
@@ -0,0 +1,186 @@
+package books;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache with segmented LRU eviction.
+ * <p>
+ * New entries go to a probation segment, an entry hit again is promoted to a protected segment which holds
+ * {@link #PROTECTED_RATIO} of capacity. Entries demoted from protected segment get one more chance in probation.
+ * Eviction always takes the least recently used probation entry, so a scan of keys seen once
+ * does not flush entries which are hit repeatedly.
+ * <p>
+ * Concurrent misses on the same key are coalesced: first thread loads the value, others wait for its result,
+ * so a hot key is loaded once. Invalidation of a key detaches its load in flight: threads which already wait for
+ * the load get its value, the load does not cache it, and threads missing after the invalidation start a new load.
+ * So a read which starts after an invalidation returned never gets a value loaded before it, and invalidation
+ * of one key never keeps loads of other keys from being cached.
+ * Thread-safe, segments are guarded by the cache monitor, loads run outside of it.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class SegmentedLruCache<K, V> {
+
+    static final double PROTECTED_RATIO = 0.8;
+
+    private final int maximumSize;
+
+    private final int protectedSize;
+
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * loads in flight, a load caches its value only while it is still registered here
+     */
+    private final Map<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    SegmentedLruCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        this.maximumSize = maximumSize;
+        this.protectedSize = (int) (maximumSize * PROTECTED_RATIO);
+    }
+
+    /**
+     * Returns cached value or loads it, concurrent loads of the same key are coalesced.
+     * Exception of loader is thrown to the loading thread and to all threads waiting for it.
+     *
+     * @param key    key, not null
+     * @param loader loads missing value, must not return null
+     * @return value
+     */
+    V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            value = getIfPresent(key);
+            if (value == null) {
+                loadCount.increment();
+                value = loader.apply(key);
+                synchronized (this) {
+                    if (loads.get(key) == load) {
+                        insert(key, value);
+                    }
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * @return cached value, or null, recency of the entry is updated
+     */
+    synchronized V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    /**
+     * Removes a key and detaches its load in flight, which then does not cache its value.
+     *
+     * @param key key to remove
+     */
+    synchronized void invalidate(K key) {
+        loads.remove(key);
+        if (probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    /**
+     * Removes all keys and detaches all loads in flight, which then do not cache their values.
+     */
+    synchronized void invalidateAll() {
+        loads.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadCount.sum(), evictions.sum());
+    }
+
+    private V lookup(K key) {
+        V value = protectedSegment.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = probation.remove(key);
+        if (value != null) {
+            protectedSegment.put(key, value);
+            if (protectedSegment.size() > protectedSize) {
+                Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, V> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    private void insert(K key, V value) {
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        probation.put(key, value);
+        while (probation.size() + protectedSegment.size() > maximumSize) {
+            LinkedHashMap<K, V> segment = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<K> eldest = segment.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package books;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary protocol between {@link RemoteBookShard} and {@link BookShardServer}.
+ * <p>
+ * Request is an operation byte followed by its arguments, response is a status byte followed by the result
+ * or, for {@link #ERROR}, by exception class name and message. Strings are written as int length and UTF-8 bytes,
+ * -1 for null, lists as int size and elements, a book as title and list of authors, a page as list of books,
+ * int total and next cursor.
+ * Requests may be pipelined: client may send many requests before reading any response,
+ * responses come in request order.
+ */
+final class ShardProtocol {
+
+    static final byte INIT = 1;
+
+    static final byte ADD_BOOK = 2;
+
+    static final byte ADD_BOOKS = 3;
+
+    static final byte SHUT_DOWN = 4;
+
+    static final byte REMOVE_BOOK_BY_TITLE = 5;
+
+    static final byte REMOVE_BOOKS_BY_AUTHOR = 6;
+
+    static final byte QUERY_BOOK_BY_AUTHOR = 7;
+
+    static final byte QUERY_AUTHORS_BY_BOOK_TITLE = 8;
+
+    static final byte BOOKS_SIZE = 9;
+
+    static final byte AUTHORS_SIZE = 10;
+
+    static final byte BOOKS = 11;
+
+    static final byte QUERY_BOOKS_BY_AUTHORS = 12;
+
+    static final byte QUERY_AUTHORS_BY_BOOK_TITLES = 13;
+
+    static final byte QUERY_BOOKS_BY_AUTHOR_PAGE = 14;
+
+    static final byte QUERY_BOOKS_BY_AUTHOR_AFTER = 15;
+
+    static final byte OK = 0;
+
+    static final byte ERROR = 1;
+
+    private ShardProtocol() {
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = readString(in);
+        }
+        return Arrays.asList(values);
+    }
+
+    static void writeAuthorLists(DataOutputStream out, List<List<String>> authors) throws IOException {
+        if (authors == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(authors.size());
+        for (List<String> bookAuthors : authors) {
+            writeStrings(out, bookAuthors);
+        }
+    }
+
+    static List<List<String>> readAuthorLists(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<List<String>> authors = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            authors.add(readStrings(in));
+        }
+        return authors;
+    }
+
+    /**
+     * Writes books of a collection copied once, so count and records match even when the collection is
+     * a live concurrent set modified by other connections.
+     */
+    static void writeBooks(DataOutputStream out, Collection<Book> books) throws IOException {
+        Book[] snapshot = books.toArray(new Book[0]);
+        out.writeInt(snapshot.length);
+        for (Book book : snapshot) {
+            writeString(out, book.getBookTitle());
+            writeStrings(out, book.getAuthors());
+        }
+    }
+
+    static List<Book> readBooks(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new Book(readString(in), readStrings(in)));
+        }
+        return books;
+    }
+
+    static void writePage(DataOutputStream out, BookPage page) throws IOException {
+        writeBooks(out, page.getBooks());
+        out.writeInt(page.getTotal());
+        writeString(out, page.getNextCursor());
+    }
+
+    static BookPage readPage(DataInputStream in) throws IOException {
+        List<Book> books = readBooks(in);
+        int total = in.readInt();
+        return new BookPage(Collections.unmodifiableList(books), total, readString(in));
+    }
+}
@@ -0,0 +1,666 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * Database partitioned across {@link BookShard}s by title hash.
+ * A book lives in exactly one shard, so title operations are routed to one shard and author operations
+ * are scattered to all shards in parallel and their results are merged.
+ * <p>
+ * Shards are created by a factory, in-process {@link LocalBookShard}s by default,
+ * or {@link RemoteBookShard}s connected to {@link BookShardServer}s running as separate local processes.
+ * {@link #resize(int)} changes number of shards, only books whose shard changes are moved.
+ * Shard of a title is chosen by jump consistent hash, so growing from n to n + 1 shards moves about 1 / (n + 1)
+ * of books, all of them to the new shard, and shrinking moves only books of removed shards.
+ * <p>
+ * Thread-safe, operations run under a read lock, resize under a write lock.
+ * {@link #authorsSize()} counts an author once per shard with books of the author.
+ */
+public class ShardedBookDatabase implements BookDatabase, Closeable {
+
+    private final Logger logger = LogManager.getLogger(ShardedBookDatabase.class.getName());
+
+    private final IntFunction<BookShard> shardFactory;
+
+    private final ExecutorService executor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private List<BookShard> shards;
+
+    /**
+     * Creates database with a given number of in-process shards.
+     *
+     * @param shardCount number of shards, must be positive
+     */
+    public ShardedBookDatabase(int shardCount) {
+        this(shardCount, index -> new LocalBookShard());
+    }
+
+    /**
+     * Creates database with a given number of shards created by a factory.
+     *
+     * @param shardCount   number of shards, must be positive
+     * @param shardFactory creates shard for a given shard index, also used by {@link #resize(int)}
+     */
+    public ShardedBookDatabase(int shardCount, IntFunction<BookShard> shardFactory) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.shardFactory = shardFactory;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "book-shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<BookShard> created = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            created.add(shardFactory.apply(i));
+        }
+        this.shards = Collections.unmodifiableList(created);
+    }
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     * Input is validated, partitioned by shard and every shard is initialized in parallel.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+        lock.readLock().lock();
+        try {
+            Partition partition = new Partition(titlesInitList, authorsInitList, shards.size());
+            scatter(shards, (index, shard) -> {
+                shard.init(partition.titles.get(index), partition.authors.get(index));
+                return null;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        lock.readLock().lock();
+        try {
+            return shardOf(bookTitle).addBook(bookTitle, authors);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a batch of books, every shard gets its part of the batch in parallel.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        lock.readLock().lock();
+        try {
+            Partition partition = new Partition(titles, authors, shards.size());
+            List<boolean[]> results = scatter(shards, (index, shard) -> partition.titles.get(index).isEmpty()
+                    ? new boolean[0] : shard.addBooks(partition.titles.get(index), partition.authors.get(index)));
+            boolean[] added = new boolean[titles.size()];
+            for (int shard = 0; shard < results.size(); shard++) {
+                int[] positions = partition.positions.get(shard);
+                for (int i = 0; i < positions.length; i++) {
+                    added[positions[i]] = results.get(shard)[i];
+                }
+            }
+            return added;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        lock.readLock().lock();
+        try {
+            scatter(shards, (index, shard) -> {
+                shard.shutDown();
+                return null;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        if (bookTitle == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return shardOf(bookTitle).removeBookByTitle(bookTitle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the books of a given author from all shards in parallel.
+     *
+     * @param author input author
+     * @return true if any shard had books of the author, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        if (author == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return scatter(shards, (index, shard) -> shard.removeBooksByAuthor(author)).contains(Boolean.TRUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Book query by Author, all shards are queried in parallel and results are merged.
+     * Sets of shards are disjoint, so they are merged into an unmodifiable view, not copied.
+     *
+     * @param author input author
+     * @return set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        if (author == null) {
+            return Collections.emptySet();
+        }
+        lock.readLock().lock();
+        try {
+            List<Set<Book>> results = scatter(shards, (index, shard) -> shard.queryBookByAuthor(author));
+            List<Set<Book>> nonEmpty = new ArrayList<>(results.size());
+            for (Set<Book> books : results) {
+                if (!books.isEmpty()) {
+                    nonEmpty.add(books);
+                }
+            }
+            if (nonEmpty.isEmpty()) {
+                return Collections.emptySet();
+            }
+            return nonEmpty.size() == 1 ? nonEmpty.get(0) : new DisjointUnion(nonEmpty);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        if (bookTitle == null) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            return shardOf(bookTitle).queryAuthorsByBookTitle(bookTitle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every shard is asked once for all authors, results of an author are merged as in
+     * {@link #queryBookByAuthor(String)}.
+     *
+     * @param authors input authors
+     * @return books of author at the same position, empty set for null or unknown author
+     */
+    @Override
+    public List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        List<String> keys = new ArrayList<>(authors.size());
+        for (String author : authors) {
+            if (author != null) {
+                keys.add(author);
+            }
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Set<Book>>> results = keys.isEmpty() ? Collections.emptyList()
+                    : scatter(shards, (index, shard) -> shard.queryBooksByAuthors(keys));
+            List<Set<Book>> books = new ArrayList<>(authors.size());
+            int key = 0;
+            for (String author : authors) {
+                if (author == null) {
+                    books.add(Collections.emptySet());
+                    continue;
+                }
+                List<Set<Book>> nonEmpty = new ArrayList<>(results.size());
+                for (List<Set<Book>> result : results) {
+                    Set<Book> shardBooks = result.get(key);
+                    if (!shardBooks.isEmpty()) {
+                        nonEmpty.add(shardBooks);
+                    }
+                }
+                key++;
+                books.add(nonEmpty.isEmpty() ? Collections.emptySet()
+                        : nonEmpty.size() == 1 ? nonEmpty.get(0) : new DisjointUnion(nonEmpty));
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Titles are grouped by shard, every shard owning some of them is asked once.
+     *
+     * @param bookTitles input titles
+     * @return authors of title at the same position, empty list for null or unknown title
+     */
+    @Override
+    public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        lock.readLock().lock();
+        try {
+            int shardCount = shards.size();
+            List<List<String>> titlesOfShards = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                titlesOfShards.add(new ArrayList<>());
+            }
+            int[] shardOfTitle = new int[bookTitles.size()];
+            for (int i = 0; i < shardOfTitle.length; i++) {
+                String bookTitle = bookTitles.get(i);
+                shardOfTitle[i] = bookTitle == null ? -1 : shardIndex(bookTitle, shardCount);
+                if (bookTitle != null) {
+                    titlesOfShards.get(shardOfTitle[i]).add(bookTitle);
+                }
+            }
+            List<List<List<String>>> results = scatter(shards, (index, shard) ->
+                    titlesOfShards.get(index).isEmpty() ? Collections.<List<String>>emptyList()
+                            : shard.queryAuthorsByBookTitles(titlesOfShards.get(index)));
+            int[] next = new int[shardCount];
+            List<List<String>> authors = new ArrayList<>(shardOfTitle.length);
+            for (int shard : shardOfTitle) {
+                authors.add(shard < 0 ? Collections.emptyList() : results.get(shard).get(next[shard]++));
+            }
+            return authors;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every shard returns its first books after the cursor, pages of shards are merged in title order.
+     * Merge and transfer from {@link RemoteBookShard}s cost one page of every shard. Cost inside a shard depends
+     * on its database, it is independent of the number of books of the author only when the database keeps books
+     * ordered, as {@link DefaultBookDatabaseImpl} with {@link DefaultBookDatabaseImpl.Option#AUTHOR_PAGES}.
+     *
+     * @param author input author
+     * @param cursor title of the last book read, null for the first page
+     * @param limit  maximal number of books in page
+     * @return page of books, empty page for null or unknown author or cursor after the last book
+     */
+    @Override
+    public BookPage queryBooksByAuthorAfter(String author, String cursor, int limit) {
+        BookPage.checkLimit(limit);
+        if (author == null) {
+            return new BookPage(Collections.emptyList(), 0, null);
+        }
+        lock.readLock().lock();
+        try {
+            List<BookPage> pages = scatter(shards, (index, shard) -> shard.queryBooksByAuthorAfter(author, cursor, limit));
+            List<Book> books = new ArrayList<>();
+            int total = 0;
+            boolean more = false;
+            for (BookPage page : pages) {
+                books.addAll(page.getBooks());
+                total += page.getTotal();
+                more |= page.hasNext();
+            }
+            books.sort(BookPage.TITLE_ORDER);
+            if (books.size() > limit) {
+                books = new ArrayList<>(books.subList(0, limit));
+                more = true;
+            }
+            String nextCursor = more ? books.get(books.size() - 1).getBookTitle() : null;
+            return new BookPage(Collections.unmodifiableList(books), total, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int booksSize() {
+        lock.readLock().lock();
+        try {
+            return scatter(shards, (index, shard) -> shard.booksSize()).stream().mapToInt(Integer::intValue).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum of authors of all shards, an author with books in several shards is counted once per shard.
+     *
+     * @return number of authors per shard summed
+     */
+    @Override
+    public int authorsSize() {
+        lock.readLock().lock();
+        try {
+            return scatter(shards, (index, shard) -> shard.authorsSize()).stream().mapToInt(Integer::intValue).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return current number of shards
+     */
+    public int shardCount() {
+        lock.readLock().lock();
+        try {
+            return shards.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes number of shards. Shards with index lower than the new count are kept, missing shards are created
+     * by factory. Books whose shard changes are exported, added to their new shard and removed from the old one,
+     * shards above the new count are shut down and closed. Other operations wait until resize is done.
+     * <p>
+     * When adding books to their new shards fails, added copies are removed again and created shards are closed,
+     * so database keeps its old shards. When removing books from their old shards fails, every book is already
+     * in its new shard and new shards are kept, books whose removal failed stay in their old shard as stale copies,
+     * which are not reached by title operations but are returned again by author queries until their author
+     * is removed.
+     *
+     * @param shardCount new number of shards, must be positive
+     * @return number of moved books
+     */
+    public int resize(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        lock.writeLock().lock();
+        try {
+            List<BookShard> current = shards;
+            if (shardCount == current.size()) {
+                return 0;
+            }
+            List<BookShard> next = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                next.add(i < current.size() ? current.get(i) : shardFactory.apply(i));
+            }
+            List<List<Book>> exported = scatter(current, (index, shard) -> shard.books());
+            List<List<String>> movedTitles = new ArrayList<>(shardCount);
+            List<List<List<String>>> movedAuthors = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                movedTitles.add(new ArrayList<>());
+                movedAuthors.add(new ArrayList<>());
+            }
+            List<List<String>> removedTitles = new ArrayList<>(current.size());
+            int moved = 0;
+            for (int source = 0; source < current.size(); source++) {
+                List<String> removed = new ArrayList<>();
+                for (Book book : exported.get(source)) {
+                    int target = shardIndex(book.getBookTitle(), shardCount);
+                    if (target != source) {
+                        movedTitles.get(target).add(book.getBookTitle());
+                        movedAuthors.get(target).add(book.getAuthors());
+                        removed.add(book.getBookTitle());
+                        moved++;
+                    }
+                }
+                removedTitles.add(removed);
+            }
+            try {
+                scatter(next, (index, shard) -> movedTitles.get(index).isEmpty()
+                        ? null : shard.addBooks(movedTitles.get(index), movedAuthors.get(index)));
+            } catch (RuntimeException e) {
+                undoMove(current, next, movedTitles);
+                throw e;
+            }
+            try {
+                scatter(current, (index, shard) -> {
+                    if (index >= shardCount) {
+                        shard.shutDown();
+                        closeShard(shard);
+                    } else {
+                        for (String title : removedTitles.get(index)) {
+                            shard.removeBookByTitle(title);
+                        }
+                    }
+                    return null;
+                });
+            } finally {
+                shards = Collections.unmodifiableList(next);
+            }
+            logger.info("Resized from {} to {} shards, moved {} books", current.size(), shardCount, moved);
+            return moved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops worker threads and closes shards which are {@link Closeable}, data of shards is not shut down.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            executor.shutdownNow();
+            for (BookShard shard : shards) {
+                closeShard(shard);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Jump consistent hash of title, as described by Lamping and Veach.
+     * Title hash is mixed into 64 bits first, as jump hash needs well distributed keys.
+     */
+    static int shardIndex(String title, int shardCount) {
+        long key = title.hashCode() * 0x9E3779B97F4A7C15L;
+        key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+        key ^= key >>> 31;
+        long shard = -1;
+        long next = 0;
+        while (next < shardCount) {
+            shard = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((shard + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) shard;
+    }
+
+    /**
+     * Removes books added to their new shards by a failed resize and closes shards created for it.
+     * Moved titles were in no new shard before, so removal leaves books of new shards as they were.
+     */
+    private void undoMove(List<BookShard> current, List<BookShard> next, List<List<String>> movedTitles) {
+        for (int i = 0; i < next.size(); i++) {
+            BookShard shard = next.get(i);
+            try {
+                if (i >= current.size()) {
+                    shard.shutDown();
+                    closeShard(shard);
+                } else {
+                    for (String title : movedTitles.get(i)) {
+                        shard.removeBookByTitle(title);
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Undoing resize of shard " + i + " failed", e);
+            }
+        }
+    }
+
+    private BookShard shardOf(String title) {
+        return shards.get(shardIndex(title, shards.size()));
+    }
+
+    private void closeShard(BookShard shard) {
+        if (shard instanceof Closeable) {
+            try {
+                ((Closeable) shard).close();
+            } catch (IOException e) {
+                logger.warn("Closing shard failed", e);
+            }
+        }
+    }
+
+    private interface ShardCall<T> {
+        T apply(int index, BookShard shard);
+    }
+
+    /**
+     * Calls every shard, first shard in the calling thread, others on worker threads.
+     * All calls complete before the first failure is thrown.
+     */
+    private <T> List<T> scatter(List<BookShard> targets, ShardCall<T> call) {
+        boolean parallel = isParallel(targets);
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+        for (int i = 1; parallel && i < targets.size(); i++) {
+            int index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(index, targets.get(index)), executor));
+        }
+        List<T> results = new ArrayList<>(targets.size());
+        RuntimeException failure = null;
+        for (int i = 0; i < (parallel ? 1 : targets.size()); i++) {
+            try {
+                results.add(call.apply(i, targets.get(i)));
+            } catch (RuntimeException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * On a single processor hand-off of in-process shards to workers only adds latency, they are called sequentially.
+     * Remote shards are always called in parallel, as they wait for network.
+     */
+    private static boolean isParallel(List<BookShard> targets) {
+        if (targets.size() == 1) {
+            return false;
+        }
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            return true;
+        }
+        for (BookShard shard : targets) {
+            if (!(shard instanceof LocalBookShard)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unmodifiable union of disjoint sets, size is the sum of sizes.
+     */
+    private static final class DisjointUnion extends AbstractSet<Book> {
+
+        private final List<Set<Book>> sets;
+
+        private final int size;
+
+        DisjointUnion(List<Set<Book>> sets) {
+            this.sets = sets;
+            int total = 0;
+            for (Set<Book> set : sets) {
+                total += set.size();
+            }
+            this.size = total;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (Set<Book> set : sets) {
+                if (set.contains(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Book> iterator() {
+            return sets.stream().flatMap(Set::stream).iterator();
+        }
+    }
+
+    /**
+     * Books of a batch split by shard, with positions of every book in the batch.
+     */
+    private static final class Partition {
+
+        private final List<List<String>> titles;
+
+        private final List<List<List<String>>> authors;
+
+        private final List<int[]> positions;
+
+        Partition(List<String> batchTitles, List<List<String>> batchAuthors, int shardCount) {
+            titles = new ArrayList<>(shardCount);
+            authors = new ArrayList<>(shardCount);
+            positions = new ArrayList<>(shardCount);
+            int[] counts = new int[shardCount];
+            int[] shardOfBook = new int[batchTitles.size()];
+            for (int i = 0; i < batchTitles.size(); i++) {
+                shardOfBook[i] = shardIndex(batchTitles.get(i), shardCount);
+                counts[shardOfBook[i]]++;
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                titles.add(new ArrayList<>(counts[shard]));
+                authors.add(new ArrayList<>(counts[shard]));
+                positions.add(new int[counts[shard]]);
+            }
+            for (int i = 0; i < batchTitles.size(); i++) {
+                int shard = shardOfBook[i];
+                positions.get(shard)[titles.get(shard).size()] = i;
+                titles.get(shard).add(batchTitles.get(i));
+                authors.get(shard).add(batchAuthors.get(i));
+            }
+        }
+    }
+}
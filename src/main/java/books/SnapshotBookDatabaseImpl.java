@@ -0,0 +1,413 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Copy-on-write Database implementation for read mostly workloads.
+ * Both indexes are kept in an immutable {@link Snapshot} published through one volatile reference.
+ * Readers never block nor take a lock, every query sees a single consistent generation of both indexes.
+ * <p>
+ * Writers are serialized, each mutation builds next generation and swaps it in atomically.
+ * Both indexes are {@link PersistentHashMap}s, next generation copies only the trie paths of touched keys
+ * and shares everything else with the previous one, including sets of untouched authors.
+ * Cost of a mutation is O(log n) per touched title and author plus size of modified author sets.
+ * Whole init or removal of all books for an author is published as one generation.
+ * <p>
+ * Sets and lists of a published generation are never modified, so views of {@link #viewBooksByAuthor(String)}
+ * are safe to iterate during writes and keep content of the generation they were taken from.
+ */
+public class SnapshotBookDatabaseImpl implements BookDatabase {
+
+    private final Logger logger = LogManager.getLogger(SnapshotBookDatabaseImpl.class.getName());
+
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Init method implementation, same contract as in {@link DefaultBookDatabaseImpl#init(List, List)}.
+     * All books are published to readers at once.
+     *
+     * @param titlesInitList  titles to init
+     * @param authorsInitList authors init list
+     */
+    @Override
+    public void init(List<String> titlesInitList, List<List<String>> authorsInitList) {
+        logger.info("initializing books database...");
+        BookLists.validate(titlesInitList, authorsInitList, BookLists.INIT_MESSAGE);
+        synchronized (writeLock) {
+            NextGeneration next = new NextGeneration(snapshot);
+            for (int i = 0; i < titlesInitList.size(); i++) {
+                String title = titlesInitList.get(i);
+                List<String> authors = authorsInitList.get(i);
+                Book book = new Book(title, authors);
+                if (!next.addBook(book)) {
+                    logger.warn("Book: {}, was not added !", book);
+                }
+            }
+            snapshot = next.publish();
+        }
+        logger.debug("Database initialized with {} books and {} authors", booksSize(), authorsSize());
+    }
+
+    /**
+     * Adds a single book and publishes next generation.
+     *
+     * @param bookTitle title of a book, must not be null
+     * @param authors   non empty list of authors
+     * @return true if book was added, false if title is already in database
+     */
+    @Override
+    public boolean addBook(String bookTitle, List<String> authors) {
+        if (bookTitle == null || authors == null || authors.isEmpty()) {
+            throw new IllegalArgumentException("Wrong argument for book: " + bookTitle);
+        }
+        synchronized (writeLock) {
+            if (snapshot.titleToBookMap.containsKey(bookTitle)) {
+                return false;
+            }
+            NextGeneration next = new NextGeneration(snapshot);
+            next.addBook(new Book(bookTitle, authors));
+            snapshot = next.publish();
+            return true;
+        }
+    }
+
+    /**
+     * Adds a batch of books as a single generation, set of books of every author is copied once per batch.
+     *
+     * @param titles  titles to add
+     * @param authors authors of every title
+     * @return result for every book, true if added, false if title was already in database or earlier in the batch
+     */
+    @Override
+    public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+        BookLists.validate(titles, authors, BookLists.BATCH_MESSAGE);
+        boolean[] added = new boolean[titles.size()];
+        synchronized (writeLock) {
+            NextGeneration next = new NextGeneration(snapshot);
+            for (int i = 0; i < titles.size(); i++) {
+                added[i] = next.addBook(new Book(titles.get(i), authors.get(i)));
+            }
+            snapshot = next.publish();
+        }
+        return added;
+    }
+
+    @Override
+    public void shutDown() {
+        logger.debug("Shutdown mode, flushing all data.");
+        synchronized (writeLock) {
+            snapshot = Snapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Removes book for a given title and publishes next generation.
+     *
+     * @param bookTitle input book will be removed
+     * @return false for non existing titles, true if success
+     */
+    @Override
+    public boolean removeBookByTitle(String bookTitle) {
+        synchronized (writeLock) {
+            Book book = snapshot.titleToBookMap.get(bookTitle);
+            if (book == null) {
+                logger.warn("No such book title: {} in database", bookTitle);
+                return false;
+            }
+            NextGeneration next = new NextGeneration(snapshot);
+            next.removeBook(book);
+            snapshot = next.publish();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all the books for a given author and publishes them as a single generation.
+     *
+     * @param author input author
+     * @return true if removed, false otherwise
+     */
+    @Override
+    public boolean removeBooksByAuthor(String author) {
+        synchronized (writeLock) {
+            Set<Book> books = snapshot.authorToBooksMap.get(author);
+            if (books == null) {
+                logger.warn("Unknown author: {}", author);
+                return false;
+            }
+            NextGeneration next = new NextGeneration(snapshot);
+            for (Book book : books) {
+                next.removeBook(book);
+            }
+            snapshot = next.publish();
+            return true;
+        }
+    }
+
+    /**
+     * Lock free implementation of Book query by Author, runs in O(log n) time on the trie.
+     *
+     * @param author input author
+     * @return immutable set of books, empty set for null queries or non existing entries
+     */
+    @Override
+    public Set<Book> queryBookByAuthor(String author) {
+        return snapshot.queryBookByAuthor(author);
+    }
+
+    /**
+     * Lock free implementation of Authors query by Book, runs in O(log n) time on the trie.
+     *
+     * @param bookTitle input title
+     * @return list of authors, empty list for null queries or non existing entries.
+     */
+    @Override
+    public List<String> queryAuthorsByBookTitle(String bookTitle) {
+        return snapshot.queryAuthorsByBookTitle(bookTitle);
+    }
+
+    @Override
+    public List<String> viewAuthorsByBookTitle(String bookTitle) {
+        return queryAuthorsByBookTitle(bookTitle);
+    }
+
+    /**
+     * Books of many authors, evaluated on a single generation.
+     *
+     * @param authors input authors
+     * @return books of author at the same position, empty set for unknown author
+     */
+    @Override
+    public List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+        return snapshot.queryBooksByAuthors(authors);
+    }
+
+    /**
+     * Authors of many titles, evaluated on a single generation.
+     *
+     * @param bookTitles input titles
+     * @return authors of title at the same position, empty list for unknown title
+     */
+    @Override
+    public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+        return snapshot.queryAuthorsByBookTitles(bookTitles);
+    }
+
+    /**
+     * Books written by all given authors, evaluated on a single generation.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books, empty stream for null or empty query
+     */
+    @Override
+    public Stream<Book> queryBooksByAllAuthors(Collection<String> authors) {
+        return snapshot.queryBooksByAllAuthors(authors);
+    }
+
+    /**
+     * Books written by any of given authors, evaluated on a single generation.
+     *
+     * @param authors input authors, duplicates and nulls are ignored
+     * @return stream of books, empty stream for null or empty query
+     */
+    @Override
+    public Stream<Book> queryBooksByAnyAuthor(Collection<String> authors) {
+        return snapshot.queryBooksByAnyAuthor(authors);
+    }
+
+    /**
+     * Returns current generation of the database.
+     * All queries on returned snapshot are consistent with each other, no matter of concurrent writes.
+     *
+     * @return current snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Return size of books in memory
+     *
+     * @return number of all unique books
+     */
+    public int booksSize() {
+        return snapshot.booksSize();
+    }
+
+    /**
+     * Returns number of all unique authors in whole database
+     *
+     * @return number of all unique authors
+     */
+    public int authorsSize() {
+        return snapshot.authorsSize();
+    }
+
+    /**
+     * Immutable generation of both indexes.
+     */
+    public static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(PersistentHashMap.empty(), PersistentHashMap.empty());
+
+        private final PersistentHashMap<String, Book> titleToBookMap;
+
+        private final PersistentHashMap<String, Set<Book>> authorToBooksMap;
+
+        private Snapshot(PersistentHashMap<String, Book> titleToBookMap,
+                         PersistentHashMap<String, Set<Book>> authorToBooksMap) {
+            this.titleToBookMap = titleToBookMap;
+            this.authorToBooksMap = authorToBooksMap;
+        }
+
+        /**
+         * Book query by Author on this generation.
+         *
+         * @param author input author
+         * @return immutable set of books, empty set for null queries or non existing entries
+         */
+        public Set<Book> queryBookByAuthor(String author) {
+            return authorToBooksMap.getOrDefault(author, Collections.emptySet());
+        }
+
+        /**
+         * Authors query by Book on this generation.
+         *
+         * @param bookTitle input title
+         * @return list of authors, empty list for null queries or non existing entries.
+         */
+        public List<String> queryAuthorsByBookTitle(String bookTitle) {
+            Book book = titleToBookMap.get(bookTitle);
+            return book == null ? Collections.emptyList() : book.getAuthors();
+        }
+
+        /**
+         * Books of many authors in this generation.
+         *
+         * @param authors input authors
+         * @return books of author at the same position, empty set for unknown author
+         */
+        public List<Set<Book>> queryBooksByAuthors(List<String> authors) {
+            List<Set<Book>> books = new ArrayList<>(authors.size());
+            for (String author : authors) {
+                books.add(queryBookByAuthor(author));
+            }
+            return books;
+        }
+
+        /**
+         * Authors of many titles in this generation.
+         *
+         * @param bookTitles input titles
+         * @return authors of title at the same position, empty list for unknown title
+         */
+        public List<List<String>> queryAuthorsByBookTitles(List<String> bookTitles) {
+            List<List<String>> authors = new ArrayList<>(bookTitles.size());
+            for (String bookTitle : bookTitles) {
+                authors.add(queryAuthorsByBookTitle(bookTitle));
+            }
+            return authors;
+        }
+
+        /**
+         * Books written by all given authors in this generation.
+         *
+         * @param authors input authors, duplicates and nulls are ignored
+         * @return stream of books, empty stream for null or empty query
+         */
+        public Stream<Book> queryBooksByAllAuthors(Collection<String> authors) {
+            return AuthorQueries.allOf(AuthorQueries.distinct(authors), this::queryBookByAuthor);
+        }
+
+        /**
+         * Books written by any of given authors in this generation.
+         *
+         * @param authors input authors, duplicates and nulls are ignored
+         * @return stream of books, empty stream for null or empty query
+         */
+        public Stream<Book> queryBooksByAnyAuthor(Collection<String> authors) {
+            return AuthorQueries.anyOf(AuthorQueries.distinct(authors), this::queryBookByAuthor);
+        }
+
+        /**
+         * @return number of all unique books in this generation
+         */
+        public int booksSize() {
+            return titleToBookMap.size();
+        }
+
+        /**
+         * @return number of all unique authors in this generation
+         */
+        public int authorsSize() {
+            return authorToBooksMap.size();
+        }
+    }
+
+    /**
+     * Builder of the next generation, copies author sets only when they are touched for the first time.
+     * Used only under write lock.
+     */
+    private final class NextGeneration {
+
+        private PersistentHashMap<String, Book> titleToBookMap;
+
+        private PersistentHashMap<String, Set<Book>> authorToBooksMap;
+
+        /**
+         * writable copies of touched author sets, empty when all books of the author were removed
+         */
+        private final Map<String, Set<Book>> copiedAuthors = new HashMap<>();
+
+        NextGeneration(Snapshot current) {
+            titleToBookMap = current.titleToBookMap;
+            authorToBooksMap = current.authorToBooksMap;
+        }
+
+        boolean addBook(Book book) {
+            if (titleToBookMap.containsKey(book.getBookTitle())) {
+                return false;
+            }
+            titleToBookMap = titleToBookMap.plus(book.getBookTitle(), book);
+            for (String author : book.getAuthors()) {
+                writableBooks(author).add(book);
+            }
+            return true;
+        }
+
+        void removeBook(Book book) {
+            if (!titleToBookMap.containsKey(book.getBookTitle())) {
+                return;
+            }
+            titleToBookMap = titleToBookMap.minus(book.getBookTitle());
+            for (String author : book.getAuthors()) {
+                writableBooks(author).remove(book);
+            }
+        }
+
+        private Set<Book> writableBooks(String author) {
+            Set<Book> books = copiedAuthors.get(author);
+            if (books == null) {
+                Set<Book> current = authorToBooksMap.get(author);
+                books = current == null ? new HashSet<>() : new HashSet<>(current);
+                copiedAuthors.put(author, books);
+            }
+            return books;
+        }
+
+        Snapshot publish() {
+            for (Map.Entry<String, Set<Book>> entry : copiedAuthors.entrySet()) {
+                authorToBooksMap = entry.getValue().isEmpty()
+                        ? authorToBooksMap.minus(entry.getKey())
+                        : authorToBooksMap.plus(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+            }
+            return new Snapshot(titleToBookMap, authorToBooksMap);
+        }
+    }
+}
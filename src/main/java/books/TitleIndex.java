@@ -0,0 +1,329 @@
+package books;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorted index of titles for prefix queries, kept in sync with title to book map.
+ * <p>
+ * Bulk of titles is kept in a sorted array, so index costs one reference per title (two with case folding)
+ * and a prefix lookup is a binary search. Added titles go to a small sorted delta,
+ * removed titles of the array are only marked. Delta and marks are merged into a new array once they
+ * grow above a fraction of the array, so updates stay cheap in amortized time.
+ * <p>
+ * With case folding, titles are ordered and matched by their lower case form, see {@link Locale#ROOT}.
+ * Not thread-safe, stream returned by {@link #prefix(String)} must be consumed before index is modified.
+ */
+final class TitleIndex {
+
+    private static final int MIN_DELTA = 1024;
+
+    private static final String[] EMPTY = new String[0];
+
+    private final boolean caseFolding;
+
+    /**
+     * keys of the sorted array, same as titles without case folding
+     */
+    private String[] keys = EMPTY;
+
+    /**
+     * titles of the sorted array in keys order, null without case folding
+     */
+    private String[] titles;
+
+    private int size;
+
+    private final BitSet removed = new BitSet();
+
+    private int removedCount;
+
+    private final TreeSet<Entry> added = new TreeSet<>();
+
+    TitleIndex(boolean caseFolding) {
+        this.caseFolding = caseFolding;
+        this.titles = caseFolding ? EMPTY : null;
+    }
+
+    /**
+     * @return true if titles are matched by their lower case form
+     */
+    boolean isCaseFolding() {
+        return caseFolding;
+    }
+
+    /**
+     * @return number of indexed titles
+     */
+    int size() {
+        return size - removedCount + added.size();
+    }
+
+    /**
+     * Adds title, title must not be already in index.
+     *
+     * @param title title to add
+     */
+    void add(String title) {
+        String key = key(title);
+        int index = find(key, title);
+        if (index >= 0) {
+            if (removed.get(index)) {
+                removed.clear(index);
+                removedCount--;
+            }
+            return;
+        }
+        added.add(new Entry(key, title));
+        if (added.size() > MIN_DELTA + size / 8) {
+            merge();
+        }
+    }
+
+    /**
+     * Adds all titles, index is built by a single sort when empty.
+     *
+     * @param newTitles titles to add
+     */
+    void addAll(Collection<String> newTitles) {
+        if (size() > 0) {
+            for (String title : newTitles) {
+                add(title);
+            }
+            return;
+        }
+        clear();
+        Entry[] entries = new Entry[newTitles.size()];
+        int i = 0;
+        for (String title : newTitles) {
+            entries[i++] = new Entry(key(title), title);
+        }
+        Arrays.sort(entries);
+        install(entries, entries.length);
+    }
+
+    /**
+     * Removes title from index.
+     *
+     * @param title title to remove
+     */
+    void remove(String title) {
+        String key = key(title);
+        if (added.remove(new Entry(key, title))) {
+            return;
+        }
+        int index = find(key, title);
+        if (index >= 0 && !removed.get(index)) {
+            removed.set(index);
+            removedCount++;
+            if (removedCount > MIN_DELTA + size / 4) {
+                merge();
+            }
+        }
+    }
+
+    void clear() {
+        keys = EMPTY;
+        titles = caseFolding ? EMPTY : null;
+        size = 0;
+        removed.clear();
+        removedCount = 0;
+        added.clear();
+    }
+
+    /**
+     * Titles starting with a given prefix in ascending order of keys, iterated lazily.
+     * Cost is O(log n) for finding first title and O(1) for each next title.
+     *
+     * @param prefix title prefix, folded to lower case with case folding
+     * @return stream of matching titles
+     */
+    Stream<String> prefix(String prefix) {
+        String keyPrefix = key(prefix);
+        int from = lowerBound(keyPrefix);
+        Iterator<Entry> delta = added.tailSet(new Entry(keyPrefix, ""), true).iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PrefixIterator(keyPrefix, from, delta),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private String key(String title) {
+        return caseFolding ? title.toLowerCase(Locale.ROOT) : title;
+    }
+
+    private String title(int index) {
+        return caseFolding ? titles[index] : keys[index];
+    }
+
+    private static int compare(String key, String title, String otherKey, String otherTitle) {
+        int result = key.compareTo(otherKey);
+        return result != 0 ? result : title.compareTo(otherTitle);
+    }
+
+    /**
+     * @return index of title in sorted array, or -1 if not there
+     */
+    private int find(String key, String title) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compare(keys[middle], title(middle), key, title);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first key greater or equal to a given key
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void merge() {
+        String[] newKeys = new String[size()];
+        String[] newTitles = caseFolding ? new String[newKeys.length] : null;
+        int count = 0;
+        Iterator<Entry> delta = added.iterator();
+        Entry next = delta.hasNext() ? delta.next() : null;
+        for (int i = 0; i <= size; i++) {
+            while (next != null && (i == size || compare(next.key, next.title, keys[i], title(i)) < 0)) {
+                newKeys[count] = next.key;
+                if (caseFolding) {
+                    newTitles[count] = next.title;
+                }
+                count++;
+                next = delta.hasNext() ? delta.next() : null;
+            }
+            if (i < size && !removed.get(i)) {
+                newKeys[count] = keys[i];
+                if (caseFolding) {
+                    newTitles[count] = titles[i];
+                }
+                count++;
+            }
+        }
+        keys = newKeys;
+        titles = newTitles;
+        size = count;
+        removed.clear();
+        removedCount = 0;
+        added.clear();
+    }
+
+    private void install(Entry[] entries, int count) {
+        String[] newKeys = new String[count];
+        String[] newTitles = caseFolding ? new String[count] : null;
+        for (int i = 0; i < count; i++) {
+            newKeys[i] = entries[i].key;
+            if (caseFolding) {
+                newTitles[i] = entries[i].title;
+            }
+        }
+        keys = newKeys;
+        titles = newTitles;
+        size = count;
+        removed.clear();
+        removedCount = 0;
+        added.clear();
+    }
+
+    /**
+     * Title with its key, ordered by key and then by title.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        private final String key;
+
+        private final String title;
+
+        Entry(String key, String title) {
+            this.key = key;
+            // share instance when key is the title itself
+            this.title = key.equals(title) ? key : title;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return compare(key, title, other.key, other.title);
+        }
+    }
+
+    /**
+     * Merges titles of sorted array and delta which start with a given key prefix.
+     */
+    private final class PrefixIterator implements Iterator<String> {
+
+        private final String keyPrefix;
+
+        private final Iterator<Entry> delta;
+
+        private int position;
+
+        private Entry nextAdded;
+
+        PrefixIterator(String keyPrefix, int from, Iterator<Entry> delta) {
+            this.keyPrefix = keyPrefix;
+            this.delta = delta;
+            this.position = from;
+            skipRemoved();
+            advanceDelta();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextAdded != null || hasNextInArray();
+        }
+
+        @Override
+        public String next() {
+            boolean fromArray = hasNextInArray();
+            if (!fromArray && nextAdded == null) {
+                throw new NoSuchElementException();
+            }
+            if (nextAdded != null && (!fromArray
+                    || compare(nextAdded.key, nextAdded.title, keys[position], title(position)) < 0)) {
+                String title = nextAdded.title;
+                advanceDelta();
+                return title;
+            }
+            String title = title(position++);
+            skipRemoved();
+            return title;
+        }
+
+        private boolean hasNextInArray() {
+            return position < size && keys[position].startsWith(keyPrefix);
+        }
+
+        private void skipRemoved() {
+            if (removedCount > 0) {
+                position = removed.nextClearBit(position);
+            }
+        }
+
+        private void advanceDelta() {
+            nextAdded = delta.hasNext() ? delta.next() : null;
+            if (nextAdded != null && !nextAdded.key.startsWith(keyPrefix)) {
+                nextAdded = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package books;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records with group commit.
+ * Appending threads only enqueue a record, single flusher thread writes all records enqueued since its last write
+ * with one gathering write and, depending on {@link FsyncPolicy}, one fsync. Concurrent appenders are committed
+ * together, so the cost of an fsync is shared by the whole group.
+ * <p>
+ * Every record is framed as: int payload length, int CRC32 of payload, payload bytes.
+ * {@link #replay(Path, Consumer, boolean)} stops at the first torn or corrupted frame and either truncates the file
+ * there, for the tail of the log, or fails.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * When written records are forced to the storage device.
+     */
+    public enum FsyncPolicy {
+        /**
+         * Every group commit is fsynced, appender is acknowledged only after its record is durable.
+         */
+        ALWAYS,
+        /**
+         * Records are fsynced at most once per interval, appender is not waiting,
+         * records written within the last interval may be lost on power failure.
+         */
+        INTERVAL,
+        /**
+         * Records are never fsynced explicitly, flushing is left to the operating system.
+         */
+        NEVER
+    }
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final int REPLAY_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger logger = LogManager.getLogger(WriteAheadLog.class.getName());
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final FsyncPolicy policy;
+
+    private final long fsyncIntervalNanos;
+
+    private final Object lock = new Object();
+
+    private final Thread flusher;
+
+    private List<ByteBuffer> pending = new ArrayList<>();
+
+    private long appendedSequence;
+
+    private long writtenSequence;
+
+    private long durableSequence;
+
+    private long syncRequestedSequence;
+
+    private long groupCommits;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    /**
+     * Opens log for appending, records are added at the end of an existing file.
+     *
+     * @param file               log file
+     * @param policy             fsync policy
+     * @param fsyncIntervalMillis fsync interval for {@link FsyncPolicy#INTERVAL}, ignored otherwise
+     * @throws IOException when file cannot be opened
+     */
+    public WriteAheadLog(Path file, FsyncPolicy policy, long fsyncIntervalMillis) throws IOException {
+        this.file = file;
+        this.policy = policy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher-" + file.getFileName());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Enqueues record for the next group commit, never waits for IO.
+     *
+     * @param payload record payload, must not be modified afterwards
+     * @return sequence number of the record
+     * @throws IOException when log is closed or failed
+     */
+    public long append(ByteBuffer payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        header.putInt(payload.remaining()).putInt((int) crc.getValue()).flip();
+        synchronized (lock) {
+            checkOpen();
+            pending.add(header);
+            pending.add(payload);
+            long sequence = ++appendedSequence;
+            if (pending.size() == 2) {
+                lock.notifyAll();
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Waits until a given record is acknowledged according to fsync policy:
+     * durable for {@link FsyncPolicy#ALWAYS}, returns immediately otherwise.
+     *
+     * @param sequence sequence number returned by append
+     * @throws IOException when log failed before record became durable
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        if (policy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        awaitSequence(sequence);
+    }
+
+    /**
+     * Writes and fsyncs all records appended so far, regardless of fsync policy.
+     *
+     * @throws IOException when log failed
+     */
+    public void sync() throws IOException {
+        long sequence;
+        synchronized (lock) {
+            sequence = appendedSequence;
+            syncRequestedSequence = Math.max(syncRequestedSequence, sequence);
+            lock.notifyAll();
+        }
+        awaitSequence(sequence);
+    }
+
+    /**
+     * @return number of group commits written so far
+     */
+    public long groupCommits() {
+        synchronized (lock) {
+            return groupCommits;
+        }
+    }
+
+    /**
+     * @return number of records appended so far
+     */
+    public long appendedRecords() {
+        synchronized (lock) {
+            return appendedSequence;
+        }
+    }
+
+    /**
+     * Syncs all appended records and closes the log.
+     *
+     * @throws IOException when log failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads all valid records of a log file, torn or corrupted tail is truncated.
+     *
+     * @param file     log file
+     * @param consumer consumer of record payloads
+     * @return number of records read
+     * @throws IOException when file cannot be read
+     */
+    public static long replay(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        return replay(file, consumer, true);
+    }
+
+    /**
+     * Reads all valid records of a log file, frames are streamed through a small buffer,
+     * so files of any size are replayed without loading them on the heap.
+     *
+     * @param file             log file
+     * @param consumer         consumer of record payloads
+     * @param truncateTornTail true to truncate the file at the first torn or corrupted frame, which is only valid
+     *                         for the last log segment, false to fail
+     * @return number of records read
+     * @throws IOException when file cannot be read, or has a torn or corrupted frame and tail is not truncated
+     */
+    public static long replay(Path file, Consumer<ByteBuffer> consumer, boolean truncateTornTail) throws IOException {
+        try (FileChannel channel = truncateTornTail
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(REPLAY_BUFFER_SIZE);
+            buffer.flip();
+            long position = 0;
+            long records = 0;
+            CRC32 crc = new CRC32();
+            while (fill(channel, buffer, FRAME_HEADER_SIZE)) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > size - position - FRAME_HEADER_SIZE) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                ByteBuffer buffered = buffer.duplicate();
+                buffered.limit(buffered.position() + Math.min(length, buffer.remaining()));
+                payload.put(buffered);
+                buffer.position(buffered.position());
+                while (payload.hasRemaining() && channel.read(payload) >= 0) {
+                    // read rest of a payload larger than buffer
+                }
+                if (payload.hasRemaining()) {
+                    break;
+                }
+                payload.flip();
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                consumer.accept(payload.asReadOnlyBuffer());
+                position += FRAME_HEADER_SIZE + length;
+                records++;
+            }
+            if (position < size) {
+                if (!truncateTornTail) {
+                    throw new IOException("Torn or corrupted frame in " + file + " at " + position + " of " + size + " bytes");
+                }
+                LogManager.getLogger(WriteAheadLog.class.getName())
+                        .warn("Truncating torn tail of {} at {} of {} bytes", file, position, size);
+                channel.truncate(position);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Reads from channel until buffer has at least a given number of bytes remaining.
+     *
+     * @return false if end of file was reached first
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            buffer.compact();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void awaitSequence(long sequence) throws IOException {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (durableSequence < sequence && failure == null) {
+                if (closed) {
+                    throw new IOException("Log closed: " + file);
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (failure != null && durableSequence < sequence) {
+                throw new IOException("Log failed: " + file, failure);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("Log failed: " + file, failure);
+        }
+        if (closed) {
+            throw new IOException("Log closed: " + file);
+        }
+    }
+
+    private void flushLoop() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            List<ByteBuffer> batch;
+            long sequence;
+            boolean syncRequested;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed && syncRequestedSequence <= durableSequence
+                        && !(policy == FsyncPolicy.INTERVAL && writtenSequence > durableSequence
+                        && System.nanoTime() - lastSync >= fsyncIntervalNanos)) {
+                    try {
+                        if (policy == FsyncPolicy.INTERVAL && writtenSequence > durableSequence) {
+                            long waitNanos = Math.max(fsyncIntervalNanos - (System.nanoTime() - lastSync), 1);
+                            TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+                        } else {
+                            lock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        // flusher is stopped only by close
+                    }
+                }
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                sequence = appendedSequence;
+                syncRequested = syncRequestedSequence > durableSequence;
+            }
+            try {
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+                boolean sync = policy == FsyncPolicy.ALWAYS || syncRequested
+                        || (policy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSync >= fsyncIntervalNanos);
+                if (sync) {
+                    channel.force(false);
+                    lastSync = System.nanoTime();
+                }
+                synchronized (lock) {
+                    writtenSequence = sequence;
+                    if (sync) {
+                        durableSequence = sequence;
+                    }
+                    if (!batch.isEmpty()) {
+                        groupCommits++;
+                    }
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                logger.error("Cannot write log " + file, e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+}
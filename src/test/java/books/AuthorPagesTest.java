@@ -0,0 +1,107 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class AuthorPagesTest {
+
+    private static List<String> titles(BookPage page) {
+        return page.getBooks().stream().map(Book::getBookTitle).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPagesAndCursors() {
+        AuthorPages pages = new AuthorPages();
+        for (String title : Arrays.asList("Emma", "Dune", "Ulysses", "Beloved", "Persuasion")) {
+            pages.addBook(new Book(title, Arrays.asList("Author", "Author", "Other " + title)));
+        }
+        assertEquals(5, pages.size("Author"));
+        assertEquals(Arrays.asList("Beloved", "Dune"), titles(pages.page("Author", 0, 2)));
+        assertEquals(Arrays.asList("Emma", "Persuasion"), titles(pages.page("Author", 2, 2)));
+        BookPage last = pages.page("Author", 4, 2);
+        assertEquals(Collections.singletonList("Ulysses"), titles(last));
+        assertNull(last.getNextCursor());
+        assertEquals(0, pages.page("Author", 5, 2).getBooks().size());
+
+        BookPage first = pages.after("Author", null, 2);
+        assertEquals("Dune", first.getNextCursor());
+        pages.removeBook(new Book("Dune", Arrays.asList("Author", "Author", "Other Dune")));
+        pages.addBook(new Book("Carrie", Collections.singletonList("Author")));
+        pages.addBook(new Book("Dusk", Collections.singletonList("Author")));
+        assertEquals(Arrays.asList("Dusk", "Emma"), titles(pages.after("Author", first.getNextCursor(), 2)));
+        assertEquals(6, pages.after("Author", "Dune", 2).getTotal());
+        assertEquals(0, pages.size("Other Dune"));
+
+        pages.removeAuthor("Author");
+        assertEquals(0, pages.size("Author"));
+        assertEquals(1, pages.size("Other Emma"));
+    }
+
+    @Test
+    public void testSameAsSortedList() {
+        Random random = new Random(7);
+        AuthorPages pages = new AuthorPages();
+        Map<String, TreeSet<String>> model = new HashMap<>();
+        Map<String, Book> books = new HashMap<>();
+        for (int operation = 0; operation < 20_000; operation++) {
+            String title = "Book " + random.nextInt(3000);
+            Book book = books.get(title);
+            if (book == null) {
+                book = new Book(title, Arrays.asList("Author " + random.nextInt(3), "Author " + random.nextInt(5)));
+                books.put(title, book);
+                pages.addBook(book);
+                for (String author : book.getAuthors()) {
+                    model.computeIfAbsent(author, key -> new TreeSet<>()).add(title);
+                }
+            } else {
+                books.remove(title);
+                pages.removeBook(book);
+                for (String author : book.getAuthors()) {
+                    model.get(author).remove(title);
+                }
+            }
+            if (operation % 100 == 0) {
+                for (Map.Entry<String, TreeSet<String>> entry : model.entrySet()) {
+                    List<String> expected = new ArrayList<>(entry.getValue());
+                    assertEquals(expected.size(), pages.size(entry.getKey()));
+                    int offset = random.nextInt(expected.size() + 1);
+                    int limit = 1 + random.nextInt(50);
+                    BookPage page = pages.page(entry.getKey(), offset, limit);
+                    List<String> expectedPage = expected.subList(offset, Math.min(offset + limit, expected.size()));
+                    assertEquals(expectedPage, titles(page));
+                    assertEquals(offset + limit < expected.size(), page.hasNext());
+
+                    String cursor = "Book " + random.nextInt(3000);
+                    List<String> expectedAfter = new ArrayList<>(entry.getValue().tailSet(cursor, false));
+                    assertEquals(expectedAfter.subList(0, Math.min(limit, expectedAfter.size())),
+                            titles(pages.after(entry.getKey(), cursor, limit)));
+                }
+            }
+        }
+        assertFalse(model.isEmpty());
+    }
+
+    @Test
+    public void testDecoratorsKeepOrderedPages() {
+        DefaultBookDatabaseImpl database = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.AUTHOR_PAGES) {
+            @Override
+            public Set<Book> queryBookByAuthor(String author) {
+                throw new AssertionError("Pages must not copy all books of " + author);
+            }
+        };
+        database.init(Arrays.asList("Emma", "Dune", "Beloved"),
+                Arrays.asList(Collections.singletonList("Author"), Collections.singletonList("Author"),
+                        Collections.singletonList("Author")));
+        for (BookDatabase decorator : Arrays.asList(new InstrumentedBookDatabase(database),
+                new CachingBookDatabase(database))) {
+            assertEquals(Arrays.asList("Beloved", "Dune"), titles(decorator.queryBooksByAuthorPage("Author", 0, 2)));
+            assertEquals(Collections.singletonList("Emma"), titles(decorator.queryBooksByAuthorAfter("Author", "Dune", 2)));
+        }
+    }
+}
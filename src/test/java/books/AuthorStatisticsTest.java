@@ -0,0 +1,155 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AuthorStatisticsTest {
+
+    private final Map<String, Book> books = new HashMap<>();
+
+    private final AuthorStatistics statistics = new AuthorStatistics(books::values);
+
+    private void add(Book book) {
+        books.put(book.getBookTitle(), book);
+        statistics.addBook(book);
+    }
+
+    private void remove(String title) {
+        statistics.removeBook(books.remove(title));
+    }
+
+    @Test
+    public void testTopAuthorsHistogramAndCoAuthors() {
+        add(new Book("Book A", Arrays.asList("Alice", "Bob")));
+        add(new Book("Book B", Arrays.asList("Audrey", "Bob", "Bob")));
+        add(new Book("Book C", Collections.singletonList("Bob")));
+        add(new Book("Book D", Collections.singletonList("Peter")));
+
+        assertEquals(Arrays.asList(new ProlificAuthor("Bob", 3)), statistics.topAuthors(1));
+        assertEquals(4, statistics.topAuthors(10).size());
+        assertEquals(3, statistics.histogram()[0]);
+        assertEquals(1, statistics.histogram()[1]);
+        assertEquals(3, statistics.coAuthors());
+        assertEquals(2, statistics.distinctCoAuthorPairs());
+
+        remove("Book A");
+        remove("Book C");
+        assertEquals(Arrays.asList("Audrey", "Bob", "Peter"), sortedAuthors(statistics.topAuthors(10)));
+        assertEquals(3, statistics.histogram()[0]);
+        assertEquals(0, statistics.histogram()[1]);
+        assertEquals(2, statistics.coAuthors());
+
+        statistics.clear();
+        assertEquals(0, statistics.topAuthors(10).size());
+        assertEquals(0, statistics.distinctCoAuthorPairs());
+    }
+
+    @Test
+    public void testSameAsExactCounts() {
+        Random random = new Random(7);
+        for (int operation = 0; operation < 100_000; operation++) {
+            String title = "Book " + random.nextInt(20_000);
+            if (books.containsKey(title)) {
+                remove(title);
+            } else {
+                add(new Book(title, Arrays.asList("Author " + random.nextInt(50), "Author " + random.nextInt(5000))));
+            }
+            if (operation % 10_000 == 0) {
+                assertSameAsExact();
+            }
+        }
+        assertSameAsExact();
+    }
+
+    @Test
+    public void testRebuildWaitsForRemovalsProportionalToBooks() {
+        int[] scans = new int[1];
+        AuthorStatistics counted = new AuthorStatistics(() -> {
+            scans[0]++;
+            return books.values();
+        });
+        for (int i = 0; i < 10_000; i++) {
+            Book book = new Book("Single " + i, Collections.singletonList("Author " + i));
+            books.put(book.getBookTitle(), book);
+            counted.addBook(book);
+        }
+        for (int i = 0; i < 200; i++) {
+            Book book = new Book("Shared " + i, Arrays.asList("First " + i, "Second " + i, "Third " + i));
+            books.put(book.getBookTitle(), book);
+            counted.addBook(book);
+        }
+        for (int i = 0; i < 100; i++) {
+            counted.removeBook(books.remove("Shared " + i));
+        }
+        // 300 removed pairs would rebuild at once, but 100 removals do not pay for a scan of 10100 books
+        assertEquals(0, scans[0]);
+
+        for (int i = 0; i < 1500; i++) {
+            counted.removeBook(books.remove("Single " + i));
+        }
+        assertEquals(1, scans[0]);
+        long estimate = counted.distinctCoAuthorPairs();
+        assertTrue(estimate + " pairs estimated for 300", Math.abs(estimate - 300) <= 15);
+    }
+
+    @Test
+    public void testNullAuthor() {
+        add(new Book("Book A", Arrays.asList("Alice", null)));
+        add(new Book("Book B", Arrays.asList(null, "Bob", "Alice")));
+
+        List<ProlificAuthor> top = statistics.topAuthors(3);
+        assertEquals(2, top.get(0).getBooks());
+        assertEquals(2, top.get(1).getBooks());
+        assertEquals(new ProlificAuthor("Bob", 1), top.get(2));
+        assertEquals(3, statistics.coAuthors());
+        assertEquals(3, statistics.distinctCoAuthorPairs());
+        remove("Book B");
+        assertEquals(2, statistics.coAuthors());
+    }
+
+    private void assertSameAsExact() {
+        Map<String, Integer> counts = new HashMap<>();
+        Set<String> coAuthors = new HashSet<>();
+        Set<String> pairs = new HashSet<>();
+        for (Book book : books.values()) {
+            String first = book.getAuthors().get(0);
+            String second = book.getAuthors().get(1);
+            counts.merge(first, 1, Integer::sum);
+            if (!first.equals(second)) {
+                counts.merge(second, 1, Integer::sum);
+                coAuthors.add(first);
+                coAuthors.add(second);
+                pairs.add(first.compareTo(second) < 0 ? first + "|" + second : second + "|" + first);
+            }
+        }
+        List<Integer> expectedTop = new ArrayList<>(counts.values());
+        expectedTop.sort(Collections.reverseOrder());
+        List<ProlificAuthor> top = statistics.topAuthors(100);
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals((int) expectedTop.get(i), top.get(i).getBooks());
+            assertEquals((int) counts.get(top.get(i).getAuthor()), top.get(i).getBooks());
+        }
+        int[] histogram = new int[AuthorStatistics.HISTOGRAM_BUCKETS];
+        for (int count : counts.values()) {
+            histogram[31 - Integer.numberOfLeadingZeros(count)]++;
+        }
+        assertTrue(Arrays.equals(histogram, statistics.histogram()));
+        assertEquals(coAuthors.size(), statistics.coAuthors());
+        long estimate = statistics.distinctCoAuthorPairs();
+        assertTrue(estimate + " pairs estimated for " + pairs.size(),
+                Math.abs(estimate - pairs.size()) <= 0.05 * pairs.size() + 64 + pairs.size() / 8);
+    }
+
+    private static List<String> sortedAuthors(List<ProlificAuthor> authors) {
+        List<String> names = new ArrayList<>();
+        for (ProlificAuthor author : authors) {
+            names.add(author.getAuthor());
+        }
+        Collections.sort(names);
+        return names;
+    }
+}
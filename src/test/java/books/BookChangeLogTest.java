@@ -0,0 +1,136 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BookChangeLogTest {
+
+    private final BookChangeLog changeLog = new BookChangeLog(8);
+
+    private static Book book(int i) {
+        return new Book("Book " + i, Collections.singletonList("Author"));
+    }
+
+    @Test
+    public void testChangesAreReadInOrder() {
+        changeLog.publish(BookChange.Type.ADDED, book(0));
+        BookChangeLog.Subscription subscription = changeLog.subscribe(BookChangeLog.OverflowPolicy.FAIL);
+        assertNull(subscription.poll());
+        for (int i = 1; i <= 5; i++) {
+            changeLog.publish(BookChange.Type.ADDED, book(i));
+        }
+        changeLog.publish(BookChange.Type.CLEARED, null);
+        assertEquals(6, subscription.lag());
+        assertEquals(2, changeLog.remainingCapacity());
+
+        List<BookChange> changes = new ArrayList<>();
+        assertEquals(4, subscription.drainTo(changes::add, 4));
+        assertEquals(2, subscription.drainTo(changes::add, 10));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, changes.get(i).getSequence());
+            assertEquals("Book " + (i + 1), changes.get(i).getBook().getBookTitle());
+        }
+        assertEquals(BookChange.Type.CLEARED, changes.get(5).getType());
+        assertNull(subscription.poll());
+        assertEquals(0, subscription.lag());
+        assertEquals(6, changeLog.lastSequence());
+    }
+
+    @Test
+    public void testFailPolicy() {
+        BookChangeLog.Subscription subscription = changeLog.subscribe(BookChangeLog.OverflowPolicy.FAIL);
+        for (int i = 0; i < 10; i++) {
+            changeLog.publish(BookChange.Type.ADDED, book(i));
+        }
+        assertEquals(-2, changeLog.remainingCapacity());
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                subscription.poll();
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("Subscription lost changes after sequence: -1", e.getMessage());
+            }
+        }
+        assertEquals(8, changeLog.remainingCapacity());
+    }
+
+    @Test
+    public void testSkipPolicy() {
+        BookChangeLog.Subscription subscription = changeLog.subscribe(BookChangeLog.OverflowPolicy.SKIP);
+        for (int i = 0; i < 20; i++) {
+            changeLog.publish(BookChange.Type.ADDED, book(i));
+        }
+        BookChange change = subscription.poll();
+        assertEquals(12, change.getSequence());
+        assertEquals(12, subscription.lostChanges());
+        assertEquals(7, subscription.drainTo(c -> {
+        }, 100));
+        subscription.close();
+        assertEquals(8, changeLog.remainingCapacity());
+    }
+
+    @Test
+    public void testPollWaitsForProducer() throws Exception {
+        BookChangeLog.Subscription subscription = changeLog.subscribe(BookChangeLog.OverflowPolicy.FAIL);
+        assertNull(subscription.poll(1, TimeUnit.MILLISECONDS));
+        AtomicReference<BookChange> received = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                received.set(subscription.poll(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        changeLog.publish(BookChange.Type.REMOVED, book(1));
+        consumer.join(10_000);
+        assertEquals(BookChange.Type.REMOVED, received.get().getType());
+    }
+
+    @Test
+    public void testConcurrentConsumerSeesOrderedOrSkippedChanges() throws Exception {
+        BookChangeLog log = new BookChangeLog(1024);
+        BookChangeLog.Subscription subscription = log.subscribe(BookChangeLog.OverflowPolicy.SKIP);
+        int changes = 200_000;
+        Book book = book(0);
+        long[] last = {-1};
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            while (last[0] < changes - 1) {
+                BookChange change = subscription.poll();
+                if (change == null) {
+                    Thread.yield();
+                    continue;
+                }
+                if (change.getSequence() <= last[0] || change.getBook() != book) {
+                    error.set("Unexpected " + change + " after " + last[0]);
+                    return;
+                }
+                last[0] = change.getSequence();
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < changes; i++) {
+            log.publish(BookChange.Type.ADDED, book);
+        }
+        consumer.join(30_000);
+        assertNull(error.get());
+        assertEquals(changes - 1, last[0]);
+        assertTrue(subscription.lostChanges() >= 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePowerOfTwo() {
+        new BookChangeLog(10);
+    }
+}
@@ -0,0 +1,178 @@
+package books;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Behavior shared by all {@link BookDatabase} engines, every engine test extends it with a factory of its engine
+ * and adds its own engine-specific tests.
+ *
+ * @param <T> type of tested engine
+ */
+public abstract class BookDatabaseContractTest<T extends BookDatabase> {
+
+    protected T bookDatabase;
+
+    protected List<String> initTitles;
+
+    protected List<List<String>> initAuthors;
+
+    /**
+     * @return new empty database, called before every test
+     */
+    protected abstract T createDatabase();
+
+    @Before
+    public void setUp() {
+        bookDatabase = createDatabase();
+        initTitles = Arrays.asList("Book A", "Book B", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"));
+    }
+
+    @After
+    public void tearDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testInitNullArguments() {
+        bookDatabase.init(null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitWithDifferentSize() {
+        bookDatabase.init(Arrays.asList("Book A", "Book B"), new ArrayList<>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitWithBlankAuthorsForOneBook() {
+        initAuthors = Arrays.asList((Arrays.asList("Audrey", "Bob")),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Collections.emptyList());
+        bookDatabase.init(initTitles, initAuthors);
+    }
+
+    @Test
+    public void testInvalidInitLeavesDatabaseUntouched() {
+        bookDatabase.init(initTitles, initAuthors);
+        try {
+            bookDatabase.init(Arrays.asList("Book D", "Book E", null), initAuthors);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(BookLists.INIT_MESSAGE + 2, e.getMessage());
+        }
+        try {
+            bookDatabase.addBooks(Arrays.asList("Book D", "Book E"),
+                    Arrays.asList(Collections.singletonList("Susan"), Collections.emptyList()));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(BookLists.BATCH_MESSAGE + 1, e.getMessage());
+        }
+        assertEquals(3, bookDatabase.booksSize());
+        assertEquals(5, bookDatabase.authorsSize());
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book D"));
+    }
+
+    @Test
+    public void testAddBookWithDuplicate() {
+        initTitles = Arrays.asList("Book A", "Book B", "Book C", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Arrays.asList("Susan"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 5 authors but got " + bookDatabase.authorsSize() + " instead", 5, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Peter", "John", "Audrey"), bookDatabase.queryAuthorsByBookTitle("Book C"));
+    }
+
+    @Test
+    public void testRemoveBookAndAuthor() {
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        assertFalse(bookDatabase.removeBookByTitle("Book A"));
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+        assertEquals(Collections.emptySet(), bookDatabase.queryBookByAuthor("Alice"));
+
+        assertTrue(bookDatabase.removeBooksByAuthor("Audrey"));
+        assertFalse(bookDatabase.removeBooksByAuthor("Audrey"));
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testQueries() {
+        bookDatabase.init(initTitles, initAuthors);
+
+        Set<Book> expectedBooksByBob = new HashSet<>();
+        expectedBooksByBob.add(new Book("Book A", Arrays.asList("Alice", "Bob")));
+        expectedBooksByBob.add(new Book("Book B", Arrays.asList("Audrey", "Bob")));
+
+        Set<Book> booksByBob = bookDatabase.queryBookByAuthor("Bob");
+        assertEquals(expectedBooksByBob, booksByBob);
+        assertEquals(booksByBob, expectedBooksByBob);
+        assertTrue(booksByBob.contains(new Book("Book A", Collections.emptyList())));
+        assertFalse(booksByBob.contains(new Book("Book C", Collections.emptyList())));
+        assertEquals(Arrays.asList("Peter", "John", "Audrey"), bookDatabase.queryAuthorsByBookTitle("Book C"));
+        assertEquals(Collections.emptySet(), bookDatabase.queryBookByAuthor("Diana"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book X"));
+    }
+
+    @Test
+    public void testNullQueries() {
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertEquals(Collections.emptySet(), bookDatabase.queryBookByAuthor(null));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle(null));
+        assertFalse(bookDatabase.removeBookByTitle(null));
+        assertFalse(bookDatabase.removeBooksByAuthor(null));
+    }
+
+    @Test
+    public void testNullAuthor() {
+        bookDatabase.init(Arrays.asList("Book A", "Book B"),
+                Arrays.asList(Arrays.asList("Alice", null), Arrays.asList(null, "Bob")));
+
+        assertEquals(2, bookDatabase.booksSize());
+        assertEquals(3, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Alice", null), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(2, bookDatabase.queryBookByAuthor(null).size());
+
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        assertEquals(Collections.singleton(new Book("Book B", Arrays.asList(null, "Bob"))), bookDatabase.queryBookByAuthor(null));
+        assertTrue(bookDatabase.removeBooksByAuthor(null));
+        assertEquals(0, bookDatabase.booksSize());
+        assertEquals(0, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testQueryBooksByAllAndAnyAuthors() {
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertEquals(Collections.singleton(new Book("Book B", Arrays.asList("Audrey", "Bob"))),
+                bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Bob")).collect(Collectors.toSet()));
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Alice")).count());
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Nobody")).count());
+        assertEquals(2, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Audrey")).count());
+
+        List<String> anyTitles = bookDatabase.queryBooksByAnyAuthor(Arrays.asList("Bob", "Audrey", "Nobody", null))
+                .map(Book::getBookTitle).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList("Book A", "Book B", "Book C"), anyTitles);
+        assertEquals(0, bookDatabase.queryBooksByAnyAuthor(null).count());
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Collections.emptyList()).count());
+    }
+}
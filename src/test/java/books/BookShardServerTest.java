@@ -0,0 +1,209 @@
+package books;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BookShardServerTest {
+
+    private BookShardServer server;
+
+    private RemoteBookShard client;
+
+    @Before
+    public void setUp() throws IOException {
+        ConcurrentBookDatabaseImpl database = new ConcurrentBookDatabaseImpl() {
+            @Override
+            public Set<Book> queryBookByAuthor(String author) {
+                if ("Bad".equals(author)) {
+                    throw new IllegalArgumentException("Bad author");
+                }
+                return super.queryBookByAuthor(author);
+            }
+        };
+        database.init(Arrays.asList("Book A", "Book B", "Book C"),
+                Arrays.asList(Arrays.asList("Alice", "Bob"),
+                        Arrays.asList("Audrey", "Bob"),
+                        Arrays.asList("Peter", "John", "Audrey")));
+        server = new BookShardServer(database, 0);
+        client = new RemoteBookShard(server.getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testMultiGet() {
+        List<Set<Book>> books = client.queryBooksByAuthors(Arrays.asList("Bob", "Nobody", "Peter"));
+        assertEquals(3, books.size());
+        assertEquals(2, books.get(0).size());
+        assertTrue(books.get(1).isEmpty());
+        assertEquals("Book C", books.get(2).iterator().next().getBookTitle());
+
+        List<List<String>> authors = client.queryAuthorsByBookTitles(Arrays.asList("Book B", "Book X", "Book A"));
+        assertEquals(Arrays.asList(Arrays.asList("Audrey", "Bob"), Collections.emptyList(), Arrays.asList("Alice", "Bob")),
+                authors);
+        assertTrue(client.queryBooksByAuthors(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testPagesAreReadByServedDatabase() {
+        BookPage first = client.queryBooksByAuthorPage("Audrey", 0, 1);
+        assertEquals("Book B", first.getBooks().get(0).getBookTitle());
+        assertEquals(2, first.getTotal());
+        assertEquals("Book B", first.getNextCursor());
+
+        BookPage last = client.queryBooksByAuthorAfter("Audrey", first.getNextCursor(), 5);
+        assertEquals("Book C", last.getBooks().get(0).getBookTitle());
+        assertFalse(last.hasNext());
+        assertTrue(client.queryBooksByAuthorAfter("Nobody", null, 5).getBooks().isEmpty());
+        try {
+            client.queryBooksByAuthorPage("Audrey", -1, 5);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Page must not be negative.", e.getMessage());
+        }
+        assertEquals(3, client.booksSize());
+    }
+
+    @Test
+    public void testPipelinedQueries() {
+        List<Set<Book>> books = client.queryBookByAuthorPipelined(Arrays.asList("Audrey", "Alice", "Nobody"));
+        assertEquals(3, books.size());
+        assertEquals(2, books.get(0).size());
+        assertEquals(1, books.get(1).size());
+        assertTrue(books.get(2).isEmpty());
+    }
+
+    @Test
+    public void testPipelineStaysInSyncAfterFailure() {
+        try {
+            client.queryBookByAuthorPipelined(Arrays.asList("Alice", "Bad", "Bob"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Bad author", e.getMessage());
+        }
+        assertEquals(2, client.queryBookByAuthor("Bob").size());
+        assertTrue(client.removeBooksByAuthor("Bob"));
+        assertEquals(1, client.booksSize());
+    }
+
+    @Test
+    public void testBooksNeedShard() throws IOException {
+        assertEquals(3, client.books().size());
+        try (BookShardServer snapshotServer = new BookShardServer(new SnapshotBookDatabaseImpl(), 0);
+             RemoteBookShard snapshotClient = new RemoteBookShard(snapshotServer.getPort())) {
+            snapshotClient.books();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().endsWith("Served database is not a shard."));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testPipelineLargerThanSocketBuffers() {
+        char[] name = new char[32 * 1024];
+        Arrays.fill(name, 'a');
+        String author = new String(name);
+        client.addBook("Long", Collections.singletonList(author));
+        List<String> authors = Collections.nCopies(1000, author);
+
+        List<Set<Book>> books = client.queryBookByAuthorPipelined(authors);
+        assertEquals(1000, books.size());
+        for (Set<Book> authorBooks : books) {
+            assertEquals("Long", authorBooks.iterator().next().getBookTitle());
+        }
+        assertEquals(4, client.booksSize());
+    }
+
+    @Test(timeout = 60000)
+    public void testCloseClosesOpenConnections() throws IOException {
+        assertEquals(3, client.booksSize());
+        server.close();
+        try {
+            client.booksSize();
+            fail();
+        } catch (UncheckedIOException e) {
+            // connection was closed by server
+        }
+    }
+
+    @Test
+    public void testConcurrentConnections() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                results.add(executor.submit(() -> {
+                    int books = 0;
+                    try (RemoteBookShard connection = new RemoteBookShard(server.getPort())) {
+                        for (int i = 0; i < 100; i++) {
+                            for (Set<Book> authorBooks : connection.queryBookByAuthorPipelined(
+                                    Arrays.asList("Bob", "Audrey", "John"))) {
+                                books += authorBooks.size();
+                            }
+                        }
+                    }
+                    return books;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(500, (int) result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testQueriesWhileAnotherConnectionWrites() throws Exception {
+        // many books make the window between size and iteration of the live author set wide
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            titles.add("Bob's book " + i);
+            authors.add(Collections.singletonList("Bob"));
+        }
+        client.addBooks(titles, authors);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                try (RemoteBookShard connection = new RemoteBookShard(server.getPort())) {
+                    for (int i = 0; writing.get(); i++) {
+                        connection.addBook("Book " + i, Arrays.asList("Bob", "Writer"));
+                        connection.removeBookByTitle("Book " + i);
+                    }
+                }
+                return null;
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (System.nanoTime() < deadline) {
+                int books = client.queryBookByAuthor("Bob").size();
+                assertTrue(books == 5002 || books == 5003);
+                List<Set<Book>> multiGet = client.queryBooksByAuthors(Arrays.asList("Bob", "Peter"));
+                assertEquals(1, multiGet.get(1).size());
+            }
+            writing.set(false);
+            writer.get(30, TimeUnit.SECONDS);
+            assertEquals(5003, client.booksSize());
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package books;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CachingBookDatabaseTest {
+
+    private final AtomicInteger authorQueries = new AtomicInteger();
+
+    private volatile CountDownLatch slowStore = new CountDownLatch(0);
+
+    private CachingBookDatabase bookDatabase;
+
+    @Before
+    public void setUp() {
+        bookDatabase = new CachingBookDatabase(new ConcurrentBookDatabaseImpl() {
+            @Override
+            public Set<Book> queryBookByAuthor(String author) {
+                authorQueries.incrementAndGet();
+                try {
+                    slowStore.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.queryBookByAuthor(author);
+            }
+        }, 100);
+        bookDatabase.init(Arrays.asList("Book A", "Book B", "Book C"),
+                Arrays.asList(Arrays.asList("Alice", "Bob"),
+                        Arrays.asList("Audrey", "Bob"),
+                        Arrays.asList("Peter", "John", "Audrey")));
+        authorQueries.set(0);
+    }
+
+    @Test
+    public void testRepeatedQueriesAreCached() {
+        assertEquals(2, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(2, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(0, bookDatabase.queryBookByAuthor("Nobody").size());
+        assertEquals(0, bookDatabase.queryBookByAuthor("Nobody").size());
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+
+        assertEquals(2, authorQueries.get());
+        assertEquals(2, bookDatabase.authorCacheStats().getHitCount());
+        assertEquals(2, bookDatabase.authorCacheStats().getMissCount());
+        assertEquals(1, bookDatabase.titleCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testRemovalsInvalidateCoAuthors() {
+        assertEquals(2, bookDatabase.queryBookByAuthor("Audrey").size());
+        assertEquals(1, bookDatabase.queryBookByAuthor("Peter").size());
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book B"));
+
+        assertTrue(bookDatabase.removeBooksByAuthor("Bob"));
+        assertEquals(Collections.singleton(new Book("Book C", Collections.emptyList())),
+                bookDatabase.queryBookByAuthor("Audrey"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book B"));
+        assertEquals(0, bookDatabase.queryBookByAuthor("Bob").size());
+
+        assertTrue(bookDatabase.removeBookByTitle("Book C"));
+        assertEquals(0, bookDatabase.queryBookByAuthor("Peter").size());
+        assertEquals(0, bookDatabase.queryBookByAuthor("Audrey").size());
+    }
+
+    @Test
+    public void testAddInvalidatesCachedMisses() {
+        assertEquals(0, bookDatabase.queryBookByAuthor("Susan").size());
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book D"));
+
+        assertTrue(bookDatabase.addBook("Book D", Arrays.asList("Susan", "Bob")));
+        assertEquals(1, bookDatabase.queryBookByAuthor("Susan").size());
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(Arrays.asList("Susan", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book D"));
+
+        bookDatabase.addBooks(Collections.singletonList("Book E"), Collections.singletonList(Collections.singletonList("Susan")));
+        assertEquals(2, bookDatabase.queryBookByAuthor("Susan").size());
+    }
+
+    @Test
+    public void testEvictionIsBounded() {
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            titles.add("Title " + i);
+            authors.add(Collections.singletonList("Author " + i));
+        }
+        bookDatabase.addBooks(titles, authors);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, bookDatabase.queryBookByAuthor("Author " + i).size());
+        }
+        assertEquals(900, bookDatabase.authorCacheStats().getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        slowStore = new CountDownLatch(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Set<Book>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> bookDatabase.queryBookByAuthor("Bob")));
+            }
+            while (bookDatabase.authorCacheStats().getMissCount() < threads) {
+                Thread.sleep(1);
+            }
+            slowStore.countDown();
+            for (Future<Set<Book>> result : results) {
+                assertEquals(2, result.get(10, TimeUnit.SECONDS).size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, authorQueries.get());
+        assertEquals(1, bookDatabase.authorCacheStats().getLoadCount());
+    }
+
+    @Test
+    public void testViewsAreCachedValues() {
+        Set<Book> books = bookDatabase.viewBooksByAuthor("Bob");
+        assertSame(books, bookDatabase.viewBooksByAuthor("Bob"));
+        assertSame(books, bookDatabase.queryBookByAuthor("Bob"));
+        assertSame(bookDatabase.viewAuthorsByBookTitle("Book A"), bookDatabase.viewAuthorsByBookTitle("Book A"));
+        assertEquals(1, authorQueries.get());
+
+        bookDatabase.removeBookByTitle("Book A");
+        assertEquals(1, bookDatabase.viewBooksByAuthor("Bob").size());
+        assertTrue(bookDatabase.viewAuthorsByBookTitle("Book A").isEmpty());
+    }
+
+    @Test
+    public void testNullAuthorIsNotCached() {
+        bookDatabase.addBook("Book D", Arrays.asList(null, "Bob"));
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(1, bookDatabase.queryBookByAuthor(null).size());
+        assertEquals(1, bookDatabase.queryBookByAuthor(null).size());
+        assertEquals(3, authorQueries.get());
+
+        assertTrue(bookDatabase.removeBooksByAuthor(null));
+        assertEquals(2, bookDatabase.queryBookByAuthor("Bob").size());
+        assertTrue(bookDatabase.queryBookByAuthor(null).isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package books;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CatalogueLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DefaultBookDatabaseImpl bookDatabase = new DefaultBookDatabaseImpl();
+
+    private int files;
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile("catalogue" + files++).toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void loadCsvTest() throws IOException {
+        Path file = write("Book A,Alice,Bob\n"
+                + "\"Book, B\",Audrey,\"Bob\"\r\n"
+                + "\n"
+                + "\"Book \"\"C\"\"\nsecond line\",Peter,John,Audrey");
+        assertEquals(3, new CatalogueLoader(bookDatabase).load(file, CatalogueLoader.Format.CSV));
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book, B"));
+        assertEquals(Arrays.asList("Peter", "John", "Audrey"),
+                bookDatabase.queryAuthorsByBookTitle("Book \"C\"\nsecond line"));
+        assertEquals(2, bookDatabase.queryBookByAuthor("Audrey").size());
+    }
+
+    @Test
+    public void loadJsonLinesTest() throws IOException {
+        Path file = write("{\"title\": \"Book A\", \"authors\": [\"Alice\", \"Bob\"]}\n"
+                + "\n"
+                + "{\"id\": 2, \"authors\":[\"Audrey\",\"Bob\"], \"tags\": [\"x\"], \"title\":\"Book \\\"B\\\"\"}\n"
+                + "{\"title\": \"Caf\\u00e9 \\ud83d\\udcda\\n\", \"authors\": [\"Pe\\/ter\"], \"draft\": false}\n");
+        assertEquals(3, new CatalogueLoader(bookDatabase).load(file, CatalogueLoader.Format.JSONL));
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book \"B\""));
+        assertEquals(Collections.singletonList("Pe/ter"),
+                bookDatabase.queryAuthorsByBookTitle("Caf\u00e9 \ud83d\udcda\n"));
+    }
+
+    @Test
+    public void jsonLinesSkipNestedValuesTest() throws IOException {
+        Path file = write("{\"title\":\"Book A\",\"authors\":[\"Alice\"],\"years\":[1999,2001]}\n"
+                + "{\"title\":\"Book B\",\"meta\":{\"x\":1},\"authors\":[\"Bob\"]}\n"
+                + "{\"meta\": {\"tags\": [[], {\"a\": \"]}\\\"\"}], \"n\": null}, "
+                + "\"title\": \"Book C\", \"authors\": [\"Carol\"]}\n");
+        assertEquals(3, new CatalogueLoader(bookDatabase).load(file, CatalogueLoader.Format.JSONL));
+        assertEquals(Collections.singletonList("Alice"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Collections.singletonList("Bob"), bookDatabase.queryAuthorsByBookTitle("Book B"));
+        assertEquals(Collections.singletonList("Carol"), bookDatabase.queryAuthorsByBookTitle("Book C"));
+
+        assertMalformed("{\"title\": \"Book A\", \"meta\": {\"x\": [1}, \"authors\": [\"Alice\"]\n",
+                CatalogueLoader.Format.JSONL, 1);
+        assertMalformed("{\"title\": \"Book A\", \"authors\": [\"Alice\", 1]}\n", CatalogueLoader.Format.JSONL, 1);
+    }
+
+    @Test
+    public void multiByteCharactersAcrossBufferBoundariesTest() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String title = "T\u00edtulo \u4e66 " + i;
+            titles.add(title);
+            content.append(title).append(",\u00c5sa \ud83d\udcda,Bob\n");
+        }
+        CatalogueLoader loader = new CatalogueLoader(bookDatabase, 7, 1, 5);
+        assertEquals(100, loader.load(write(content.toString()), CatalogueLoader.Format.CSV));
+        for (String title : titles) {
+            assertEquals(Arrays.asList("\u00c5sa \ud83d\udcda", "Bob"), bookDatabase.queryAuthorsByBookTitle(title));
+        }
+        assertEquals(100, bookDatabase.queryBookByAuthor("\u00c5sa \ud83d\udcda").size());
+    }
+
+    @Test
+    public void duplicatedTitlesAreSkippedTest() throws IOException {
+        bookDatabase.addBook("Book A", Collections.singletonList("Zoe"));
+        Path file = write("Book A,Alice\nBook B,Bob\nBook B,Bob\n");
+        assertEquals(1, new CatalogueLoader(bookDatabase, 2, 1).load(file, CatalogueLoader.Format.CSV));
+        assertEquals(Collections.singletonList("Zoe"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(2, bookDatabase.booksSize());
+    }
+
+    @Test
+    public void batchesAreBoundedTest() throws IOException {
+        List<Integer> batchSizes = new ArrayList<>();
+        DefaultBookDatabaseImpl recording = new DefaultBookDatabaseImpl() {
+            @Override
+            public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+                batchSizes.add(titles.size());
+                return super.addBooks(titles, authors);
+            }
+        };
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("Book ").append(i).append(",Author ").append(i % 10).append('\n');
+        }
+        assertEquals(1000, new CatalogueLoader(recording, 64, 2).load(write(content.toString()),
+                CatalogueLoader.Format.CSV));
+        assertEquals(16, batchSizes.size());
+        for (int i = 0; i < 15; i++) {
+            assertEquals(64, (int) batchSizes.get(i));
+        }
+        assertEquals(1000 - 15 * 64, (int) batchSizes.get(15));
+        assertEquals(100, recording.queryBookByAuthor("Author 3").size());
+    }
+
+    @Test
+    public void malformedRecordTest() throws IOException {
+        assertMalformed("Book A,Alice\nBook B\n", CatalogueLoader.Format.CSV, 2);
+        assertMalformed("Book A,Alice\n\"Book B,Bob\n", CatalogueLoader.Format.CSV, 2);
+        assertMalformed("\"Book A\"x,Alice\n", CatalogueLoader.Format.CSV, 1);
+        assertMalformed("{\"title\": \"Book A\"}\n", CatalogueLoader.Format.JSONL, 1);
+        assertMalformed("{\"title\": \"Book A\", \"authors\": [\"Alice\"]}\n[1]\n", CatalogueLoader.Format.JSONL, 2);
+        assertMalformed("{\"title\": \"Book A\", \"authors\": [\"Alice\"] \"x\": 1}\n", CatalogueLoader.Format.JSONL, 1);
+    }
+
+    private void assertMalformed(String content, CatalogueLoader.Format format, int record) throws IOException {
+        Path file = write(content);
+        try {
+            new CatalogueLoader(new DefaultBookDatabaseImpl(), 1, 1).load(file, format);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Malformed catalogue record: " + record, e.getMessage());
+        }
+    }
+
+    @Test
+    public void booksBeforeMalformedRecordStayTest() throws IOException {
+        Path file = write("Book A,Alice\nBook B,Bob\nBook C\n");
+        try {
+            new CatalogueLoader(bookDatabase, 1, 1).load(file, CatalogueLoader.Format.CSV);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(bookDatabase.booksSize() == 2);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongBatchSizeTest() {
+        new CatalogueLoader(bookDatabase, 0, 1);
+    }
+}
@@ -0,0 +1,94 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+
+public class CoAuthorGraphTest {
+
+    @Test
+    public void testWeightsFollowAddAndRemove() {
+        CoAuthorGraph graph = new CoAuthorGraph();
+        Book first = new Book("First", Arrays.asList("Ann", "Ben", "Ann"));
+        Book second = new Book("Second", Arrays.asList("Ben", "Ann", "Cid"));
+        graph.addBook(first);
+        graph.addBook(second);
+
+        assertEquals(Arrays.asList(new CoAuthor("Ann", 2), new CoAuthor("Cid", 1)), graph.topCoAuthors("Ben", 5));
+        graph.removeBook(first);
+        assertEquals(Arrays.asList(new CoAuthor("Ann", 1), new CoAuthor("Cid", 1)), graph.topCoAuthors("Ben", 5));
+        graph.removeBook(second);
+        assertEquals(Collections.emptyList(), graph.topCoAuthors("Ben", 5));
+        assertEquals(-1, graph.distance("Ann", "Ben", 10));
+    }
+
+    @Test
+    public void testNullAuthorIsNotAVertex() {
+        DefaultBookDatabaseImpl database = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.CO_AUTHOR_GRAPH,
+                DefaultBookDatabaseImpl.Option.CHANGE_LOG);
+        database.addBook("First", Arrays.asList("Ann", null, "Ben"));
+        database.addBook("Second", Arrays.asList(null, "Ben"));
+
+        assertEquals(2, database.booksSize());
+        assertEquals(1L, database.changeLog().lastSequence());
+        assertEquals(Collections.singletonList(new CoAuthor("Ann", 1)), database.queryTopCoAuthors("Ben", 5));
+        assertEquals(Collections.emptyList(), database.queryTopCoAuthors(null, 5));
+        database.removeBookByTitle("First");
+        assertEquals(Collections.emptyList(), database.queryTopCoAuthors("Ben", 5));
+        assertEquals(1, database.booksSize());
+    }
+
+    @Test
+    public void testDistanceSameAsBreadthFirstSearch() {
+        Random random = new Random(11);
+        CoAuthorGraph graph = new CoAuthorGraph();
+        Map<String, Set<String>> adjacency = new HashMap<>();
+        int authors = 3 * CoAuthorGraph.PARALLEL_FRONTIER;
+        for (int i = 0; i < 2 * authors; i++) {
+            List<String> bookAuthors = new ArrayList<>();
+            int count = 1 + random.nextInt(3);
+            for (int j = 0; j < count; j++) {
+                // a hub author makes a frontier large enough for parallel expansion
+                bookAuthors.add(random.nextInt(4) == 0 ? "Hub" : "Author " + random.nextInt(authors));
+            }
+            graph.addBook(new Book("Title " + i, bookAuthors));
+            for (String author : bookAuthors) {
+                adjacency.computeIfAbsent(author, key -> new HashSet<>()).addAll(bookAuthors);
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            String from = "Author " + random.nextInt(authors);
+            String to = "Author " + random.nextInt(authors);
+            int expected = distance(adjacency, from, to);
+            assertEquals(expected, graph.distance(from, to, Integer.MAX_VALUE));
+            if (expected > 0) {
+                assertEquals(-1, graph.distance(from, to, expected - 1));
+            }
+        }
+    }
+
+    private static int distance(Map<String, Set<String>> adjacency, String from, String to) {
+        if (!adjacency.containsKey(from) || !adjacency.containsKey(to)) {
+            return -1;
+        }
+        Map<String, Integer> distances = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        distances.put(from, 0);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            String author = queue.poll();
+            if (author.equals(to)) {
+                return distances.get(author);
+            }
+            for (String neighbour : adjacency.get(author)) {
+                if (!distances.containsKey(neighbour)) {
+                    distances.put(neighbour, distances.get(author) + 1);
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,143 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentBookDatabaseImplTest extends BookDatabaseContractTest<ConcurrentBookDatabaseImpl> {
+
+    @Override
+    protected ConcurrentBookDatabaseImpl createDatabase() {
+        return new ConcurrentBookDatabaseImpl();
+    }
+
+    @Test
+    public void testConcurrentRemovesKeepIndexesConsistent() throws Exception {
+        int booksCount = 2000;
+        int authorsCount = 50;
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < booksCount; i++) {
+            titles.add("Book " + i);
+            authors.add(Arrays.asList("Author " + random.nextInt(authorsCount), "Author " + random.nextInt(authorsCount)));
+        }
+        bookDatabase = new ConcurrentBookDatabaseImpl(8);
+        bookDatabase.init(titles, authors);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                Random threadRandom = new Random(seed);
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    switch (threadRandom.nextInt(4)) {
+                        case 0:
+                            bookDatabase.removeBooksByAuthor("Author " + threadRandom.nextInt(authorsCount));
+                            break;
+                        case 1:
+                            bookDatabase.removeBookByTitle("Book " + threadRandom.nextInt(booksCount));
+                            break;
+                        default:
+                            for (Book book : bookDatabase.queryBookByAuthor("Author " + threadRandom.nextInt(authorsCount))) {
+                                bookDatabase.queryAuthorsByBookTitle(book.getBookTitle());
+                            }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int booksLeft = 0;
+        for (int i = 0; i < booksCount; i++) {
+            List<String> bookAuthors = bookDatabase.queryAuthorsByBookTitle(titles.get(i));
+            if (!bookAuthors.isEmpty()) {
+                booksLeft++;
+                for (String author : bookAuthors) {
+                    assertTrue(bookDatabase.queryBookByAuthor(author).contains(new Book(titles.get(i), bookAuthors)));
+                }
+            }
+        }
+        int authorsLeft = 0;
+        for (int i = 0; i < authorsCount; i++) {
+            Set<Book> books = bookDatabase.queryBookByAuthor("Author " + i);
+            if (!books.isEmpty()) {
+                authorsLeft++;
+            }
+            for (Book book : books) {
+                assertFalse(bookDatabase.queryAuthorsByBookTitle(book.getBookTitle()).isEmpty());
+            }
+        }
+        assertEquals(booksLeft, bookDatabase.booksSize());
+        assertEquals(authorsLeft, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testViewIsReadOnlyAndSafeToIterateDuringWrites() throws Exception {
+        bookDatabase.init(initTitles, initAuthors);
+        Set<Book> view = bookDatabase.viewBooksByAuthor("Bob");
+        try {
+            view.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(2, bookDatabase.queryBookByAuthor("Bob").size());
+        }
+        try {
+            bookDatabase.viewAuthorsByBookTitle("Book A").add("Mallory");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; !stop.get(); i++) {
+                bookDatabase.addBook("Book " + i, Arrays.asList("Bob", "Writer"));
+                bookDatabase.removeBookByTitle("Book " + (i - 100));
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                for (Book book : bookDatabase.viewBooksByAuthor("Bob")) {
+                    assertTrue(book.getAuthors().contains("Bob"));
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testChangingAuthorsListAfterAddBookDoesNotAffectDatabase() {
+        List<String> authors = new ArrayList<>(Arrays.asList("Alice", "Bob"));
+        assertTrue(bookDatabase.addBook("Book A", authors));
+        authors.clear();
+
+        List<String> view = bookDatabase.viewAuthorsByBookTitle("Book A");
+        assertEquals(Arrays.asList("Alice", "Bob"), view);
+        authors.add("Carol");
+        for (String author : view) {
+            assertTrue(bookDatabase.queryBookByAuthor(author).contains(new Book("Book A", Collections.emptyList())));
+        }
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        assertEquals(0, bookDatabase.authorsSize());
+    }
+}
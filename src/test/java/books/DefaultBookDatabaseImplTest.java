@@ -0,0 +1,1045 @@
+package books;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DefaultBookDatabaseImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DefaultBookDatabaseImpl bookDatabase;
+
+    private List<String> initTitles;
+
+    private List<List<String>> initAuthors;
+
+    @Before
+    public void setUp() {
+        initTitles = Arrays.asList("Book A", "Book B", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"));
+    }
+
+    @After
+    public void tearDown() {
+        bookDatabase.shutDown();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testInitNullArguments() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitWithDifferentSize() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = new ArrayList<>();
+        bookDatabase.init(initTitles, initAuthors);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitWithBlankAuthorsForOneBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        initAuthors = Arrays.asList((Arrays.asList("Audrey", "Bob")),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Collections.emptyList());
+        bookDatabase.init(initTitles, initAuthors);
+    }
+
+    @Test
+    public void testBooksAndAuthorsSizesAfterProperInit() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 5 authors but got " + bookDatabase.authorsSize() + " instead", 5, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testAddBookWithDuplicate() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        initTitles = Arrays.asList("Book A", "Book B", "Book C", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Arrays.asList("Peter", "John", "Audrey"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 5 authors but got " + bookDatabase.authorsSize() + " instead", 5, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testOneBookOneAuthorRemoveBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Collections.singletonList("Book A");
+        initAuthors = Collections.singletonList(Collections.singletonList("Alice"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 1 authors but got " + bookDatabase.authorsSize() + " instead", 1, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBookByTitle(initTitles.get(0));
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testOneBookOneAuthorRemoveAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Collections.singletonList("Book A");
+        initAuthors = Collections.singletonList(Collections.singletonList("Alice"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 1 authors but got " + bookDatabase.authorsSize() + " instead", 1, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Alice");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testOneBookTwoAuthorsRemoveBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Collections.singletonList("Book A");
+        initAuthors = Collections.singletonList(Arrays.asList("Alice", "Bob"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBookByTitle(initTitles.get(0));
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testOneBookTwoAuthorsRemoveAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Collections.singletonList("Book A");
+        initAuthors = Collections.singletonList(Arrays.asList("Alice", "Bob"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Alice");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testTwoBooksDisjointAuthorSetRemoveOneAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Audrey", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Alice");
+        assertTrue(removed);
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testTwoBooksDisjointAuthorSetRemoveOneBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Audrey", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBookByTitle("Book A");
+        assertTrue(removed);
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book B");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testRemoveNonExistingBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Audrey", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBookByTitle("Book X");
+        assertFalse(removed);
+
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testRemoveNonExistingAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Audrey", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Jeannette");
+        assertFalse(removed);
+
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testRemoveAllBooksForSharedAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Alice");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testRemoveBookWithSharedAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBookByTitle("Book A");
+        assertTrue(removed);
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book B");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testGetAllBooksForGivenAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        Set<Book> expectedBooksByAlice = new HashSet<>();
+        expectedBooksByAlice.add(new Book("Book A", Arrays.asList("Alice", "Bob")));
+        expectedBooksByAlice.add(new Book("Book B", Arrays.asList("Alice", "Claire")));
+
+        assertEquals(expectedBooksByAlice, bookDatabase.queryBookByAuthor("Alice"));
+
+        Set<Book> expectedBooksByBob = new HashSet<>();
+        expectedBooksByBob.add(new Book("Book A", Arrays.asList("Alice", "Bob")));
+
+        assertEquals(expectedBooksByBob, bookDatabase.queryBookByAuthor("Bob"));
+
+        Set<Book> expectedBooksByClaire = new HashSet<>();
+        expectedBooksByClaire.add(new Book("Book B", Arrays.asList("Alice", "Claire")));
+
+        assertEquals(expectedBooksByClaire, bookDatabase.queryBookByAuthor("Claire"));
+
+        //now remove Bob, Alice should have 1 book, her books should be equal to Claire books
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Bob");
+        assertTrue(removed);
+
+        assertEquals(bookDatabase.queryBookByAuthor("Alice"), bookDatabase.queryBookByAuthor("Claire"));
+
+    }
+
+    @Test
+    public void testGetAllBooksForGivenAuthorWhichDoNotExist() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        assertEquals(Collections.emptySet(), bookDatabase.queryBookByAuthor("Diana"));
+
+    }
+
+    @Test
+    public void testGetAllAuthorsForAGivenBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        List<String> expectedAuthorsForBookA = Arrays.asList("Alice", "Bob");
+
+        assertEquals(expectedAuthorsForBookA, bookDatabase.queryAuthorsByBookTitle("Book A"));
+
+        List<String> expectedAuthorsForBookB = Arrays.asList("Alice", "Claire");
+
+        assertEquals(expectedAuthorsForBookB, bookDatabase.queryAuthorsByBookTitle("Book B"));
+
+    }
+
+    @Test
+    public void testGetAllAuthorsForAGivenBookWhichNotExist() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        List<String> expectedAuthorsForBookGhostBook = new ArrayList<>();
+
+        assertEquals(expectedAuthorsForBookGhostBook, bookDatabase.queryAuthorsByBookTitle("Book X"));
+
+    }
+
+    @Test
+    public void testSameAuthorsAndDifferentBooks() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "John"), Arrays.asList("Alice", "John"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("Alice");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+        // now remove Book
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book B");
+        assertTrue(removed);
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testMultipleScenarios() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "John"),
+                Arrays.asList("Alice", "John"),
+                Arrays.asList("Alice", "John"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        boolean removed = bookDatabase.removeBooksByAuthor("John");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+        bookDatabase.init(initTitles, initAuthors);
+
+        removed = bookDatabase.removeBookByTitle("Book A");
+        assertTrue(removed);
+        // now remove Book
+
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book B");
+        assertTrue(removed);
+        // now remove Book
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book C");
+        assertTrue(removed);
+        // now remove Book
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+        initTitles = Arrays.asList("Book A", "Book B", "Book C", "Book D");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "John", "Bob", "Claire"),
+                Arrays.asList("Alice", "Claire", "Bob"),
+                Arrays.asList("Alice", "Claire", "John"),
+                Arrays.asList("Bob", "John", "Claire", "Susan"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 4 books but got " + bookDatabase.booksSize() + " instead", 4, bookDatabase.booksSize());
+        assertEquals("Expected 5 authors but got " + bookDatabase.authorsSize() + " instead", 5, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBooksByAuthor("Susan");
+        assertTrue(removed);
+
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 4 authors but got " + bookDatabase.authorsSize() + " instead", 4, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBooksByAuthor("Bob");
+        assertTrue(removed);
+
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        removed = bookDatabase.removeBookByTitle("Book C");
+        assertTrue(removed);
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+    }
+
+    @Test
+    public void testNullQueries() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        Set<Book> resultAsSetOfBooks = bookDatabase.queryBookByAuthor(null);
+        assertEquals(Collections.emptySet(), resultAsSetOfBooks);
+
+        List<String> resultsAsListOfAuthors = bookDatabase.queryAuthorsByBookTitle(null);
+        assertEquals(Collections.emptyList(), resultsAsListOfAuthors);
+
+    }
+
+    @Test
+    public void testShutdown() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+
+        initTitles = Arrays.asList("Book A", "Book B");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"), Arrays.asList("Alice", "Claire"));
+
+        bookDatabase.init(initTitles, initAuthors);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+
+        bookDatabase.shutDown();
+
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+        assertEquals("Expected 0 authors but got " + bookDatabase.authorsSize() + " instead", 0, bookDatabase.authorsSize());
+
+
+    }
+
+
+    @Test
+    public void testBulkLoadWithDuplicate() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        initTitles = Arrays.asList("Book A", "Book B", "Book C", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Arrays.asList("Susan"));
+
+        int added = bookDatabase.bulkLoad(initTitles, initAuthors);
+        assertEquals(3, added);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+        assertEquals("Expected 5 authors but got " + bookDatabase.authorsSize() + " instead", 5, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Peter", "John", "Audrey"), bookDatabase.queryAuthorsByBookTitle("Book C"));
+
+        added = bookDatabase.bulkLoad(Arrays.asList("Book A", "Book D"), Arrays.asList(Arrays.asList("Susan"), Arrays.asList("Bob")));
+        assertEquals(1, added);
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+    }
+
+    @Test
+    public void testBulkLoadWithBlankAuthorsLeavesDatabaseUntouched() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        initAuthors = Arrays.asList((Arrays.asList("Audrey", "Bob")),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Collections.emptyList());
+        try {
+            bookDatabase.bulkLoad(initTitles, initAuthors);
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, bookDatabase.booksSize());
+            assertEquals(0, bookDatabase.authorsSize());
+            return;
+        }
+        throw new AssertionError("IllegalArgumentException expected");
+    }
+
+    @Test
+    public void testBulkLoadSameAsInit() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        DefaultBookDatabaseImpl sequentialDatabase = new DefaultBookDatabaseImpl();
+        initTitles = new ArrayList<>();
+        initAuthors = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5 * BulkBookLoader.PARTITION_SIZE; i++) {
+            initTitles.add("Book " + random.nextInt(4 * BulkBookLoader.PARTITION_SIZE));
+            initAuthors.add(Arrays.asList("Author " + random.nextInt(1000), "Author " + random.nextInt(1000)));
+        }
+
+        sequentialDatabase.init(initTitles, initAuthors);
+        bookDatabase.bulkLoad(initTitles, initAuthors);
+
+        assertEquals(sequentialDatabase.booksSize(), bookDatabase.booksSize());
+        assertEquals(sequentialDatabase.authorsSize(), bookDatabase.authorsSize());
+        for (String title : initTitles) {
+            assertEquals(sequentialDatabase.queryAuthorsByBookTitle(title), bookDatabase.queryAuthorsByBookTitle(title));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(sequentialDatabase.queryBookByAuthor("Author " + i), bookDatabase.queryBookByAuthor("Author " + i));
+        }
+    }
+
+    @Test
+    public void testSaveAndLoadSnapshot() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+        Path snapshot = folder.getRoot().toPath().resolve("books.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+
+        DefaultBookDatabaseImpl loadedDatabase = new DefaultBookDatabaseImpl();
+        loadedDatabase.init(Collections.singletonList("Book X"), Collections.singletonList(Collections.singletonList("Susan")));
+        loadedDatabase.loadSnapshot(snapshot);
+
+        assertEquals(3, loadedDatabase.booksSize());
+        assertEquals(5, loadedDatabase.authorsSize());
+        for (int i = 0; i < initTitles.size(); i++) {
+            assertEquals(initAuthors.get(i), loadedDatabase.queryAuthorsByBookTitle(initTitles.get(i)));
+        }
+        for (String author : Arrays.asList("Alice", "Bob", "Audrey", "Peter", "John")) {
+            assertEquals(bookDatabase.queryBookByAuthor(author), loadedDatabase.queryBookByAuthor(author));
+        }
+        assertEquals(Collections.emptyList(), loadedDatabase.queryAuthorsByBookTitle("Book X"));
+
+        assertTrue(loadedDatabase.removeBooksByAuthor("Audrey"));
+        assertEquals(1, loadedDatabase.booksSize());
+        assertEquals(2, loadedDatabase.authorsSize());
+    }
+
+    @Test
+    public void testSaveAndLoadSnapshotWithNullAuthor() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.addBook("Book A", Arrays.asList("Alice", null));
+        bookDatabase.addBook("Book B", Arrays.asList(null, ""));
+        Path snapshot = folder.getRoot().toPath().resolve("books.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+
+        DefaultBookDatabaseImpl loadedDatabase = new DefaultBookDatabaseImpl();
+        loadedDatabase.loadSnapshot(snapshot);
+
+        assertEquals(2, loadedDatabase.booksSize());
+        assertEquals(3, loadedDatabase.authorsSize());
+        assertEquals(Arrays.asList("Alice", null), loadedDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Arrays.asList(null, ""), loadedDatabase.queryAuthorsByBookTitle("Book B"));
+        assertEquals(2, loadedDatabase.queryBookByAuthor(null).size());
+        assertEquals(1, loadedDatabase.queryBookByAuthor("").size());
+    }
+
+    @Test
+    public void testLoadCorruptedSnapshot() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+        Path snapshot = folder.getRoot().toPath().resolve("books.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.seek(20);
+            int value = file.read();
+            file.seek(20);
+            file.write(value ^ 1);
+        }
+
+        DefaultBookDatabaseImpl loadedDatabase = new DefaultBookDatabaseImpl();
+        loadedDatabase.init(Collections.singletonList("Book X"), Collections.singletonList(Collections.singletonList("Susan")));
+        try {
+            loadedDatabase.loadSnapshot(snapshot);
+            throw new AssertionError("IOException expected");
+        } catch (IOException e) {
+            assertEquals(1, loadedDatabase.booksSize());
+        }
+    }
+
+    @Test
+    public void testAddBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertTrue(bookDatabase.addBook("Book D", Arrays.asList("Bob", "Susan")));
+        assertFalse(bookDatabase.addBook("Book A", Collections.singletonList("Susan")));
+        assertEquals("Expected 4 books but got " + bookDatabase.booksSize() + " instead", 4, bookDatabase.booksSize());
+        assertEquals("Expected 6 authors but got " + bookDatabase.authorsSize() + " instead", 6, bookDatabase.authorsSize());
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+    }
+
+    @Test
+    public void testAddBooksReportsDuplicates() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+
+        boolean[] added = bookDatabase.addBooks(Arrays.asList("Book D", "Book A", "Book E", "Book D"),
+                Arrays.asList(Arrays.asList("Bob", "Susan"),
+                        Collections.singletonList("Susan"),
+                        Collections.singletonList("Susan"),
+                        Collections.singletonList("Peter")));
+        assertTrue(Arrays.equals(new boolean[]{true, false, true, false}, added));
+        assertEquals("Expected 5 books but got " + bookDatabase.booksSize() + " instead", 5, bookDatabase.booksSize());
+        assertEquals("Expected 6 authors but got " + bookDatabase.authorsSize() + " instead", 6, bookDatabase.authorsSize());
+        assertEquals(2, bookDatabase.queryBookByAuthor("Susan").size());
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(Arrays.asList("Bob", "Susan"), bookDatabase.queryAuthorsByBookTitle("Book D"));
+    }
+
+    @Test
+    public void testAddBooksWithBlankAuthorsLeavesDatabaseUntouched() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        try {
+            bookDatabase.addBooks(initTitles, Arrays.asList(Arrays.asList("Audrey", "Bob"),
+                    Arrays.asList("Peter", "John", "Audrey"),
+                    Collections.emptyList()));
+        } catch (IllegalArgumentException e) {
+            assertEquals("Wrong argument for book at position: 2", e.getMessage());
+            assertEquals(0, bookDatabase.booksSize());
+            return;
+        }
+        throw new AssertionError("IllegalArgumentException expected");
+    }
+
+    @Test
+    public void testQueryTitlesByPrefixFollowsRemovals() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.CASE_FOLDED_TITLE_PREFIX_INDEX);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.addBook("Another Book", Collections.singletonList("Susan"));
+
+        assertEquals(Arrays.asList("Book A", "Book B", "Book C"), bookDatabase.completeTitle("book", 10));
+        assertEquals(Arrays.asList("Book A"), bookDatabase.completeTitle("BOOK", 1));
+        bookDatabase.removeBooksByAuthor("Bob");
+        assertEquals(Arrays.asList("Book C"), bookDatabase.queryTitlesByPrefix("Bo").collect(Collectors.toList()));
+        assertEquals(0, bookDatabase.queryTitlesByPrefix(null).count());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testQueryTitlesByPrefixWithoutIndex() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.queryTitlesByPrefix("Book");
+    }
+
+    @Test
+    public void testQueryBooksByAllAndAnyAuthors() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertEquals(Collections.singleton(new Book("Book B", Arrays.asList("Audrey", "Bob"))),
+                bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Bob")).collect(Collectors.toSet()));
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Alice")).count());
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Nobody")).count());
+        assertEquals(2, bookDatabase.queryBooksByAllAuthors(Arrays.asList("Audrey", "Audrey")).count());
+
+        List<String> anyTitles = bookDatabase.queryBooksByAnyAuthor(Arrays.asList("Bob", "Audrey", "Nobody", null))
+                .map(Book::getBookTitle).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList("Book A", "Book B", "Book C"), anyTitles);
+        assertEquals(0, bookDatabase.queryBooksByAnyAuthor(null).count());
+        assertEquals(0, bookDatabase.queryBooksByAllAuthors(Collections.emptyList()).count());
+    }
+
+    @Test
+    public void testQueryBooksByAnyAuthorWithNullAuthorInBook() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.addBook("Book A", Arrays.asList("Alice", null));
+        bookDatabase.addBook("Book B", Arrays.asList(null, "Bob", "Alice"));
+
+        List<String> anyTitles = bookDatabase.queryBooksByAnyAuthor(Arrays.asList("Alice", "Bob"))
+                .map(Book::getBookTitle).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList("Book A", "Book B"), anyTitles);
+    }
+
+    @Test
+    public void testRemoveBooksByAuthorWithNullCoAuthor() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.addBook("Book A", Arrays.asList("Alice", null));
+        bookDatabase.addBook("Book B", Arrays.asList(null, "Bob"));
+
+        assertTrue(bookDatabase.removeBooksByAuthor("Alice"));
+        assertEquals(1, bookDatabase.booksSize());
+        assertEquals(1, bookDatabase.queryBookByAuthor(null).size());
+    }
+
+    @Test
+    public void testCoAuthorGraphQueries() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.CO_AUTHOR_GRAPH);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.addBook("Book D", Arrays.asList("Bob", "Alice"));
+
+        assertEquals(Arrays.asList(new CoAuthor("Alice", 2), new CoAuthor("Audrey", 1)),
+                bookDatabase.queryTopCoAuthors("Bob", 10));
+        assertEquals(Collections.singletonList(new CoAuthor("Alice", 2)), bookDatabase.queryTopCoAuthors("Bob", 1));
+        assertEquals(3, bookDatabase.queryCoAuthorDistance("Alice", "Peter", 5));
+        assertEquals(-1, bookDatabase.queryCoAuthorDistance("Alice", "Peter", 2));
+        assertEquals(0, bookDatabase.queryCoAuthorDistance("Alice", "Alice", 0));
+        assertEquals(-1, bookDatabase.queryCoAuthorDistance("Alice", null, 5));
+
+        bookDatabase.removeBookByTitle("Book B");
+        assertEquals(Collections.singletonList(new CoAuthor("Alice", 2)), bookDatabase.queryTopCoAuthors("Bob", 10));
+        assertEquals(-1, bookDatabase.queryCoAuthorDistance("Alice", "Peter", 5));
+
+        Path snapshot = folder.getRoot().toPath().resolve("books.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+        bookDatabase.shutDown();
+        assertEquals(Collections.emptyList(), bookDatabase.queryTopCoAuthors("Bob", 10));
+        bookDatabase.loadSnapshot(snapshot);
+        assertEquals(1, bookDatabase.queryCoAuthorDistance("Peter", "Audrey", 2));
+        assertEquals(Collections.singletonList(new CoAuthor("Alice", 2)), bookDatabase.queryTopCoAuthors("Bob", 10));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCoAuthorGraphWithoutOption() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.queryTopCoAuthors("Bob", 10);
+    }
+
+    @Test
+    public void testQuietMissesAreCounted() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(initTitles, initAuthors);
+
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book X"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle(null));
+        assertFalse(bookDatabase.removeBookByTitle("Book X"));
+        assertFalse(bookDatabase.removeBooksByAuthor("Nobody"));
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+
+        assertEquals(2, bookDatabase.titleQueryMisses());
+        assertEquals(2, bookDatabase.removalMisses());
+    }
+
+    @Test
+    public void testMultiGet() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(initTitles, initAuthors);
+
+        List<List<String>> authors = bookDatabase.queryAuthorsByBookTitles(
+                Arrays.asList("Book C", "Book X", "Book A", "Book X", null));
+        assertEquals(5, authors.size());
+        assertEquals(Arrays.asList("Peter", "John", "Audrey"), authors.get(0));
+        assertEquals(Collections.emptyList(), authors.get(1));
+        assertEquals(Arrays.asList("Alice", "Bob"), authors.get(2));
+        assertEquals(Collections.emptyList(), authors.get(4));
+        assertEquals(3, bookDatabase.titleQueryMisses());
+
+        List<Set<Book>> books = bookDatabase.queryBooksByAuthors(Arrays.asList("Bob", "Nobody", "Bob"));
+        assertEquals(3, books.size());
+        assertEquals(bookDatabase.queryBookByAuthor("Bob"), books.get(0));
+        assertTrue(books.get(1).isEmpty());
+        assertEquals(books.get(0), books.get(2));
+    }
+
+    @Test
+    public void testChangeLog() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.CHANGE_LOG);
+        BookChangeLog.Subscription subscription =
+                bookDatabase.changeLog().subscribe(BookChangeLog.OverflowPolicy.FAIL);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.addBook("Book D", Collections.singletonList("Bob"));
+        bookDatabase.addBook("Book D", Collections.singletonList("Bob"));
+        bookDatabase.removeBooksByAuthor("Bob");
+        bookDatabase.removeBookByTitle("Book X");
+        Path snapshot = folder.getRoot().toPath().resolve("changes.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+        bookDatabase.shutDown();
+        bookDatabase.loadSnapshot(snapshot);
+
+        List<String> changes = new ArrayList<>();
+        subscription.drainTo(change -> changes.add(change.getSequence() + " " + change.getType()
+                + (change.getBook() == null ? "" : " " + change.getBook().getBookTitle())), 100);
+        assertEquals(Arrays.asList("0 ADDED Book A", "1 ADDED Book B", "2 ADDED Book C", "3 ADDED Book D"),
+                changes.subList(0, 4));
+        assertEquals(new HashSet<>(Arrays.asList("REMOVED Book A", "REMOVED Book B", "REMOVED Book D")),
+                changes.subList(4, 7).stream().map(change -> change.substring(2)).collect(Collectors.toSet()));
+        assertEquals(Arrays.asList("7 CLEARED", "8 CLEARED", "9 ADDED Book C"), changes.subList(7, changes.size()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testChangeLogWithoutOption() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.changeLog();
+    }
+
+    @Test
+    public void testRemoveAuthorReturnsRemovedBooks() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.TITLE_PREFIX_INDEX,
+                DefaultBookDatabaseImpl.Option.CO_AUTHOR_GRAPH, DefaultBookDatabaseImpl.Option.CHANGE_LOG);
+        bookDatabase.init(initTitles, initAuthors);
+        BookChangeLog.Subscription subscription = bookDatabase.changeLog().subscribe(BookChangeLog.OverflowPolicy.FAIL);
+
+        Set<Book> removed = bookDatabase.removeAuthor("Audrey");
+        assertEquals(new HashSet<>(Arrays.asList("Book B", "Book C")),
+                removed.stream().map(Book::getBookTitle).collect(Collectors.toSet()));
+        assertEquals(1, bookDatabase.booksSize());
+        assertEquals(2, bookDatabase.authorsSize());
+        assertEquals(Collections.singleton("Book A"),
+                bookDatabase.queryBookByAuthor("Bob").stream().map(Book::getBookTitle).collect(Collectors.toSet()));
+        assertTrue(bookDatabase.queryBookByAuthor("Peter").isEmpty());
+        assertEquals(Collections.singletonList("Book A"),
+                bookDatabase.queryTitlesByPrefix("Book").collect(Collectors.toList()));
+        assertEquals(Collections.singletonList(new CoAuthor("Alice", 1)), bookDatabase.queryTopCoAuthors("Bob", 10));
+        assertEquals(Collections.emptyList(), bookDatabase.queryTopCoAuthors("Peter", 10));
+
+        Set<Book> changed = new HashSet<>();
+        assertEquals(2, subscription.drainTo(change -> {
+            assertEquals(BookChange.Type.REMOVED, change.getType());
+            changed.add(change.getBook());
+        }, 10));
+        assertEquals(removed, changed);
+
+        assertTrue(bookDatabase.removeAuthor("Audrey").isEmpty());
+        assertFalse(bookDatabase.removeBooksByAuthor("Peter"));
+        assertEquals(2, bookDatabase.removalMisses());
+    }
+
+    @Test
+    public void testRemoveLargeAuthorInParallelSameAsRemoveByTitle() {
+        int books = 3 * BulkAuthorRemover.PARALLEL_THRESHOLD;
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            titles.add("Book " + i);
+            if (i % 3 == 0) {
+                authors.add(Arrays.asList("Prolific", "Co " + (i % 1000), "Solo " + i));
+            } else if (i % 3 == 1) {
+                authors.add(Arrays.asList("Co " + (i % 1000), "Prolific", "Prolific"));
+            } else {
+                authors.add(Arrays.asList("Co " + (i % 1000), "Other " + (i % 10)));
+            }
+        }
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        bookDatabase.init(titles, authors);
+        DefaultBookDatabaseImpl expected = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES);
+        expected.init(titles, authors);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(2 * books / 3, bookDatabase.removeAuthor("Prolific", pool).size());
+        } finally {
+            pool.shutdown();
+        }
+        for (Book book : new HashSet<>(expected.queryBookByAuthor("Prolific"))) {
+            expected.removeBookByTitle(book.getBookTitle());
+        }
+
+        assertEquals(expected.booksSize(), bookDatabase.booksSize());
+        assertEquals(expected.authorsSize(), bookDatabase.authorsSize());
+        assertEquals(1010, bookDatabase.authorsSize());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.queryBookByAuthor("Co " + i), bookDatabase.queryBookByAuthor("Co " + i));
+        }
+        assertTrue(bookDatabase.queryBookByAuthor("Solo 0").isEmpty());
+        assertTrue(bookDatabase.queryAuthorsByBookTitle("Book 1").isEmpty());
+        assertEquals(Arrays.asList("Co 2", "Other 2"), bookDatabase.queryAuthorsByBookTitle("Book 2"));
+    }
+
+    @Test
+    public void testAuthorPagesSameWithAndWithoutOption() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.AUTHOR_PAGES);
+        DefaultBookDatabaseImpl sorting = new DefaultBookDatabaseImpl();
+        for (DefaultBookDatabaseImpl database : Arrays.asList(bookDatabase, sorting)) {
+            database.init(initTitles, initAuthors);
+            database.addBook("Book D", Arrays.asList("Bob", "Audrey"));
+            database.addBook("Book AA", Collections.singletonList("Bob"));
+            database.removeBookByTitle("Book B");
+        }
+        for (String author : Arrays.asList("Alice", "Bob", "Audrey", "Peter", "Nobody")) {
+            for (int page = 0; page < 3; page++) {
+                assertEquals(sorting.queryBooksByAuthorPage(author, page, 2).toString(),
+                        bookDatabase.queryBooksByAuthorPage(author, page, 2).toString());
+            }
+            assertEquals(sorting.queryBooksByAuthorAfter(author, "Book A", 1).toString(),
+                    bookDatabase.queryBooksByAuthorAfter(author, "Book A", 1).toString());
+        }
+        BookPage page = bookDatabase.queryBooksByAuthorPage("Bob", 0, 2);
+        assertEquals(Arrays.asList("Book A", "Book AA"),
+                page.getBooks().stream().map(Book::getBookTitle).collect(Collectors.toList()));
+        assertEquals(3, page.getTotal());
+
+        bookDatabase.removeBookByTitle("Book AA");
+        bookDatabase.addBook("Book 0", Collections.singletonList("Bob"));
+        BookPage next = bookDatabase.queryBooksByAuthorAfter("Bob", page.getNextCursor(), 2);
+        assertEquals(Collections.singletonList("Book D"),
+                next.getBooks().stream().map(Book::getBookTitle).collect(Collectors.toList()));
+        assertFalse(next.hasNext());
+
+        bookDatabase.removeAuthor("Audrey");
+        assertEquals(0, bookDatabase.queryBooksByAuthorPage("Peter", 0, 10).getTotal());
+        assertEquals(2, bookDatabase.queryBooksByAuthorPage("Bob", 0, 10).getTotal());
+        sorting.shutDown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAuthorPageWithNegativePage() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.AUTHOR_PAGES);
+        bookDatabase.queryBooksByAuthorPage("Bob", -1, 10);
+    }
+
+    @Test
+    public void testAuthorStatisticsFollowMutations() throws IOException {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.AUTHOR_STATISTICS);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.addBook("Book D", Collections.singletonList("Bob"));
+
+        assertEquals(Collections.singletonList(new ProlificAuthor("Bob", 3)), bookDatabase.queryTopAuthors(1));
+        assertEquals(3, bookDatabase.queryBooksPerAuthorHistogram()[0]);
+        assertEquals(2, bookDatabase.queryBooksPerAuthorHistogram()[1]);
+        assertEquals(5, bookDatabase.queryCoAuthorsCount());
+        assertEquals(5, bookDatabase.estimateDistinctCoAuthorPairs());
+
+        Path snapshot = folder.getRoot().toPath().resolve("books.snapshot");
+        bookDatabase.saveSnapshot(snapshot);
+        bookDatabase.removeAuthor("Audrey");
+        assertEquals(Arrays.asList(new ProlificAuthor("Bob", 2), new ProlificAuthor("Alice", 1)),
+                bookDatabase.queryTopAuthors(10));
+        assertEquals(2, bookDatabase.queryCoAuthorsCount());
+
+        bookDatabase.shutDown();
+        assertEquals(0, bookDatabase.queryTopAuthors(10).size());
+        bookDatabase.loadSnapshot(snapshot);
+        assertEquals(Collections.singletonList(new ProlificAuthor("Bob", 3)), bookDatabase.queryTopAuthors(1));
+        assertEquals(5, bookDatabase.queryCoAuthorsCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAuthorStatisticsWithoutOption() {
+        bookDatabase = new DefaultBookDatabaseImpl();
+        bookDatabase.queryTopAuthors(10);
+    }
+
+    @Test
+    public void testChangingAuthorsListAfterAddBookDoesNotAffectDatabase() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.values());
+        List<String> authors = new ArrayList<>(Arrays.asList("Alice", "Bob"));
+        assertTrue(bookDatabase.addBook("Book A", authors));
+        authors.set(1, "Carol");
+        authors.add("Dave");
+
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Arrays.asList("Alice", "Bob"), bookDatabase.viewAuthorsByBookTitle("Book A"));
+        try {
+            bookDatabase.viewAuthorsByBookTitle("Book A").add("Carol");
+            fail("View must be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        assertEquals(0, bookDatabase.authorsSize());
+        assertTrue(bookDatabase.queryBookByAuthor("Bob").isEmpty());
+        assertTrue(bookDatabase.queryTopAuthors(10).isEmpty());
+        assertEquals(0, bookDatabase.queryCoAuthorsCount());
+    }
+
+    @Test
+    public void testInitWithWrongBookLeavesDatabaseUntouched() {
+        bookDatabase = new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.TITLE_PREFIX_INDEX);
+        initAuthors = Arrays.asList(Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"),
+                Collections.emptyList());
+        try {
+            bookDatabase.init(initTitles, initAuthors);
+            fail("Wrong book must be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Wrong argument for init book at position: 2", e.getMessage());
+        }
+        assertEquals(0, bookDatabase.booksSize());
+        assertEquals(0, bookDatabase.authorsSize());
+        assertEquals(0, bookDatabase.queryTitlesByPrefix("Book").count());
+    }
+}
@@ -0,0 +1,52 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DictionaryBookDatabaseImplTest extends BookDatabaseContractTest<DictionaryBookDatabaseImpl> {
+
+    @Override
+    protected DictionaryBookDatabaseImpl createDatabase() {
+        return new DictionaryBookDatabaseImpl();
+    }
+
+    @Test
+    public void testAuthorNamesAreStoredOnce() {
+        bookDatabase.init(Arrays.asList("Book A", "Book B"),
+                Arrays.asList(Collections.singletonList(new String("Alice")), Collections.singletonList(new String("Alice"))));
+
+        assertEquals(1, bookDatabase.authorsSize());
+        assertSame(bookDatabase.queryAuthorsByBookTitle("Book A").get(0), bookDatabase.queryAuthorsByBookTitle("Book B").get(0));
+    }
+
+    @Test
+    public void testBookDecodesAuthorsAfterShutdown() {
+        bookDatabase.init(initTitles, initAuthors);
+        Book book = bookDatabase.queryBookByAuthor("Alice").iterator().next();
+
+        bookDatabase.shutDown();
+        bookDatabase.init(Collections.singletonList("Book X"), Collections.singletonList(Collections.singletonList("Zoe")));
+
+        assertEquals(Arrays.asList("Alice", "Bob"), book.getAuthors());
+    }
+
+    @Test
+    public void testDictionary() {
+        AuthorDictionary dictionary = new AuthorDictionary();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.encode("Author " + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionary.encode("Author " + i));
+            assertEquals(i, dictionary.idOf("Author " + i));
+            assertEquals("Author " + i, dictionary.nameOf(i));
+        }
+        assertEquals(-1, dictionary.idOf("Author 1000"));
+        assertEquals(-1, dictionary.idOf(null));
+        assertEquals(1000, dictionary.size());
+    }
+}
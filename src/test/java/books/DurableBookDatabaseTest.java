@@ -0,0 +1,286 @@
+package books;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DurableBookDatabaseTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private DurableBookDatabase bookDatabase;
+
+    private List<String> initTitles;
+
+    private List<List<String>> initAuthors;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.getRoot().toPath().resolve("books");
+        bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS);
+        initTitles = Arrays.asList("Book A", "Book B", "Book C");
+        initAuthors = Arrays.asList(Arrays.asList("Alice", "Bob"),
+                Arrays.asList("Audrey", "Bob"),
+                Arrays.asList("Peter", "John", "Audrey"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        bookDatabase.close();
+    }
+
+    @Test
+    public void testRecoveryReplaysLog() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        assertFalse(bookDatabase.removeBookByTitle("Book A"));
+        assertTrue(bookDatabase.removeBooksByAuthor("John"));
+
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals("Expected 2 authors but got " + bookDatabase.authorsSize() + " instead", 2, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book B"));
+    }
+
+    @Test
+    public void testRecoveryAfterShutDown() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.shutDown();
+        bookDatabase.init(Collections.singletonList("Book D"), Collections.singletonList(Collections.singletonList("Susan")));
+
+        reopen(WriteAheadLog.FsyncPolicy.NEVER);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertEquals(Collections.singletonList("Susan"), bookDatabase.queryAuthorsByBookTitle("Book D"));
+    }
+
+    @Test
+    public void testCompactionReplacesLogWithSnapshot() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.compact();
+        assertTrue(bookDatabase.removeBookByTitle("Book C"));
+
+        assertEquals(Arrays.asList("snapshot-00000000000000000001.bin", "wal-00000000000000000001.log"), files());
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 2 books but got " + bookDatabase.booksSize() + " instead", 2, bookDatabase.booksSize());
+        assertEquals("Expected 3 authors but got " + bookDatabase.authorsSize() + " instead", 3, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testBackgroundCompaction() throws Exception {
+        bookDatabase.close();
+        bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.INTERVAL, 10, 3);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.removeBookByTitle("Book A");
+        bookDatabase.removeBookByTitle("Book B");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!files().contains("snapshot-00000000000000000001.bin") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        reopen(WriteAheadLog.FsyncPolicy.INTERVAL);
+        assertEquals("Expected 1 books but got " + bookDatabase.booksSize() + " instead", 1, bookDatabase.booksSize());
+        assertTrue(files().contains("snapshot-00000000000000000001.bin"));
+    }
+
+    @Test
+    public void testCompactionCountsRecordsOfReopenedSegment() throws Exception {
+        bookDatabase.close();
+        bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS, 10, 3);
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.removeBookByTitle("Book A");
+        bookDatabase.close();
+        bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS, 10, 3);
+        bookDatabase.removeBookByTitle("Book B");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!files().contains("snapshot-00000000000000000001.bin") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(files().contains("snapshot-00000000000000000001.bin"));
+        bookDatabase.removeBookByTitle("Book C");
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        bookDatabase.close();
+
+        Path segment = directory.resolve("wal-00000000000000000000.log");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 3 books but got " + bookDatabase.booksSize() + " instead", 3, bookDatabase.booksSize());
+    }
+
+    @Test
+    public void testCorruptedEarlierSegmentFailsRecovery() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        bookDatabase.close();
+
+        Path segment = directory.resolve("wal-00000000000000000000.log");
+        Files.copy(segment, directory.resolve("wal-00000000000000000001.log"));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(20);
+            file.write(file.read() ^ 0xFF);
+        }
+        long length = Files.size(segment);
+        try {
+            bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Torn or corrupted frame in "));
+        }
+        assertEquals(length, Files.size(segment));
+    }
+
+    @Test
+    public void testUnreadableSnapshotFailsRecovery() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.compact();
+        bookDatabase.close();
+
+        Path snapshot = directory.resolve("snapshot-00000000000000000001.bin");
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            file.setLength(file.length() / 2);
+        }
+        try {
+            bookDatabase = new DurableBookDatabase(directory, WriteAheadLog.FsyncPolicy.ALWAYS);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Cannot recover "));
+        }
+        assertTrue(files().contains("snapshot-00000000000000000001.bin"));
+    }
+
+    @Test
+    public void testReplayStreamsRecordsLargerThanBuffer() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("large.log");
+        int[] sizes = {10, 200_000, 0, 70_000, 65_528};
+        try (WriteAheadLog log = new WriteAheadLog(file, WriteAheadLog.FsyncPolicy.NEVER, 0)) {
+            for (int i = 0; i < sizes.length; i++) {
+                byte[] payload = new byte[sizes[i]];
+                Arrays.fill(payload, (byte) i);
+                log.append(ByteBuffer.wrap(payload));
+            }
+        }
+        List<ByteBuffer> records = new ArrayList<>();
+        assertEquals(sizes.length, WriteAheadLog.replay(file, records::add, false));
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(sizes[i], records.get(i).remaining());
+            if (sizes[i] > 0) {
+                assertEquals((byte) i, records.get(i).get(sizes[i] - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testNullAuthorIsLoggedAndCompacted() throws IOException {
+        bookDatabase.init(Arrays.asList("Book A", "Book B"), Arrays.asList(Arrays.asList("Alice", null), Arrays.asList("Bob")));
+        bookDatabase.compact();
+        assertTrue(bookDatabase.addBook("Book C", Arrays.asList(null, "Carol")));
+
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals(3, bookDatabase.booksSize());
+        assertEquals(Arrays.asList(null, "Carol"), bookDatabase.queryAuthorsByBookTitle("Book C"));
+        assertEquals(2, bookDatabase.queryBookByAuthor(null).size());
+    }
+
+    @Test
+    public void testInvalidInitIsNotLogged() throws IOException {
+        try {
+            bookDatabase.init(Arrays.asList("Book A", null), initAuthors.subList(0, 2));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Wrong argument for init book at position: 1", e.getMessage());
+        }
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 0 books but got " + bookDatabase.booksSize() + " instead", 0, bookDatabase.booksSize());
+    }
+
+    @Test
+    public void testConcurrentMutationsAreGroupCommitted() throws Exception {
+        int threads = 8;
+        int booksPerThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            writers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < booksPerThread; i++) {
+                    bookDatabase.init(Collections.singletonList("Book " + thread + "-" + i),
+                            Collections.singletonList(Collections.singletonList("Author " + thread)));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(threads * booksPerThread, bookDatabase.booksSize());
+        assertTrue("Expected less commits than records but got " + bookDatabase.groupCommits(),
+                bookDatabase.groupCommits() < threads * booksPerThread);
+
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals(threads * booksPerThread, bookDatabase.booksSize());
+        assertEquals(threads, bookDatabase.authorsSize());
+    }
+
+    private void reopen(WriteAheadLog.FsyncPolicy policy) throws IOException {
+        bookDatabase.close();
+        bookDatabase = new DurableBookDatabase(directory, policy);
+    }
+
+    private List<String> files() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                names.add(file.getFileName().toString());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void testRecoveryReplaysAddedBooks() throws IOException {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.addBook("Book D", Collections.singletonList("Susan")));
+        boolean[] added = bookDatabase.addBooks(Arrays.asList("Book D", "Book E"),
+                Arrays.asList(Collections.singletonList("Peter"), Collections.singletonList("Susan")));
+        assertTrue(Arrays.equals(new boolean[]{false, true}, added));
+
+        reopen(WriteAheadLog.FsyncPolicy.ALWAYS);
+        assertEquals("Expected 5 books but got " + bookDatabase.booksSize() + " instead", 5, bookDatabase.booksSize());
+        assertEquals(2, bookDatabase.queryBookByAuthor("Susan").size());
+    }
+}
@@ -0,0 +1,108 @@
+package books;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstrumentedBookDatabaseTest {
+
+    private InstrumentedBookDatabase bookDatabase;
+
+    @Before
+    public void setUp() {
+        bookDatabase = new InstrumentedBookDatabase(new DefaultBookDatabaseImpl());
+        bookDatabase.init(Arrays.asList("Book A", "Book B", "Book C"),
+                Arrays.asList(Arrays.asList("Alice", "Bob"),
+                        Arrays.asList("Audrey", "Bob"),
+                        Arrays.asList("Peter", "John", "Audrey")));
+    }
+
+    @Test
+    public void testOperationsAreCounted() {
+        bookDatabase.queryBookByAuthor("Bob");
+        bookDatabase.queryBookByAuthor("Alice");
+        bookDatabase.queryBookByAuthor("Nobody");
+        bookDatabase.removeBooksByAuthor("Bob");
+        try {
+            bookDatabase.addBook(null, Collections.singletonList("Bob"));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertEquals(1, bookDatabase.latency(InstrumentedBookDatabase.Operation.INIT).getCount());
+        assertEquals(3, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_BOOK_BY_AUTHOR).getCount());
+        assertEquals(1, bookDatabase.latency(InstrumentedBookDatabase.Operation.REMOVE_BOOKS_BY_AUTHOR).getCount());
+        assertEquals(1, bookDatabase.errors(InstrumentedBookDatabase.Operation.ADD_BOOK));
+        assertEquals(2, bookDatabase.getAuthorBooksMax());
+        assertEquals(1, bookDatabase.getAuthorBooksP50());
+        assertEquals(1, bookDatabase.getBooksSize());
+        assertEquals(3, bookDatabase.getAuthorsSize());
+        assertEquals(Long.valueOf(3), bookDatabase.getOperationCounts().get("QUERY_BOOK_BY_AUTHOR"));
+
+        bookDatabase.reset();
+        assertEquals(Long.valueOf(0), bookDatabase.getOperationCounts().get("QUERY_BOOK_BY_AUTHOR"));
+    }
+
+    @Test
+    public void testDisabledDoesNotRecord() {
+        bookDatabase.setEnabled(false);
+        assertEquals(2, bookDatabase.queryBookByAuthor("Bob").size());
+        assertEquals(0, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_BOOK_BY_AUTHOR).getCount());
+        bookDatabase.setEnabled(true);
+        bookDatabase.queryBookByAuthor("Bob");
+        assertEquals(1, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_BOOK_BY_AUTHOR).getCount());
+    }
+
+    @Test
+    public void testSlowOperationsAreCounted() {
+        bookDatabase = new InstrumentedBookDatabase(new DefaultBookDatabaseImpl(), 0, TimeUnit.NANOSECONDS);
+        bookDatabase.queryAuthorsByBookTitle("Book A");
+        bookDatabase.queryAuthorsByBookTitle("Book B");
+        assertEquals(2, bookDatabase.getSlowOperationCount());
+    }
+
+    @Test
+    public void testJmxAndReporter() throws Exception {
+        ObjectName name = bookDatabase.registerMBean("test");
+        try {
+            assertEquals(3, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "BooksSize"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+
+        CountDownLatch reported = new CountDownLatch(2);
+        Closeable reporting = bookDatabase.startReporting(metrics -> {
+            InstrumentedBookDatabase.LOG_REPORTER.report(metrics);
+            reported.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        try {
+            assertTrue(reported.await(10, TimeUnit.SECONDS));
+        } finally {
+            reporting.close();
+        }
+    }
+
+    @Test
+    public void testMultiGetIsRecordedOnce() {
+        List<Set<Book>> books = bookDatabase.queryBooksByAuthors(Arrays.asList("Bob", "Peter"));
+        assertEquals(2, books.get(0).size());
+        assertEquals(Collections.singletonList(Arrays.asList("Alice", "Bob")),
+                bookDatabase.queryAuthorsByBookTitles(Collections.singletonList("Book A")));
+
+        assertEquals(1, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_BOOKS_BY_AUTHORS).getCount());
+        assertEquals(1, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_AUTHORS_BY_BOOK_TITLES).getCount());
+        assertEquals(0, bookDatabase.latency(InstrumentedBookDatabase.Operation.QUERY_BOOK_BY_AUTHOR).getCount());
+        assertEquals(2, bookDatabase.getAuthorBooksMax());
+    }
+}
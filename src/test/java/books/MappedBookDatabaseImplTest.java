@@ -0,0 +1,100 @@
+package books;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedBookDatabaseImplTest extends BookDatabaseContractTest<MappedBookDatabaseImpl> {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path catalogue;
+
+    @Override
+    protected MappedBookDatabaseImpl createDatabase() {
+        catalogue = folder.getRoot().toPath().resolve("books.catalogue");
+        return new MappedBookDatabaseImpl(catalogue);
+    }
+
+    @Test
+    public void testReopenExistingCatalogue() {
+        initTitles = Arrays.asList("Book A", "\u017B\u00F3\u0142ty Book", "Book C");
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+        bookDatabase.flush();
+
+        bookDatabase = new MappedBookDatabaseImpl(catalogue);
+
+        assertEquals(2, bookDatabase.booksSize());
+        assertEquals(4, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("\u017B\u00F3\u0142ty Book"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book A"));
+        assertEquals(Collections.singleton(new Book("\u017B\u00F3\u0142ty Book", Collections.emptyList())), bookDatabase.queryBookByAuthor("Bob"));
+    }
+
+    @Test
+    public void testNullAuthorSurvivesReopen() {
+        bookDatabase.init(Arrays.asList("Book A", "Book B"),
+                Arrays.asList(Arrays.asList("Alice", null), Arrays.asList(null, "")));
+
+        bookDatabase = new MappedBookDatabaseImpl(catalogue);
+        assertEquals(3, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList(null, ""), bookDatabase.queryAuthorsByBookTitle("Book B"));
+        assertEquals(2, bookDatabase.queryBookByAuthor(null).size());
+        assertEquals(1, bookDatabase.queryBookByAuthor("").size());
+    }
+
+    @Test
+    public void testInitAppendsToExistingCatalogue() {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+
+        bookDatabase.init(Arrays.asList("Book B", "Book D"), Arrays.asList(Arrays.asList("Susan"), Arrays.asList("Alice", "Alice")));
+
+        assertEquals(3, bookDatabase.booksSize());
+        assertEquals(5, bookDatabase.authorsSize());
+        assertEquals(Arrays.asList("Audrey", "Bob"), bookDatabase.queryAuthorsByBookTitle("Book B"));
+        assertTrue(bookDatabase.removeBooksByAuthor("Alice"));
+        assertEquals(4, bookDatabase.authorsSize());
+    }
+
+    @Test
+    public void testManyBooks() {
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            titles.add("Book " + i);
+            authors.add(Arrays.asList("Author " + i % 100, "Author " + i % 7));
+        }
+        bookDatabase.init(titles, authors);
+
+        assertEquals(10_000, bookDatabase.booksSize());
+        assertEquals(100, bookDatabase.authorsSize());
+        for (int i = 0; i < 10_000; i += 97) {
+            assertEquals(authors.get(i), bookDatabase.queryAuthorsByBookTitle(titles.get(i)));
+        }
+        assertEquals(100, bookDatabase.queryBookByAuthor("Author 42").size());
+    }
+
+    @Test
+    public void testAddBooksSurviveReopen() {
+        bookDatabase.init(initTitles, initAuthors);
+        boolean[] added = bookDatabase.addBooks(Arrays.asList("Book D", "Book A"),
+                Arrays.asList(Arrays.asList("Bob", "Susan"), Collections.singletonList("Susan")));
+        assertTrue(Arrays.equals(new boolean[]{true, false}, added));
+        assertFalse(bookDatabase.addBook("Book D", Collections.singletonList("Peter")));
+
+        bookDatabase = new MappedBookDatabaseImpl(catalogue);
+        assertEquals("Expected 4 books but got " + bookDatabase.booksSize() + " instead", 4, bookDatabase.booksSize());
+        assertEquals(Arrays.asList("Bob", "Susan"), bookDatabase.queryAuthorsByBookTitle("Book D"));
+        assertEquals(3, bookDatabase.queryBookByAuthor("Bob").size());
+    }
+}
@@ -0,0 +1,96 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void testPlusMinusKeepOriginal() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.plus("a", 1);
+        PersistentHashMap<String, Integer> two = one.plus("b", 2);
+        PersistentHashMap<String, Integer> replaced = two.plus("a", 3);
+        PersistentHashMap<String, Integer> removed = replaced.minus("b");
+
+        assertEquals(0, empty.size());
+        assertNull(empty.get("a"));
+        assertEquals(1, one.size());
+        assertFalse(one.containsKey("b"));
+        assertEquals(2, two.size());
+        assertEquals(Integer.valueOf(1), two.get("a"));
+        assertEquals(2, replaced.size());
+        assertEquals(Integer.valueOf(3), replaced.get("a"));
+        assertEquals(1, removed.size());
+        assertNull(removed.get("b"));
+        assertEquals(Integer.valueOf(2), two.get("b"));
+        assertEquals(Integer.valueOf(0), removed.getOrDefault("b", 0));
+        assertSame(removed, removed.minus("missing"));
+        assertSame(removed, removed.plus("a", removed.get("a")));
+        assertSame(empty, one.minus("a"));
+    }
+
+    @Test
+    public void testNullKey() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty().plus(null, 1).plus("a", 2);
+        assertEquals(Integer.valueOf(1), map.get(null));
+        assertEquals(1, map.minus(null).size());
+        assertNull(map.minus(null).get(null));
+    }
+
+    @Test
+    public void testCollidingHashes() {
+        // "Aa" and "BB" have the same hash code
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .plus("Aa", 1).plus("BB", 2).plus("AaAa", 3).plus("BBBB", 4).plus("AaBB", 5);
+        assertEquals(5, map.size());
+        assertEquals(Integer.valueOf(2), map.get("BB"));
+        assertEquals(Integer.valueOf(5), map.get("AaBB"));
+        PersistentHashMap<String, Integer> removed = map.minus("Aa").minus("AaAa");
+        assertEquals(3, removed.size());
+        assertNull(removed.get("Aa"));
+        assertEquals(Integer.valueOf(2), removed.get("BB"));
+        assertEquals(Integer.valueOf(4), removed.get("BBBB"));
+        assertEquals(Integer.valueOf(1), map.get("Aa"));
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            // keys differing only in high bits go deep into the trie
+            int key = random.nextBoolean() ? random.nextInt(5_000) : random.nextInt(64) << 26;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 10_000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+        for (int key = 0; key < 5_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            for (Map.Entry<Integer, Integer> entry : expectedVersions.get(i).entrySet()) {
+                assertEquals(entry.getValue(), versions.get(i).get(entry.getKey()));
+            }
+            assertEquals(expectedVersions.get(i).size(), versions.get(i).size());
+        }
+    }
+}
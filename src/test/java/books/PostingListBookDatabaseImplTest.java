@@ -0,0 +1,57 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PostingListBookDatabaseImplTest extends BookDatabaseContractTest<PostingListBookDatabaseImpl> {
+
+    @Override
+    protected PostingListBookDatabaseImpl createDatabase() {
+        return new PostingListBookDatabaseImpl();
+    }
+
+    @Test
+    public void testIdsAreReused() {
+        bookDatabase.init(initTitles, initAuthors);
+        assertTrue(bookDatabase.removeBooksByAuthor("Bob"));
+
+        bookDatabase.init(Arrays.asList("Book D", "Book E"), Arrays.asList(Arrays.asList("Audrey"), Arrays.asList("Bob")));
+
+        Set<Book> expectedBooksByAudrey = new HashSet<>();
+        expectedBooksByAudrey.add(new Book("Book C", Collections.emptyList()));
+        expectedBooksByAudrey.add(new Book("Book D", Collections.emptyList()));
+        assertEquals(expectedBooksByAudrey, bookDatabase.queryBookByAuthor("Audrey"));
+        assertEquals(Collections.singleton(new Book("Book E", Collections.emptyList())), bookDatabase.queryBookByAuthor("Bob"));
+        assertEquals(3, bookDatabase.booksSize());
+    }
+
+    @Test
+    public void testProlificAuthor() {
+        List<String> titles = new ArrayList<>();
+        List<List<String>> authors = new ArrayList<>();
+        for (int i = 0; i < 3 * PostingList.INLINE_MAX; i++) {
+            titles.add("Book " + i);
+            authors.add(Arrays.asList("Prolific", "Author " + i));
+        }
+        bookDatabase.init(titles, authors);
+        assertEquals(titles.size(), bookDatabase.queryBookByAuthor("Prolific").size());
+
+        for (int i = 0; i < titles.size(); i += 2) {
+            assertTrue(bookDatabase.removeBookByTitle(titles.get(i)));
+        }
+        Set<Book> books = bookDatabase.queryBookByAuthor("Prolific");
+        assertEquals(titles.size() / 2, books.size());
+        for (int i = 0; i < titles.size(); i++) {
+            assertEquals(i % 2 == 1, books.contains(new Book(titles.get(i), Collections.emptyList())));
+        }
+
+        assertTrue(bookDatabase.removeBooksByAuthor("Prolific"));
+        assertEquals(0, bookDatabase.booksSize());
+        assertEquals(0, bookDatabase.authorsSize());
+    }
+
+}
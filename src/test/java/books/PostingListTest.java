@@ -0,0 +1,130 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PostingListTest {
+
+    @Test
+    public void testInlineAddRemove() {
+        PostingList postings = new PostingList();
+        assertTrue(postings.add(5));
+        assertTrue(postings.add(1));
+        assertFalse(postings.add(5));
+        assertEquals(2, postings.size());
+        assertTrue(Arrays.equals(new int[]{1, 5}, postings.toArray()));
+
+        assertTrue(postings.remove(1));
+        assertFalse(postings.remove(1));
+        assertTrue(postings.contains(5));
+        assertFalse(postings.contains(1));
+        assertEquals(1, postings.size());
+    }
+
+    @Test
+    public void testSameAsTreeSetAcrossRepresentations() {
+        Random random = new Random(3);
+        PostingList postings = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        // dense range to get bitmap chunks, wide range to get many sparse chunks
+        int[] ranges = {10_000, 1 << 22};
+        for (int range : ranges) {
+            for (int i = 0; i < 60_000; i++) {
+                int id = random.nextInt(range);
+                assertEquals(expected.add(id), postings.add(id));
+            }
+            assertSame(expected, postings);
+            for (int i = 0; i < 80_000; i++) {
+                int id = random.nextInt(range);
+                assertEquals(expected.remove(id), postings.remove(id));
+            }
+            assertSame(expected, postings);
+        }
+    }
+
+    @Test
+    public void testIteratorAdvance() {
+        Random random = new Random(5);
+        PostingList postings = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int size : new int[]{10, PostingList.INLINE_MAX + 1, 50_000}) {
+            while (expected.size() < size) {
+                int id = random.nextInt(1 << 20);
+                expected.add(id);
+                postings.add(id);
+            }
+            PostingList.PostingIterator iterator = postings.iterator();
+            int target = 0;
+            while (true) {
+                target += random.nextInt(1 << 12);
+                Integer ceiling = expected.ceiling(target);
+                int advanced = iterator.advance(target);
+                if (ceiling == null) {
+                    assertEquals(-1, advanced);
+                    break;
+                }
+                assertEquals(ceiling.intValue(), advanced);
+                assertEquals(ceiling.intValue(), iterator.nextInt());
+                target = ceiling + 1;
+            }
+        }
+    }
+
+    @Test
+    public void testIntersectionAndUnionSameAsTreeSet() {
+        Random random = new Random(11);
+        // inline, sparse chunks and bitmap chunks
+        int[][] shapes = {{20, 1 << 20}, {3_000, 1 << 22}, {60_000, 100_000}};
+        List<PostingList> lists = new ArrayList<>();
+        List<TreeSet<Integer>> expectedLists = new ArrayList<>();
+        for (int[] shape : shapes) {
+            PostingList postings = new PostingList();
+            TreeSet<Integer> expected = new TreeSet<>();
+            while (expected.size() < shape[0]) {
+                int id = random.nextInt(shape[1]);
+                expected.add(id);
+                postings.add(id);
+            }
+            lists.add(postings);
+            expectedLists.add(expected);
+        }
+        // every list shares a few ids
+        for (int id : new int[]{7, 4_242, 99_999}) {
+            for (int i = 0; i < lists.size(); i++) {
+                lists.get(i).add(id);
+                expectedLists.get(i).add(id);
+            }
+        }
+        TreeSet<Integer> expectedIntersection = new TreeSet<>(expectedLists.get(0));
+        TreeSet<Integer> expectedUnion = new TreeSet<>();
+        for (TreeSet<Integer> expected : expectedLists) {
+            expectedIntersection.retainAll(expected);
+            expectedUnion.addAll(expected);
+        }
+        assertEquals(new ArrayList<>(expectedIntersection), toList(PostingList.intersection(lists)));
+        assertEquals(new ArrayList<>(expectedUnion), toList(PostingList.union(lists)));
+        assertFalse(PostingList.intersection(Collections.emptyList()).hasNext());
+        assertFalse(PostingList.union(Collections.emptyList()).hasNext());
+    }
+
+    private static List<Integer> toList(PrimitiveIterator.OfInt ids) {
+        List<Integer> list = new ArrayList<>();
+        ids.forEachRemaining((int id) -> list.add(id));
+        return list;
+    }
+
+    private static void assertSame(TreeSet<Integer> expected, PostingList postings) {
+        assertEquals(expected.size(), postings.size());
+        int[] ids = postings.toArray();
+        int i = 0;
+        for (int id : expected) {
+            assertEquals(id, ids[i++]);
+            assertTrue(postings.contains(id));
+        }
+    }
+}
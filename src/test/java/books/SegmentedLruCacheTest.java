@@ -0,0 +1,106 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentedLruCacheTest {
+
+    @Test
+    public void testScanDoesNotEvictHotEntries() {
+        SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(10);
+        for (int i = 0; i < 5; i++) {
+            cache.get(i, String::valueOf);
+            cache.get(i, String::valueOf);
+        }
+        for (int i = 100; i < 200; i++) {
+            cache.get(i, String::valueOf);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(String.valueOf(i), cache.getIfPresent(i));
+        }
+        assertEquals(10, cache.size());
+        assertEquals(95, cache.stats().getEvictionCount());
+        assertEquals(5, cache.stats().getHitCount());
+        assertEquals(105, cache.stats().getLoadCount());
+    }
+
+    @Test
+    public void testInvalidationDuringLoadIsNotCached() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        assertEquals("stale", cache.get("key", key -> {
+            cache.invalidate(key);
+            return "stale";
+        }));
+        assertEquals(null, cache.getIfPresent("key"));
+        assertEquals("fresh", cache.get("key", key -> "fresh"));
+        assertEquals("fresh", cache.getIfPresent("key"));
+    }
+
+    @Test
+    public void testFailedLoadIsRethrownAndNotCached() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            cache.get("key", key -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("store down");
+            });
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("store down", e.getMessage());
+        }
+        assertEquals("value", cache.get("key", key -> "value"));
+        assertEquals(1, calls.get());
+        assertTrue(cache.stats().hitRate() < 1.0);
+    }
+
+    @Test
+    public void testReadAfterInvalidationDoesNotJoinLoadInFlight() throws Exception {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> staleLoad = executor.submit(() -> cache.get("key", key -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "stale";
+            }));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            cache.invalidate("key");
+
+            assertEquals("fresh", cache.get("key", key -> "fresh"));
+            release.countDown();
+            assertEquals("stale", staleLoad.get(10, TimeUnit.SECONDS));
+            assertEquals("fresh", cache.getIfPresent("key"));
+            assertEquals(2, cache.stats().getLoadCount());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidationOfOtherKeyDoesNotPreventCaching() {
+        SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(10);
+        assertEquals("value", cache.get("key", key -> {
+            cache.invalidate("other");
+            return "value";
+        }));
+        assertEquals("value", cache.getIfPresent("key"));
+    }
+}
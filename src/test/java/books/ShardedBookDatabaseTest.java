@@ -0,0 +1,216 @@
+package books;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedBookDatabaseTest {
+
+    private final List<BookShardServer> servers = new ArrayList<>();
+
+    private ShardedBookDatabase bookDatabase;
+
+    private List<String> initTitles;
+
+    private List<List<String>> initAuthors;
+
+    @Before
+    public void setUp() {
+        initTitles = new ArrayList<>();
+        initAuthors = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            initTitles.add("Book " + i);
+            initAuthors.add(Arrays.asList("Author " + i % 7, "Author " + i % 11));
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (bookDatabase != null) {
+            bookDatabase.close();
+        }
+        for (BookShardServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testSameResultsAsSingleDatabase() {
+        bookDatabase = new ShardedBookDatabase(4);
+        assertSameAsDefault(bookDatabase);
+    }
+
+    @Test
+    public void testRemoteShards() {
+        bookDatabase = new ShardedBookDatabase(3, index -> {
+            try {
+                BookShardServer server = new BookShardServer(new LocalBookShard(), 0);
+                servers.add(server);
+                return new RemoteBookShard(server.getPort());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertSameAsDefault(bookDatabase);
+        try {
+            bookDatabase.addBooks(Arrays.asList("Book X", null), Arrays.asList(Collections.singletonList("A"), null));
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Wrong argument for book at position: 1", e.getMessage());
+        }
+        try {
+            new RemoteBookShard(servers.get(0).getPort()).addBook(null, null);
+            throw new AssertionError("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Wrong argument for book: null", e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void testResizeMovesOnlyMisplacedBooks() {
+        bookDatabase = new ShardedBookDatabase(3);
+        bookDatabase.init(initTitles, initAuthors);
+        Set<Book> before = bookDatabase.queryBookByAuthor("Author 3");
+
+        int moved = bookDatabase.resize(5);
+        assertTrue(moved > 0 && moved < initTitles.size());
+        assertEquals(5, bookDatabase.shardCount());
+        assertEquals(initTitles.size(), bookDatabase.booksSize());
+        assertEquals(before, bookDatabase.queryBookByAuthor("Author 3"));
+
+        bookDatabase.resize(1);
+        assertEquals(initTitles.size(), bookDatabase.booksSize());
+        assertEquals(11, bookDatabase.authorsSize());
+        for (int i = 0; i < initTitles.size(); i++) {
+            assertEquals(initAuthors.get(i), bookDatabase.queryAuthorsByBookTitle(initTitles.get(i)));
+        }
+        assertEquals(0, bookDatabase.resize(1));
+    }
+
+    @Test
+    public void testGrowingMovesBooksOnlyToNewShard() {
+        for (int shardCount = 1; shardCount < 16; shardCount++) {
+            int moved = 0;
+            for (int i = 0; i < 10_000; i++) {
+                int before = ShardedBookDatabase.shardIndex("Book " + i, shardCount);
+                int after = ShardedBookDatabase.shardIndex("Book " + i, shardCount + 1);
+                assertTrue(before >= 0 && before < shardCount);
+                if (before != after) {
+                    assertEquals(shardCount, after);
+                    moved++;
+                }
+            }
+            int expected = 10_000 / (shardCount + 1);
+            assertTrue("moved " + moved + " of 10000 to shard " + shardCount,
+                    moved > expected * 8 / 10 && moved < expected * 12 / 10);
+        }
+    }
+
+    @Test
+    public void testFailedResizeKeepsShards() {
+        AtomicBoolean full = new AtomicBoolean();
+        bookDatabase = new ShardedBookDatabase(3, index -> index > 0 ? new LocalBookShard() : new LocalBookShard() {
+            @Override
+            public boolean[] addBooks(List<String> titles, List<List<String>> authors) {
+                if (full.get()) {
+                    super.addBooks(titles.subList(0, 1), authors.subList(0, 1));
+                    throw new IllegalStateException("Shard is full");
+                }
+                return super.addBooks(titles, authors);
+            }
+        });
+        bookDatabase.init(initTitles, initAuthors);
+        Set<Book> before = bookDatabase.queryBookByAuthor("Author 3");
+        full.set(true);
+
+        try {
+            bookDatabase.resize(2);
+            throw new AssertionError("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("Shard is full", e.getMessage());
+        }
+        assertEquals(3, bookDatabase.shardCount());
+        assertEquals(initTitles.size(), bookDatabase.booksSize());
+        assertEquals(before, bookDatabase.queryBookByAuthor("Author 3"));
+    }
+
+    private void assertSameAsDefault(BookDatabase sharded) {
+        DefaultBookDatabaseImpl expected = new DefaultBookDatabaseImpl();
+        expected.init(initTitles, initAuthors);
+        sharded.init(initTitles, initAuthors);
+
+        assertEquals(expected.booksSize(), sharded.booksSize());
+        for (int i = 0; i < 11; i++) {
+            assertEquals(expected.queryBookByAuthor("Author " + i), sharded.queryBookByAuthor("Author " + i));
+        }
+        assertEquals(Arrays.asList("Author 3", "Author 3"), sharded.queryAuthorsByBookTitle("Book 3"));
+        assertEquals(Collections.emptyList(), sharded.queryAuthorsByBookTitle("Book X"));
+
+        assertTrue(sharded.addBook("Book X", Collections.singletonList("Author 3")));
+        assertFalse(sharded.addBook("Book X", Collections.singletonList("Author 3")));
+        boolean[] added = sharded.addBooks(Arrays.asList("Book 1", "Book Y", "Book Y"),
+                Arrays.asList(Collections.singletonList("Susan"), Collections.singletonList("Susan"),
+                        Collections.singletonList("Susan")));
+        assertTrue(Arrays.equals(new boolean[]{false, true, false}, added));
+
+        assertTrue(sharded.removeBooksByAuthor("Author 3"));
+        assertFalse(sharded.removeBooksByAuthor("Author 3"));
+        assertEquals(0, sharded.queryBookByAuthor("Author 3").size());
+        assertTrue(sharded.removeBookByTitle("Book Y"));
+        assertFalse(sharded.removeBookByTitle("Book Y"));
+        expected.removeBooksByAuthor("Author 3");
+        assertEquals(expected.booksSize(), sharded.booksSize());
+
+        sharded.shutDown();
+        assertEquals(0, sharded.booksSize());
+    }
+
+    @Test
+    public void testMultiGetSameAsSingleQueries() {
+        bookDatabase = new ShardedBookDatabase(4);
+        bookDatabase.init(initTitles, initAuthors);
+        List<String> authors = Arrays.asList("Author 5", "Nobody", null, "Author 1", "Author 5");
+        List<Set<Book>> books = bookDatabase.queryBooksByAuthors(authors);
+        assertEquals(authors.size(), books.size());
+        for (int i = 0; i < authors.size(); i++) {
+            assertEquals(bookDatabase.queryBookByAuthor(authors.get(i)), books.get(i));
+        }
+        assertEquals(initAuthors, bookDatabase.queryAuthorsByBookTitles(initTitles));
+        assertEquals(Arrays.asList(Collections.emptyList(), Collections.emptyList(), initAuthors.get(7)),
+                bookDatabase.queryAuthorsByBookTitles(Arrays.asList("Book X", null, "Book 7")));
+    }
+
+    @Test
+    public void testCursorPagesAcrossShards() {
+        bookDatabase = new ShardedBookDatabase(3, index -> new LocalBookShard(
+                new DefaultBookDatabaseImpl(DefaultBookDatabaseImpl.Option.QUIET_MISSES,
+                        DefaultBookDatabaseImpl.Option.AUTHOR_PAGES)));
+        bookDatabase.init(initTitles, initAuthors);
+        List<String> expected = bookDatabase.queryBookByAuthor("Author 3").stream()
+                .map(Book::getBookTitle).sorted().collect(Collectors.toList());
+
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookPage page = bookDatabase.queryBooksByAuthorAfter("Author 3", cursor, 4);
+            assertEquals(expected.size(), page.getTotal());
+            page.getBooks().forEach(book -> titles.add(book.getBookTitle()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(expected, titles);
+        assertEquals(expected.subList(4, 8), bookDatabase.queryBooksByAuthorPage("Author 3", 1, 4).getBooks().stream()
+                .map(Book::getBookTitle).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,82 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotBookDatabaseImplTest extends BookDatabaseContractTest<SnapshotBookDatabaseImpl> {
+
+    @Override
+    protected SnapshotBookDatabaseImpl createDatabase() {
+        return new SnapshotBookDatabaseImpl();
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterWrites() {
+        bookDatabase.init(initTitles, initAuthors);
+        SnapshotBookDatabaseImpl.Snapshot before = bookDatabase.snapshot();
+        Set<Book> booksByBobBefore = bookDatabase.queryBookByAuthor("Bob");
+
+        assertTrue(bookDatabase.removeBooksByAuthor("Bob"));
+
+        assertEquals(3, before.booksSize());
+        assertEquals(5, before.authorsSize());
+        assertEquals(2, booksByBobBefore.size());
+        assertEquals(2, before.queryBookByAuthor("Bob").size());
+        assertEquals(Arrays.asList("Alice", "Bob"), before.queryAuthorsByBookTitle("Book A"));
+
+        assertEquals(1, bookDatabase.booksSize());
+        assertEquals(Collections.emptySet(), bookDatabase.queryBookByAuthor("Bob"));
+        assertEquals(Collections.emptyList(), bookDatabase.queryAuthorsByBookTitle("Book A"));
+    }
+
+    @Test
+    public void testUnchangedAuthorSetsAreShared() {
+        bookDatabase.init(initTitles, initAuthors);
+        Set<Book> booksByPeter = bookDatabase.queryBookByAuthor("Peter");
+
+        assertTrue(bookDatabase.removeBookByTitle("Book A"));
+
+        assertTrue(booksByPeter == bookDatabase.queryBookByAuthor("Peter"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testQueryResultIsImmutable() {
+        bookDatabase.init(initTitles, initAuthors);
+        bookDatabase.queryBookByAuthor("Bob").clear();
+    }
+
+    @Test
+    public void testAddBooksPublishesOneGeneration() {
+        bookDatabase.init(initTitles, initAuthors);
+        SnapshotBookDatabaseImpl.Snapshot before = bookDatabase.snapshot();
+
+        boolean[] added = bookDatabase.addBooks(Arrays.asList("Book D", "Book A", "Book E"),
+                Arrays.asList(Arrays.asList("Bob", "Susan"), Collections.singletonList("Susan"), Collections.singletonList("Susan")));
+        assertTrue(Arrays.equals(new boolean[]{true, false, true}, added));
+        assertEquals(3, before.booksSize());
+        assertEquals(5, bookDatabase.booksSize());
+        assertEquals(2, bookDatabase.queryBookByAuthor("Susan").size());
+        assertFalse(bookDatabase.addBook("Book E", Collections.singletonList("Peter")));
+    }
+
+    @Test
+    public void testViewKeepsGeneration() {
+        bookDatabase.init(initTitles, initAuthors);
+        Set<Book> view = bookDatabase.viewBooksByAuthor("Audrey");
+        bookDatabase.removeBookByTitle("Book B");
+        bookDatabase.addBook("Book D", Collections.singletonList("Audrey"));
+
+        assertEquals(new HashSet<>(Arrays.asList("Book B", "Book C")),
+                view.stream().map(Book::getBookTitle).collect(Collectors.toSet()));
+        assertEquals(new HashSet<>(Arrays.asList("Book C", "Book D")), bookDatabase.viewBooksByAuthor("Audrey").stream()
+                .map(Book::getBookTitle).collect(Collectors.toSet()));
+        assertTrue(bookDatabase.viewBooksByAuthor("Nobody").isEmpty());
+        assertTrue(bookDatabase.viewAuthorsByBookTitle("Book B").isEmpty());
+    }
+}
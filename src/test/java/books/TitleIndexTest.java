@@ -0,0 +1,61 @@
+package books;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.Assert.assertEquals;
+
+public class TitleIndexTest {
+
+    @Test
+    public void testPrefixAcrossDeltaAndArray() {
+        TitleIndex index = new TitleIndex(false);
+        index.addAll(Arrays.asList("Dune", "Dune Messiah", "Emma", "Don Quixote"));
+        index.add("Dune II");
+        index.remove("Dune Messiah");
+
+        assertEquals(Arrays.asList("Dune", "Dune II"), index.prefix("Dune").collect(Collectors.toList()));
+        assertEquals(Arrays.asList("Don Quixote", "Dune", "Dune II"), index.prefix("D").collect(Collectors.toList()));
+        assertEquals(Collections.emptyList(), index.prefix("dune").collect(Collectors.toList()));
+        assertEquals(4, index.prefix("").count());
+    }
+
+    @Test
+    public void testCaseFolding() {
+        TitleIndex index = new TitleIndex(true);
+        index.add("Dune");
+        index.add("DUNE");
+        index.add("dune messiah");
+        index.add("Emma");
+
+        assertEquals(Arrays.asList("DUNE", "Dune", "dune messiah"), index.prefix("dUnE").collect(Collectors.toList()));
+        index.remove("Dune");
+        assertEquals(Arrays.asList("DUNE", "dune messiah"), index.prefix("du").collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSameAsTreeSet() {
+        Random random = new Random(7);
+        TitleIndex index = new TitleIndex(false);
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            String title = "Title " + random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                if (expected.remove(title)) {
+                    index.remove(title);
+                }
+            } else if (expected.add(title)) {
+                index.add(title);
+            }
+            if (i % 5_000 == 0) {
+                String prefix = "Title " + random.nextInt(200);
+                assertEquals(expected.subSet(prefix, prefix + Character.MAX_VALUE).stream().collect(Collectors.toList()),
+                        index.prefix(prefix).collect(Collectors.toList()));
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        assertEquals(new ArrayList<>(expected), index.prefix("").collect(Collectors.toList()));
+    }
+}